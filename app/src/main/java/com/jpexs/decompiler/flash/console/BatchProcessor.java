@@ -0,0 +1,254 @@
+/*
+ *  Copyright (C) 2010-2021 JPEXS
+ * 
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ * 
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ * 
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.jpexs.decompiler.flash.console;
+
+import com.eclipsesource.json.JsonArray;
+import com.eclipsesource.json.JsonObject;
+import com.jpexs.decompiler.flash.AbortRetryIgnoreHandler;
+import com.jpexs.helpers.utf8.Utf8Helper;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Processes the SWF files of the commandline batch mode. Several files are
+ * processed at once, and a file is started only when its estimated memory
+ * fits into the heap budget. A failing file does not stop the others. The
+ * result of each file is written as one JSON line to the summary file.
+ *
+ * @author JPEXS
+ */
+public class BatchProcessor {
+
+    private static final Logger logger = Logger.getLogger(BatchProcessor.class.getName());
+
+    /**
+     * Estimated heap usage per byte of uncompressed SWF data.
+     */
+    private static final int MEMORY_PER_SWF_BYTE = 16;
+
+    private static final long MIN_FILE_MEMORY = 1024 * 1024;
+
+    public interface FileAction {
+
+        /**
+         * Processes one file.
+         *
+         * @param file File
+         * @param handler Error handler of the file
+         * @return False when the file was processed with errors
+         * @throws Exception On error, the file is reported as failed
+         */
+        public boolean process(File file, AbortRetryIgnoreHandler handler) throws Exception;
+    }
+
+    private final int maxFiles;
+
+    private final long memoryBudget;
+
+    private final Object memoryLock = new Object();
+
+    private long memoryUsed = 0;
+
+    /**
+     * Constructs the processor.
+     *
+     * @param maxFiles Maximum number of files processed at once
+     * @param memoryBudget Heap budget in bytes for the files being processed
+     */
+    public BatchProcessor(int maxFiles, long memoryBudget) {
+        this.maxFiles = maxFiles;
+        this.memoryBudget = memoryBudget;
+    }
+
+    /**
+     * Processes the files.
+     *
+     * @param files Files
+     * @param handler Error handler, a new instance is used for each file
+     * @param summaryFile File to write the summary to, can be null
+     * @param outputOf Returns the output file or directory of a file, used
+     * to report the output size
+     * @param action Action
+     * @return True when all files were processed without errors
+     * @throws IOException When the summary cannot be written
+     * @throws InterruptedException On interrupt
+     */
+    public boolean process(List<File> files, AbortRetryIgnoreHandler handler, File summaryFile, Function<File, File> outputOf, FileAction action) throws IOException, InterruptedException {
+        final AtomicBoolean allOk = new AtomicBoolean(true);
+        final Semaphore slots = new Semaphore(maxFiles);
+        ExecutorService pool = Executors.newFixedThreadPool(maxFiles);
+        try (PrintWriter summary = summaryFile == null ? null : new PrintWriter(new OutputStreamWriter(new FileOutputStream(summaryFile), Utf8Helper.charset))) {
+            try {
+                for (final File file : files) {
+                    final long memory = estimateMemory(file);
+                    slots.acquire();
+                    reserveMemory(memory);
+                    pool.execute(() -> {
+                        try {
+                            JsonObject result = processFile(file, handler.getNewInstance(), outputOf, action);
+                            if (!"OK".equals(result.getString("status", null))) {
+                                allOk.set(false);
+                            }
+
+                            if (summary != null) {
+                                synchronized (summary) {
+                                    summary.println(result.toString());
+                                    summary.flush();
+                                }
+                            }
+                        } finally {
+                            releaseMemory(memory);
+                            slots.release();
+                        }
+                    });
+                }
+            } finally {
+                pool.shutdown();
+            }
+
+            pool.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        }
+
+        return allOk.get();
+    }
+
+    private JsonObject processFile(File file, AbortRetryIgnoreHandler handler, Function<File, File> outputOf, FileAction action) {
+        RecordingHandler recordingHandler = new RecordingHandler(handler);
+        long startTime = System.currentTimeMillis();
+        String status;
+        try {
+            boolean ok = action.process(file, recordingHandler);
+            status = ok && recordingHandler.errors.isEmpty() ? "OK" : "FAIL";
+        } catch (Throwable ex) {
+            logger.log(Level.SEVERE, "Failed to process " + file.getName(), ex);
+            recordingHandler.errors.add(ex.toString());
+            status = "ERROR";
+        }
+
+        long time = System.currentTimeMillis() - startTime;
+        JsonArray errors = new JsonArray();
+        synchronized (recordingHandler.errors) {
+            for (String error : recordingHandler.errors) {
+                errors.add(error);
+            }
+        }
+
+        return new JsonObject()
+                .add("file", file.getPath())
+                .add("status", status)
+                .add("time", time)
+                .add("inputBytes", file.length())
+                .add("outputBytes", getSize(outputOf.apply(file)))
+                .add("errors", errors);
+    }
+
+    private long estimateMemory(File file) {
+        long length = file.length();
+        try (InputStream is = new FileInputStream(file)) {
+            byte[] header = new byte[8];
+            if (is.read(header) == 8 && header[1] == 'W' && header[2] == 'S'
+                    && (header[0] == 'F' || header[0] == 'C' || header[0] == 'Z')) {
+                // uncompressed length from the SWF header
+                length = (header[4] & 0xff) | ((header[5] & 0xff) << 8) | ((header[6] & 0xff) << 16) | ((long) (header[7] & 0xff) << 24);
+            }
+        } catch (IOException ex) {
+            // the error is reported when the file is processed
+        }
+
+        long memory = Math.max(MIN_FILE_MEMORY, length * MEMORY_PER_SWF_BYTE);
+        return Math.min(memory, memoryBudget);
+    }
+
+    private void reserveMemory(long memory) throws InterruptedException {
+        synchronized (memoryLock) {
+            while (memoryUsed > 0 && memoryUsed + memory > memoryBudget) {
+                memoryLock.wait();
+            }
+
+            memoryUsed += memory;
+        }
+    }
+
+    private void releaseMemory(long memory) {
+        synchronized (memoryLock) {
+            memoryUsed -= memory;
+            memoryLock.notifyAll();
+        }
+    }
+
+    private static long getSize(File file) {
+        if (file == null || !file.exists()) {
+            return 0;
+        }
+
+        if (!file.isDirectory()) {
+            return file.length();
+        }
+
+        long size = 0;
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                size += getSize(child);
+            }
+        }
+
+        return size;
+    }
+
+    /**
+     * Passes the errors to the original handler and remembers them for the
+     * summary.
+     */
+    private static class RecordingHandler implements AbortRetryIgnoreHandler {
+
+        private final AbortRetryIgnoreHandler handler;
+
+        private final List<String> errors = Collections.synchronizedList(new ArrayList<>());
+
+        public RecordingHandler(AbortRetryIgnoreHandler handler) {
+            this.handler = handler;
+        }
+
+        @Override
+        public int handle(Throwable thrown) {
+            errors.add(String.valueOf(thrown));
+            return handler.handle(thrown);
+        }
+
+        @Override
+        public AbortRetryIgnoreHandler getNewInstance() {
+            return new RecordingHandler(handler.getNewInstance());
+        }
+    }
+}
@@ -205,6 +205,7 @@ import java.util.Stack;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -224,6 +225,12 @@ public class CommandLineArgumentParser {
 
     private static String stdErr = null;
 
+    private static int batchSize = 0;
+
+    private static long batchMemory = Runtime.getRuntime().maxMemory() / 4 * 3;
+
+    private static File batchSummary = null;
+
     private static final String METADATA_FORMAT_JSLIKE = "jslike";
 
     private static final String METADATA_FORMAT_RAW = "raw";
@@ -315,6 +322,14 @@ public class CommandLineArgumentParser {
             out.println("  ...auto start proxy in the tray. Optional parameter -P specifies port for proxy. Defaults to 55555. ");
         }
 
+        if (filter == null || filter.equals("server")) {
+            out.println(" " + (cnt++) + ") -server [-P<port>] [-exportroot <directory>]");
+            out.println("  ...starts headless decompiler server on localhost which keeps opened SWF files in memory. Optional parameter -P specifies port. Defaults to " + DecompilerServer.DEFAULT_PORT + ".");
+            out.println("  Optional parameter -exportroot restricts the output directories of export command to the given directory.");
+            out.println("  Requests are JSON objects, one per line, with \"id\", \"command\" and \"token\" fields. Commands: open, close, scripts, decompile, search, export, cancel.");
+            out.println("  The token is generated on each start and written to the file server_<port>.token in the FFDec home directory, readable only by the current user.");
+        }
+
         if (filter == null || filter.equals("export")) {
             out.println(" " + (cnt++) + ") -export <itemtypes> <outdirectory> <infile_or_directory>");
             out.println("  ...export <infile_or_directory> sources to <outdirectory>.");
@@ -502,7 +517,22 @@ public class CommandLineArgumentParser {
 
         if (filter == null || filter.equals("stat")) {
             out.println(" " + (cnt++) + ") -stat");
-            out.println("  ...show export performance statistics");
+            out.println("  ...show export performance statistics. Cannot be combined with -batch.");
+        }
+
+        if (filter == null || filter.equals("batch")) {
+            out.println(" " + (cnt++) + ") -batch <N>");
+            out.println("  ...when exporting a folder, process its SWF files and subfolders with N files at once. One failing file does not stop the export.");
+        }
+
+        if (filter == null || filter.equals("batchmemory")) {
+            out.println(" " + (cnt++) + ") -batchMemory <N>");
+            out.println("  ...heap budget in megabytes for the files processed at once in batch mode. Default is 3/4 of the maximum heap.");
+        }
+
+        if (filter == null || filter.equals("batchsummary")) {
+            out.println(" " + (cnt++) + ") -batchSummary <file>");
+            out.println("  ...write the result of each file in batch mode (status, time, bytes, errors) as one JSON line to <file>");
         }
 
         if (filter == null || filter.equals("flashpaper2pdf")) {
@@ -668,6 +698,11 @@ public class CommandLineArgumentParser {
             exampleFound = true;
         }
 
+        if (filter == null || filter.equals("server")) {
+            out.println(PREFIX + "-server -P1234");
+            exampleFound = true;
+        }
+
         if (filter == null || filter.equals("export") || filter.equals("format") || filter.equals("selectclass") || filter.equals("onerror")) {
             out.println(PREFIX + "-export script \"C:\\decompiled\" myfile.swf");
             out.println(PREFIX + "-selectclass com.example.MyClass,com.example.SecondClass -export script \"C:\\decompiled\" myfile.swf");
@@ -822,6 +857,15 @@ public class CommandLineArgumentParser {
                 case "-stat":
                     parseStat(args);
                     break;
+                case "-batch":
+                    parseBatch(args);
+                    break;
+                case "-batchmemory":
+                    parseBatchMemory(args);
+                    break;
+                case "-batchsummary":
+                    parseBatchSummary(args);
+                    break;
                 case "-info":
                     parseInfo(args);
                     break;
@@ -888,6 +932,8 @@ public class CommandLineArgumentParser {
             System.exit(0);
         } else if (command.equals("proxy")) {
             parseProxy(args);
+        } else if (command.equals("server")) {
+            parseServer(args);
         } else if (command.equals("export")) {
             parseExport(selectionClasses, selection, selectionIds, args, handler, traceLevel, format, zoom);
         } else if (command.equals("compress")) {
@@ -1849,6 +1895,44 @@ public class CommandLineArgumentParser {
         Configuration.showStat = showStat;
     }
 
+    private static void parseBatch(Stack<String> args) {
+        if (args.isEmpty()) {
+            System.err.println("batch parameter expected");
+            badArguments("batch");
+        }
+        try {
+            batchSize = Integer.parseInt(args.pop());
+            if (batchSize < 1) {
+                System.err.println("Bad batch value");
+                badArguments("batch");
+            }
+        } catch (NumberFormatException nex) {
+            System.err.println("Bad batch value");
+            badArguments("batch");
+        }
+    }
+
+    private static void parseBatchMemory(Stack<String> args) {
+        if (args.isEmpty()) {
+            System.err.println("batchmemory parameter expected");
+            badArguments("batchmemory");
+        }
+        try {
+            batchMemory = Long.parseLong(args.pop()) * 1024 * 1024;
+        } catch (NumberFormatException nex) {
+            System.err.println("Bad batchmemory value");
+            badArguments("batchmemory");
+        }
+    }
+
+    private static void parseBatchSummary(Stack<String> args) {
+        if (args.isEmpty()) {
+            System.err.println("batchsummary parameter expected");
+            badArguments("batchsummary");
+        }
+        batchSummary = new File(args.pop());
+    }
+
     private static void parseStdOut(Stack<String> args) {
         if (args.isEmpty()) {
             System.err.println("stdOut parameter expected");
@@ -2062,6 +2146,36 @@ public class CommandLineArgumentParser {
         Main.startProxy(port);
     }
 
+    private static void parseServer(Stack<String> args) {
+        int port = DecompilerServer.DEFAULT_PORT;
+        String portStr = args.isEmpty() ? null : args.peek();
+        if (portStr != null && portStr.startsWith("-P")) {
+            args.pop();
+            try {
+                port = Integer.parseInt(portStr.substring(2));
+            } catch (NumberFormatException nex) {
+                System.err.println("Bad port number");
+                badArguments("server");
+            }
+        }
+
+        File exportRoot = null;
+        if (!args.isEmpty() && args.peek().equals("-exportroot")) {
+            args.pop();
+            if (args.isEmpty()) {
+                badArguments("server");
+            }
+            exportRoot = new File(args.pop());
+        }
+
+        try {
+            new DecompilerServer(port, DecompilerServer.DEFAULT_MAX_OPEN_SWFS, DecompilerServer.DEFAULT_IDLE_TIME, exportRoot).run();
+        } catch (IOException ex) {
+            System.err.println("Cannot start server: " + ex.getMessage());
+            System.exit(1);
+        }
+    }
+
     private static List<String> parseSelectClass(Stack<String> args) {
         if (args.size() < 1) {
             badArguments("selectclass");
@@ -2135,258 +2249,325 @@ public class CommandLineArgumentParser {
             as3classes.addAll(selectionClasses);
         }
 
+        // First check all the specified export formats
+        for (String exportFormat : exportFormats) {
+            if (Arrays.asList(removedExportFormats).contains(exportFormat)) {
+                System.err.println("Error: Export format : " + exportFormat + " was REMOVED. Run application with --help parameter to see available formats.");
+                System.exit(1);
+            } else if (!Arrays.asList(validExportItems).contains(exportFormat)) {
+                System.err.println("Invalid export item:" + exportFormat);
+                badArguments("export");
+            }
+        }
+
         Map<String, StatisticData> stat = new HashMap<>();
 
+        if (showStat && batchSize > 0 && inFileOrFolder.isDirectory()) {
+            // the statistics are collected per process, parallel files would mix them
+            System.err.println("Error: -stat cannot be combined with -batch");
+            badArguments("stat");
+        }
+
         try {
-            File[] inFiles;
-            boolean singleFile = true;
-            if (inFileOrFolder.isDirectory()) {
-                singleFile = false;
-                inFiles = inFileOrFolder.listFiles(getSwfFilter());
+            if (batchSize > 0 && inFileOrFolder.isDirectory()) {
+                exportOK = exportSwfBatch(inFileOrFolder, outDirBase, exportFormats, formats, selection, selectionIds, as3classes, handler, traceLevel, zoom, stat);
             } else {
-                inFiles = new File[]{inFileOrFolder};
-            }
-
-            for (File inFile : inFiles) {
-                String inFileName = Path.getFileNameWithoutExtension(inFile);
-                if (stdOut != null) {
-                    String outFilePath = stdOut.replace("{swfFile}", inFileName);
-                    Path.createDirectorySafe(new File(outFilePath).getParentFile());
-                    System.setOut(new PrintStream(new FileOutputStream(outFilePath, true)));
+                File[] inFiles;
+                boolean singleFile = true;
+                if (inFileOrFolder.isDirectory()) {
+                    singleFile = false;
+                    inFiles = inFileOrFolder.listFiles(getSwfFilter());
+                } else {
+                    inFiles = new File[]{inFileOrFolder};
                 }
 
-                if (stdErr != null) {
-                    String errFilePath = stdErr.replace("{swfFile}", inFileName);
-                    Path.createDirectorySafe(new File(errFilePath).getParentFile());
-                    System.setErr(new PrintStream(new FileOutputStream(errFilePath, true)));
-                    Main.initLogging(Configuration._debugMode.get());
-                }
+                for (File inFile : inFiles) {
+                    String inFileName = Path.getFileNameWithoutExtension(inFile);
+                    if (stdOut != null) {
+                        String outFilePath = stdOut.replace("{swfFile}", inFileName);
+                        Path.createDirectorySafe(new File(outFilePath).getParentFile());
+                        System.setOut(new PrintStream(new FileOutputStream(outFilePath, true)));
+                    }
 
-                long startTimeSwf = 0;
-                if (!singleFile) {
-                    startTimeSwf = System.currentTimeMillis();
-                    System.out.println("Start exporting " + inFile.getName());
-                }
+                    if (stdErr != null) {
+                        String errFilePath = stdErr.replace("{swfFile}", inFileName);
+                        Path.createDirectorySafe(new File(errFilePath).getParentFile());
+                        System.setErr(new PrintStream(new FileOutputStream(errFilePath, true)));
+                        Main.initLogging(Configuration._debugMode.get());
+                    }
 
-                SWFSourceInfo sourceInfo = new SWFSourceInfo(null, inFile.getAbsolutePath(), inFile.getName());
-                SWF swf;
-                try {
-                    swf = new SWF(new FileInputStream(inFile), sourceInfo.getFile(), sourceInfo.getFileTitle(), Configuration.parallelSpeedUp.get());
-                } catch (FileNotFoundException | SwfOpenException ex) {
-                    // FileNotFoundException when anti virus software blocks to open the file
-                    logger.log(Level.SEVERE, "Failed to open swf: " + inFile.getName(), ex);
-                    continue;
-                }
+                    try {
+                        exportOK = exportSwf(inFile, singleFile, outDirBase, exportFormats, formats, selection, selectionIds, as3classes, handler, traceLevel, zoom, stat) && exportOK;
+                    } catch (FileNotFoundException | SwfOpenException ex) {
+                        // FileNotFoundException when anti virus software blocks to open the file
+                        logger.log(Level.SEVERE, "Failed to open swf: " + inFile.getName(), ex);
+                        continue;
+                    }
 
-                swf.swfList = new SWFList();
-                swf.swfList.sourceInfo = sourceInfo;
-                String outDir = outDirBase.getAbsolutePath();
-                if (!singleFile) {
-                    outDir = Path.combine(outDir, inFile.getName());
+                    CancellableWorker.cancelBackgroundThreads();
                 }
+            }
+        } catch (OutOfMemoryError | Exception ex) {
+            System.err.print("FAIL: Exporting Failed on Exception - ");
+            logger.log(Level.SEVERE, null, ex);
+            System.exit(1);
+        }
 
-                List<Tag> extags = new ArrayList<>();
-                for (Tag t : swf.getTags()) {
-                    if (t instanceof CharacterIdTag) {
-                        CharacterIdTag c = (CharacterIdTag) t;
-                        if (selectionIds.contains(c.getCharacterId())) {
-                            extags.add(t);
-                        }
-                    } else if (selectionIds.contains(0)) {
-                        extags.add(t);
-                    }
-                }
+        if (showStat) {
+            Statistics.print(stat);
+        }
 
-                final Level level = traceLevel;
-                swf.addEventListener(new EventListener() {
-                    @Override
-                    public void handleExportingEvent(String type, int index, int count, Object data) {
-                        if (level.intValue() <= Level.FINE.intValue()) {
-                            String text = "Exporting ";
-                            if (type != null && type.length() > 0) {
-                                text += type + " ";
-                            }
-                            System.out.println(text + index + "/" + count + " " + data);
-                        }
-                    }
+        long stopTime = System.currentTimeMillis();
+        long time = stopTime - startTime;
+        System.out.println("Export finished. Total export time: " + Helper.formatTimeSec(time));
+        System.out.println(exportOK ? "OK" : "FAIL");
+        System.exit(exportOK ? 0 : 1);
+    }
 
-                    @Override
-                    public void handleExportedEvent(String type, int index, int count, Object data) {
-                        String text = "Exported ";
-                        if (type != null && type.length() > 0) {
-                            text += type + " ";
-                        }
-                        System.out.println(text + index + "/" + count + " " + data);
-                    }
+    private static boolean exportSwfBatch(File inFolder, File outDirBase, List<String> exportFormats, Map<String, String> formats, Selection selection, Selection selectionIds, List<String> as3classes, AbortRetryIgnoreHandler handler, Level traceLevel, double zoom, Map<String, StatisticData> stat) throws IOException, InterruptedException {
+        if (stdOut != null || stdErr != null) {
+            System.err.println("Warning: -stdout and -stderr are ignored in batch mode");
+        }
 
-                    @Override
-                    public void handleEvent(String event, Object data) {
-                    }
-                });
+        if (handler instanceof ConsoleAbortRetryIgnoreHandler && ((ConsoleAbortRetryIgnoreHandler) handler).errorMode == AbortRetryIgnoreHandler.UNDEFINED) {
+            // asking on console would block the other files
+            handler = new ConsoleAbortRetryIgnoreHandler(AbortRetryIgnoreHandler.IGNORE, 0);
+        }
 
-                // First check all the specified export formats
-                for (String exportFormat : exportFormats) {
-                    if (Arrays.asList(removedExportFormats).contains(exportFormat)) {
-                        System.err.println("Error: Export format : " + exportFormat + " was REMOVED. Run application with --help parameter to see available formats.");
-                        System.exit(1);
-                    } else if (!Arrays.asList(validExportItems).contains(exportFormat)) {
-                        System.err.println("Invalid export item:" + exportFormat);
-                        badArguments("export");
-                    }
-                }
+        List<File> inFiles = new ArrayList<>();
+        collectSwfFiles(inFolder, inFiles);
+        String inFolderPath = inFolder.getAbsolutePath();
+        Function<File, File> outDirOf = (File inFile) -> {
+            // mirror the subfolders of the input folder
+            String relativePath = inFile.getAbsoluteFile().getParent().substring(inFolderPath.length());
+            return new File(outDirBase.getAbsolutePath() + relativePath);
+        };
 
-                // Here the exportFormats array should contain only validitems
-                commandLineMode = true;
-                boolean exportAll = exportFormats.contains("all");
-                boolean multipleExportTypes = exportAll || exportFormats.size() > 1;
-                EventListener evl = swf.getExportEventListener();
+        boolean exportOK = new BatchProcessor(batchSize, batchMemory).process(inFiles, handler, batchSummary,
+                (File inFile) -> new File(outDirOf.apply(inFile), inFile.getName()),
+                (File inFile, AbortRetryIgnoreHandler fileHandler) -> exportSwf(inFile, false, outDirOf.apply(inFile), exportFormats, formats, selection, selectionIds, as3classes, fileHandler, traceLevel, zoom, stat));
+        CancellableWorker.cancelBackgroundThreads();
+        return exportOK;
+    }
 
-                if (exportAll || exportFormats.contains("image")) {
-                    System.out.println("Exporting images...");
-                    new ImageExporter().exportImages(handler, outDir + (multipleExportTypes ? File.separator + ImageExportSettings.EXPORT_FOLDER_NAME : ""), new ReadOnlyTagList(extags), new ImageExportSettings(enumFromStr(formats.get("image"), ImageExportMode.class)), evl);
-                }
+    private static void collectSwfFiles(File folder, List<File> result) {
+        File[] files = folder.listFiles();
+        if (files == null) {
+            return;
+        }
 
-                if (exportAll || exportFormats.contains("shape")) {
-                    System.out.println("Exporting shapes...");
-                    new ShapeExporter().exportShapes(handler, outDir + (multipleExportTypes ? File.separator + ShapeExportSettings.EXPORT_FOLDER_NAME : ""), swf, new ReadOnlyTagList(extags), new ShapeExportSettings(enumFromStr(formats.get("shape"), ShapeExportMode.class), zoom), evl, zoom);
-                }
+        Arrays.sort(files);
+        for (File file : files) {
+            if (file.isDirectory()) {
+                collectSwfFiles(file, result);
+            } else if (getSwfFilter().accept(folder, file.getName())) {
+                result.add(file);
+            }
+        }
+    }
 
-                if (exportAll || exportFormats.contains("morphshape")) {
-                    System.out.println("Exporting morphshapes...");
-                    new MorphShapeExporter().exportMorphShapes(handler, outDir + (multipleExportTypes ? File.separator + MorphShapeExportSettings.EXPORT_FOLDER_NAME : ""), new ReadOnlyTagList(extags), new MorphShapeExportSettings(enumFromStr(formats.get("morphshape"), MorphShapeExportMode.class), zoom), evl);
-                }
+    private static boolean exportSwf(File inFile, boolean singleFile, File outDirBase, List<String> exportFormats, Map<String, String> formats, Selection selection, Selection selectionIds, List<String> as3classes, AbortRetryIgnoreHandler handler, Level traceLevel, double zoom, Map<String, StatisticData> stat) throws Exception {
+        boolean exportOK = true;
+        long startTimeSwf = 0;
+        if (!singleFile) {
+            startTimeSwf = System.currentTimeMillis();
+            System.out.println("Start exporting " + inFile.getName());
+        }
 
-                if (exportAll || exportFormats.contains("movie")) {
-                    System.out.println("Exporting movies...");
-                    new MovieExporter().exportMovies(handler, outDir + (multipleExportTypes ? File.separator + MovieExportSettings.EXPORT_FOLDER_NAME : ""), new ReadOnlyTagList(extags), new MovieExportSettings(enumFromStr(formats.get("movie"), MovieExportMode.class)), evl);
-                }
+        SWFSourceInfo sourceInfo = new SWFSourceInfo(null, inFile.getAbsolutePath(), inFile.getName());
+        SWF swf;
+        try (FileInputStream fis = new FileInputStream(inFile)) {
+            swf = new SWF(fis, sourceInfo.getFile(), sourceInfo.getFileTitle(), Configuration.parallelSpeedUp.get());
+        }
 
-                if (exportAll || exportFormats.contains("font")) {
-                    System.out.println("Exporting fonts...");
-                    new FontExporter().exportFonts(handler, outDir + (multipleExportTypes ? File.separator + FontExportSettings.EXPORT_FOLDER_NAME : ""), new ReadOnlyTagList(extags), new FontExportSettings(enumFromStr(formats.get("font"), FontExportMode.class)), evl);
-                }
+        swf.swfList = new SWFList();
+        swf.swfList.sourceInfo = sourceInfo;
+        String outDir = outDirBase.getAbsolutePath();
+        if (!singleFile) {
+            outDir = Path.combine(outDir, inFile.getName());
+        }
 
-                if (exportAll || exportFormats.contains("sound")) {
-                    System.out.println("Exporting sounds...");
-                    new SoundExporter().exportSounds(handler, outDir + (multipleExportTypes ? File.separator + SoundExportSettings.EXPORT_FOLDER_NAME : ""), new ReadOnlyTagList(extags), new SoundExportSettings(enumFromStr(formats.get("sound"), SoundExportMode.class)), evl);
+        List<Tag> extags = new ArrayList<>();
+        for (Tag t : swf.getTags()) {
+            if (t instanceof CharacterIdTag) {
+                CharacterIdTag c = (CharacterIdTag) t;
+                if (selectionIds.contains(c.getCharacterId())) {
+                    extags.add(t);
                 }
+            } else if (selectionIds.contains(0)) {
+                extags.add(t);
+            }
+        }
 
-                if (exportAll || exportFormats.contains("binarydata")) {
-                    System.out.println("Exporting binaryData...");
-                    new BinaryDataExporter().exportBinaryData(handler, outDir + (multipleExportTypes ? File.separator + BinaryDataExportSettings.EXPORT_FOLDER_NAME : ""), new ReadOnlyTagList(extags), new BinaryDataExportSettings(enumFromStr(formats.get("binarydata"), BinaryDataExportMode.class)), evl);
+        final Level level = traceLevel;
+        swf.addEventListener(new EventListener() {
+            @Override
+            public void handleExportingEvent(String type, int index, int count, Object data) {
+                if (level.intValue() <= Level.FINE.intValue()) {
+                    String text = "Exporting ";
+                    if (type != null && type.length() > 0) {
+                        text += type + " ";
+                    }
+                    System.out.println(text + index + "/" + count + " " + data);
                 }
+            }
 
-                if (exportAll || exportFormats.contains("text")) {
-                    System.out.println("Exporting texts...");
-                    Boolean singleTextFile = parseBooleanConfigValue(formats.get("singletext"));
-                    if (singleTextFile == null) {
-                        singleTextFile = Configuration.textExportSingleFile.get();
-                    }
-                    new TextExporter().exportTexts(handler, outDir + (multipleExportTypes ? File.separator + TextExportSettings.EXPORT_FOLDER_NAME : ""), new ReadOnlyTagList(extags), new TextExportSettings(enumFromStr(formats.get("text"), TextExportMode.class), singleTextFile, zoom), evl);
+            @Override
+            public void handleExportedEvent(String type, int index, int count, Object data) {
+                String text = "Exported ";
+                if (type != null && type.length() > 0) {
+                    text += type + " ";
                 }
+                System.out.println(text + index + "/" + count + " " + data);
+            }
 
-                FrameExporter frameExporter = new FrameExporter();
+            @Override
+            public void handleEvent(String event, Object data) {
+            }
+        });
 
-                if (exportAll || exportFormats.contains("frame")) {
-                    System.out.println("Exporting frames...");
-                    List<Integer> frames = new ArrayList<>();
-                    for (int i = 0; i < swf.frameCount; i++) {
-                        if (selection.contains(i + 1)) {
-                            frames.add(i);
-                        }
-                    }
-                    FrameExportSettings fes = new FrameExportSettings(enumFromStr(formats.get("frame"), FrameExportMode.class), zoom);
-                    frameExporter.exportFrames(handler, outDir + (multipleExportTypes ? File.separator + FrameExportSettings.EXPORT_FOLDER_NAME : ""), swf, 0, frames, fes, evl);
-                }
+        // Here the exportFormats array should contain only validitems
+        commandLineMode = true;
+        boolean exportAll = exportFormats.contains("all");
+        boolean multipleExportTypes = exportAll || exportFormats.size() > 1;
+        EventListener evl = swf.getExportEventListener();
 
-                if (exportAll || exportFormats.contains("sprite")) {
-                    System.out.println("Exporting sprite...");
-                    SpriteExportSettings ses = new SpriteExportSettings(enumFromStr(formats.get("sprite"), SpriteExportMode.class), zoom);
-                    for (Tag t : extags) {
-                        if (t instanceof DefineSpriteTag) {
-                            frameExporter.exportSpriteFrames(handler, outDir + (multipleExportTypes ? File.separator + SpriteExportSettings.EXPORT_FOLDER_NAME : ""), swf, ((DefineSpriteTag) t).getCharacterId(), null, ses, evl);
-                        }
-                    }
-                }
+        if (exportAll || exportFormats.contains("image")) {
+            System.out.println("Exporting images...");
+            new ImageExporter().exportImages(handler, outDir + (multipleExportTypes ? File.separator + ImageExportSettings.EXPORT_FOLDER_NAME : ""), new ReadOnlyTagList(extags), new ImageExportSettings(enumFromStr(formats.get("image"), ImageExportMode.class)), evl);
+        }
 
-                if (exportAll || exportFormats.contains("button")) {
-                    System.out.println("Exporting buttons...");
-                    ButtonExportSettings bes = new ButtonExportSettings(enumFromStr(formats.get("button"), ButtonExportMode.class), zoom);
-                    for (Tag t : extags) {
-                        if (t instanceof ButtonTag) {
-                            frameExporter.exportButtonFrames(handler, outDir + (multipleExportTypes ? File.separator + ButtonExportSettings.EXPORT_FOLDER_NAME : ""), swf, ((ButtonTag) t).getCharacterId(), null, bes, evl);
-                        }
-                    }
-                }
+        if (exportAll || exportFormats.contains("shape")) {
+            System.out.println("Exporting shapes...");
+            new ShapeExporter().exportShapes(handler, outDir + (multipleExportTypes ? File.separator + ShapeExportSettings.EXPORT_FOLDER_NAME : ""), swf, new ReadOnlyTagList(extags), new ShapeExportSettings(enumFromStr(formats.get("shape"), ShapeExportMode.class), zoom), evl, zoom);
+        }
 
-                boolean parallel = Configuration.parallelSpeedUp.get();
-                Boolean singleScriptFile = parseBooleanConfigValue(formats.get("singlescript"));
-                if (singleScriptFile == null) {
-                    singleScriptFile = Configuration.scriptExportSingleFile.get();
-                }
+        if (exportAll || exportFormats.contains("morphshape")) {
+            System.out.println("Exporting morphshapes...");
+            new MorphShapeExporter().exportMorphShapes(handler, outDir + (multipleExportTypes ? File.separator + MorphShapeExportSettings.EXPORT_FOLDER_NAME : ""), new ReadOnlyTagList(extags), new MorphShapeExportSettings(enumFromStr(formats.get("morphshape"), MorphShapeExportMode.class), zoom), evl);
+        }
 
-                if (parallel && singleScriptFile) {
-                    logger.log(Level.WARNING, AppStrings.translate("export.script.singleFilePallelModeWarning"));
-                    singleScriptFile = false;
-                }
+        if (exportAll || exportFormats.contains("movie")) {
+            System.out.println("Exporting movies...");
+            new MovieExporter().exportMovies(handler, outDir + (multipleExportTypes ? File.separator + MovieExportSettings.EXPORT_FOLDER_NAME : ""), new ReadOnlyTagList(extags), new MovieExportSettings(enumFromStr(formats.get("movie"), MovieExportMode.class)), evl);
+        }
 
-                ScriptExportSettings scriptExportSettings = new ScriptExportSettings(enumFromStr(formats.get("script"), ScriptExportMode.class), singleScriptFile, false);
-                boolean exportAllScript = exportAll || exportFormats.contains("script");
-                boolean exportAs2Script = exportAllScript || exportFormats.contains("script_as2");
-                boolean exportAs3Script = exportAllScript || exportFormats.contains("script_as3");
-                if (exportAs2Script || exportAs3Script) {
-                    System.out.println("Exporting scripts...");
-
-                    String scriptsFolder = Path.combine(outDir, ScriptExportSettings.EXPORT_FOLDER_NAME);
-                    Path.createDirectorySafe(new File(scriptsFolder));
-                    String singleFileName = Path.combine(scriptsFolder, swf.getShortFileName() + scriptExportSettings.getFileExtension());
-                    try (FileTextWriter writer = scriptExportSettings.singleFile ? new FileTextWriter(Configuration.getCodeFormatting(), new FileOutputStream(singleFileName)) : null) {
-                        scriptExportSettings.singleFileWriter = writer;
-                        List<ScriptPack> as3packs = as3classes.isEmpty() ? null : swf.getScriptPacksByClassNames(as3classes);
-                        exportOK = swf.exportActionScript(handler, scriptsFolder, as3classes.isEmpty() ? null : as3packs, scriptExportSettings, parallel, evl, exportAs2Script, exportAs3Script) != null && exportOK;
-                    }
+        if (exportAll || exportFormats.contains("font")) {
+            System.out.println("Exporting fonts...");
+            new FontExporter().exportFonts(handler, outDir + (multipleExportTypes ? File.separator + FontExportSettings.EXPORT_FOLDER_NAME : ""), new ReadOnlyTagList(extags), new FontExportSettings(enumFromStr(formats.get("font"), FontExportMode.class)), evl);
+        }
 
-                    if (showStat) {
-                        Statistics.print();
-                        Statistics.addToMap(stat);
-                        Statistics.clear();
-                    }
-                }
+        if (exportAll || exportFormats.contains("sound")) {
+            System.out.println("Exporting sounds...");
+            new SoundExporter().exportSounds(handler, outDir + (multipleExportTypes ? File.separator + SoundExportSettings.EXPORT_FOLDER_NAME : ""), new ReadOnlyTagList(extags), new SoundExportSettings(enumFromStr(formats.get("sound"), SoundExportMode.class)), evl);
+        }
+
+        if (exportAll || exportFormats.contains("binarydata")) {
+            System.out.println("Exporting binaryData...");
+            new BinaryDataExporter().exportBinaryData(handler, outDir + (multipleExportTypes ? File.separator + BinaryDataExportSettings.EXPORT_FOLDER_NAME : ""), new ReadOnlyTagList(extags), new BinaryDataExportSettings(enumFromStr(formats.get("binarydata"), BinaryDataExportMode.class)), evl);
+        }
 
-                if (exportFormats.contains("fla")) {
-                    System.out.println("Exporting FLA...");
-                    exportFla(true, outDir, inFile, swf, multipleExportTypes, formats, handler);
+        if (exportAll || exportFormats.contains("text")) {
+            System.out.println("Exporting texts...");
+            Boolean singleTextFile = parseBooleanConfigValue(formats.get("singletext"));
+            if (singleTextFile == null) {
+                singleTextFile = Configuration.textExportSingleFile.get();
+            }
+            new TextExporter().exportTexts(handler, outDir + (multipleExportTypes ? File.separator + TextExportSettings.EXPORT_FOLDER_NAME : ""), new ReadOnlyTagList(extags), new TextExportSettings(enumFromStr(formats.get("text"), TextExportMode.class), singleTextFile, zoom), evl);
+        }
+
+        FrameExporter frameExporter = new FrameExporter();
+
+        if (exportAll || exportFormats.contains("frame")) {
+            System.out.println("Exporting frames...");
+            List<Integer> frames = new ArrayList<>();
+            for (int i = 0; i < swf.frameCount; i++) {
+                if (selection.contains(i + 1)) {
+                    frames.add(i);
                 }
+            }
+            FrameExportSettings fes = new FrameExportSettings(enumFromStr(formats.get("frame"), FrameExportMode.class), zoom);
+            frameExporter.exportFrames(handler, outDir + (multipleExportTypes ? File.separator + FrameExportSettings.EXPORT_FOLDER_NAME : ""), swf, 0, frames, fes, evl);
+        }
 
-                if (exportFormats.contains("xfl")) {
-                    System.out.println("Exporting XFL...");
-                    exportFla(false, outDir, inFile, swf, multipleExportTypes, formats, handler);
+        if (exportAll || exportFormats.contains("sprite")) {
+            System.out.println("Exporting sprite...");
+            SpriteExportSettings ses = new SpriteExportSettings(enumFromStr(formats.get("sprite"), SpriteExportMode.class), zoom);
+            for (Tag t : extags) {
+                if (t instanceof DefineSpriteTag) {
+                    frameExporter.exportSpriteFrames(handler, outDir + (multipleExportTypes ? File.separator + SpriteExportSettings.EXPORT_FOLDER_NAME : ""), swf, ((DefineSpriteTag) t).getCharacterId(), null, ses, evl);
                 }
+            }
+        }
 
-                if (!singleFile) {
-                    long stopTimeSwf = System.currentTimeMillis();
-                    long time = stopTimeSwf - startTimeSwf;
-                    System.out.println("Export finished: " + inFile.getName() + " Export time: " + Helper.formatTimeSec(time));
+        if (exportAll || exportFormats.contains("button")) {
+            System.out.println("Exporting buttons...");
+            ButtonExportSettings bes = new ButtonExportSettings(enumFromStr(formats.get("button"), ButtonExportMode.class), zoom);
+            for (Tag t : extags) {
+                if (t instanceof ButtonTag) {
+                    frameExporter.exportButtonFrames(handler, outDir + (multipleExportTypes ? File.separator + ButtonExportSettings.EXPORT_FOLDER_NAME : ""), swf, ((ButtonTag) t).getCharacterId(), null, bes, evl);
                 }
+            }
+        }
+
+        boolean parallel = Configuration.parallelSpeedUp.get();
+        Boolean singleScriptFile = parseBooleanConfigValue(formats.get("singlescript"));
+        if (singleScriptFile == null) {
+            singleScriptFile = Configuration.scriptExportSingleFile.get();
+        }
+
+        if (parallel && singleScriptFile) {
+            logger.log(Level.WARNING, AppStrings.translate("export.script.singleFilePallelModeWarning"));
+            singleScriptFile = false;
+        }
 
-                swf.clearAllCache();
-                CancellableWorker.cancelBackgroundThreads();
+        ScriptExportSettings scriptExportSettings = new ScriptExportSettings(enumFromStr(formats.get("script"), ScriptExportMode.class), singleScriptFile, false);
+        boolean exportAllScript = exportAll || exportFormats.contains("script");
+        boolean exportAs2Script = exportAllScript || exportFormats.contains("script_as2");
+        boolean exportAs3Script = exportAllScript || exportFormats.contains("script_as3");
+        if (exportAs2Script || exportAs3Script) {
+            System.out.println("Exporting scripts...");
+
+            String scriptsFolder = Path.combine(outDir, ScriptExportSettings.EXPORT_FOLDER_NAME);
+            Path.createDirectorySafe(new File(scriptsFolder));
+            String singleFileName = Path.combine(scriptsFolder, swf.getShortFileName() + scriptExportSettings.getFileExtension());
+            try (FileTextWriter writer = scriptExportSettings.singleFile ? new FileTextWriter(Configuration.getCodeFormatting(), new FileOutputStream(singleFileName)) : null) {
+                scriptExportSettings.singleFileWriter = writer;
+                List<ScriptPack> as3packs = as3classes.isEmpty() ? null : swf.getScriptPacksByClassNames(as3classes);
+                exportOK = swf.exportActionScript(handler, scriptsFolder, as3classes.isEmpty() ? null : as3packs, scriptExportSettings, parallel, evl, exportAs2Script, exportAs3Script) != null && exportOK;
+            }
+
+            if (showStat) {
+                Statistics.print();
+                Statistics.addToMap(stat);
+                Statistics.clear();
             }
-        } catch (OutOfMemoryError | Exception ex) {
-            System.err.print("FAIL: Exporting Failed on Exception - ");
-            logger.log(Level.SEVERE, null, ex);
-            System.exit(1);
         }
 
-        if (showStat) {
-            Statistics.print(stat);
+        if (exportFormats.contains("fla")) {
+            System.out.println("Exporting FLA...");
+            exportFla(true, outDir, inFile, swf, multipleExportTypes, formats, handler);
         }
 
-        long stopTime = System.currentTimeMillis();
-        long time = stopTime - startTime;
-        System.out.println("Export finished. Total export time: " + Helper.formatTimeSec(time));
-        System.out.println(exportOK ? "OK" : "FAIL");
-        System.exit(exportOK ? 0 : 1);
+        if (exportFormats.contains("xfl")) {
+            System.out.println("Exporting XFL...");
+            exportFla(false, outDir, inFile, swf, multipleExportTypes, formats, handler);
+        }
+
+        if (!singleFile) {
+            long stopTimeSwf = System.currentTimeMillis();
+            long time = stopTimeSwf - startTimeSwf;
+            System.out.println("Export finished: " + inFile.getName() + " Export time: " + Helper.formatTimeSec(time));
+        }
+
+        if (batchSize > 0 && !singleFile) {
+            // the other files of the batch are still being exported, keep the shared caches
+            swf.clearInstanceCache();
+        } else {
+            swf.clearAllCache();
+        }
+
+        return exportOK;
     }
 
     private static void exportFla(boolean compressed, String outDir, File inFile, SWF swf, boolean multipleExportTypes, Map<String, String> formats, AbortRetryIgnoreHandler handler) throws IOException, InterruptedException {
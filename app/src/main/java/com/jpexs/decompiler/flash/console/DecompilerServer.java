@@ -0,0 +1,781 @@
+/*
+ *  Copyright (C) 2010-2021 JPEXS
+ * 
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ * 
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ * 
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.jpexs.decompiler.flash.console;
+
+import com.eclipsesource.json.Json;
+import com.eclipsesource.json.JsonObject;
+import com.eclipsesource.json.JsonValue;
+import com.eclipsesource.json.ParseException;
+import com.jpexs.decompiler.flash.AbortRetryIgnoreHandler;
+import com.jpexs.decompiler.flash.EventListener;
+import com.jpexs.decompiler.flash.SWF;
+import com.jpexs.decompiler.flash.abc.ScriptPack;
+import com.jpexs.decompiler.flash.action.ActionList;
+import com.jpexs.decompiler.flash.configuration.Configuration;
+import com.jpexs.decompiler.flash.exporters.modes.ScriptExportMode;
+import com.jpexs.decompiler.flash.exporters.settings.ScriptExportSettings;
+import com.jpexs.decompiler.flash.helpers.HighlightedText;
+import com.jpexs.decompiler.flash.search.ActionScriptSearch;
+import com.jpexs.decompiler.flash.search.ScriptSearchResult;
+import com.jpexs.decompiler.flash.tags.base.ASMSource;
+import com.jpexs.helpers.utf8.Utf8Helper;
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Headless decompiler server. Keeps the opened SWF files and their
+ * decompilation caches in memory between the requests.
+ *
+ * Clients connect to the port on localhost and send one JSON object per line.
+ * Each request has an "id", a "command" and a "token", every line sent back
+ * contains the id of the request it belongs to. The token is generated on each
+ * start of the server and written to a file readable only by the current user,
+ * see getTokenFile. The connection is closed on the first line which is not a
+ * valid request with the correct token. A request can send several result lines,
+ * the last line of a request contains its "status" (ok, error, cancelled or
+ * timeout).
+ *
+ * Commands:
+ * <ul>
+ * <li>open {file} - opens the SWF file</li>
+ * <li>close {file} - unloads the SWF file</li>
+ * <li>scripts {file} - lists the scripts of the SWF file</li>
+ * <li>decompile {file, script} - decompiles the script</li>
+ * <li>search {file, text, [ignoreCase], [regexp]} - searches the scripts</li>
+ * <li>export {file, outDir} - exports the scripts to the directory</li>
+ * <li>cancel {request} - cancels the request with the given id</li>
+ * </ul>
+ *
+ * Requests can specify a "timeout" in seconds, the default is the single
+ * method decompilation timeout (export timeout for the export command).
+ *
+ * When the export root is set, the export command accepts only output
+ * directories inside it.
+ *
+ * @author JPEXS
+ */
+public class DecompilerServer {
+
+    private static final Logger logger = Logger.getLogger(DecompilerServer.class.getName());
+
+    public static final int DEFAULT_PORT = 55556;
+
+    public static final int DEFAULT_MAX_OPEN_SWFS = 8;
+
+    /**
+     * SWF files not used for this time in milliseconds are unloaded.
+     */
+    public static final long DEFAULT_IDLE_TIME = 10 * 60 * 1000;
+
+    private final int port;
+
+    private final int maxOpenSwfs;
+
+    private final long idleTime;
+
+    private final File exportRoot;
+
+    private byte[] token;
+
+    private volatile ServerSocket serverSocket;
+
+    /**
+     * Opened SWF files by their canonical path, least recently used first.
+     */
+    private final LinkedHashMap<String, OpenSwf> swfs = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final ExecutorService requestExecutor = Executors.newCachedThreadPool();
+
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor();
+
+    private static class OpenSwf {
+
+        private final String path;
+
+        private final long lastModified;
+
+        private final SWF swf;
+
+        private int useCount = 0;
+
+        private long lastUse;
+
+        public OpenSwf(String path, long lastModified, SWF swf) {
+            this.path = path;
+            this.lastModified = lastModified;
+            this.swf = swf;
+        }
+    }
+
+    /**
+     * Constructs the server.
+     *
+     * @param port Port on localhost
+     * @param maxOpenSwfs Maximum number of SWF files kept in memory
+     * @param idleTime Time in milliseconds after which an unused SWF file is
+     * unloaded
+     * @param exportRoot Directory to which the exports are restricted, null
+     * for no restriction
+     */
+    public DecompilerServer(int port, int maxOpenSwfs, long idleTime, File exportRoot) {
+        this.port = port;
+        this.maxOpenSwfs = maxOpenSwfs;
+        this.idleTime = idleTime;
+        this.exportRoot = exportRoot;
+    }
+
+    /**
+     * Gets the file to which the server writes its access token.
+     *
+     * @param port Port of the server
+     * @return Token file
+     */
+    public static File getTokenFile(int port) {
+        return new File(Configuration.getFFDecHome() + "server_" + port + ".token");
+    }
+
+    private void writeToken() throws IOException {
+        byte[] tokenBytes = new byte[32];
+        new SecureRandom().nextBytes(tokenBytes);
+        StringBuilder sb = new StringBuilder();
+        for (byte b : tokenBytes) {
+            sb.append(String.format("%02x", b & 0xff));
+        }
+
+        String tokenStr = sb.toString();
+        File tokenFile = getTokenFile(port);
+        Path tokenPath = tokenFile.toPath();
+        Files.deleteIfExists(tokenPath);
+        if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+            Set<PosixFilePermission> permissions = PosixFilePermissions.fromString("rw-------");
+            Files.createFile(tokenPath, PosixFilePermissions.asFileAttribute(permissions));
+        } else {
+            Files.createFile(tokenPath);
+            if (!(tokenFile.setReadable(false, false) && tokenFile.setReadable(true, true)
+                    && tokenFile.setWritable(false, false) && tokenFile.setWritable(true, true))) {
+                Files.delete(tokenPath);
+                throw new IOException("Cannot restrict access to " + tokenFile);
+            }
+        }
+
+        Files.write(tokenPath, tokenStr.getBytes(Utf8Helper.charset));
+        tokenFile.deleteOnExit();
+        token = tokenStr.getBytes(Utf8Helper.charset);
+    }
+
+    private boolean checkToken(JsonObject json) {
+        JsonValue value = json.get("token");
+        if (value == null || !value.isString()) {
+            return false;
+        }
+
+        return MessageDigest.isEqual(token, value.asString().getBytes(Utf8Helper.charset));
+    }
+
+    private File getExportDir(String outDir) throws IOException {
+        File dir = new File(outDir).getCanonicalFile();
+        if (exportRoot != null) {
+            Path root = exportRoot.getCanonicalFile().toPath();
+            if (!dir.toPath().startsWith(root)) {
+                throw new IllegalArgumentException("outDir must be inside " + root);
+            }
+        }
+
+        return dir;
+    }
+
+    /**
+     * Accepts the connections. Does not return until the server is stopped
+     * or the server socket fails.
+     *
+     * @throws IOException On error
+     */
+    public void run() throws IOException {
+        try (ServerSocket ss = new ServerSocket(port, 50, InetAddress.getByName("localhost"))) {
+            serverSocket = ss;
+            writeToken();
+            timer.scheduleWithFixedDelay(this::unloadIdleSwfs, 1, 1, TimeUnit.MINUTES);
+            System.out.println("Decompiler server listening on localhost:" + port);
+            System.out.println("Access token written to " + getTokenFile(port));
+            while (true) {
+                Socket s;
+                try {
+                    s = ss.accept();
+                } catch (SocketException ex) {
+                    if (ss.isClosed()) {
+                        // stopped
+                        return;
+                    }
+                    throw ex;
+                }
+                Connection connection = new Connection(s);
+                Thread thread = new Thread(connection::run, "DecompilerServer connection");
+                thread.setDaemon(true);
+                thread.start();
+            }
+        } finally {
+            timer.shutdownNow();
+            requestExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * Stops accepting the connections and cancels the running requests.
+     *
+     * @throws IOException On error
+     */
+    public void stop() throws IOException {
+        ServerSocket ss = serverSocket;
+        if (ss != null) {
+            ss.close();
+        }
+    }
+
+    private OpenSwf acquireSwf(String fileName) throws IOException, InterruptedException {
+        if (fileName == null) {
+            throw new IllegalArgumentException("file parameter expected");
+        }
+
+        File file = new File(fileName).getCanonicalFile();
+        String path = file.getPath();
+        long lastModified = file.lastModified();
+        synchronized (swfs) {
+            OpenSwf openSwf = swfs.get(path);
+            if (openSwf != null && openSwf.lastModified == lastModified) {
+                openSwf.useCount++;
+                return openSwf;
+            }
+        }
+
+        SWF swf;
+        try (BufferedInputStream is = new BufferedInputStream(new FileInputStream(file))) {
+            swf = new SWF(is, path, file.getName(), Configuration.parallelSpeedUp.get());
+        }
+
+        OpenSwf openSwf = new OpenSwf(path, lastModified, swf);
+        List<OpenSwf> unloaded = new ArrayList<>();
+        synchronized (swfs) {
+            OpenSwf current = swfs.get(path);
+            if (current != null && current.lastModified == lastModified) {
+                // opened by another request in the meantime
+                current.useCount++;
+                return current;
+            }
+
+            openSwf.useCount++;
+            OpenSwf old = swfs.put(path, openSwf);
+            if (old != null && old.useCount == 0) {
+                unloaded.add(old);
+            }
+
+            Iterator<OpenSwf> it = swfs.values().iterator();
+            while (swfs.size() - unloaded.size() > maxOpenSwfs && it.hasNext()) {
+                OpenSwf item = it.next();
+                if (item.useCount == 0) {
+                    it.remove();
+                    unloaded.add(item);
+                }
+            }
+        }
+
+        for (OpenSwf item : unloaded) {
+            unload(item);
+        }
+
+        return openSwf;
+    }
+
+    private void releaseSwf(OpenSwf openSwf) {
+        boolean unload;
+        synchronized (swfs) {
+            openSwf.useCount--;
+            openSwf.lastUse = System.currentTimeMillis();
+            // replaced by a newer version of the file while in use
+            unload = openSwf.useCount == 0 && swfs.get(openSwf.path) != openSwf;
+        }
+
+        if (unload) {
+            unload(openSwf);
+        }
+    }
+
+    private boolean closeSwf(String fileName) throws IOException {
+        String path = new File(fileName).getCanonicalPath();
+        OpenSwf openSwf;
+        boolean unload;
+        synchronized (swfs) {
+            openSwf = swfs.remove(path);
+            // when in use, the last releaseSwf unloads it
+            unload = openSwf != null && openSwf.useCount == 0;
+        }
+
+        if (openSwf == null) {
+            return false;
+        }
+
+        if (unload) {
+            unload(openSwf);
+        }
+
+        return true;
+    }
+
+    void unloadIdleSwfs() {
+        long now = System.currentTimeMillis();
+        List<OpenSwf> unloaded = new ArrayList<>();
+        synchronized (swfs) {
+            Iterator<OpenSwf> it = swfs.values().iterator();
+            while (it.hasNext()) {
+                OpenSwf item = it.next();
+                if (item.useCount == 0 && now - item.lastUse > idleTime) {
+                    it.remove();
+                    unloaded.add(item);
+                }
+            }
+        }
+
+        for (OpenSwf item : unloaded) {
+            unload(item);
+        }
+    }
+
+    private void unload(OpenSwf openSwf) {
+        logger.log(Level.FINE, "Unloading {0}", openSwf.path);
+        openSwf.swf.getDecompilerPool().destroySwf(openSwf.swf);
+        openSwf.swf.clearInstanceCache();
+        openSwf.swf.clearSoundCache();
+    }
+
+    private static int getDefaultTimeout(String command) {
+        if ("export".equals(command)) {
+            return Configuration.exportTimeout.get();
+        }
+
+        return Configuration.decompilationTimeoutSingleMethod.get();
+    }
+
+    private class Request {
+
+        private final JsonValue id;
+
+        private final JsonObject json;
+
+        private final String command;
+
+        private Thread thread;
+
+        private ScheduledFuture<?> timeoutFuture;
+
+        private OpenSwf openSwf;
+
+        private Future<?> currentFuture;
+
+        private String cancelStatus;
+
+        public Request(JsonValue id, JsonObject json) {
+            this.id = id;
+            this.json = json;
+            this.command = json.getString("command", "");
+        }
+
+        public synchronized void cancel(String status) {
+            if (cancelStatus != null) {
+                return;
+            }
+
+            cancelStatus = status;
+            if (thread != null) {
+                thread.interrupt();
+            }
+
+            if (currentFuture != null) {
+                currentFuture.cancel(true);
+            }
+
+            if (openSwf != null) {
+                boolean onlyUser;
+                synchronized (swfs) {
+                    onlyUser = openSwf.useCount == 1;
+                }
+
+                if (onlyUser) {
+                    // cancels also the tasks spawned by the decompilation
+                    openSwf.swf.getDecompilerPool().destroySwf(openSwf.swf);
+                }
+            }
+        }
+
+        private synchronized void setThread(Thread thread) {
+            this.thread = thread;
+        }
+
+        private synchronized void setOpenSwf(OpenSwf openSwf) throws InterruptedException {
+            if (cancelStatus != null) {
+                throw new InterruptedException();
+            }
+
+            this.openSwf = openSwf;
+        }
+
+        public <T> T await(Future<T> future) throws Exception {
+            synchronized (this) {
+                if (cancelStatus != null) {
+                    future.cancel(true);
+                    throw new InterruptedException();
+                }
+
+                currentFuture = future;
+            }
+
+            try {
+                return future.get();
+            } catch (InterruptedException ex) {
+                future.cancel(true);
+                throw ex;
+            } catch (ExecutionException ex) {
+                Throwable cause = ex.getCause();
+                throw cause instanceof Exception ? (Exception) cause : ex;
+            } finally {
+                synchronized (this) {
+                    currentFuture = null;
+                }
+            }
+        }
+
+        public JsonObject response() {
+            return new JsonObject().add("id", id);
+        }
+    }
+
+    private class Connection {
+
+        private final Socket socket;
+
+        private final Map<String, Request> requests = new ConcurrentHashMap<>();
+
+        private Writer writer;
+
+        public Connection(Socket socket) {
+            this.socket = socket;
+        }
+
+        public void run() {
+            try (Socket s = socket) {
+                writer = new BufferedWriter(new OutputStreamWriter(s.getOutputStream(), Utf8Helper.charset));
+                BufferedReader reader = new BufferedReader(new InputStreamReader(s.getInputStream(), Utf8Helper.charset));
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.trim().isEmpty()) {
+                        continue;
+                    }
+
+                    JsonObject json;
+                    try {
+                        json = Json.parse(line).asObject();
+                    } catch (ParseException | UnsupportedOperationException ex) {
+                        send(new JsonObject().add("id", Json.NULL).add("status", "error").add("message", "Invalid request: " + ex.getMessage()));
+                        break;
+                    }
+
+                    if (!checkToken(json)) {
+                        send(new JsonObject().add("id", Json.NULL).add("status", "error").add("message", "Invalid token"));
+                        break;
+                    }
+
+                    handle(json);
+                }
+            } catch (IOException ex) {
+                // client disconnected
+            } finally {
+                for (Request request : requests.values()) {
+                    request.cancel("cancelled");
+                }
+            }
+        }
+
+        private void handle(JsonObject json) {
+            JsonValue id = json.get("id");
+            if (id == null) {
+                id = Json.NULL;
+            }
+
+            if ("cancel".equals(json.getString("command", ""))) {
+                JsonValue target = json.get("request");
+                Request request = target == null ? null : requests.get(target.toString());
+                if (request != null) {
+                    request.cancel("cancelled");
+                }
+
+                send(new JsonObject().add("id", id).add("status", request != null ? "ok" : "error"));
+                return;
+            }
+
+            String key = id.toString();
+            if (requests.containsKey(key)) {
+                send(new JsonObject().add("id", id).add("status", "error").add("message", "Duplicate request id"));
+                return;
+            }
+
+            Request request = new Request(id, json);
+            requests.put(key, request);
+
+            int timeout = json.getInt("timeout", getDefaultTimeout(request.command));
+            if (timeout > 0) {
+                request.timeoutFuture = timer.schedule(() -> request.cancel("timeout"), timeout, TimeUnit.SECONDS);
+            }
+
+            requestExecutor.execute(() -> execute(request));
+        }
+
+        private void execute(Request request) {
+            JsonObject result = request.response();
+            request.setThread(Thread.currentThread());
+            try {
+                checkCancelled(request);
+                switch (request.command) {
+                    case "open":
+                        executeOpen(request, result);
+                        break;
+                    case "close":
+                        result.add("closed", closeSwf(request.json.getString("file", "")));
+                        break;
+                    case "scripts":
+                        executeScripts(request);
+                        break;
+                    case "decompile":
+                        executeDecompile(request);
+                        break;
+                    case "search":
+                        executeSearch(request);
+                        break;
+                    case "export":
+                        executeExport(request);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown command: " + request.command);
+                }
+
+                checkCancelled(request);
+                result.add("status", "ok");
+            } catch (InterruptedException | CancellationException ex) {
+                result.add("status", getCancelStatus(request));
+            } catch (Throwable ex) {
+                if (request.cancelStatus != null) {
+                    result.add("status", request.cancelStatus);
+                } else {
+                    logger.log(Level.FINE, "Request failed", ex);
+                    result.add("status", "error").add("message", ex.toString());
+                }
+            } finally {
+                request.setThread(null);
+                // the pooled thread must not stay interrupted
+                Thread.interrupted();
+                requests.remove(request.id.toString());
+                if (request.timeoutFuture != null) {
+                    request.timeoutFuture.cancel(false);
+                }
+
+                if (request.openSwf != null) {
+                    releaseSwf(request.openSwf);
+                }
+            }
+
+            send(result);
+        }
+
+        private String getCancelStatus(Request request) {
+            synchronized (request) {
+                return request.cancelStatus == null ? "cancelled" : request.cancelStatus;
+            }
+        }
+
+        private void checkCancelled(Request request) throws InterruptedException {
+            synchronized (request) {
+                if (request.cancelStatus != null || Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedException();
+                }
+            }
+        }
+
+        private SWF openSwf(Request request) throws IOException, InterruptedException {
+            OpenSwf openSwf = acquireSwf(request.json.getString("file", null));
+            try {
+                request.setOpenSwf(openSwf);
+            } catch (InterruptedException ex) {
+                releaseSwf(openSwf);
+                throw ex;
+            }
+
+            return openSwf.swf;
+        }
+
+        private void executeOpen(Request request, JsonObject result) throws IOException, InterruptedException {
+            SWF swf = openSwf(request);
+            result.add("as3", swf.isAS3()).add("version", swf.version);
+        }
+
+        private void executeScripts(Request request) throws IOException, InterruptedException {
+            SWF swf = openSwf(request);
+            if (swf.isAS3()) {
+                for (ScriptPack pack : swf.getAS3Packs()) {
+                    checkCancelled(request);
+                    send(request.response().add("script", pack.getClassPath().toString()));
+                }
+            } else {
+                for (String name : swf.getASMs(true).keySet()) {
+                    checkCancelled(request);
+                    send(request.response().add("script", name));
+                }
+            }
+        }
+
+        private void executeDecompile(Request request) throws Exception {
+            SWF swf = openSwf(request);
+            String script = request.json.getString("script", null);
+            if (script == null) {
+                throw new IllegalArgumentException("script parameter expected");
+            }
+
+            if (swf.isAS3()) {
+                List<ScriptPack> packs = swf.getScriptPacksByClassNames(Arrays.asList(script));
+                if (packs.isEmpty()) {
+                    throw new IllegalArgumentException("Script not found: " + script);
+                }
+
+                for (ScriptPack pack : packs) {
+                    HighlightedText text = request.await(SWF.getCachedFuture(pack, null));
+                    send(request.response().add("script", pack.getClassPath().toString()).add("text", text.text));
+                }
+            } else {
+                ASMSource src = swf.getASMs(true).get(script);
+                if (src == null) {
+                    throw new IllegalArgumentException("Script not found: " + script);
+                }
+
+                ActionList actions = src.getActions();
+                HighlightedText text = request.await(SWF.getCachedFuture(src, actions, null));
+                send(request.response().add("script", script).add("text", text.text));
+            }
+        }
+
+        private void executeSearch(Request request) throws IOException, InterruptedException {
+            SWF swf = openSwf(request);
+            String text = request.json.getString("text", null);
+            boolean ignoreCase = request.json.getBoolean("ignoreCase", false);
+            boolean regexp = request.json.getBoolean("regexp", false);
+            ActionScriptSearch search = new ActionScriptSearch();
+            List<? extends ScriptSearchResult> found = swf.isAS3()
+                    ? search.searchAs3(swf, text, ignoreCase, regexp, false, null, null)
+                    : search.searchAs2(swf, text, ignoreCase, regexp, false, null, null);
+
+            // the search returns the partial result when interrupted
+            checkCancelled(request);
+            if (found != null) {
+                for (ScriptSearchResult item : found) {
+                    send(request.response().add("result", item.toString()));
+                }
+            }
+        }
+
+        private void executeExport(Request request) throws IOException, InterruptedException {
+            SWF swf = openSwf(request);
+            String outDir = request.json.getString("outDir", null);
+            if (outDir == null) {
+                throw new IllegalArgumentException("outDir parameter expected");
+            }
+
+            AbortRetryIgnoreHandler handler = new AbortRetryIgnoreHandler() {
+                @Override
+                public int handle(Throwable thrown) {
+                    send(request.response().add("error", String.valueOf(thrown)));
+                    return AbortRetryIgnoreHandler.IGNORE;
+                }
+
+                @Override
+                public AbortRetryIgnoreHandler getNewInstance() {
+                    return this;
+                }
+            };
+
+            EventListener evl = new EventListener() {
+                @Override
+                public void handleExportingEvent(String type, int index, int count, Object data) {
+                }
+
+                @Override
+                public void handleExportedEvent(String type, int index, int count, Object data) {
+                    send(request.response().add("exported", String.valueOf(data)).add("index", index).add("count", count));
+                }
+
+                @Override
+                public void handleEvent(String event, Object data) {
+                }
+            };
+
+            ScriptExportSettings exportSettings = new ScriptExportSettings(ScriptExportMode.AS, false, false);
+            swf.exportActionScript(handler, getExportDir(outDir).getPath(), null, exportSettings, Configuration.parallelSpeedUp.get(), evl, true, true);
+        }
+
+        private void send(JsonObject json) {
+            synchronized (this) {
+                try {
+                    writer.write(json.toString());
+                    writer.write("\n");
+                    writer.flush();
+                } catch (IOException ex) {
+                    // client disconnected, the reader loop cancels the requests
+                }
+            }
+        }
+    }
+}
@@ -31,6 +31,7 @@ import com.jpexs.decompiler.flash.timeline.Timeline;
 import com.jpexs.decompiler.flash.treeitems.TreeItem;
 import com.jpexs.decompiler.flash.types.RECT;
 import com.jpexs.helpers.Cache;
+import com.jpexs.helpers.ImageCacheCodec;
 import com.jpexs.helpers.SerializableImage;
 import java.awt.Color;
 import java.awt.Dimension;
@@ -98,7 +99,7 @@ public class FolderPreviewPanel extends JPanel {
 
     public FolderPreviewPanel(final MainPanel mainPanel, List<TreeItem> items) {
         this.items = items;
-        cachedPreviews = Cache.getInstance(false, false, "preview");
+        cachedPreviews = Cache.getInstance(false, false, "preview", new ImageCacheCodec());
 
         addMouseListener(new MouseAdapter() {
             @Override
@@ -38,6 +38,7 @@ import com.jpexs.decompiler.flash.tags.base.SoundTag;
 import com.jpexs.decompiler.flash.tags.base.TextTag;
 import com.jpexs.decompiler.flash.timeline.DepthState;
 import com.jpexs.decompiler.flash.timeline.Frame;
+import com.jpexs.decompiler.flash.timeline.IncrementalTimelineRenderer;
 import com.jpexs.decompiler.flash.timeline.Timeline;
 import com.jpexs.decompiler.flash.timeline.Timelined;
 import com.jpexs.decompiler.flash.types.ConstantColorColorTransform;
@@ -51,6 +52,8 @@ import com.jpexs.decompiler.flash.tags.base.DisplayObjectCacheKey;
 import com.jpexs.decompiler.flash.types.BUTTONCONDACTION;
 import com.jpexs.helpers.ByteArrayRange;
 import com.jpexs.helpers.Cache;
+import com.jpexs.helpers.ImageCacheCodec;
+import com.jpexs.helpers.ImageCacheWeigher;
 import com.jpexs.helpers.Reference;
 import com.jpexs.helpers.SerializableImage;
 import com.jpexs.helpers.Stopwatch;
@@ -141,7 +144,13 @@ public final class ImagePanel extends JPanel implements MediaDisplay {
 
     private final List<SoundTagPlayer> soundPlayers = new ArrayList<>();
 
-    private final Cache<DisplayObjectCacheKey, SerializableImage> displayObjectCache = Cache.getInstance(false, false, "displayObject");
+    private final Cache<DisplayObjectCacheKey, SerializableImage> displayObjectCache = Cache.getInstance(false, false, "displayObject", new ImageCacheCodec(), new ImageCacheWeigher(), Cache.BUDGET_SHARE_DISPLAY_OBJECT);
+
+    /**
+     * Renderer of the played timeline, draws only the changed parts of the
+     * frames.
+     */
+    private IncrementalTimelineRenderer playbackRenderer;
 
     private final IconPanel iconPanel;
 
@@ -249,7 +258,7 @@ public final class ImagePanel extends JPanel implements MediaDisplay {
             DepthState ds = null;
             Timeline timeline = timelined.getTimeline();
             if (freeTransformDepth > -1 && timeline.getFrameCount() > frame) {
-                ds = timeline.getFrame(frame).layers.get(freeTransformDepth);
+                ds = timeline.getFrame(frame).getLayers().get(freeTransformDepth);
             }
 
             if (ds != null) {
@@ -290,7 +299,7 @@ public final class ImagePanel extends JPanel implements MediaDisplay {
         DepthState ds = null;
         Timeline timeline = timelined.getTimeline();
         if (freeTransformDepth > -1 && timeline.getFrameCount() > frame) {
-            ds = timeline.getFrame(frame).layers.get(freeTransformDepth);
+            ds = timeline.getFrame(frame).getLayers().get(freeTransformDepth);
         }
 
         if (ds != null) {
@@ -1272,7 +1281,7 @@ public final class ImagePanel extends JPanel implements MediaDisplay {
 
     private void showSelectedName() {
         if (selectedDepth > -1 && frame > -1 && timelined != null) {
-            DepthState ds = timelined.getTimeline().getFrame(frame).layers.get(selectedDepth);
+            DepthState ds = timelined.getTimeline().getFrame(frame).getLayers().get(selectedDepth);
             if (ds != null) {
                 CharacterTag cht = timelined.getTimeline().swf.getCharacter(ds.characterId);
                 if (cht != null) {
@@ -1348,7 +1357,7 @@ public final class ImagePanel extends JPanel implements MediaDisplay {
                         for (ByteArrayRange actionBytes : actions) {
                             try {
                                 int prevLength = actionBytes.getPos();
-                                SWFInputStream rri = new SWFInputStream(swf, actionBytes.getArray(), 0, prevLength + actionBytes.getLength());
+                                SWFInputStream rri = new SWFInputStream(swf, actionBytes.getBuffer(), 0, prevLength + actionBytes.getLength());
                                 if (prevLength != 0) {
                                     rri.seek(prevLength);
                                 }
@@ -1412,6 +1421,7 @@ public final class ImagePanel extends JPanel implements MediaDisplay {
             Rectangle oldRect = new Rectangle(_rect);
             this.zoom = zoom;
             displayObjectCache.clear();
+            playbackRenderer = null;
             double zoomDouble = zoom.fit ? getZoomToFit() : zoom.value;
             offsetPoint.x = (int) (offsetPoint.x * zoomDouble / zoomDoubleBefore);
             offsetPoint.y = (int) (offsetPoint.y * zoomDouble / zoomDoubleBefore);
@@ -1508,7 +1518,7 @@ public final class ImagePanel extends JPanel implements MediaDisplay {
             @Override
             public Object callFunction(long functionAddress, long functionLength, List<Object> args, Map<Integer, String> regNames, Object thisObj) {
                 try {
-                    SWFInputStream sis = new SWFInputStream(swf, swf.uncompressedData, functionAddress, (int) (functionAddress + functionLength));
+                    SWFInputStream sis = new SWFInputStream(swf, swf.getUncompressedBuffer(), functionAddress, (int) (functionAddress + functionLength));
                     return execute(sis);
                 } catch (IOException ex) {
                     Logger.getLogger(ImagePanel.class.getName()).log(Level.SEVERE, null, ex);
@@ -1562,6 +1572,7 @@ public final class ImagePanel extends JPanel implements MediaDisplay {
             }
 
             displayObjectCache.clear();
+            playbackRenderer = null;
             this.timelined = drawable;
             this.swf = swf;
             zoomAvailable = true;
@@ -1715,6 +1726,7 @@ public final class ImagePanel extends JPanel implements MediaDisplay {
         textTag = null;
         newTextTag = null;
         displayObjectCache.clear();
+        playbackRenderer = null;
     }
 
     private void nextFrame(Timer thisTimer, final int cnt, final int timeShouldBe) {
@@ -1753,7 +1765,7 @@ public final class ImagePanel extends JPanel implements MediaDisplay {
         fireMediaDisplayStateChanged();
     }
 
-    private static SerializableImage getFrame(ExportRectangle viewRect, SWF swf, int frame, int time, Timelined drawable, RenderContext renderContext, int selectedDepth, int freeTransformDepth, double zoom, Reference<Point2D> registrationPointRef, Reference<Rectangle2D> boundsRef, Matrix transform, Matrix temporaryMatrix) {
+    private static SerializableImage getFrame(ExportRectangle viewRect, SWF swf, int frame, int time, Timelined drawable, RenderContext renderContext, int selectedDepth, int freeTransformDepth, double zoom, Reference<Point2D> registrationPointRef, Reference<Rectangle2D> boundsRef, Matrix transform, Matrix temporaryMatrix, IncrementalTimelineRenderer renderer) {
         Timeline timeline = drawable.getTimeline();
         //int mouseButton = renderContext.mouseButton;
         //Point cursorPosition = renderContext.cursorPosition;
@@ -1784,17 +1796,28 @@ public final class ImagePanel extends JPanel implements MediaDisplay {
         Matrix fullM = m.clone();
 
         MATRIX oldMatrix = null;
+        // keep the layers strongly referenced until the matrix is restored,
+        // otherwise GC may free them and the renderer gets fresh ones
+        Map<Integer, DepthState> freeTransformLayers = null;
         if (freeTransformDepth > -1) {
 
             Matrix eMatrix = Matrix.getScaleInstance(1 / SWF.unitDivisor).concatenate(m).inverse();
 
             MATRIX newMatrix = transform.preConcatenate(eMatrix).toMATRIX();
-            oldMatrix = timeline.getFrame(frame).layers.get(freeTransformDepth).matrix;
+            freeTransformLayers = timeline.getFrame(frame).getLayers();
+            oldMatrix = freeTransformLayers.get(freeTransformDepth).matrix;
 
-            timeline.getFrame(frame).layers.get(freeTransformDepth).matrix = newMatrix;
+            freeTransformLayers.get(freeTransformDepth).matrix = newMatrix;
         }
 
-        timeline.toImage(frame, time, renderContext, image, image, false, m, new Matrix(), m, null, zoom, false, viewRect, fullM, true, Timeline.DRAW_MODE_ALL);
+        if (renderer != null) {
+            // the frame is drawn over the retained previous frame, only the
+            // changed parts are drawn again
+            SerializableImage rendered = renderer.render(frame, time, renderContext, image.getWidth(), image.getHeight(), null, m, null, zoom, viewRect, fullM);
+            image.getBufferedImage().getRaster().setDataElements(0, 0, rendered.getBufferedImage().getRaster());
+        } else {
+            timeline.toImage(frame, time, renderContext, image, image, false, m, new Matrix(), m, null, zoom, false, viewRect, fullM, true, Timeline.DRAW_MODE_ALL);
+        }
 
         Graphics2D gg = (Graphics2D) image.getGraphics();
         gg.setStroke(new BasicStroke(3));
@@ -1802,7 +1825,7 @@ public final class ImagePanel extends JPanel implements MediaDisplay {
         gg.setTransform(AffineTransform.getTranslateInstance(0, 0));
         DepthState ds = null;
         if (selectedDepth > -1 && timeline.getFrameCount() > frame) {
-            ds = timeline.getFrame(frame).layers.get(selectedDepth);
+            ds = timeline.getFrame(frame).getLayers().get(selectedDepth);
         }
 
         if (ds != null) {
@@ -1829,8 +1852,8 @@ public final class ImagePanel extends JPanel implements MediaDisplay {
         }
 
         ds = null;
-        if (freeTransformDepth > -1 && timeline.getFrameCount() > frame) {
-            ds = timeline.getFrame(frame).layers.get(freeTransformDepth);
+        if (freeTransformLayers != null) {
+            ds = freeTransformLayers.get(freeTransformDepth);
         }
 
         if (ds != null) {
@@ -1869,8 +1892,8 @@ public final class ImagePanel extends JPanel implements MediaDisplay {
             }
         }
 
-        if (freeTransformDepth > -1 && timeline != null && timeline.getFrameCount() > frame) {
-            timeline.getFrame(frame).layers.get(freeTransformDepth).matrix = oldMatrix;
+        if (freeTransformLayers != null) {
+            freeTransformLayers.get(freeTransformDepth).matrix = oldMatrix;
         }
         img = image;
 
@@ -1969,7 +1992,7 @@ public final class ImagePanel extends JPanel implements MediaDisplay {
             try {
                 ByteArrayRange actionBytes = src.getActionBytes();
                 int prevLength = actionBytes.getPos();
-                SWFInputStream rri = new SWFInputStream(swf, actionBytes.getArray(), 0, prevLength + actionBytes.getLength());
+                SWFInputStream rri = new SWFInputStream(swf, actionBytes.getBuffer(), 0, prevLength + actionBytes.getLength());
                 if (prevLength != 0) {
                     rri.seek(prevLength);
                 }
@@ -2132,7 +2155,14 @@ public final class ImagePanel extends JPanel implements MediaDisplay {
                     if (_viewRect.getHeight() < 0 || _viewRect.getWidth() < 0) {
                         img = new SerializableImage(1, 1, BufferedImage.TYPE_4BYTE_ABGR);
                     } else {
-                        img = getFrame(_viewRect, swf, frame, time, timelined, renderContext, selectedDepth, freeTransformDepth, zoomDouble, registrationPointRef, boundsRef, transform, transformUpdated == null ? null : new Matrix(transformUpdated));
+                        IncrementalTimelineRenderer renderer = null;
+                        if (playing && freeTransformDepth == -1) {
+                            if (playbackRenderer == null || playbackRenderer.getTimeline() != timeline) {
+                                playbackRenderer = new IncrementalTimelineRenderer(timeline, BufferedImage.TYPE_INT_ARGB);
+                            }
+                            renderer = playbackRenderer;
+                        }
+                        img = getFrame(_viewRect, swf, frame, time, timelined, renderContext, selectedDepth, freeTransformDepth, zoomDouble, registrationPointRef, boundsRef, transform, transformUpdated == null ? null : new Matrix(transformUpdated), renderer);
                     }
                     bounds = boundsRef.getVal();
                     registrationPoint = registrationPointRef.getVal();
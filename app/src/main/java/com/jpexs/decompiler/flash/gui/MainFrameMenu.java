@@ -29,6 +29,7 @@ import com.jpexs.decompiler.flash.gui.helpers.CheckResources;
 import com.jpexs.decompiler.flash.search.ScriptSearchResult;
 import com.jpexs.decompiler.flash.tags.ABCContainerTag;
 import com.jpexs.helpers.ByteArrayRange;
+import com.jpexs.helpers.Cache;
 import com.jpexs.helpers.Helper;
 import com.jpexs.helpers.utf8.Utf8Helper;
 import com.sun.jna.Platform;
@@ -1079,7 +1080,10 @@ public abstract class MainFrameMenu implements MenuBuilder {
                         + "Os 64bit: " + Helper.is64BitOs() + Helper.newLine
                         + "Max: " + (runtime.maxMemory() / 1024 / 1024) + "MB" + Helper.newLine
                         + "Used: " + (runtime.totalMemory() / 1024 / 1024) + "MB" + Helper.newLine
-                        + "Free: " + (runtime.freeMemory() / 1024 / 1024) + "MB";
+                        + "Free: " + (runtime.freeMemory() / 1024 / 1024) + "MB" + Helper.newLine
+                        + Helper.newLine
+                        + "Caches:" + Helper.newLine
+                        + Cache.getStatistics();
                 ViewMessages.showMessageDialog(Main.getDefaultMessagesComponent(), info);
                 SWF nswf = mainFrame.getPanel().getCurrentSwf();
                 if (nswf != null) {
@@ -3967,7 +3967,7 @@ public final class MainPanel extends JPanel implements TreeSelectionListener, Se
                         ds.characterId = ((CharacterTag) tag).getCharacterId();
                         ds.matrix = new MATRIX();
                         ds.ratio = i * 65535 / framesCnt;
-                        f.layers.put(1, ds);
+                        f.getLayers().put(1, ds);
                         f.layersChanged = true;
                         timeline.addFrame(f);
                     }
@@ -3982,7 +3982,7 @@ public final class MainPanel extends JPanel implements TreeSelectionListener, Se
                     DepthState ds = new DepthState(tag.getSwf(), f);
                     ds.characterId = ((CharacterTag) tag).getCharacterId();
                     ds.matrix = new MATRIX();
-                    f.layers.put(1, ds);
+                    f.getLayers().put(1, ds);
                     f.layersChanged = true;
                     timeline.addFrame(f);
                     timeline.fontFrameNum = frame;
@@ -3991,7 +3991,7 @@ public final class MainPanel extends JPanel implements TreeSelectionListener, Se
                     DepthState ds = new DepthState(tag.getSwf(), f);
                     ds.characterId = ((CharacterTag) tag).getCharacterId();
                     ds.matrix = new MATRIX();
-                    f.layers.put(1, ds);
+                    f.getLayers().put(1, ds);
                     timeline.addFrame(f);
                 }
                 timeline.displayRect = getRect();
@@ -18,6 +18,7 @@ package com.jpexs.decompiler.flash.gui.dumpview;
 
 import com.jpexs.decompiler.flash.SWF;
 import com.jpexs.decompiler.flash.dumpview.DumpInfo;
+import com.jpexs.decompiler.flash.dumpview.DumpInfoSwfNode;
 import com.jpexs.decompiler.flash.treeitems.SWFList;
 import java.util.ArrayList;
 import java.util.List;
@@ -48,8 +49,9 @@ public final class DumpTreeModel implements TreeModel {
         root.getChildInfos().clear();
         for (SWFList swfList : swfs) {
             for (SWF swf : swfList) {
-                swf.dumpInfo.name = swf.getFileTitle();
-                root.getChildInfos().add(swf.dumpInfo);
+                DumpInfoSwfNode swfNode = swf.getDumpInfo();
+                swfNode.name = swf.getFileTitle();
+                root.getChildInfos().add(swfNode);
             }
         }
 
@@ -197,9 +197,9 @@ public class TimelineBodyPanel extends JPanel implements MouseListener, KeyListe
             int start_f2 = Math.min(start_f, end_f2);
 
             // find the start frame number of the current block
-            DepthState dsStart = timeline.getFrame(start_f2).layers.get(d);
+            DepthState dsStart = timeline.getFrame(start_f2).getLayers().get(d);
             for (; start_f2 >= 1; start_f2--) {
-                DepthState ds = timeline.getFrame(start_f2 - 1).layers.get(d);
+                DepthState ds = timeline.getFrame(start_f2 - 1).getLayers().get(d);
                 if (((dsStart == null) != (ds == null))
                         || (ds != null && dsStart.characterId != ds.characterId)) {
                     break;
@@ -207,11 +207,11 @@ public class TimelineBodyPanel extends JPanel implements MouseListener, KeyListe
             }
 
             for (int f = start_f2; f <= end_f2; f++) {
-                DepthState fl = timeline.getFrame(f).layers.get(d);
+                DepthState fl = timeline.getFrame(f).getLayers().get(d);
                 boolean motionTween = fl == null ? false : fl.motionTween;
 
-                DepthState flNext = f < max_f ? timeline.getFrame(f + 1).layers.get(d) : null;
-                DepthState flPrev = f > 0 ? timeline.getFrame(f - 1).layers.get(d) : null;
+                DepthState flNext = f < max_f ? timeline.getFrame(f + 1).getLayers().get(d) : null;
+                DepthState flPrev = f > 0 ? timeline.getFrame(f - 1).getLayers().get(d) : null;
 
                 CharacterTag cht = fl == null ? null : timeline.swf.getCharacter(fl.characterId);
                 boolean shapeTween = cht != null && (cht instanceof MorphShapeTag);
@@ -229,7 +229,7 @@ public class TimelineBodyPanel extends JPanel implements MouseListener, KeyListe
                 BlockType blockType;
                 if (fl == null) {
                     for (; f + 1 < timeline.getFrameCount(); f++) {
-                        fl = timeline.getFrame(f + 1).layers.get(d);
+                        fl = timeline.getFrame(f + 1).getLayers().get(d);
                         if (fl != null && fl.characterId != -1) {
                             break;
                         }
@@ -241,7 +241,7 @@ public class TimelineBodyPanel extends JPanel implements MouseListener, KeyListe
                     blockType = BlockType.EMPTY;
                 } else {
                     for (; f + 1 < timeline.getFrameCount(); f++) {
-                        fl = timeline.getFrame(f + 1).layers.get(d);
+                        fl = timeline.getFrame(f + 1).getLayers().get(d);
                         if (fl == null || fl.key) {
                             break;
                         }
@@ -0,0 +1,156 @@
+/*
+ *  Copyright (C) 2010-2021 JPEXS
+ * 
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ * 
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ * 
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.jpexs.decompiler.flash.console;
+
+import com.eclipsesource.json.Json;
+import com.eclipsesource.json.JsonObject;
+import com.jpexs.decompiler.flash.AbortRetryIgnoreHandler;
+import com.jpexs.decompiler.flash.SWF;
+import com.jpexs.helpers.utf8.Utf8Helper;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ *
+ * @author JPEXS
+ */
+public class BatchProcessorTest {
+
+    private File dir;
+
+    private final AbortRetryIgnoreHandler handler = new ConsoleAbortRetryIgnoreHandler(AbortRetryIgnoreHandler.IGNORE, 0);
+
+    @BeforeMethod
+    public void createDir() throws IOException {
+        dir = Files.createTempDirectory("ffdec_batch_test").toFile();
+    }
+
+    @AfterMethod
+    public void deleteDir() {
+        DecompilerServerTest.deleteDir(dir);
+    }
+
+    /**
+     * Creates a file with the SWF header of given uncompressed length.
+     */
+    private File createHeaderFile(String name, char compression, long length, byte[] data) throws IOException {
+        byte[] bytes = new byte[8 + data.length];
+        bytes[0] = (byte) compression;
+        bytes[1] = 'W';
+        bytes[2] = 'S';
+        bytes[3] = 10;
+        for (int i = 0; i < 4; i++) {
+            bytes[4 + i] = (byte) (length >> (8 * i));
+        }
+        System.arraycopy(data, 0, bytes, 8, data.length);
+        File file = new File(dir, name);
+        Files.write(file.toPath(), bytes);
+        return file;
+    }
+
+    private Map<String, JsonObject> readSummary(File summaryFile) throws IOException {
+        Map<String, JsonObject> ret = new HashMap<>();
+        for (String line : Files.readAllLines(summaryFile.toPath(), Utf8Helper.charset)) {
+            JsonObject json = Json.parse(line).asObject();
+            JsonObject old = ret.put(new File(json.getString("file", "")).getName(), json);
+            assertTrue(old == null, "Duplicate record of " + json.getString("file", ""));
+        }
+
+        return ret;
+    }
+
+    @Test
+    public void testFailingFileDoesNotStopRun() throws Exception {
+        File source = DecompilerServerTest.getTestDataFile("as2/as2.swf");
+        List<File> files = new ArrayList<>();
+        for (String name : new String[]{"a.swf", "b.swf"}) {
+            File file = new File(dir, name);
+            Files.copy(source.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            files.add(file);
+        }
+
+        files.add(1, createHeaderFile("corrupt.swf", 'C', 100000, new byte[]{1, 2, 3, 4, 5, 6, 7, 8}));
+        File summaryFile = new File(dir, "summary.json");
+
+        boolean ok = new BatchProcessor(2, Long.MAX_VALUE).process(files, handler, summaryFile, (File file) -> file, (File file, AbortRetryIgnoreHandler fileHandler) -> {
+            try (FileInputStream fis = new FileInputStream(file)) {
+                SWF swf = new SWF(fis, false);
+                return !swf.getTags().isEmpty();
+            }
+        });
+
+        assertFalse(ok);
+        Map<String, JsonObject> summary = readSummary(summaryFile);
+        assertEquals(summary.size(), 3);
+        assertEquals(summary.get("a.swf").getString("status", null), "OK");
+        assertEquals(summary.get("b.swf").getString("status", null), "OK");
+        assertEquals(summary.get("corrupt.swf").getString("status", null), "ERROR");
+        assertFalse(summary.get("corrupt.swf").get("errors").asArray().isEmpty());
+        assertEquals(summary.get("a.swf").getLong("inputBytes", 0), source.length());
+    }
+
+    @Test
+    public void testMemoryBudgetThrottlesStarts() throws Exception {
+        List<File> files = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            // estimated to 1.6 MB each
+            files.add(createHeaderFile(i + ".swf", 'F', 100000, new byte[0]));
+        }
+
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        BatchProcessor.FileAction action = (File file, AbortRetryIgnoreHandler fileHandler) -> {
+            int count = running.incrementAndGet();
+            maxRunning.accumulateAndGet(count, Math::max);
+            Thread.sleep(50);
+            running.decrementAndGet();
+            return true;
+        };
+
+        assertTrue(new BatchProcessor(4, 2 * 1024 * 1024).process(files, handler, null, (File file) -> null, action));
+        assertEquals(maxRunning.get(), 1);
+
+        // all files fit into the budget
+        CountDownLatch allStarted = new CountDownLatch(files.size());
+        maxRunning.set(0);
+        assertTrue(new BatchProcessor(4, 64 * 1024 * 1024).process(files, handler, null, (File file) -> null, (File file, AbortRetryIgnoreHandler fileHandler) -> {
+            int count = running.incrementAndGet();
+            maxRunning.accumulateAndGet(count, Math::max);
+            allStarted.countDown();
+            allStarted.await(10, TimeUnit.SECONDS);
+            running.decrementAndGet();
+            return true;
+        }));
+        assertEquals(maxRunning.get(), 4);
+    }
+}
@@ -0,0 +1,266 @@
+/*
+ *  Copyright (C) 2010-2021 JPEXS
+ * 
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ * 
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ * 
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.jpexs.decompiler.flash.console;
+
+import com.eclipsesource.json.Json;
+import com.eclipsesource.json.JsonObject;
+import com.jpexs.helpers.utf8.Utf8Helper;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+/**
+ *
+ * @author JPEXS
+ */
+public class DecompilerServerTest {
+
+    private DecompilerServer server;
+
+    private int port;
+
+    private String token;
+
+    private Socket socket;
+
+    private BufferedReader reader;
+
+    private Writer writer;
+
+    static File getTestDataFile(String name) {
+        // the tests run in the app directory or in the root directory
+        File file = new File("../libsrc/ffdec_lib/testdata/" + name);
+        if (!file.exists()) {
+            file = new File("libsrc/ffdec_lib/testdata/" + name);
+        }
+
+        return file;
+    }
+
+    private void start(long idleTime) throws Exception {
+        try (ServerSocket ss = new ServerSocket(0)) {
+            port = ss.getLocalPort();
+        }
+
+        File tokenFile = DecompilerServer.getTokenFile(port);
+        tokenFile.delete();
+        server = new DecompilerServer(port, DecompilerServer.DEFAULT_MAX_OPEN_SWFS, idleTime, null);
+        Thread thread = new Thread(() -> {
+            try {
+                server.run();
+            } catch (IOException ex) {
+                // test fails on connect
+            }
+        }, "DecompilerServerTest");
+        thread.setDaemon(true);
+        thread.start();
+
+        for (int i = 0; i < 100 && token == null; i++) {
+            if (tokenFile.exists()) {
+                String str = new String(Files.readAllBytes(tokenFile.toPath()), Utf8Helper.charset);
+                if (str.length() == 64) {
+                    token = str;
+                    break;
+                }
+            }
+
+            Thread.sleep(100);
+        }
+
+        assertNotNull(token, "Server did not start");
+        socket = new Socket("localhost", port);
+        reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), Utf8Helper.charset));
+        writer = new OutputStreamWriter(socket.getOutputStream(), Utf8Helper.charset);
+    }
+
+    @AfterMethod
+    public void stop() throws IOException {
+        if (socket != null) {
+            socket.close();
+            socket = null;
+        }
+
+        if (server != null) {
+            server.stop();
+            server = null;
+        }
+
+        token = null;
+    }
+
+    private JsonObject request(int id, String command) {
+        return new JsonObject().add("id", id).add("command", command).add("token", token);
+    }
+
+    private void send(JsonObject... requests) throws IOException {
+        for (JsonObject request : requests) {
+            writer.write(request.toString());
+            writer.write("\n");
+        }
+
+        writer.flush();
+    }
+
+    /**
+     * Reads the lines of the request up to its status line.
+     */
+    private List<JsonObject> receive(int id) throws IOException {
+        List<JsonObject> ret = new ArrayList<>();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            JsonObject json = Json.parse(line).asObject();
+            if (json.getInt("id", -1) != id) {
+                continue;
+            }
+
+            ret.add(json);
+            if (json.get("status") != null) {
+                return ret;
+            }
+        }
+
+        throw new IOException("Connection closed");
+    }
+
+    private static String getStatus(List<JsonObject> lines) {
+        return lines.get(lines.size() - 1).getString("status", null);
+    }
+
+    @Test
+    public void testInvalidToken() throws Exception {
+        start(DecompilerServer.DEFAULT_IDLE_TIME);
+        String file = getTestDataFile("as3/as3.swf").getAbsolutePath();
+        send(request(1, "open").add("file", file).set("token", "0123"));
+
+        JsonObject response = Json.parse(reader.readLine()).asObject();
+        assertEquals(response.getString("status", null), "error");
+        assertTrue(response.get("id").isNull());
+        assertNull(reader.readLine(), "Connection must be closed");
+    }
+
+    @Test
+    public void testOpenScriptsClose() throws Exception {
+        start(DecompilerServer.DEFAULT_IDLE_TIME);
+        String file = getTestDataFile("as3/as3.swf").getAbsolutePath();
+
+        send(request(1, "open").add("file", file));
+        List<JsonObject> open = receive(1);
+        assertEquals(getStatus(open), "ok");
+        assertTrue(open.get(0).getBoolean("as3", false));
+
+        send(request(2, "scripts").add("file", file));
+        List<JsonObject> scripts = receive(2);
+        assertEquals(getStatus(scripts), "ok");
+        assertTrue(scripts.size() > 1, "No scripts listed");
+        for (int i = 0; i < scripts.size() - 1; i++) {
+            assertFalse(scripts.get(i).getString("script", "").isEmpty());
+        }
+
+        send(request(3, "close").add("file", file));
+        List<JsonObject> close = receive(3);
+        assertEquals(getStatus(close), "ok");
+        assertTrue(close.get(0).getBoolean("closed", false));
+
+        send(request(4, "close").add("file", file));
+        List<JsonObject> closeAgain = receive(4);
+        assertEquals(getStatus(closeAgain), "ok");
+        assertFalse(closeAgain.get(0).getBoolean("closed", true));
+    }
+
+    @Test
+    public void testDecompileAs2() throws Exception {
+        start(DecompilerServer.DEFAULT_IDLE_TIME);
+        String file = getTestDataFile("as2/as2.swf").getAbsolutePath();
+
+        send(request(1, "scripts").add("file", file));
+        List<JsonObject> scripts = receive(1);
+        assertEquals(getStatus(scripts), "ok");
+
+        boolean hasText = false;
+        for (int i = 0; i < scripts.size() - 1 && !hasText; i++) {
+            String script = scripts.get(i).getString("script", null);
+            send(request(2 + i, "decompile").add("file", file).add("script", script));
+            List<JsonObject> decompile = receive(2 + i);
+            assertEquals(getStatus(decompile), "ok");
+            assertEquals(decompile.get(0).getString("script", null), script);
+            if (!decompile.get(0).getString("text", "").trim().isEmpty()) {
+                hasText = true;
+            }
+        }
+        assertTrue(hasText, "All scripts decompiled empty");
+    }
+
+    @Test
+    public void testCancel() throws Exception {
+        start(DecompilerServer.DEFAULT_IDLE_TIME);
+        String file = getTestDataFile("as3/as3.swf").getAbsolutePath();
+        File outDir = Files.createTempDirectory("ffdec_server_test").toFile();
+        try {
+            // the cancel is read before the export can finish
+            send(request(1, "export").add("file", file).add("outDir", outDir.getAbsolutePath()),
+                    request(2, "cancel").add("request", 1));
+            assertEquals(getStatus(receive(2)), "ok");
+            assertEquals(getStatus(receive(1)), "cancelled");
+
+            send(request(3, "cancel").add("request", 1));
+            assertEquals(getStatus(receive(3)), "error");
+        } finally {
+            deleteDir(outDir);
+        }
+    }
+
+    @Test
+    public void testIdleUnload() throws Exception {
+        start(0);
+        String file = getTestDataFile("as3/as3.swf").getAbsolutePath();
+        send(request(1, "open").add("file", file));
+        assertEquals(getStatus(receive(1)), "ok");
+
+        Thread.sleep(10);
+        server.unloadIdleSwfs();
+
+        send(request(2, "close").add("file", file));
+        List<JsonObject> close = receive(2);
+        assertEquals(getStatus(close), "ok");
+        assertFalse(close.get(0).getBoolean("closed", true), "Idle SWF was not unloaded");
+    }
+
+    static void deleteDir(File dir) {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                deleteDir(file);
+            }
+        }
+        dir.delete();
+    }
+}
@@ -27,16 +27,12 @@ import com.jpexs.decompiler.flash.helpers.HighlightedText;
 import com.jpexs.decompiler.flash.helpers.HighlightedTextWriter;
 import com.jpexs.decompiler.flash.tags.base.ASMSource;
 import com.jpexs.helpers.ImmediateFuture;
-import java.util.ArrayList;
-import java.util.List;
+import com.jpexs.helpers.TaskScheduler;
 import java.util.Map;
 import java.util.WeakHashMap;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.ThreadPoolExecutor;
-import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -46,15 +42,14 @@ import java.util.logging.Logger;
  */
 public class DecompilerPool {
 
-    private final ThreadPoolExecutor executor;
-
-    private Map<SWF, List<Future<HighlightedText>>> swfToFutures = new WeakHashMap<>();
+    /**
+     * Owner keys of the decompilation tasks, separate from the SWF itself so
+     * destroySwf does not cancel other tasks of the SWF like tag reading or
+     * export.
+     */
+    private final Map<SWF, Object> swfOwners = new WeakHashMap<>();
 
     public DecompilerPool() {
-        int threadCount = Configuration.getParallelThreadCount();
-        executor = new ThreadPoolExecutor(threadCount, threadCount,
-                0L, TimeUnit.MILLISECONDS,
-                new LinkedBlockingQueue<>());
     }
 
     public Future<HighlightedText> submitTask(ASMSource src, ActionList actions, ScriptDecompiledListener<HighlightedText> listener) {
@@ -84,7 +79,7 @@ public class DecompilerPool {
             }
         };
 
-        return submit(callable);
+        return submit(src.getSwf(), callable);
     }
 
     public Future<HighlightedText> submitTask(ScriptPack pack, ScriptDecompiledListener<HighlightedText> listener) {
@@ -118,14 +113,13 @@ public class DecompilerPool {
             }
         };
 
-        return submit(callable);
+        return submit(pack.getSwf(), callable);
     }
 
-    private Future<HighlightedText> submit(Callable<HighlightedText> callable) {
+    private Future<HighlightedText> submit(SWF swf, Callable<HighlightedText> callable) {
         boolean parallel = Configuration.parallelSpeedUp.get();
         if (parallel) {
-            Future<HighlightedText> f = executor.submit(callable);
-            return f;
+            return TaskScheduler.submit(getOwner(swf), callable);
         } else {
             boolean cancelled = false;
             Throwable throwable = null;
@@ -142,77 +136,59 @@ public class DecompilerPool {
         }
     }
 
-    public String getStat() {
-        return "core: " + executor.getCorePoolSize()
-                + " size: " + executor.getPoolSize()
-                + " largest: " + executor.getLargestPoolSize()
-                + " max: " + executor.getMaximumPoolSize()
-                + " active: " + executor.getActiveCount()
-                + " count: " + executor.getTaskCount()
-                + " completed: " + executor.getCompletedTaskCount();
-    }
-
-    public HighlightedText decompile(ASMSource src, ActionList actions) throws InterruptedException {
-        Future<HighlightedText> future = submitTask(src, actions, null);
-        SWF swf = src.getSwf();
-        if (!swfToFutures.containsKey(swf)) {
-            swfToFutures.put(swf, new ArrayList<>());
+    private Object getOwner(SWF swf) {
+        if (swf == null) {
+            return null;
         }
-        swfToFutures.get(swf).add(future);
-        try {
-            return future.get();
-        } catch (InterruptedException ex) {
-            future.cancel(true);
-            throw ex;
-        } catch (ExecutionException ex) {
-            Logger.getLogger(DecompilerPool.class.getName()).log(Level.SEVERE, null, ex);
-        } finally {
-            List<Future<HighlightedText>> futures = swfToFutures.get(swf);
-            if (futures != null) {
-                futures.remove(future);
+
+        synchronized (swfOwners) {
+            Object owner = swfOwners.get(swf);
+            if (owner == null) {
+                owner = new Object();
+                swfOwners.put(swf, owner);
             }
+
+            return owner;
         }
+    }
 
-        return null;
+    public String getStat() {
+        return TaskScheduler.getStat();
+    }
+
+    public HighlightedText decompile(ASMSource src, ActionList actions) throws InterruptedException {
+        return decompile(submitTask(src, actions, null));
     }
 
     public HighlightedText decompile(ScriptPack pack) throws InterruptedException {
-        Future<HighlightedText> future = submitTask(pack, null);
+        return decompile(submitTask(pack, null));
+    }
 
-        SWF swf = pack.getSwf();
-        if (!swfToFutures.containsKey(swf)) {
-            swfToFutures.put(swf, new ArrayList<>());
-        }
-        swfToFutures.get(swf).add(future);
+    private HighlightedText decompile(Future<HighlightedText> future) throws InterruptedException {
         try {
-            return future.get();
+            return TaskScheduler.join(future);
         } catch (InterruptedException ex) {
             future.cancel(true);
             throw ex;
         } catch (ExecutionException ex) {
             Logger.getLogger(DecompilerPool.class.getName()).log(Level.SEVERE, null, ex);
-        } finally {
-            List<Future<HighlightedText>> futures = swfToFutures.get(swf);
-            if (futures != null) {
-                futures.remove(future);
-            }
         }
 
         return null;
     }
 
     public void shutdown() throws InterruptedException {
-        executor.shutdown();
-        if (!executor.awaitTermination(100, TimeUnit.SECONDS)) {
-        }
+        // the threads belong to the shared TaskScheduler
     }
-    
-    public void destroySwf(SWF swf){
-        List<Future<HighlightedText>> futures = swfToFutures.get(swf);
-        if(futures!=null){
-           for(Future<HighlightedText> future:futures){
-               future.cancel(true);
-           }
+
+    public void destroySwf(SWF swf) {
+        Object owner;
+        synchronized (swfOwners) {
+            owner = swfOwners.get(swf);
+        }
+
+        if (owner != null) {
+            TaskScheduler.cancel(owner);
         }
     }
 }
@@ -33,6 +33,7 @@ import com.jpexs.decompiler.flash.abc.avm2.model.NewArrayAVM2Item;
 import com.jpexs.decompiler.flash.abc.avm2.model.NewObjectAVM2Item;
 import com.jpexs.decompiler.flash.abc.avm2.model.SetPropertyAVM2Item;
 import com.jpexs.decompiler.flash.abc.avm2.model.StringAVM2Item;
+import com.jpexs.decompiler.flash.abc.avm2.parser.script.AbcIndexing;
 import com.jpexs.decompiler.flash.abc.types.ConvertData;
 import com.jpexs.decompiler.flash.abc.types.MethodBody;
 import com.jpexs.decompiler.flash.abc.types.Multiname;
@@ -82,6 +83,7 @@ import com.jpexs.decompiler.flash.exporters.modes.ScriptExportMode;
 import com.jpexs.decompiler.flash.exporters.script.AS2ScriptExporter;
 import com.jpexs.decompiler.flash.exporters.script.AS3ScriptExporter;
 import com.jpexs.decompiler.flash.exporters.settings.ScriptExportSettings;
+import com.jpexs.decompiler.flash.exporters.shape.GlyphOutlineCache;
 import com.jpexs.decompiler.flash.exporters.shape.ShapeExportData;
 import com.jpexs.decompiler.flash.helpers.HighlightedText;
 import com.jpexs.decompiler.flash.helpers.HighlightedTextWriter;
@@ -112,6 +114,7 @@ import com.jpexs.decompiler.flash.tags.ShowFrameTag;
 import com.jpexs.decompiler.flash.tags.SymbolClassTag;
 import com.jpexs.decompiler.flash.tags.Tag;
 import com.jpexs.decompiler.flash.tags.TagStub;
+import com.jpexs.decompiler.flash.tags.TagTypeInfo;
 import com.jpexs.decompiler.flash.tags.VideoFrameTag;
 import com.jpexs.decompiler.flash.tags.base.ASMSource;
 import com.jpexs.decompiler.flash.tags.base.ASMSourceContainer;
@@ -162,13 +165,19 @@ import com.jpexs.decompiler.graph.ScopeStack;
 import com.jpexs.decompiler.graph.TranslateStack;
 import com.jpexs.decompiler.graph.model.IfItem;
 import com.jpexs.decompiler.graph.model.LocalData;
+import com.jpexs.helpers.ByteArrayCacheCodec;
+import com.jpexs.helpers.ByteArrayCacheWeigher;
 import com.jpexs.helpers.ByteArrayRange;
 import com.jpexs.helpers.Cache;
+import com.jpexs.helpers.CacheWeigher;
 import com.jpexs.helpers.Helper;
+import com.jpexs.helpers.ImageCacheCodec;
+import com.jpexs.helpers.ImageCacheWeigher;
 import com.jpexs.helpers.ImmediateFuture;
 import com.jpexs.helpers.NulStream;
 import com.jpexs.helpers.ProgressListener;
 import com.jpexs.helpers.Reference;
+import com.jpexs.helpers.SerializableCacheCodec;
 import com.jpexs.helpers.SerializableImage;
 import com.jpexs.helpers.utf8.Utf8Helper;
 import java.awt.AlphaComposite;
@@ -177,6 +186,7 @@ import java.awt.Graphics2D;
 import java.awt.Point;
 import java.awt.Rectangle;
 import java.awt.geom.AffineTransform;
+import java.io.BufferedOutputStream;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
@@ -184,6 +194,9 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -282,6 +295,15 @@ public final class SWF implements SWFContainerItem, Timelined {
     @Internal
     public byte[] originalUncompressedData;
 
+    /**
+     * Uncompressed data mapped from a temporary file, used instead of
+     * uncompressedData when the SWF was opened in memory mapped mode. Java
+     * cannot unmap it explicitly while tags may still point into it, the
+     * mapping is released when the SWF is garbage collected.
+     */
+    @Internal
+    private ByteBuffer mappedData;
+
     /**
      * ScaleForm GFx
      */
@@ -311,6 +333,9 @@ public final class SWF implements SWFContainerItem, Timelined {
     @Internal
     private volatile List<ABCContainerTag> abcList;
 
+    @Internal
+    private volatile AbcIndexing abcIndex;
+
     @Internal
     private volatile JPEGTablesTag jtt;
 
@@ -328,7 +353,7 @@ public final class SWF implements SWFContainerItem, Timelined {
     private Timeline timeline;
 
     @Internal
-    public DumpInfoSwfNode dumpInfo;
+    private DumpInfoSwfNode dumpInfo;
 
     @Internal
     public DefineBinaryDataTag binaryData;
@@ -339,17 +364,38 @@ public final class SWF implements SWFContainerItem, Timelined {
     @Internal
     private final IdentifiersDeobfuscation deobfuscation = new IdentifiersDeobfuscation();
 
+    /**
+     * Approximate size of a cached RECT with its map entry, the rect cache is
+     * limited by entry count this way
+     */
+    private static final CacheWeigher<RECT> RECT_WEIGHER = new CacheWeigher<RECT>() {
+        @Override
+        public long getWeight(RECT value) {
+            return 64;
+        }
+    };
+
+    private static final CacheWeigher<ShapeExportData> SHAPE_EXPORT_DATA_WEIGHER = new CacheWeigher<ShapeExportData>() {
+        @Override
+        public long getWeight(ShapeExportData value) {
+            return value.getWeight();
+        }
+    };
+
     @Internal
-    private final Cache<String, SerializableImage> frameCache = Cache.getInstance(false, false, "frame");
+    private final Cache<String, SerializableImage> frameCache = Cache.getInstance(false, false, "frame", new ImageCacheCodec(), new ImageCacheWeigher(), Cache.BUDGET_SHARE_FRAME);
 
     @Internal
-    private final Cache<CharacterTag, RECT> rectCache = Cache.getInstance(true, true, "rect");
+    private final Cache<CharacterTag, RECT> rectCache = Cache.getInstance(true, true, "rect", new SerializableCacheCodec<RECT>(), RECT_WEIGHER, Cache.BUDGET_SHARE_RECT);
 
     @Internal
-    private final Cache<SHAPE, ShapeExportData> shapeExportDataCache = Cache.getInstance(true, true, "shapeExportData");
+    private final Cache<SHAPE, ShapeExportData> shapeExportDataCache = Cache.getInstance(true, true, "shapeExportData", new SerializableCacheCodec<ShapeExportData>(), SHAPE_EXPORT_DATA_WEIGHER, Cache.BUDGET_SHARE_SHAPE_EXPORT_DATA);
 
     @Internal
-    private final Cache<SoundInfoSoundCacheEntry, byte[]> soundCache = Cache.getInstance(false, false, "sound");
+    private final Cache<ImageTag, SerializableImage> imageCache = Cache.getInstance(true, true, "image", new ImageCacheCodec(), new ImageCacheWeigher(), Cache.BUDGET_SHARE_IMAGE);
+
+    @Internal
+    private final Cache<SoundInfoSoundCacheEntry, byte[]> soundCache = Cache.getInstance(false, false, "sound", new ByteArrayCacheCodec(), new ByteArrayCacheWeigher(), Cache.BUDGET_SHARE_SOUND);
 
     @Internal
     public final AS2Cache as2Cache = new AS2Cache();
@@ -421,6 +467,8 @@ public final class SWF implements SWFContainerItem, Timelined {
             abcList = null;
         }
 
+        abcIndex = null;
+
         if (swfList != null) {
             swfList.swfs.clear();
         }
@@ -428,6 +476,7 @@ public final class SWF implements SWFContainerItem, Timelined {
         clearScriptCache();
         frameCache.clear();
         soundCache.clear();
+        GlyphOutlineCache.clearSwf(this);
 
         timeline = null;
         if (dumpInfo != null) {
@@ -700,6 +749,53 @@ public final class SWF implements SWFContainerItem, Timelined {
         return abcList;
     }
 
+    /**
+     * Gets the index of all ABCs of this SWF. The index is built on first use
+     * and shared by all decompiler threads. Do not modify it directly, use
+     * refreshAbcIndex and removeFromAbcIndex.
+     *
+     * @return ABC index
+     */
+    public AbcIndexing getAbcIndex() {
+        if (abcIndex == null) {
+            synchronized (this) {
+                if (abcIndex == null) {
+                    abcIndex = new AbcIndexing(this);
+                }
+            }
+        }
+
+        return abcIndex;
+    }
+
+    /**
+     * Updates the ABC index after the ABC was modified.
+     *
+     * @param abc ABC
+     */
+    public void refreshAbcIndex(ABC abc) {
+        AbcIndexing index = abcIndex;
+        if (index != null) {
+            synchronized (index) {
+                index.refreshAbc(abc);
+            }
+        }
+    }
+
+    /**
+     * Removes the ABC from the ABC index.
+     *
+     * @param abc ABC
+     */
+    public void removeFromAbcIndex(ABC abc) {
+        AbcIndexing index = abcIndex;
+        if (index != null) {
+            synchronized (index) {
+                index.removeAbc(abc);
+            }
+        }
+    }
+
     public boolean isAS3() {
         FileAttributesTag fileAttributes = getFileAttributes();
         return (fileAttributes != null && fileAttributes.actionScript3) || (fileAttributes == null && !getAbcList().isEmpty());
@@ -903,7 +999,7 @@ public final class SWF implements SWFContainerItem, Timelined {
     }
 
     @Override
-    public Timeline getTimeline() {
+    public synchronized Timeline getTimeline() {
         if (timeline == null) {
             timeline = new Timeline(this);
         }
@@ -1150,11 +1246,66 @@ public final class SWF implements SWFContainerItem, Timelined {
 
         try {
             uncompressedData = saveToByteArray();
+            synchronized (this) {
+                if (dumpInfo == null) {
+                    // the dump tree is not built yet, it will be built from the saved data
+                    originalUncompressedData = uncompressedData;
+                }
+            }
         } catch (IOException ex) {
             logger.log(Level.SEVERE, "Cannot save SWF", ex);
         }
     }
 
+    /**
+     * Gets the root node of the dump tree. The tree is not collected during
+     * parsing, the header and the tag headers are read again from the original
+     * data on the first call. Tag contents are parsed when their nodes are
+     * expanded.
+     *
+     * @return Root dump node
+     */
+    public synchronized DumpInfoSwfNode getDumpInfo() {
+        if (dumpInfo == null) {
+            dumpInfo = createDumpInfo();
+        }
+
+        return dumpInfo;
+    }
+
+    private DumpInfoSwfNode createDumpInfo() {
+        DumpInfoSwfNode result = new DumpInfoSwfNode(this, "rootswf", "", null, 0, 0);
+        ByteBuffer data = originalUncompressedData != null ? ByteBuffer.wrap(originalUncompressedData) : mappedData;
+        if (data == null) {
+            return result;
+        }
+
+        try {
+            SWFInputStream sis = new SWFInputStream(this, data);
+            sis.dumpInfo = result;
+            sis.skipBytesEx(3, "signature"); // skip siganture
+            sis.readUI8("version");
+            result.lengthBytes = sis.readUI32("fileSize");
+            sis.readRECT("displayRect");
+            sis.readFIXED8("frameRate");
+            sis.readUI16("frameCount");
+            sis.readTagList(this, 0, false, false, false, true);
+        } catch (IOException | InterruptedException ex) {
+            logger.log(Level.SEVERE, "Cannot read dump info", ex);
+        }
+
+        for (DumpInfo di : result.getChildInfos()) {
+            if (di.tagToResolve != null) {
+                TagTypeInfo tagInfo = Tag.getKnownClasses().get(di.tagToResolve.getId());
+                if (tagInfo != null) {
+                    di.name = tagInfo.getName();
+                }
+            }
+        }
+
+        return result;
+    }
+
     /**
      * Constructs an empty SWF
      */
@@ -1261,21 +1412,24 @@ public final class SWF implements SWFContainerItem, Timelined {
     public SWF(InputStream is, String file, String fileTitle, ProgressListener listener, boolean parallelRead, boolean checkOnly, boolean lazy, UrlResolver resolver) throws IOException, InterruptedException {
         this.file = file;
         this.fileTitle = fileTitle;
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        SWFHeader header = decompress(is, baos, true);
+        SWFHeader header;
+        if (Configuration.memoryMappedOpen.get() && isMemoryMappingSupported()) {
+            header = decompressMapped(is);
+        } else {
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            header = decompress(is, baos, true);
+            uncompressedData = baos.toByteArray();
+            originalUncompressedData = uncompressedData;
+        }
+
         gfx = header.gfx;
         compression = header.compression;
         lzmaProperties = header.lzmaProperties;
-        uncompressedData = baos.toByteArray();
-        originalUncompressedData = uncompressedData;
 
-        SWFInputStream sis = new SWFInputStream(this, uncompressedData);
-        dumpInfo = new DumpInfoSwfNode(this, "rootswf", "", null, 0, 0);
-        sis.dumpInfo = dumpInfo;
+        SWFInputStream sis = new SWFInputStream(this, getUncompressedBuffer());
         sis.skipBytesEx(3, "signature"); // skip siganture
         version = sis.readUI8("version");
         fileSize = sis.readUI32("fileSize");
-        dumpInfo.lengthBytes = fileSize;
         if (listener != null) {
             sis.addPercentListener(listener);
         }
@@ -1323,6 +1477,80 @@ public final class SWF implements SWFContainerItem, Timelined {
         getASMs(true); // Add scriptNames to ASMs
     }
 
+    /**
+     * Gets the uncompressed SWF data. Tag ranges point into this buffer.
+     *
+     * @return Heap buffer or memory mapped file
+     */
+    public ByteBuffer getUncompressedBuffer() {
+        if (uncompressedData != null) {
+            return ByteBuffer.wrap(uncompressedData);
+        }
+
+        return mappedData;
+    }
+
+    /**
+     * Gets the original uncompressed SWF data as array. When the SWF was
+     * opened in memory mapped mode, the data is copied to the heap on first
+     * call.
+     *
+     * @return Original uncompressed data
+     */
+    public synchronized byte[] getOriginalUncompressedData() {
+        if (originalUncompressedData == null && mappedData != null) {
+            ByteBuffer dup = mappedData.duplicate();
+            dup.position(0);
+            byte[] data = new byte[dup.capacity()];
+            dup.get(data);
+            originalUncompressedData = data;
+        }
+
+        return originalUncompressedData;
+    }
+
+    /**
+     * Checks whether SWF files can be opened memory mapped. On Windows, a
+     * mapped file cannot be deleted until the mapping is released, so the
+     * temporary files would stay on the disk for the whole session.
+     *
+     * @return True when the memory mapped mode can be used
+     */
+    private static boolean isMemoryMappingSupported() {
+        return !System.getProperty("os.name", "").startsWith("Windows");
+    }
+
+    /**
+     * Decompresses the SWF into a temporary file and maps it into memory. The
+     * temporary file is deleted right after mapping. Uncompressed files are
+     * copied too, so the opened file is never mapped and can be saved over.
+     *
+     * @param is Input stream
+     * @return SWF header
+     * @throws IOException
+     */
+    private SWFHeader decompressMapped(InputStream is) throws IOException {
+        File tempFile = File.createTempFile("ffdec_swf_", ".tmp");
+        try {
+            SWFHeader header;
+            try (OutputStream fos = new BufferedOutputStream(new FileOutputStream(tempFile))) {
+                header = decompress(is, fos, true);
+            }
+
+            try (RandomAccessFile raf = new RandomAccessFile(tempFile, "r")) {
+                FileChannel channel = raf.getChannel();
+                mappedData = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+
+            return header;
+        } finally {
+            // the mapping stays valid after deleting the file
+            if (!tempFile.delete()) {
+                tempFile.deleteOnExit();
+            }
+        }
+    }
+
     private void resolveImported(UrlResolver resolver) {
         for (int p = 0; p < tags.size(); p++) {
             Tag t = tags.get(p);
@@ -2656,12 +2884,17 @@ public final class SWF implements SWFContainerItem, Timelined {
         jtt = null;
         frameCache.clear();
         rectCache.clear();
+        imageCache.clear();
         for (Tag tag : getTags()) {
             if (tag instanceof ImageTag) {
                 ((ImageTag) tag).clearCache();
             } else if (tag instanceof DefineCompactedFont) {
                 ((DefineCompactedFont) tag).rebuildShapeCache();
             }
+
+            if (tag instanceof FontTag) {
+                ((FontTag) tag).clearGlyphOutlineCache();
+            }
         }
     }
 
@@ -2682,6 +2915,26 @@ public final class SWF implements SWFContainerItem, Timelined {
         IdentifiersDeobfuscation.clearCache();
     }
 
+    /**
+     * Clears script cache after modification of ABCs. Unlike clearScriptCache,
+     * the decompiled AS3 scripts whose content did not change and the AS1/2
+     * scripts are kept.
+     *
+     * @param oldAs3Keys Keys of the decompiled AS3 scripts before the
+     * modification, see AS3Cache.getKeys
+     */
+    public void clearScriptCache(Map<ScriptPack, String> oldAs3Keys) {
+        as3Cache.removeChanged(oldAs3Keys);
+        List<ABCContainerTag> abcList = getAbcList();
+        for (ABCContainerTag c : abcList) {
+            c.getABC().clearPacksCache();
+        }
+
+        asmsCache = null;
+        asmsCacheExportFilenames = null;
+        IdentifiersDeobfuscation.clearCache();
+    }
+
     public void clearReadOnlyListCache() {
         readOnlyTags = null;
         for (Tag tag : tags) {
@@ -2702,6 +2955,15 @@ public final class SWF implements SWFContainerItem, Timelined {
     }
 
     public void clearAllCache() {
+        clearInstanceCache();
+        clearAllStaticCache();
+    }
+
+    /**
+     * Clears the caches of this SWF only. Unlike clearAllCache, the static
+     * caches shared with the other open SWFs are kept.
+     */
+    public void clearInstanceCache() {
         characters = null;
         characterIdTags = null;
         timeline = null;
@@ -2710,7 +2972,8 @@ public final class SWF implements SWFContainerItem, Timelined {
         clearImageCache();
         clearScriptCache();
         clearAbcListCache();
-        clearAllStaticCache();
+        abcIndex = null;
+        GlyphOutlineCache.clearSwf(this);
     }
 
     public static void uncache(ASMSource src) {
@@ -2811,14 +3074,14 @@ public final class SWF implements SWFContainerItem, Timelined {
             try {
                 ByteArrayRange actionBytes = src.getActionBytes();
                 int prevLength = actionBytes.getPos();
-                SWFInputStream rri = new SWFInputStream(swf, actionBytes.getArray());
+                SWFInputStream rri = new SWFInputStream(swf, actionBytes.getBuffer());
                 if (prevLength != 0) {
                     rri.seek(prevLength);
                 }
 
                 int version = swf == null ? SWF.DEFAULT_VERSION : swf.version;
                 ActionList list = ActionListReader.readActionListTimeout(listeners, rri, version, prevLength, prevLength + actionBytes.getLength(), src.toString()/*FIXME?*/, deobfuscationMode);
-                list.fileData = actionBytes.getArray();
+                list.fileData = actionBytes.getBuffer();
                 list.deobfuscationMode = deobfuscationMode;
                 if (swf != null) {
                     swf.as2Cache.put(src, list);
@@ -2906,6 +3169,10 @@ public final class SWF implements SWFContainerItem, Timelined {
         return shapeExportDataCache;
     }
 
+    public Cache<ImageTag, SerializableImage> getImageCache() {
+        return imageCache;
+    }
+
     public static RECT fixRect(RECT rect) {
         RECT ret = new RECT();
         ret.Xmin = rect.Xmin;
@@ -3111,6 +3378,7 @@ public final class SWF implements SWFContainerItem, Timelined {
     private void removeTagInternal(Timelined timelined, Tag tag, boolean removeDependencies) {
         if ((tag instanceof DoABC2Tag) || (tag instanceof DoABCTag)) {
             clearAbcListCache();
+            removeFromAbcIndex(((ABCContainerTag) tag).getABC());
         }
         if (tag instanceof ShowFrameTag || ShowFrameTag.isNestedTagType(tag.getId())) {
             timelined.removeTag(tag);
@@ -276,20 +276,21 @@ import com.jpexs.helpers.Helper;
 import com.jpexs.helpers.ImmediateFuture;
 import com.jpexs.helpers.MemoryInputStream;
 import com.jpexs.helpers.ProgressListener;
+import com.jpexs.helpers.TaskScheduler;
 import com.jpexs.helpers.utf8.Utf8Helper;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.EOFException;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.PrintStream;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -330,19 +331,26 @@ public class SWFInputStream implements AutoCloseable {
     }
 
     private void informListeners() {
-        if (listeners.size() > 0 && percentMax > 0) {
-            int percent = (int) (getPos() * 100 / percentMax);
-            if (lastPercent != percent) {
-                for (ProgressListener pl : listeners) {
-                    pl.progress(percent);
+        if (percentMax > 0 && listeners.size() > 0) {
+            long pos = getPos();
+            if (pos >= nextInformPos || pos < lastInformPos) {
+                int percent = (int) (pos * 100 / percentMax);
+                lastInformPos = pos;
+                nextInformPos = (percent + 1) * percentMax / 100;
+                if (lastPercent != percent) {
+                    for (ProgressListener pl : listeners) {
+                        pl.progress(percent);
+                    }
+                    lastPercent = percent;
                 }
-                lastPercent = percent;
             }
         }
     }
 
     public void setPercentMax(long percentMax) {
         this.percentMax = percentMax;
+        nextInformPos = 0;
+        lastInformPos = 0;
     }
 
     /**
@@ -360,6 +368,21 @@ public class SWFInputStream implements AutoCloseable {
         is = new MemoryInputStream(data, 0, limit);
     }
 
+    /**
+     * Constructor
+     *
+     * @param swf SWF to read
+     * @param data SWF data, heap buffer or memory mapped file
+     * @param startingPos
+     * @param limit
+     * @throws java.io.IOException
+     */
+    public SWFInputStream(SWF swf, ByteBuffer data, long startingPos, int limit) throws IOException {
+        this.swf = swf;
+        this.startingPos = startingPos;
+        is = new MemoryInputStream(data, 0, limit);
+    }
+
     /**
      * Constructor
      *
@@ -371,6 +394,17 @@ public class SWFInputStream implements AutoCloseable {
         this(swf, data, 0L, data.length);
     }
 
+    /**
+     * Constructor
+     *
+     * @param swf SWF to read
+     * @param data SWF data, heap buffer or memory mapped file
+     * @throws java.io.IOException
+     */
+    public SWFInputStream(SWF swf, ByteBuffer data) throws IOException {
+        this(swf, data, 0L, data.capacity());
+    }
+
     public SWF getSwf() {
         return swf;
     }
@@ -456,6 +490,14 @@ public class SWFInputStream implements AutoCloseable {
 
     private int lastPercent = -1;
 
+    /**
+     * Listeners are informed only when the position crosses the next percent
+     * boundary
+     */
+    private long nextInformPos = 0;
+
+    private long lastInformPos = 0;
+
     private int readNoBitReset() throws IOException, EndOfStreamException {
         int r = is.read();
         if (r == -1) {
@@ -812,7 +854,7 @@ public class SWFInputStream implements AutoCloseable {
         int startPos = (int) getPos();
         skipBytesEx(count);
         endDumpLevel();
-        return new ByteArrayRange(swf.uncompressedData, startPos, (int) count);
+        return new ByteArrayRange(swf.getUncompressedBuffer(), startPos, (int) count);
     }
 
     /**
@@ -931,7 +973,35 @@ public class SWFInputStream implements AutoCloseable {
     }
 
     public static byte[] uncompressByteArray(byte[] data, int offset, int length) throws IOException {
-        InflaterInputStream dis = new InflaterInputStream(new ByteArrayInputStream(data, offset, length));
+        return uncompressByteArray(new ByteArrayInputStream(data, offset, length));
+    }
+
+    public static byte[] uncompressByteArray(ByteArrayRange data) throws IOException {
+        return uncompressByteArray(data.getInputStream());
+    }
+
+    /**
+     * Decompresses zlib data with known size after decompression.
+     *
+     * @param data Compressed data
+     * @param length Size after decompression
+     * @return Array of the given size. The part which is missing in the data
+     * is filled with zeros.
+     * @throws IOException
+     */
+    public static byte[] uncompressByteArray(ByteArrayRange data, int length) throws IOException {
+        byte[] ret = new byte[length];
+        InflaterInputStream dis = new InflaterInputStream(data.getInputStream());
+        int pos = 0;
+        int c;
+        while (pos < length && (c = dis.read(ret, pos, length - pos)) > 0) {
+            pos += c;
+        }
+        return ret;
+    }
+
+    private static byte[] uncompressByteArray(InputStream is) throws IOException {
+        InflaterInputStream dis = new InflaterInputStream(is);
         ByteArrayOutputStream baos = new ByteArrayOutputStream();
         byte[] buf = new byte[4096];
         int c;
@@ -1008,22 +1078,38 @@ public class SWFInputStream implements AutoCloseable {
         if (nBits == 0) {
             return 0;
         }
-        long ret = 0;
-        if (bitPos == 0) {
-            tempByte = readNoBitReset();
+
+        if (nBits > 32) {
+            long high = readUBInternal(nBits - 32);
+            return (high << 32) | readUBInternal(32);
         }
-        for (int bit = 0; bit < nBits; bit++) {
-            int nb = (tempByte >> (7 - bitPos)) & 1;
-            ret += (nb << (nBits - 1 - bit));
-            bitPos++;
+
+        // remaining bits of the current byte
+        int availableBits = bitPos == 0 ? 0 : 8 - bitPos;
+        long acc = tempByte & ((1 << availableBits) - 1);
+        if (nBits <= availableBits) {
+            bitPos += nBits;
             if (bitPos == 8) {
                 bitPos = 0;
-                if (bit != nBits - 1) {
-                    tempByte = readNoBitReset();
-                }
             }
+
+            return acc >>> (availableBits - nBits);
         }
-        return ret;
+
+        // read all the following bytes at once, at most 4 bytes are needed
+        int byteCount = (nBits - availableBits + 7) >>> 3;
+        long word;
+        try {
+            word = is.readUnsignedBigEndian(byteCount);
+        } catch (EOFException ex) {
+            throw new EndOfStreamException();
+        }
+
+        tempByte = (int) (word & 0xff);
+        int unusedBits = availableBits + (byteCount << 3) - nBits;
+        bitPos = unusedBits == 0 ? 0 : 8 - unusedBits;
+        informListeners();
+        return ((acc << (byteCount << 3)) | word) >>> unusedBits;
     }
 
     /**
@@ -1188,12 +1274,7 @@ public class SWFInputStream implements AutoCloseable {
         }
 
         boolean parallel1 = level == 0 && parallel;
-        ExecutorService executor = null;
         List<Future<Tag>> futureResults = new ArrayList<>();
-        if (parallel1) {
-            executor = Executors.newFixedThreadPool(Configuration.getParallelThreadCount());
-            futureResults = new ArrayList<>();
-        }
         List<Tag> tags = new ArrayList<>();
         Tag tag;
         boolean isAS3 = false;
@@ -1271,8 +1352,8 @@ public class SWFInputStream implements AutoCloseable {
                 dumpTag(System.out, tag, tags.size() - 1, level);
             }
 
-            if (parseTags && doParse && parallel1 && tag instanceof TagStub && executor != null) {
-                Future<Tag> future = executor.submit(new TagResolutionTask((TagStub) tag, di, level, parallel1, skipUnusualTags, lazy));
+            if (parseTags && doParse && parallel1 && tag instanceof TagStub) {
+                Future<Tag> future = TaskScheduler.submit(swf, new TagResolutionTask((TagStub) tag, di, level, parallel1, skipUnusualTags, lazy));
                 futureResults.add(future);
             } else {
                 Future<Tag> future = new ImmediateFuture<>(tag);
@@ -1292,17 +1373,14 @@ public class SWFInputStream implements AutoCloseable {
         if (parallel1) {
             for (Future<Tag> future : futureResults) {
                 try {
-                    tags.add(future.get());
+                    tags.add(TaskScheduler.join(future));
                 } catch (InterruptedException ex) {
-                    future.cancel(true);
+                    TaskScheduler.cancelAll(futureResults);
+                    throw ex;
                 } catch (ExecutionException e) {
                     logger.log(Level.SEVERE, "Error during tag reading", e);
                 }
             }
-
-            if (executor != null) {
-                executor.shutdown();
-            }
         }
         return tags;
     }
@@ -1645,7 +1723,7 @@ public class SWFInputStream implements AutoCloseable {
             tagLength = available;
         }
 
-        ByteArrayRange dataRange = new ByteArrayRange(swf.uncompressedData, (int) pos, (int) (tagLength + headerLength));
+        ByteArrayRange dataRange = new ByteArrayRange(swf.getUncompressedBuffer(), (int) pos, (int) (tagLength + headerLength));
         skipBytes(tagLength);
 
         TagStub tagStub = new TagStub(swf, tagID, "Unresolved", dataRange, tagDataStream);
@@ -3588,13 +3666,13 @@ public class SWFInputStream implements AutoCloseable {
 
     public MemoryInputStream getBaseStream() throws IOException {
         int pos = (int) is.getPos();
-        MemoryInputStream mis = new MemoryInputStream(is.getAllRead(), 0, pos + is.available());
+        MemoryInputStream mis = new MemoryInputStream(is.getBuffer(), 0, pos + is.available());
         mis.seek(pos);
         return mis;
     }
 
     public SWFInputStream getLimitedStream(int limit) throws IOException {
-        SWFInputStream sis = new SWFInputStream(swf, is.getAllRead(), startingPos, (int) (is.getPos() + limit));
+        SWFInputStream sis = new SWFInputStream(swf, is.getBuffer(), startingPos, (int) (is.getPos() + limit));
 
         // uncomment the following line to turn off lazy dump info collecting
         //sis.dumpInfo = dumpInfo;
@@ -12,7 +12,7 @@
  * Lesser General Public License for more details.
  * 
  * You should have received a copy of the GNU Lesser General Public
- * License along with this library. */
+ * License along with this library. */
 package com.jpexs.decompiler.flash;
 
 import com.jpexs.decompiler.flash.amf.amf3.Amf3OutputStream;
@@ -146,7 +146,7 @@ public class SWFOutputStream extends OutputStream {
 
     public void write(ByteArrayRange b) throws IOException {
         alignByte();
-        os.write(b.getArray(), b.getPos(), b.getLength());
+        b.writeTo(os);
         pos += b.getLength();
     }
 
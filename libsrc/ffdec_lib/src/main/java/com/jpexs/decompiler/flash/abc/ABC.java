@@ -705,7 +705,6 @@ public class ABC {
             SWFDecompilerPlugin.fireMethodBodyParsed(this, mb, swf);
         }
 
-        //this will read all method body codes. TODO: make this ondemand
         refreshMultinameNamespaceSuffixes();
         getMethodIndexing();
 
@@ -1083,7 +1082,7 @@ public class ABC {
         }
     }
 
-    private void checkAllMultinameUsedInMethod(int methodInfo, List<List<MultinameUsage>> ret, int scriptIndex, int classIndex, int traitIndex, int traitsType, boolean isInitializer, Traits traits, int parentTraitIndex) {
+    private void checkAllMultinameUsedInMethod(int methodInfo, List<List<MultinameUsage>> ret, int scriptIndex, int classIndex, int traitIndex, int traitsType, boolean isInitializer, Traits traits, int parentTraitIndex, boolean withCode) {
         boolean[] foundMultinames = new boolean[constants.getMultinameCount()];
         for (int p = 0; p < method_info.get(methodInfo).param_types.length; p++) {
             int methodParamsMultinameIndex = method_info.get(methodInfo).param_types[p];
@@ -1097,7 +1096,7 @@ public class ABC {
 
         MethodBody body = findBody(methodInfo);
         if (body != null) {
-            findAllMultinameUsageInTraits(body.traits, traitsType, scriptIndex, classIndex, ret, traitIndex);
+            findAllMultinameUsageInTraits(body.traits, traitsType, scriptIndex, classIndex, ret, traitIndex, withCode);
             foundMultinames = new boolean[constants.getMultinameCount()];
             for (ABCException e : body.exceptions) {
                 if (!foundMultinames[e.name_index]) {
@@ -1110,6 +1109,9 @@ public class ABC {
                     foundMultinames[e.type_index] = true;
                 }
             }
+            if (!withCode) {
+                return;
+            }
             for (AVM2Instruction ins : body.getCode().code) {
                 for (int o = 0; o < ins.definition.operands.length; o++) {
                     if (ins.definition.operands[o] == AVM2Code.DAT_MULTINAME_INDEX) {
@@ -1164,7 +1166,7 @@ public class ABC {
         }
     }
 
-    private void findAllMultinameUsageInTraits(Traits traits, int traitsType, int scriptIndex, int classIndex, List<List<MultinameUsage>> ret, int parentTraitIndex) {
+    private void findAllMultinameUsageInTraits(Traits traits, int traitsType, int scriptIndex, int classIndex, List<List<MultinameUsage>> ret, int parentTraitIndex, boolean withCode) {
         for (int t = 0; t < traits.traits.size(); t++) {
             if (traits.traits.get(t) instanceof TraitClass) {
                 TraitClass tc = (TraitClass) traits.traits.get(t);
@@ -1180,10 +1182,10 @@ public class ABC {
                     int implementsMultinameIndex = instance_info.get(c).interfaces[i];
                     ret.get(implementsMultinameIndex).add(new ImplementsMultinameUsage(this, implementsMultinameIndex, c, scriptIndex));
                 }
-                checkAllMultinameUsedInMethod(instance_info.get(c).iinit_index, ret, -1/*FIXME*/, c, 0, TraitMultinameUsage.TRAITS_TYPE_INSTANCE, true, null, -1);
-                checkAllMultinameUsedInMethod(class_info.get(c).cinit_index, ret, -1/*FIXME*/, c, 0, TraitMultinameUsage.TRAITS_TYPE_CLASS, true, null, -1);
-                findAllMultinameUsageInTraits(instance_info.get(c).instance_traits, TraitMultinameUsage.TRAITS_TYPE_INSTANCE, -1/*FIXME*/, c, ret, -1);
-                findAllMultinameUsageInTraits(class_info.get(c).static_traits, TraitMultinameUsage.TRAITS_TYPE_CLASS, -1/*FIXME*/, c, ret, -1);
+                checkAllMultinameUsedInMethod(instance_info.get(c).iinit_index, ret, -1/*FIXME*/, c, 0, TraitMultinameUsage.TRAITS_TYPE_INSTANCE, true, null, -1, withCode);
+                checkAllMultinameUsedInMethod(class_info.get(c).cinit_index, ret, -1/*FIXME*/, c, 0, TraitMultinameUsage.TRAITS_TYPE_CLASS, true, null, -1, withCode);
+                findAllMultinameUsageInTraits(instance_info.get(c).instance_traits, TraitMultinameUsage.TRAITS_TYPE_INSTANCE, -1/*FIXME*/, c, ret, -1, withCode);
+                findAllMultinameUsageInTraits(class_info.get(c).static_traits, TraitMultinameUsage.TRAITS_TYPE_CLASS, -1/*FIXME*/, c, ret, -1, withCode);
             }
             if (traits.traits.get(t) instanceof TraitSlotConst) {
                 TraitSlotConst tsc = (TraitSlotConst) traits.traits.get(t);
@@ -1193,7 +1195,7 @@ public class ABC {
             if (traits.traits.get(t) instanceof TraitMethodGetterSetter) {
                 TraitMethodGetterSetter tmgs = (TraitMethodGetterSetter) traits.traits.get(t);
                 ret.get(tmgs.name_index).add(new MethodNameMultinameUsage(this, tmgs.name_index, scriptIndex, classIndex, t, traitsType, false, traits, parentTraitIndex));
-                checkAllMultinameUsedInMethod(tmgs.method_info, ret, scriptIndex, classIndex, t, traitsType, false, traits, parentTraitIndex);
+                checkAllMultinameUsedInMethod(tmgs.method_info, ret, scriptIndex, classIndex, t, traitsType, false, traits, parentTraitIndex, withCode);
             }
         }
     }
@@ -1246,8 +1248,9 @@ public class ABC {
         }
         Set<MultinameUsage> collidingUsages = new HashSet<>();
 
-        // find context of names with count 2 or more
-        List<List<MultinameUsage>> usagesList = findAllMultinameUsage();
+        // find context of names with count 2 or more,
+        // usages in method body code never collide
+        List<List<MultinameUsage>> usagesList = findAllMultinameUsage(false);
         for (String name : nameToQNameIndices.keySet()) {
             List<Integer> multinameIndices = nameToQNameIndices.get(name);
             if (multinameIndices.size() > 1) {
@@ -1319,13 +1322,24 @@ public class ABC {
     }
 
     public List<List<MultinameUsage>> findAllMultinameUsage() {
+        return findAllMultinameUsage(true);
+    }
+
+    /**
+     * Finds usages of all multinames.
+     *
+     * @param withCode Include usages in method body code. Without them, the
+     * method bodies do not need to be decoded.
+     * @return List of usages for each multiname index
+     */
+    private List<List<MultinameUsage>> findAllMultinameUsage(boolean withCode) {
         List<List<MultinameUsage>> ret = new ArrayList<>();
         for (int i = 0; i < constants.getMultinameCount(); i++) {
             ret.add(new ArrayList<>());
         }
 
         for (int s = 0; s < script_info.size(); s++) {
-            findAllMultinameUsageInTraits(script_info.get(s).traits, TraitMultinameUsage.TRAITS_TYPE_SCRIPT, s, -1, ret, -1);
+            findAllMultinameUsageInTraits(script_info.get(s).traits, TraitMultinameUsage.TRAITS_TYPE_SCRIPT, s, -1, ret, -1, withCode);
         }
 
         boolean[] foundMultinames = new boolean[constants.getMultinameCount()];
@@ -1654,35 +1668,137 @@ public class ABC {
         return pack.isSimple;
     }
 
-    private void packMethods() {
-        for (int m = 0; m < method_info.size(); m++) {
-            if (method_info.get(m).deleted) {
-                removeMethod(m);
-                m--;
-            }
-        }
+    /**
+     * Removes deleted methods, classes and scripts and clears the caches of the
+     * SWF.
+     */
+    public void pack() {
+        removeDeleted();
+        getSwf().clearAbcListCache();
+        getSwf().clearScriptCache();
+        getSwf().refreshAbcIndex(this);
     }
 
-    public void pack() {
-        packMethods();
+    /**
+     * Removes deleted methods, classes and scripts. The references to the
+     * remaining methods and classes are updated in a single pass. Caches of the
+     * SWF are not cleared.
+     */
+    public void removeDeleted() {
+        int[] deletedMethodsBefore = new int[method_info.size() + 1];
+        for (int m = 0; m < method_info.size(); m++) {
+            deletedMethodsBefore[m + 1] = deletedMethodsBefore[m] + (method_info.get(m).deleted ? 1 : 0);
+        }
+        int[] deletedClassesBefore = new int[instance_info.size() + 1];
         for (int c = 0; c < instance_info.size(); c++) {
-            if (instance_info.get(c).deleted) {
-                removeClass(c);
-                c--;
+            deletedClassesBefore[c + 1] = deletedClassesBefore[c] + (instance_info.get(c).deleted ? 1 : 0);
+        }
+
+        if (deletedMethodsBefore[method_info.size()] > 0 || deletedClassesBefore[instance_info.size()] > 0) {
+            List<MethodBody> newBodies = new ArrayList<>();
+            for (MethodBody b : bodies) {
+                if (b.method_info < method_info.size() && method_info.get(b.method_info).deleted) {
+                    continue;
+                }
+                newBodies.add(b);
+                b.method_info = getPackedIndex(deletedMethodsBefore, b.method_info);
+                for (AVM2Instruction ins : b.getCode().code) {
+                    for (int i = 0; i < ins.definition.operands.length; i++) {
+                        int[] deletedBefore;
+                        if (ins.definition.operands[i] == AVM2Code.DAT_METHOD_INDEX) {
+                            deletedBefore = deletedMethodsBefore;
+                        } else if (ins.definition.operands[i] == AVM2Code.DAT_CLASS_INDEX) {
+                            deletedBefore = deletedClassesBefore;
+                        } else {
+                            continue;
+                        }
+                        int newIndex = getPackedIndex(deletedBefore, ins.operands[i]);
+                        if (newIndex != ins.operands[i]) {
+                            ins.setOperand(i, newIndex, b.getCode(), b);
+                        }
+                    }
+                }
+                packTraits(b.traits, deletedMethodsBefore, deletedClassesBefore);
+            }
+            bodies = newBodies;
+
+            for (int c = 0; c < instance_info.size(); c++) {
+                InstanceInfo ii = instance_info.get(c);
+                ii.iinit_index = getPackedIndex(deletedMethodsBefore, ii.iinit_index);
+                packTraits(ii.instance_traits, deletedMethodsBefore, deletedClassesBefore);
+                ClassInfo ci = class_info.get(c);
+                ci.cinit_index = getPackedIndex(deletedMethodsBefore, ci.cinit_index);
+                packTraits(ci.static_traits, deletedMethodsBefore, deletedClassesBefore);
+            }
+
+            for (ScriptInfo si : script_info) {
+                si.init_index = getPackedIndex(deletedMethodsBefore, si.init_index);
+                packTraits(si.traits, deletedMethodsBefore, deletedClassesBefore);
             }
+
+            List<InstanceInfo> newInstanceInfo = new ArrayList<>();
+            List<ClassInfo> newClassInfo = new ArrayList<>();
+            for (int c = 0; c < instance_info.size(); c++) {
+                if (!instance_info.get(c).deleted) {
+                    newInstanceInfo.add(instance_info.get(c));
+                    newClassInfo.add(class_info.get(c));
+                }
+            }
+            instance_info = newInstanceInfo;
+            class_info = newClassInfo;
+
+            List<MethodInfo> newMethodInfo = new ArrayList<>();
+            for (MethodInfo mi : method_info) {
+                if (!mi.deleted) {
+                    newMethodInfo.add(mi);
+                }
+            }
+            method_info = newMethodInfo;
         }
-        packMethods();
-        for (int s = 0; s < script_info.size(); s++) {
-            if (script_info.get(s).deleted) {
-                script_info.remove(s);
-                s--;
+
+        List<ScriptInfo> newScriptInfo = new ArrayList<>();
+        for (ScriptInfo si : script_info) {
+            if (!si.deleted) {
+                newScriptInfo.add(si);
             }
         }
-        getSwf().clearAbcListCache();
-        getSwf().clearScriptCache();
+        script_info = newScriptInfo;
+
+        abcMethodIndexing = null;
         getMethodIndexing();
     }
 
+    /**
+     * Gets index of method or class after removing the deleted ones.
+     *
+     * @param deletedBefore Number of deleted items before each index
+     * @param index Original index
+     * @return New index
+     */
+    private static int getPackedIndex(int[] deletedBefore, int index) {
+        if (index < 0) {
+            return index;
+        }
+        return index - deletedBefore[Math.min(index, deletedBefore.length - 1)];
+    }
+
+    private static void packTraits(Traits traits, int[] deletedMethodsBefore, int[] deletedClassesBefore) {
+        for (Trait t : traits.traits) {
+            if (t instanceof TraitClass) {
+                TraitClass tc = (TraitClass) t;
+                tc.class_info = getPackedIndex(deletedClassesBefore, tc.class_info);
+            }
+            if (t instanceof TraitMethodGetterSetter) {
+                TraitMethodGetterSetter tmgs = (TraitMethodGetterSetter) t;
+                tmgs.method_info = getPackedIndex(deletedMethodsBefore, tmgs.method_info);
+            }
+            if (t instanceof TraitFunction) {
+                TraitFunction tf = (TraitFunction) t;
+                tf.method_info = getPackedIndex(deletedMethodsBefore, tf.method_info);
+            }
+        }
+    }
+
     /**
      * Merges second ABC to this one.
      *
@@ -449,8 +449,8 @@ public class ABCInputStream implements AutoCloseable {
 
     private byte[] readBytesInternal(int count) throws IOException {
         byte[] ret = new byte[count];
-        for (int i = 0; i < count; i++) {
-            ret[i] = (byte) readInternal();
+        if (count > 0 && read(ret) < count) {
+            throw new EndOfStreamException();
         }
         return ret;
     }
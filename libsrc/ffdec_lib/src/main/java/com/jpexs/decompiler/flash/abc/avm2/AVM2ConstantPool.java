@@ -30,7 +30,9 @@ import com.jpexs.decompiler.flash.types.annotations.Internal;
 import com.jpexs.decompiler.flash.types.annotations.SWFField;
 import com.jpexs.decompiler.flash.types.annotations.SWFVersion;
 import com.jpexs.decompiler.graph.DottedChain;
+import com.jpexs.helpers.DoubleArrayList;
 import com.jpexs.helpers.HashArrayList;
+import com.jpexs.helpers.LongArrayList;
 import com.jpexs.helpers.utf8.Utf8PrintWriter;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -48,13 +50,13 @@ public class AVM2ConstantPool implements Cloneable {
     private static final Logger logger = Logger.getLogger(AVM2ConstantPool.class.getName());
 
     @SWFField
-    private HashArrayList<Long> constant_int = new HashArrayList<>();
+    private LongArrayList constant_int = new LongArrayList();
 
     @SWFField
-    private HashArrayList<Long> constant_uint = new HashArrayList<>();
+    private LongArrayList constant_uint = new LongArrayList();
 
     @SWFField
-    private HashArrayList<Double> constant_double = new HashArrayList<>();
+    private DoubleArrayList constant_double = new DoubleArrayList();
 
     @SWFField
     @ABCVersionRequirements(exactMinor = 17)
@@ -168,7 +170,7 @@ public class AVM2ConstantPool implements Cloneable {
     public synchronized int addInt(long value) {
         ensureDefault(constant_int);
         value = (int) value;
-        constant_int.add(value);
+        constant_int.addLong(value);
         return constant_int.size() - 1;
     }
 
@@ -197,13 +199,13 @@ public class AVM2ConstantPool implements Cloneable {
     public synchronized int addUInt(long value) {
         ensureDefault(constant_uint);
         value &= 0xffffffffl;
-        constant_uint.add(value);
+        constant_uint.addLong(value);
         return constant_uint.size() - 1;
     }
 
     public synchronized int addDouble(double value) {
         ensureDefault(constant_double);
-        constant_double.add(value);
+        constant_double.addDouble(value);
         return constant_double.size() - 1;
     }
 
@@ -232,7 +234,7 @@ public class AVM2ConstantPool implements Cloneable {
     }
 
     public long setInt(int index, long value) {
-        constant_int.set(index, value);
+        constant_int.setLong(index, value);
         return value;
     }
 
@@ -252,12 +254,12 @@ public class AVM2ConstantPool implements Cloneable {
     }
 
     public long setUInt(int index, long value) {
-        constant_uint.set(index, value);
+        constant_uint.setLong(index, value);
         return value;
     }
 
     public double setDouble(int index, double value) {
-        constant_double.set(index, value);
+        constant_double.setDouble(index, value);
         return value;
     }
 
@@ -286,7 +288,7 @@ public class AVM2ConstantPool implements Cloneable {
             if (index == 0) {
                 return 0;
             }
-            return constant_int.get(index);
+            return constant_int.getLong(index);
         } catch (IndexOutOfBoundsException ex) {
             logger.log(Level.SEVERE, "Int not found. Index: " + index, ex);
         }
@@ -349,7 +351,7 @@ public class AVM2ConstantPool implements Cloneable {
             if (index == 0) {
                 return 0;
             }
-            return constant_uint.get(index);
+            return constant_uint.getLong(index);
         } catch (IndexOutOfBoundsException ex) {
             logger.log(Level.SEVERE, "UInt not found. Index: " + index, ex);
         }
@@ -361,7 +363,7 @@ public class AVM2ConstantPool implements Cloneable {
             if (index == 0) {
                 return 0;
             }
-            return constant_double.get(index);
+            return constant_double.getDouble(index);
         } catch (IndexOutOfBoundsException ex) {
             logger.log(Level.SEVERE, "Double not found. Index: " + index, ex);
         }
@@ -503,15 +505,19 @@ public class AVM2ConstantPool implements Cloneable {
     }
 
     private int getIntId(long value) {
-        return constant_int.indexOf(value);
+        // index 0 is the unused default value
+        int id = constant_int.indexOfLong(value);
+        return id == 0 ? -1 : id;
     }
 
     private int getUIntId(long value) {
-        return constant_uint.indexOf(value);
+        int id = constant_uint.indexOfLong(value);
+        return id == 0 ? -1 : id;
     }
 
     private int getDoubleId(double value) {
-        return constant_double.indexOf(value);
+        int id = constant_double.indexOfDouble(value);
+        return id == 0 ? -1 : id;
     }
 
     private int getFloatId(float value) {
@@ -672,13 +678,13 @@ public class AVM2ConstantPool implements Cloneable {
 
     public void dump(Utf8PrintWriter writer) {
         for (int i = 1; i < constant_int.size(); i++) {
-            writer.println("INT[" + i + "]=" + constant_int.get(i));
+            writer.println("INT[" + i + "]=" + constant_int.getLong(i));
         }
         for (int i = 1; i < constant_uint.size(); i++) {
-            writer.println("UINT[" + i + "]=" + constant_uint.get(i));
+            writer.println("UINT[" + i + "]=" + constant_uint.getLong(i));
         }
         for (int i = 1; i < constant_double.size(); i++) {
-            writer.println("Double[" + i + "]=" + constant_double.get(i));
+            writer.println("Double[" + i + "]=" + constant_double.getDouble(i));
         }
         for (int i = 1; i < constant_string.size(); i++) {
             writer.println("String[" + i + "]=" + constant_string.get(i));
@@ -720,9 +726,9 @@ public class AVM2ConstantPool implements Cloneable {
     public AVM2ConstantPool clone() {
         try {
             AVM2ConstantPool ret = (AVM2ConstantPool) super.clone();
-            ret.constant_int = new HashArrayList<>(constant_int);
-            ret.constant_uint = new HashArrayList<>(constant_uint);
-            ret.constant_double = new HashArrayList<>(constant_double);
+            ret.constant_int = new LongArrayList(constant_int);
+            ret.constant_uint = new LongArrayList(constant_uint);
+            ret.constant_double = new DoubleArrayList(constant_double);
             ret.constant_decimal = new HashArrayList<>(constant_decimal);
             ret.constant_float = new HashArrayList<>(constant_float);
             ret.constant_float4 = new HashArrayList<>(constant_float4);
@@ -792,17 +798,17 @@ public class AVM2ConstantPool implements Cloneable {
         }
         intMap.put(0, 0);
         for (int i = 1; i < secondPool.constant_int.size(); i++) {
-            Long val = secondPool.constant_int.get(i);
+            long val = secondPool.constant_int.getLong(i);
             intMap.put(i, getIntId(val, true));
         }
         uintMap.put(0, 0);
         for (int i = 1; i < secondPool.constant_uint.size(); i++) {
-            Long val = secondPool.constant_uint.get(i);
+            long val = secondPool.constant_uint.getLong(i);
             uintMap.put(i, getUIntId(val, true));
         }
         doubleMap.put(0, 0);
         for (int i = 1; i < secondPool.constant_double.size(); i++) {
-            Double val = secondPool.constant_double.get(i);
+            double val = secondPool.constant_double.getDouble(i);
             doubleMap.put(i, getDoubleId(val, true));
         }
         floatMap.put(0, 0);
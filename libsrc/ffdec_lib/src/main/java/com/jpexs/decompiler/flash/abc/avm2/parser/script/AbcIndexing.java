@@ -12,7 +12,7 @@
  * Lesser General Public License for more details.
  * 
  * You should have received a copy of the GNU Lesser General Public
- * License along with this library. */
+ * License along with this library. */
 package com.jpexs.decompiler.flash.abc.avm2.parser.script;
 
 import com.jpexs.decompiler.flash.SWF;
@@ -34,24 +34,36 @@ import com.jpexs.decompiler.graph.DottedChain;
 import com.jpexs.decompiler.graph.GraphTargetItem;
 import com.jpexs.decompiler.graph.TypeItem;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
 
 /**
  * Indexing of ABCs for faster access. Indexes ABC classes for faster class and
- * property resolving
+ * property resolving. Lookups are thread safe, so one index can be shared by
+ * multiple decompiler threads while it is being updated. Refreshing an ABC
+ * replaces its entries in place, so the lookups do not miss the classes of the
+ * ABC during the refresh.
  *
  * @author JPEXS
  */
 public final class AbcIndexing {
 
-    private AbcIndexing parent = null;
+    private final List<AbcIndexing> parents;
 
-    private final List<ABC> abcs = new ArrayList<>();
+    /**
+     * ABC whose entries in the parents are ignored
+     */
+    private final ABC hiddenAbc;
+
+    private final List<ABC> abcs = new CopyOnWriteArrayList<>();
 
     private ABC selectedAbc = null;
 
@@ -71,7 +83,33 @@ public final class AbcIndexing {
      * @param parent If not property/class found, search also in this parent
      */
     public AbcIndexing(SWF swf, AbcIndexing parent) {
-        this.parent = parent;
+        this(swf, parent == null ? Collections.emptyList() : Collections.singletonList(parent));
+    }
+
+    /**
+     * Creates index from SWF file with parents.
+     *
+     * @param swf SWF file to load initial ABCs from
+     * @param parents If not property/class found, search also in these
+     * parents, in this order
+     */
+    public AbcIndexing(SWF swf, List<AbcIndexing> parents) {
+        this(swf, parents, null);
+    }
+
+    /**
+     * Creates index from SWF file with parents which hides one ABC of the
+     * parents. Used for compiling to an ABC of a shared index without
+     * modifying the shared index.
+     *
+     * @param swf SWF file to load initial ABCs from
+     * @param parents If not property/class found, search also in these
+     * parents, in this order
+     * @param hiddenAbc ABC whose entries in the parents are ignored
+     */
+    public AbcIndexing(SWF swf, List<AbcIndexing> parents, ABC hiddenAbc) {
+        this.parents = new ArrayList<>(parents);
+        this.hiddenAbc = hiddenAbc;
         if (swf != null) {
             for (ABCContainerTag at : swf.getAbcList()) {
                 addAbc(at.getABC());
@@ -85,14 +123,14 @@ public final class AbcIndexing {
      * @param swf SWF file to load initial ABCs from
      */
     public AbcIndexing(SWF swf) {
-        this(swf, null);
+        this(swf, (AbcIndexing) null);
     }
 
     /**
      * Creates empty index
      */
     public AbcIndexing() {
-        this(null, null);
+        this(null, (AbcIndexing) null);
     }
 
     /**
@@ -273,7 +311,7 @@ public final class AbcIndexing {
 
         public ABC abc;
 
-        public ClassIndex parent;
+        public volatile ClassIndex parent;
 
         @Override
         public String toString() {
@@ -287,26 +325,30 @@ public final class AbcIndexing {
         }
     }
 
-    private final Map<GraphTargetItem, ClassIndex> classes = new HashMap<>();
+    private final Map<GraphTargetItem, ClassIndex> classes = new ConcurrentHashMap<>();
 
-    private final Map<PropertyDef, TraitIndex> instanceProperties = new HashMap<>();
+    private final Map<PropertyDef, TraitIndex> instanceProperties = new ConcurrentHashMap<>();
 
-    private final Map<PropertyDef, TraitIndex> classProperties = new HashMap<>();
+    private final Map<PropertyDef, TraitIndex> classProperties = new ConcurrentHashMap<>();
 
-    private final Map<PropertyNsDef, TraitIndex> instanceNsProperties = new HashMap<>();
+    private final Map<PropertyNsDef, TraitIndex> instanceNsProperties = new ConcurrentHashMap<>();
 
-    private final Map<PropertyNsDef, TraitIndex> classNsProperties = new HashMap<>();
+    private final Map<PropertyNsDef, TraitIndex> classNsProperties = new ConcurrentHashMap<>();
 
-    private final Map<PropertyNsDef, TraitIndex> scriptProperties = new HashMap<>();
+    private final Map<PropertyNsDef, TraitIndex> scriptProperties = new ConcurrentHashMap<>();
 
     public ClassIndex findClass(GraphTargetItem cls) {
-        if (!classes.containsKey(cls)) {
-            if (parent == null) {
-                return null;
+        ClassIndex ret = cls == null ? null : classes.get(cls);
+        if (ret == null) {
+            for (AbcIndexing parent : parents) {
+                ret = parent.findClass(cls);
+                if (ret != null && ret.abc != hiddenAbc) {
+                    return ret;
+                }
             }
-            return parent.findClass(cls);
+            return null;
         }
-        return classes.get(cls);
+        return ret;
     }
 
     public TraitIndex findScriptProperty(DottedChain ns) {
@@ -315,20 +357,24 @@ public final class AbcIndexing {
 
     public TraitIndex findScriptProperty(String propName, DottedChain ns) {
         PropertyNsDef nsd = new PropertyNsDef(propName, ns, null, 0);
-        if (!scriptProperties.containsKey(nsd)) {
-            if (parent != null) {
-                return parent.findScriptProperty(propName, ns);
+        TraitIndex ret = scriptProperties.get(nsd);
+        if (ret == null) {
+            for (AbcIndexing parent : parents) {
+                ret = parent.findScriptProperty(propName, ns);
+                if (ret != null && ret.abc != hiddenAbc) {
+                    return ret;
+                }
             }
             return null;
         }
-        return scriptProperties.get(nsd);
+        return ret;
     }
 
     public TraitIndex findNsProperty(PropertyNsDef prop, boolean findStatic, boolean findInstance) {
 
         if (findStatic && classNsProperties.containsKey(prop)) {
             if (!classNsProperties.containsKey(prop)) {
-                if (parent != null) {
+                for (AbcIndexing parent : parents) {
                     TraitIndex ret = parent.findNsProperty(prop, findStatic, findInstance);
                     if (ret != null) {
                         return ret;
@@ -340,7 +386,7 @@ public final class AbcIndexing {
         }
         if (findInstance && instanceNsProperties.containsKey(prop)) {
             if (!instanceNsProperties.containsKey(prop)) {
-                if (parent != null) {
+                for (AbcIndexing parent : parents) {
                     TraitIndex ret = parent.findNsProperty(prop, findStatic, findInstance);
                     if (ret != null) {
                         return ret;
@@ -358,7 +404,7 @@ public final class AbcIndexing {
         //search all static first
         if (findStatic && classProperties.containsKey(prop)) {
             if (!classProperties.containsKey(prop)) {
-                if (parent != null) {
+                for (AbcIndexing parent : parents) {
                     TraitIndex ret = parent.findProperty(prop, findStatic, findInstance);
                     if (ret != null) {
                         return ret;
@@ -372,7 +418,7 @@ public final class AbcIndexing {
         //now search instance
         if (findInstance && instanceProperties.containsKey(prop)) {
             if (!instanceProperties.containsKey(prop)) {
-                if (parent != null) {
+                for (AbcIndexing parent : parents) {
                     TraitIndex ret = parent.findProperty(prop, findStatic, findInstance);
                     if (ret != null) {
                         return ret;
@@ -385,8 +431,12 @@ public final class AbcIndexing {
 
         //now search parent class
         AbcIndexing.ClassIndex ci = findClass(prop.parent);
-        if (ci != null && ci.parent != null && (prop.abc == null || prop.propNsIndex == 0)) {
-            ci = ci.parent;
+        if (ci != null && (prop.abc == null || prop.propNsIndex == 0)) {
+            //the parent class can be in the parents of this index
+            ClassIndex parent = ci.parent;
+            ci = parent != null && parent.abc != hiddenAbc ? parent : findParentClass(ci);
+        }
+        if (ci != null && (prop.abc == null || prop.propNsIndex == 0)) {
             //parent protected
             DottedChain parentClass = ci.abc.instance_info.get(ci.index).getName(ci.abc.constants).getNameWithNamespace(ci.abc.constants, true);
             TraitIndex pti = findProperty(new PropertyDef(prop.propName, new TypeItem(parentClass), ci.abc, ci.abc.instance_info.get(ci.index).protectedNS), findStatic, findInstance);
@@ -471,15 +521,89 @@ public final class AbcIndexing {
         refreshAbc(getSelectedAbc());
     }
 
+    /**
+     * Updates the entries of modified ABC. The new entries are built aside and
+     * then replace the old ones, so the classes of the ABC can be found during
+     * the whole refresh.
+     *
+     * @param abc ABC
+     */
     public void refreshAbc(ABC abc) {
         if (abc == null) {
             return;
         }
-        removeAbc(abc);
-        addAbc(abc);
+        if (!abcs.contains(abc)) {
+            addAbc(abc);
+            linkParentClasses();
+            return;
+        }
+
+        Map<GraphTargetItem, ClassIndex> newClasses = new HashMap<>();
+        Map<PropertyDef, TraitIndex> newInstanceProperties = new HashMap<>();
+        Map<PropertyDef, TraitIndex> newClassProperties = new HashMap<>();
+        Map<PropertyNsDef, TraitIndex> newInstanceNsProperties = new HashMap<>();
+        Map<PropertyNsDef, TraitIndex> newClassNsProperties = new HashMap<>();
+        Map<PropertyNsDef, TraitIndex> newScriptProperties = new HashMap<>();
+        indexAbc(abc, newClasses, newInstanceProperties, newClassProperties, newInstanceNsProperties, newClassNsProperties, newScriptProperties);
+
+        replaceEntries(classes, newClasses, abc, ci -> ci.abc, false);
+        replaceEntries(instanceProperties, newInstanceProperties, abc, ti -> ti.abc, false);
+        replaceEntries(classProperties, newClassProperties, abc, ti -> ti.abc, false);
+        // the first ABC wins for namespaced properties
+        replaceEntries(instanceNsProperties, newInstanceNsProperties, abc, ti -> ti.abc, true);
+        replaceEntries(classNsProperties, newClassNsProperties, abc, ti -> ti.abc, true);
+        replaceEntries(scriptProperties, newScriptProperties, abc, ti -> ti.abc, true);
+        selectedAbc = abc;
+        linkParentClasses();
+    }
+
+    /**
+     * Puts the new entries of the ABC to the map, then removes its old
+     * entries.
+     */
+    private static <K, V> void replaceEntries(Map<K, V> map, Map<K, V> newEntries, ABC abc, Function<V, ABC> abcOf, boolean keepOtherAbcs) {
+        for (Map.Entry<K, V> entry : newEntries.entrySet()) {
+            if (keepOtherAbcs) {
+                V current = map.get(entry.getKey());
+                if (current != null && abcOf.apply(current) != abc) {
+                    continue;
+                }
+            }
+            map.put(entry.getKey(), entry.getValue());
+        }
+        map.entrySet().removeIf(entry -> abcOf.apply(entry.getValue()) == abc && newEntries.get(entry.getKey()) != entry.getValue());
     }
 
     public void removeAbc(ABC abc) {
+        removeAbcInternal(abc);
+        linkParentClasses();
+    }
+
+    /**
+     * Links the classes to their parent classes again, classes of other ABCs
+     * may still point to the removed or changed ABC.
+     */
+    private void linkParentClasses() {
+        for (ClassIndex cindex : classes.values()) {
+            cindex.parent = findParentClass(cindex);
+        }
+    }
+
+    private ClassIndex findParentClass(ClassIndex cindex) {
+        ABC abc = cindex.abc;
+        if (cindex.index >= abc.instance_info.size()) {
+            return null;
+        }
+        int parentClassName = abc.instance_info.get(cindex.index).super_index;
+        if (parentClassName > 0) {
+            TypeItem parentClass = new TypeItem(abc.constants.getMultiname(parentClassName).getNameWithNamespace(abc.constants, true));
+            //Parent class can be deleted, do not check. TODO: handle this better
+            return findClass(parentClass);
+        }
+        return null;
+    }
+
+    private void removeAbcInternal(ABC abc) {
         abcs.remove(abc);
         Set<GraphTargetItem> gti_keys = new HashSet<>(classes.keySet());
         for (GraphTargetItem key : gti_keys) {
@@ -529,6 +653,22 @@ public final class AbcIndexing {
         if (abc == null) {
             return;
         }
+        List<ClassIndex> addedClasses = indexAbc(abc, classes, instanceProperties, classProperties, instanceNsProperties, classNsProperties, scriptProperties);
+
+        for (ClassIndex cindex : addedClasses) {
+            cindex.parent = findParentClass(cindex);
+        }
+        abcs.add(abc);
+        selectedAbc = abc;
+    }
+
+    private List<ClassIndex> indexAbc(ABC abc,
+            Map<GraphTargetItem, ClassIndex> classes,
+            Map<PropertyDef, TraitIndex> instanceProperties,
+            Map<PropertyDef, TraitIndex> classProperties,
+            Map<PropertyNsDef, TraitIndex> instanceNsProperties,
+            Map<PropertyNsDef, TraitIndex> classNsProperties,
+            Map<PropertyNsDef, TraitIndex> scriptProperties) {
         List<ClassIndex> addedClasses = new ArrayList<>();
         for (int i = 0; i < abc.instance_info.size(); i++) {
             InstanceInfo ii = abc.instance_info.get(i);
@@ -547,21 +687,7 @@ public final class AbcIndexing {
         for (int i = 0; i < abc.script_info.size(); i++) {
             indexTraits(abc, 0, abc.script_info.get(i).traits, null, scriptProperties);
         }
-
-        for (ClassIndex cindex : addedClasses) {
-            int parentClassName = abc.instance_info.get(cindex.index).super_index;
-            if (parentClassName > 0) {
-                TypeItem parentClass = new TypeItem(abc.constants.getMultiname(parentClassName).getNameWithNamespace(abc.constants, true));
-                ClassIndex parentClassIndex = findClass(parentClass);
-                if (parentClassIndex == null) {
-                    //Parent class can be deleted, do not check. TODO: handle this better
-                    //throw new RuntimeException("Parent class " + parentClass + " definition not found!");
-                }
-                cindex.parent = parentClassIndex;
-            }
-        }
-        abcs.add(abc);
-        selectedAbc = abc;
+        return addedClasses;
     }
 
     public void selectAbc(ABC abc) {
@@ -583,8 +709,11 @@ public final class AbcIndexing {
                 return ret;
             }
         }
-        if (parent != null) {
-            return parent.nsValueToName(valueStr);
+        for (AbcIndexing parent : parents) {
+            DottedChain ret = parent.nsValueToName(valueStr);
+            if (ret != null) {
+                return ret;
+            }
         }
         return null;
     }
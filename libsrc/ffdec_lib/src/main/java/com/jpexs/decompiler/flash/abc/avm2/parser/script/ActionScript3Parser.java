@@ -16,7 +16,6 @@
  */
 package com.jpexs.decompiler.flash.abc.avm2.parser.script;
 
-import com.jpexs.decompiler.flash.SWC;
 import com.jpexs.decompiler.flash.SWF;
 import com.jpexs.decompiler.flash.SourceGeneratorLocalData;
 import com.jpexs.decompiler.flash.abc.ABC;
@@ -86,6 +85,7 @@ import com.jpexs.decompiler.flash.abc.avm2.model.operations.URShiftAVM2Item;
 import com.jpexs.decompiler.flash.abc.avm2.parser.AVM2ParseException;
 import com.jpexs.decompiler.flash.abc.types.Namespace;
 import com.jpexs.decompiler.flash.action.swf4.ActionIf;
+import com.jpexs.decompiler.flash.cache.SwcLibraryCache;
 import com.jpexs.decompiler.flash.configuration.Configuration;
 import com.jpexs.decompiler.flash.tags.ABCContainerTag;
 import com.jpexs.decompiler.flash.tags.Tag;
@@ -120,15 +120,18 @@ import com.jpexs.helpers.Reference;
 import com.jpexs.helpers.utf8.Utf8Helper;
 import java.io.BufferedOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.util.AbstractMap;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.Stack;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -2570,14 +2573,48 @@ public class ActionScript3Parser {
         abcIndex.addAbc(abc);
     }
 
+    /**
+     * Creates parser which resolves the other ABCs using the shared index of
+     * the SWF file.
+     *
+     * @param swfIndex Index of the SWF file, its entries of the compiled ABC
+     * are ignored
+     * @param abc ABC to compile to
+     * @throws IOException On error
+     * @throws InterruptedException On interrupt
+     */
+    public ActionScript3Parser(AbcIndexing swfIndex, ABC abc) throws IOException, InterruptedException {
+        initPlayer();
+
+        abcIndex = new AbcIndexing(null, Arrays.asList(swfIndex, playerGlobalAbcIndex), abc);
+        abcIndex.addAbc(abc);
+    }
+
+    private static boolean isOtherAbcsOfSwf(SWF swf, ABC abc, List<ABC> otherAbcs) {
+        List<ABCContainerTag> abcList = swf.getAbcList();
+        if (otherAbcs.size() != abcList.size() - 1) {
+            return false;
+        }
+
+        Set<ABC> others = Collections.newSetFromMap(new IdentityHashMap<>());
+        others.addAll(otherAbcs);
+        for (ABCContainerTag abcTag : abcList) {
+            ABC a = abcTag.getABC();
+            if (a != abc && !others.contains(a)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
     private static void initPlayer() throws IOException, InterruptedException {
         if (playerGlobalAbcIndex == null) {
             if (Configuration.getPlayerSWC() == null) {
                 throw new IOException("Player SWC library not found, please place it to " + Configuration.getFlashLibPath());
             }
 
-            SWC swc = new SWC(new FileInputStream(Configuration.getPlayerSWC()));
-            SWF swf = new SWF(swc.getSWF("library.swf"), true);
+            SWF swf = SwcLibraryCache.open(Configuration.getPlayerSWC(), "library.swf", true);
             playerGlobalAbcIndex = new AbcIndexing(swf);
         }
     }
@@ -2585,13 +2622,21 @@ public class ActionScript3Parser {
     public static void compile(String src, ABC abc, List<ABC> otherABCs, String fileName, int classPos, int scriptIndex) throws AVM2ParseException, IOException, InterruptedException, CompilationException {
         //List<ABC> parABCs = new ArrayList<>();
         initPlayer();
-        ActionScript3Parser parser = new ActionScript3Parser(abc, otherABCs);
         boolean success = false;
         ABC originalAbc = ((ABCContainerTag) ((Tag) abc.parentTag).cloneTag()).getABC();
+        SWF swf = abc.getSwf();
+        AbcIndexing swfIndex = null;
+        if (swf != null && isOtherAbcsOfSwf(swf, abc, otherABCs)) {
+            // the parser indexes the compiled ABC itself, other threads can still use the shared index
+            swfIndex = swf.getAbcIndex();
+        }
+
         try {
+            ActionScript3Parser parser = swfIndex != null ? new ActionScript3Parser(swfIndex, abc) : new ActionScript3Parser(abc, otherABCs);
             parser.addScript(src, fileName, classPos, scriptIndex);
             success = true;
         } finally {
+
             if (!success) {
                 // restore original constant pool and other lists
                 abc.constants = originalAbc.constants;
@@ -2603,6 +2648,10 @@ public class ActionScript3Parser {
                 abc.bodies = originalAbc.bodies;
                 abc.getMethodIndexing();
             }
+
+            if (swfIndex != null) {
+                swf.refreshAbcIndex(abc);
+            }
         }
     }
 
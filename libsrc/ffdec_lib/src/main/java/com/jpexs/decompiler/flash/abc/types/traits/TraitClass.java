@@ -16,6 +16,7 @@
  */
 package com.jpexs.decompiler.flash.abc.types.traits;
 
+import com.jpexs.decompiler.flash.SWF;
 import com.jpexs.decompiler.flash.abc.ABC;
 import com.jpexs.decompiler.flash.abc.avm2.model.CallPropertyAVM2Item;
 import com.jpexs.decompiler.flash.abc.avm2.model.FullMultinameAVM2Item;
@@ -223,7 +224,8 @@ public class TraitClass extends Trait implements TraitWithSlot {
         String instanceInfoName = instanceInfo.getName(abc.constants).getName(abc.constants, fullyQualifiedNames, false, true);
         ClassInfo classInfo = abc.class_info.get(class_info);
 
-        AbcIndexing index = new AbcIndexing(abc.getSwf());
+        SWF swf = abc.getSwf();
+        AbcIndexing index = swf == null ? new AbcIndexing() : swf.getAbcIndex();
         //for simplification of String(this)
         int sIndex = abc.constants.getStringId("", false);
         if (sIndex > -1) {
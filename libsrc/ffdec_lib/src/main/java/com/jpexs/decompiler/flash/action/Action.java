@@ -82,6 +82,7 @@ import com.jpexs.helpers.Helper;
 import com.jpexs.helpers.Reference;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -515,7 +516,7 @@ public abstract class Action implements GraphSourceItem {
         HashMap<GraphSourceItemContainer, Integer> containersPos = new HashMap<>();
         offset = address;
         boolean lastPush = false;
-        byte[] fileData = list.fileData;
+        ByteBuffer fileData = list.fileData;
         for (int pos = 0; pos < list.size(); pos++) {
             Action a = list.get(pos);
 
@@ -540,10 +541,10 @@ public abstract class Action implements GraphSourceItem {
                 writer.appendNoHilight(Helper.bytesToHexString(bytes));
 
                 if (Configuration.showOriginalBytesInPcodeHex.get()) {
-                    if (fileData != null && fileOffset != -1 && fileData.length > fileOffset + bytes.length - 1) {
+                    if (fileData != null && fileOffset != -1 && fileData.limit() > fileOffset + bytes.length - 1) {
                         boolean same = true;
                         for (int i = 0; i < bytes.length; i++) {
-                            byte b = fileData[(int) (fileOffset + i)];
+                            byte b = fileData.get((int) (fileOffset + i));
                             if (b != bytes[i]) {
                                 same = false;
                                 break;
@@ -557,7 +558,7 @@ public abstract class Action implements GraphSourceItem {
                                     writer.appendNoHilight(" ");
                                 }
 
-                                writer.appendNoHilight(Helper.byteToHex(fileData[(int) (fileOffset + i)]));
+                                writer.appendNoHilight(Helper.byteToHex(fileData.get((int) (fileOffset + i))));
                             }
 
                             writer.appendNoHilight(")");
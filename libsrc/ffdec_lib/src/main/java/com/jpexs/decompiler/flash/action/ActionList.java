@@ -12,7 +12,8 @@
  * Lesser General Public License for more details.
  * 
  * You should have received a copy of the GNU Lesser General Public
- * License along with this library. */
+ * License along with this library.
+ */
 package com.jpexs.decompiler.flash.action;
 
 import com.jpexs.decompiler.flash.SWF;
@@ -34,6 +35,7 @@ import com.jpexs.decompiler.graph.GraphSourceItemContainer;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
@@ -49,7 +51,12 @@ public class ActionList extends ArrayList<Action> {
 
     public int deobfuscationMode;
 
-    public byte[] fileData;
+    /**
+     * Buffer the actions were read from, indexed by the file offsets of the
+     * actions. It is memory mapped when the SWF was opened with memory
+     * mapping.
+     */
+    public ByteBuffer fileData;
 
     public ActionList() {
     }
@@ -47,7 +47,7 @@ public class Stage extends DisplayObject {
     public List<String> enumerate() {
         List<String> ret = new ArrayList<>();
         if (frame != null) {
-            for (DepthState ds : frame.layers.values()) {
+            for (DepthState ds : frame.getLayers().values()) {
                 if (ds.instanceName != null) {
                     ret.add(ds.instanceName);
                 }
@@ -59,7 +59,7 @@ public class Stage extends DisplayObject {
     @Override
     protected Object getThisMember(String name) {
         if (frame != null) {
-            for (DepthState ds : frame.layers.values()) {
+            for (DepthState ds : frame.getLayers().values()) {
                 if (name.equals(ds.instanceName)) {
                     return new DepthStateObjectAdapter(ds);
                 }
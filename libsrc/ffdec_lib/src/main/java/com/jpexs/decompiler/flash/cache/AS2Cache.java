@@ -12,11 +12,12 @@
  * Lesser General Public License for more details.
  * 
  * You should have received a copy of the GNU Lesser General Public
- * License along with this library. */
+ * License along with this library. */
 package com.jpexs.decompiler.flash.cache;
 
 import com.jpexs.decompiler.flash.action.ActionList;
 import com.jpexs.decompiler.flash.helpers.HighlightedText;
+import com.jpexs.decompiler.flash.search.ScriptSearchIndex;
 import com.jpexs.decompiler.flash.tags.base.ASMSource;
 import com.jpexs.helpers.Cache;
 
@@ -26,13 +27,16 @@ import com.jpexs.helpers.Cache;
  */
 public class AS2Cache {
 
-    private final Cache<ASMSource, HighlightedText> cache = Cache.getInstance(true, false, "as2");
+    private final Cache<ASMSource, HighlightedText> cache = Cache.getInstance(true, false, "as2", new HighlightedTextCacheCodec());
 
     private final Cache<ASMSource, ActionList> pcodeCache = Cache.getInstance(true, true, "as2pcode");
 
+    private final ScriptSearchIndex<ASMSource> searchIndex = new ScriptSearchIndex<>();
+
     public void clear() {
         pcodeCache.clear();
         cache.clear();
+        searchIndex.clear();
     }
 
     public boolean isCached(ASMSource src) {
@@ -53,6 +57,7 @@ public class AS2Cache {
 
     public void put(ASMSource src, HighlightedText text) {
         cache.put(src, text);
+        searchIndex.add(src, text.text);
     }
 
     public void put(ASMSource src, ActionList actionList) {
@@ -63,6 +68,16 @@ public class AS2Cache {
         if (src != null) {
             cache.remove(src);
             pcodeCache.remove(src);
+            searchIndex.remove(src);
         }
     }
+
+    /**
+     * Gets index of words in the decompiled scripts.
+     *
+     * @return Search index
+     */
+    public ScriptSearchIndex<ASMSource> getSearchIndex() {
+        return searchIndex;
+    }
 }
@@ -12,12 +12,19 @@
  * Lesser General Public License for more details.
  * 
  * You should have received a copy of the GNU Lesser General Public
- * License along with this library. */
+ * License along with this library. */
 package com.jpexs.decompiler.flash.cache;
 
+import com.jpexs.decompiler.flash.AppResources;
 import com.jpexs.decompiler.flash.abc.ScriptPack;
 import com.jpexs.decompiler.flash.helpers.HighlightedText;
+import com.jpexs.decompiler.flash.search.ScriptSearchIndex;
 import com.jpexs.helpers.Cache;
+import com.jpexs.helpers.Helper;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
 
 /**
  *
@@ -25,10 +32,25 @@ import com.jpexs.helpers.Cache;
  */
 public class AS3Cache {
 
-    private final Cache<ScriptPack, HighlightedText> cache = Cache.getInstance(true, false, "as3");
+    private final Cache<ScriptPack, HighlightedText> cache = Cache.getInstance(true, false, "as3", new HighlightedTextCacheCodec());
+
+    private final ScriptSearchIndex<ScriptPack> searchIndex = new ScriptSearchIndex<>();
+
+    private Map<String, List<String>> simpleNameIndex;
+
+    /**
+     * Keys computed on a miss of the persistent cache, used again when the
+     * decompiled text is put. Cleared when the ABCs change.
+     */
+    private final Map<ScriptPack, String> missedKeys = new WeakHashMap<>();
 
     public void clear() {
         cache.clear();
+        searchIndex.clear();
+        synchronized (this) {
+            simpleNameIndex = null;
+            missedKeys.clear();
+        }
     }
 
     public boolean isCached(ScriptPack pack) {
@@ -36,16 +58,113 @@ public class AS3Cache {
     }
 
     public HighlightedText get(ScriptPack pack) {
-        return cache.get(pack);
+        HighlightedText text = cache.get(pack);
+        if (text == null && PersistentDecompilationCache.isEnabled()) {
+            String key = getKey(pack);
+            text = PersistentDecompilationCache.getInstance().get(key);
+            if (text != null) {
+                cache.put(pack, text);
+                searchIndex.add(pack, text.text);
+            } else {
+                synchronized (this) {
+                    missedKeys.put(pack, key);
+                }
+            }
+        }
+
+        return text;
     }
 
     public void put(ScriptPack pack, HighlightedText text) {
         cache.put(pack, text);
+        searchIndex.add(pack, text.text);
+        String key;
+        synchronized (this) {
+            key = missedKeys.remove(pack);
+        }
+        // do not keep errors, timeouts and skipped scripts, next run can have bigger limits
+        if (PersistentDecompilationCache.isEnabled()
+                && !text.text.contains(AppResources.translate("decompilationError"))
+                && !text.text.contains(Helper.getDecompilationSkippedComment())) {
+            PersistentDecompilationCache.getInstance().put(key != null ? key : getKey(pack), text);
+        }
+    }
+
+    private String getKey(ScriptPack pack) {
+        Map<String, List<String>> index;
+        synchronized (this) {
+            if (simpleNameIndex == null) {
+                simpleNameIndex = AS3CacheKey.createSimpleNameIndex(pack.allABCs);
+            }
+            index = simpleNameIndex;
+        }
+
+        return AS3CacheKey.of(pack, index);
+    }
+
+    /**
+     * Gets keys of all cached packs. Used with removeChanged for keeping the
+     * decompiled scripts which were not affected by modification of ABCs.
+     *
+     * @return Map of packs to their keys
+     */
+    public Map<ScriptPack, String> getKeys() {
+        Map<ScriptPack, String> ret = new HashMap<>();
+        for (ScriptPack pack : cache.keys()) {
+            ret.put(pack, getKey(pack));
+        }
+        return ret;
+    }
+
+    /**
+     * Removes cached packs which were modified. A pack is removed when its
+     * key differs from the key before the modification.
+     *
+     * @param oldKeys Keys before the modification, see getKeys
+     */
+    public void removeChanged(Map<ScriptPack, String> oldKeys) {
+        synchronized (this) {
+            simpleNameIndex = null;
+            missedKeys.clear();
+        }
+        for (ScriptPack pack : cache.keys()) {
+            String oldKey = oldKeys.get(pack);
+            if (oldKey == null || !exists(pack) || !oldKey.equals(getKey(pack))) {
+                cache.remove(pack);
+                searchIndex.remove(pack);
+            }
+        }
+    }
+
+    private static boolean exists(ScriptPack pack) {
+        if (pack.scriptIndex >= pack.abc.script_info.size()) {
+            return false;
+        }
+        int traitCount = pack.abc.script_info.get(pack.scriptIndex).traits.traits.size();
+        for (int t : pack.traitIndices) {
+            if (t >= traitCount) {
+                return false;
+            }
+        }
+        return true;
     }
 
     public void remove(ScriptPack pack) {
         if (pack != null) {
             cache.remove(pack);
+            searchIndex.remove(pack);
+            synchronized (this) {
+                missedKeys.clear();
+            }
         }
     }
+
+    /**
+     * Gets index of words in the decompiled scripts.
+     *
+     * @return Search index
+     */
+    public ScriptSearchIndex<ScriptPack> getSearchIndex() {
+        return searchIndex;
+    }
 }
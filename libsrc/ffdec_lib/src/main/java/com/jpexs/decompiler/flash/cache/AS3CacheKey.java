@@ -0,0 +1,501 @@
+/*
+ *  Copyright (C) 2010-2021 JPEXS, All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3.0 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library. */
+package com.jpexs.decompiler.flash.cache;
+
+import com.jpexs.decompiler.flash.ApplicationInfo;
+import com.jpexs.decompiler.flash.abc.ABC;
+import com.jpexs.decompiler.flash.abc.ScriptPack;
+import com.jpexs.decompiler.flash.abc.avm2.AVM2Code;
+import com.jpexs.decompiler.flash.abc.avm2.AVM2ConstantPool;
+import com.jpexs.decompiler.flash.abc.avm2.instructions.AVM2Instruction;
+import com.jpexs.decompiler.flash.abc.types.ABCException;
+import com.jpexs.decompiler.flash.abc.types.ClassInfo;
+import com.jpexs.decompiler.flash.abc.types.InstanceInfo;
+import com.jpexs.decompiler.flash.abc.types.MetadataInfo;
+import com.jpexs.decompiler.flash.abc.types.MethodBody;
+import com.jpexs.decompiler.flash.abc.types.MethodInfo;
+import com.jpexs.decompiler.flash.abc.types.Multiname;
+import com.jpexs.decompiler.flash.abc.types.Namespace;
+import com.jpexs.decompiler.flash.abc.types.NamespaceSet;
+import com.jpexs.decompiler.flash.abc.types.ScriptInfo;
+import com.jpexs.decompiler.flash.abc.types.ValueKind;
+import com.jpexs.decompiler.flash.abc.types.traits.Trait;
+import com.jpexs.decompiler.flash.abc.types.traits.TraitClass;
+import com.jpexs.decompiler.flash.abc.types.traits.TraitFunction;
+import com.jpexs.decompiler.flash.abc.types.traits.TraitMethodGetterSetter;
+import com.jpexs.decompiler.flash.abc.types.traits.TraitSlotConst;
+import com.jpexs.decompiler.flash.abc.types.traits.Traits;
+import com.jpexs.decompiler.flash.configuration.Configuration;
+import com.jpexs.decompiler.flash.configuration.ConfigurationCategory;
+import com.jpexs.decompiler.flash.configuration.ConfigurationItem;
+import com.jpexs.helpers.Helper;
+import com.jpexs.helpers.NulStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Content based key of decompiled ScriptPack.
+ *
+ * The key is a hash of everything the decompiled text depends on: method
+ * bodies, method, class and trait definitions of the pack with the constant
+ * pool entries they reference resolved to values (so a different constant pool
+ * layout gives the same key), the decompiler version and the configuration
+ * which affects the output. Method, class and trait indices are hashed as they
+ * are, because they are part of the highlighting data.
+ *
+ * @author JPEXS
+ */
+public class AS3CacheKey {
+
+    private final ABC abc;
+
+    private final AVM2ConstantPool constants;
+
+    private final DataOutputStream out;
+
+    private final MessageDigest digest;
+
+    private final Set<Integer> visitedMethods = new HashSet<>();
+
+    private final Set<Integer> visitedClasses = new HashSet<>();
+
+    private final Set<String> simpleNames = new TreeSet<>();
+
+    private AS3CacheKey(ABC abc) {
+        this.abc = abc;
+        this.constants = abc.constants;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new RuntimeException(ex);
+        }
+        out = new DataOutputStream(new DigestOutputStream(new NulStream(), digest));
+    }
+
+    /**
+     * Computes key of the script pack.
+     *
+     * @param pack Script pack
+     * @param simpleNameIndex Map of simple class names to all fully qualified
+     * class names with this simple name in the SWF, see
+     * createSimpleNameIndex. Used for hashing the possible name collisions
+     * which change imports of the pack.
+     * @return Hex string
+     */
+    public static String of(ScriptPack pack, Map<String, List<String>> simpleNameIndex) {
+        AS3CacheKey key = new AS3CacheKey(pack.abc);
+        try {
+            key.writeString(getConfigurationFingerprint());
+            key.writeString(pack.getClassPath().toString());
+            key.out.writeBoolean(pack.isSimple);
+            key.writeScript(pack.scriptIndex, pack.traitIndices);
+            for (String name : key.simpleNames) {
+                List<String> fullNames = simpleNameIndex.get(name);
+                if (fullNames != null && fullNames.size() > 1) {
+                    key.writeString(name);
+                    key.out.writeInt(fullNames.size());
+                    for (String fullName : fullNames) {
+                        key.writeString(fullName);
+                    }
+                }
+            }
+            key.out.flush();
+        } catch (IOException ex) {
+            // cannot happen, it is written to digest only
+            throw new RuntimeException(ex);
+        }
+
+        return Helper.byteArrayToHex(key.digest.digest());
+    }
+
+    /**
+     * Creates map of simple class names to fully qualified names of all classes
+     * in the ABCs.
+     *
+     * @param abcs ABCs of the SWF
+     * @return Map
+     */
+    public static Map<String, List<String>> createSimpleNameIndex(List<ABC> abcs) {
+        Map<String, Set<String>> names = new TreeMap<>();
+        for (ABC abc : abcs) {
+            for (InstanceInfo ii : abc.instance_info) {
+                if (ii.deleted) {
+                    continue;
+                }
+                Multiname m = abc.constants.getMultiname(ii.name_index);
+                if (m == null) {
+                    continue;
+                }
+                String name = m.getName(abc.constants, null, true, true);
+                if (name == null) {
+                    continue;
+                }
+                Namespace ns = m.getNamespace(abc.constants);
+                String nsName = ns == null ? "" : ns.getRawName(abc.constants);
+                Set<String> fullNames = names.get(name);
+                if (fullNames == null) {
+                    fullNames = new TreeSet<>();
+                    names.put(name, fullNames);
+                }
+                fullNames.add(nsName + ":" + name);
+            }
+        }
+
+        Map<String, List<String>> ret = new TreeMap<>();
+        for (String name : names.keySet()) {
+            ret.put(name, new ArrayList<>(names.get(name)));
+        }
+        return ret;
+    }
+
+    private static String getConfigurationFingerprint() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(ApplicationInfo.version).append(';').append(ApplicationInfo.revision).append(';').append(ApplicationInfo.libraryVersion).append(';');
+        Map<String, Field> fields = new TreeMap<>(Configuration.getConfigurationFields());
+        for (String name : fields.keySet()) {
+            if (name.startsWith("parallelSpeedUp")) {
+                // does not change the output
+                continue;
+            }
+            Field field = fields.get(name);
+            ConfigurationCategory category = field.getAnnotation(ConfigurationCategory.class);
+            if (category == null) {
+                continue;
+            }
+            switch (category.value()) {
+                case "script":
+                case "format":
+                case "decompilation":
+                    break;
+                default:
+                    continue;
+            }
+            try {
+                field.setAccessible(true);
+                ConfigurationItem<?> item = (ConfigurationItem<?>) field.get(null);
+                sb.append(name).append('=').append(item.get()).append(';');
+            } catch (IllegalArgumentException | IllegalAccessException ex) {
+                // ignore the item
+            }
+        }
+
+        return sb.toString();
+    }
+
+    private void writeString(String s) throws IOException {
+        if (s == null) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(s.length());
+        out.writeChars(s);
+    }
+
+    private void writeStringIndex(int index) throws IOException {
+        if (index <= 0 || index >= constants.getStringCount()) {
+            out.writeInt(-1);
+            return;
+        }
+        writeString(constants.getString(index));
+    }
+
+    private void writeNamespace(int index) throws IOException {
+        if (index <= 0 || index >= constants.getNamespaceCount()) {
+            out.writeInt(-1);
+            return;
+        }
+        Namespace ns = constants.getNamespace(index);
+        out.writeInt(ns.kind);
+        writeStringIndex(ns.name_index);
+        if (ns.kind == Namespace.KIND_PRIVATE) {
+            // private namespaces are distinguished by index only
+            out.writeInt(index);
+        }
+    }
+
+    private void writeNamespaceSet(int index) throws IOException {
+        if (index <= 0 || index >= constants.getNamespaceSetCount()) {
+            out.writeInt(-1);
+            return;
+        }
+        NamespaceSet nss = constants.getNamespaceSet(index);
+        out.writeInt(nss.namespaces.length);
+        for (int ns : nss.namespaces) {
+            writeNamespace(ns);
+        }
+    }
+
+    private void writeMultiname(int index) throws IOException {
+        if (index <= 0 || index >= constants.getMultinameCount()) {
+            out.writeInt(-1);
+            return;
+        }
+        Multiname m = constants.getMultiname(index);
+        out.writeInt(m.kind);
+        switch (m.kind) {
+            case Multiname.TYPENAME:
+                writeMultiname(m.qname_index);
+                out.writeInt(m.params.length);
+                for (int p : m.params) {
+                    writeMultiname(p);
+                }
+                break;
+            default:
+                if (m.name_index > 0 && m.name_index < constants.getStringCount()) {
+                    String name = constants.getString(m.name_index);
+                    if (name != null) {
+                        simpleNames.add(name);
+                    }
+                }
+                writeStringIndex(m.name_index);
+                writeNamespace(m.namespace_index);
+                writeNamespaceSet(m.namespace_set_index);
+                break;
+        }
+    }
+
+    private void writeValue(int valueKind, int valueIndex) throws IOException {
+        out.writeInt(valueKind);
+        switch (valueKind) {
+            case ValueKind.CONSTANT_Int:
+                out.writeLong(valueIndex > 0 && valueIndex < constants.getIntCount() ? constants.getInt(valueIndex) : -1);
+                break;
+            case ValueKind.CONSTANT_UInt:
+                out.writeLong(valueIndex > 0 && valueIndex < constants.getUIntCount() ? constants.getUInt(valueIndex) : -1);
+                break;
+            case ValueKind.CONSTANT_Double:
+                out.writeLong(valueIndex > 0 && valueIndex < constants.getDoubleCount() ? Double.doubleToLongBits(constants.getDouble(valueIndex)) : -1);
+                break;
+            case ValueKind.CONSTANT_Utf8:
+                writeStringIndex(valueIndex);
+                break;
+            case ValueKind.CONSTANT_DecimalOrFloat:
+                if (abc.hasDecimalSupport()) {
+                    writeString(valueIndex > 0 && valueIndex < constants.getDecimalCount() ? String.valueOf(constants.getDecimal(valueIndex)) : null);
+                } else {
+                    writeString(valueIndex > 0 && valueIndex < constants.getFloatCount() ? String.valueOf(constants.getFloat(valueIndex)) : null);
+                }
+                break;
+            case ValueKind.CONSTANT_Float4:
+                writeString(valueIndex > 0 && valueIndex < constants.getFloat4Count() ? String.valueOf(constants.getFloat4(valueIndex)) : null);
+                break;
+            case ValueKind.CONSTANT_Namespace:
+            case ValueKind.CONSTANT_PackageNamespace:
+            case ValueKind.CONSTANT_PackageInternalNs:
+            case ValueKind.CONSTANT_ProtectedNamespace:
+            case ValueKind.CONSTANT_ExplicitNamespace:
+            case ValueKind.CONSTANT_StaticProtectedNs:
+            case ValueKind.CONSTANT_PrivateNs:
+                writeNamespace(valueIndex);
+                break;
+            default:
+                out.writeInt(valueIndex);
+                break;
+        }
+    }
+
+    private void writeScript(int scriptIndex, List<Integer> traitIndices) throws IOException {
+        ScriptInfo si = abc.script_info.get(scriptIndex);
+        out.writeInt(scriptIndex);
+        writeMethod(si.init_index);
+        out.writeInt(traitIndices.size());
+        for (int t : traitIndices) {
+            out.writeInt(t);
+            writeTrait(si.traits.traits.get(t));
+        }
+    }
+
+    private void writeTraits(Traits traits) throws IOException {
+        if (traits == null) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(traits.traits.size());
+        for (Trait trait : traits.traits) {
+            writeTrait(trait);
+        }
+    }
+
+    private void writeTrait(Trait trait) throws IOException {
+        writeMultiname(trait.name_index);
+        out.writeInt(trait.kindType);
+        out.writeInt(trait.kindFlags);
+        out.writeInt(trait.metadata.length);
+        for (int m : trait.metadata) {
+            if (m < 0 || m >= abc.metadata_info.size()) {
+                out.writeInt(-1);
+                continue;
+            }
+            MetadataInfo mi = abc.metadata_info.get(m);
+            writeStringIndex(mi.name_index);
+            out.writeInt(mi.keys.length);
+            for (int k = 0; k < mi.keys.length; k++) {
+                writeStringIndex(mi.keys[k]);
+                writeStringIndex(k < mi.values.length ? mi.values[k] : 0);
+            }
+        }
+
+        if (trait instanceof TraitSlotConst) {
+            TraitSlotConst tsc = (TraitSlotConst) trait;
+            out.writeInt(tsc.slot_id);
+            writeMultiname(tsc.type_index);
+            writeValue(tsc.value_kind, tsc.value_index);
+        } else if (trait instanceof TraitMethodGetterSetter) {
+            TraitMethodGetterSetter tmgs = (TraitMethodGetterSetter) trait;
+            out.writeInt(tmgs.disp_id);
+            writeMethod(tmgs.method_info);
+        } else if (trait instanceof TraitFunction) {
+            TraitFunction tf = (TraitFunction) trait;
+            out.writeInt(tf.slot_id);
+            writeMethod(tf.method_info);
+        } else if (trait instanceof TraitClass) {
+            TraitClass tc = (TraitClass) trait;
+            out.writeInt(tc.slot_id);
+            writeClass(tc.class_info);
+        }
+    }
+
+    private void writeClass(int classIndex) throws IOException {
+        out.writeInt(classIndex);
+        if (classIndex < 0 || classIndex >= abc.class_info.size() || !visitedClasses.add(classIndex)) {
+            return;
+        }
+        InstanceInfo ii = abc.instance_info.get(classIndex);
+        writeMultiname(ii.name_index);
+        writeMultiname(ii.super_index);
+        out.writeInt(ii.flags);
+        if ((ii.flags & InstanceInfo.CLASS_PROTECTEDNS) != 0) {
+            writeNamespace(ii.protectedNS);
+        }
+        out.writeInt(ii.interfaces.length);
+        for (int i : ii.interfaces) {
+            writeMultiname(i);
+        }
+        writeMethod(ii.iinit_index);
+        writeTraits(ii.instance_traits);
+
+        ClassInfo ci = abc.class_info.get(classIndex);
+        writeMethod(ci.cinit_index);
+        writeTraits(ci.static_traits);
+    }
+
+    private void writeMethod(int methodIndex) throws IOException {
+        out.writeInt(methodIndex);
+        if (methodIndex < 0 || methodIndex >= abc.method_info.size() || !visitedMethods.add(methodIndex)) {
+            return;
+        }
+        MethodInfo mi = abc.method_info.get(methodIndex);
+        out.writeInt(mi.param_types.length);
+        for (int p : mi.param_types) {
+            writeMultiname(p);
+        }
+        writeMultiname(mi.ret_type);
+        writeStringIndex(mi.name_index);
+        out.writeInt(mi.flags);
+        out.writeInt(mi.optional.length);
+        for (ValueKind vk : mi.optional) {
+            writeValue(vk.value_kind, vk.value_index);
+        }
+        out.writeInt(mi.paramNames.length);
+        for (int n : mi.paramNames) {
+            writeStringIndex(n);
+        }
+
+        int bodyIndex = abc.findBodyIndex(methodIndex);
+        out.writeInt(bodyIndex);
+        if (bodyIndex == -1) {
+            return;
+        }
+        MethodBody body = abc.bodies.get(bodyIndex);
+        out.writeInt(body.max_stack);
+        out.writeInt(body.max_regs);
+        out.writeInt(body.init_scope_depth);
+        out.writeInt(body.max_scope_depth);
+        out.writeInt(body.exceptions.length);
+        for (ABCException ex : body.exceptions) {
+            out.writeInt(ex.start);
+            out.writeInt(ex.end);
+            out.writeInt(ex.target);
+            writeMultiname(ex.type_index);
+            writeMultiname(ex.name_index);
+        }
+        writeTraits(body.traits);
+
+        List<AVM2Instruction> code = body.getCode().code;
+        out.writeInt(code.size());
+        for (AVM2Instruction ins : code) {
+            out.writeInt(ins.definition.instructionCode);
+            int[] types = ins.definition.operands;
+            int[] operands = ins.operands;
+            if (operands == null) {
+                out.writeInt(-1);
+                continue;
+            }
+            out.writeInt(operands.length);
+            for (int i = 0; i < operands.length; i++) {
+                int type = i < types.length ? types[i] : AVM2Code.OPT_CASE_OFFSETS;
+                int operand = operands[i];
+                switch (type) {
+                    case AVM2Code.DAT_MULTINAME_INDEX:
+                        writeMultiname(operand);
+                        break;
+                    case AVM2Code.DAT_STRING_INDEX:
+                        writeStringIndex(operand);
+                        break;
+                    case AVM2Code.DAT_NAMESPACE_INDEX:
+                        writeNamespace(operand);
+                        break;
+                    case AVM2Code.DAT_INT_INDEX:
+                        writeValue(ValueKind.CONSTANT_Int, operand);
+                        break;
+                    case AVM2Code.DAT_UINT_INDEX:
+                        writeValue(ValueKind.CONSTANT_UInt, operand);
+                        break;
+                    case AVM2Code.DAT_DOUBLE_INDEX:
+                        writeValue(ValueKind.CONSTANT_Double, operand);
+                        break;
+                    case AVM2Code.DAT_DECIMAL_INDEX:
+                    case AVM2Code.DAT_FLOAT_INDEX:
+                        writeValue(ValueKind.CONSTANT_DecimalOrFloat, operand);
+                        break;
+                    case AVM2Code.DAT_FLOAT4_INDEX:
+                        writeValue(ValueKind.CONSTANT_Float4, operand);
+                        break;
+                    case AVM2Code.DAT_METHOD_INDEX:
+                        writeMethod(operand);
+                        break;
+                    case AVM2Code.DAT_CLASS_INDEX:
+                        writeClass(operand);
+                        break;
+                    default:
+                        out.writeInt(operand);
+                        break;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ *  Copyright (C) 2010-2021 JPEXS, All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3.0 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library. */
+package com.jpexs.decompiler.flash.cache;
+
+import com.jpexs.decompiler.flash.helpers.HighlightedText;
+import com.jpexs.decompiler.flash.helpers.hilight.HighlightData;
+import com.jpexs.decompiler.flash.helpers.hilight.HighlightSpecialType;
+import com.jpexs.decompiler.flash.helpers.hilight.HighlightType;
+import com.jpexs.decompiler.flash.helpers.hilight.Highlighting;
+import com.jpexs.decompiler.graph.DottedChain;
+import com.jpexs.helpers.CacheCodec;
+import com.jpexs.helpers.MemoryInputStream;
+import com.jpexs.helpers.utf8.Utf8Helper;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Binary form of decompiled script text with its highlights, much smaller and
+ * faster than java serialization. Used by the disk caches.
+ *
+ * @author JPEXS
+ */
+public class HighlightedTextCacheCodec implements CacheCodec<HighlightedText> {
+
+    private static final int FLAG_DECLARATION = 1;
+
+    private static final int FLAG_DECLARED_TYPE = 2;
+
+    private static final int FLAG_LOCAL_NAME = 4;
+
+    private static final int FLAG_SUBTYPE = 8;
+
+    private static final int FLAG_SPECIAL_VALUE = 16;
+
+    @Override
+    public byte[] encode(HighlightedText value) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        DataOutputStream dos = new DataOutputStream(baos);
+        write(dos, value);
+        dos.flush();
+        return baos.toByteArray();
+    }
+
+    @Override
+    public HighlightedText decode(ByteBuffer data) throws IOException {
+        DataInputStream dis = new DataInputStream(new MemoryInputStream(data, data.position(), data.remaining()));
+        try {
+            return read(dis);
+        } catch (RuntimeException ex) {
+            throw new IOException(ex);
+        }
+    }
+
+    public static void write(DataOutputStream dos, HighlightedText text) throws IOException {
+        writeString(dos, text.text);
+        writeHighlightings(dos, text.getTraitHighlights());
+        writeHighlightings(dos, text.getClassHighlights());
+        writeHighlightings(dos, text.getMethodHighlights());
+        writeHighlightings(dos, text.getInstructionHighlights());
+        writeHighlightings(dos, text.getSpecialHighlights());
+    }
+
+    public static HighlightedText read(DataInputStream dis) throws IOException {
+        String text = readString(dis);
+        List<Highlighting> traitHighlights = readHighlightings(dis);
+        List<Highlighting> classHighlights = readHighlightings(dis);
+        List<Highlighting> methodHighlights = readHighlightings(dis);
+        List<Highlighting> instructionHighlights = readHighlightings(dis);
+        List<Highlighting> specialHighlights = readHighlightings(dis);
+        return new HighlightedText(text, traitHighlights, classHighlights, methodHighlights, instructionHighlights, specialHighlights);
+    }
+
+    private static void writeString(DataOutputStream dos, String s) throws IOException {
+        if (s == null) {
+            dos.writeInt(-1);
+            return;
+        }
+
+        byte[] data = Utf8Helper.getBytes(s);
+        dos.writeInt(data.length);
+        dos.write(data);
+    }
+
+    private static String readString(DataInputStream dis) throws IOException {
+        int length = dis.readInt();
+        if (length == -1) {
+            return null;
+        }
+
+        byte[] data = new byte[length];
+        dis.readFully(data);
+        return new String(data, Utf8Helper.charset);
+    }
+
+    private static void writeHighlightings(DataOutputStream dos, List<Highlighting> highlightings) throws IOException {
+        dos.writeInt(highlightings.size());
+        for (Highlighting h : highlightings) {
+            dos.writeByte(h.type.ordinal());
+            dos.writeInt(h.startPos);
+            dos.writeInt(h.len);
+            HighlightData data = h.getProperties();
+            int flags = (data.declaration ? FLAG_DECLARATION : 0)
+                    | (data.declaredType != null ? FLAG_DECLARED_TYPE : 0)
+                    | (data.localName != null ? FLAG_LOCAL_NAME : 0)
+                    | (data.subtype != null ? FLAG_SUBTYPE : 0)
+                    | (data.specialValue != null ? FLAG_SPECIAL_VALUE : 0);
+            dos.writeByte(flags);
+            if (data.declaredType != null) {
+                writeDottedChain(dos, data.declaredType);
+            }
+            if (data.localName != null) {
+                writeString(dos, data.localName);
+            }
+            if (data.subtype != null) {
+                dos.writeByte(data.subtype.ordinal());
+            }
+            if (data.specialValue != null) {
+                writeString(dos, data.specialValue);
+            }
+            dos.writeLong(data.index);
+            dos.writeLong(data.offset);
+            dos.writeLong(data.fileOffset);
+            dos.writeLong(data.firstLineOffset);
+            dos.writeInt(data.regIndex);
+        }
+    }
+
+    private static List<Highlighting> readHighlightings(DataInputStream dis) throws IOException {
+        int count = dis.readInt();
+        List<Highlighting> ret = new ArrayList<>(count);
+        HighlightType[] types = HighlightType.values();
+        HighlightSpecialType[] specialTypes = HighlightSpecialType.values();
+        for (int i = 0; i < count; i++) {
+            HighlightType type = types[dis.readUnsignedByte()];
+            int startPos = dis.readInt();
+            int len = dis.readInt();
+            int flags = dis.readUnsignedByte();
+            HighlightData data = new HighlightData();
+            data.declaration = (flags & FLAG_DECLARATION) != 0;
+            if ((flags & FLAG_DECLARED_TYPE) != 0) {
+                data.declaredType = readDottedChain(dis);
+            }
+            if ((flags & FLAG_LOCAL_NAME) != 0) {
+                data.localName = readString(dis);
+            }
+            if ((flags & FLAG_SUBTYPE) != 0) {
+                data.subtype = specialTypes[dis.readUnsignedByte()];
+            }
+            if ((flags & FLAG_SPECIAL_VALUE) != 0) {
+                data.specialValue = readString(dis);
+            }
+            data.index = dis.readLong();
+            data.offset = dis.readLong();
+            data.fileOffset = dis.readLong();
+            data.firstLineOffset = dis.readLong();
+            data.regIndex = dis.readInt();
+            Highlighting h = new Highlighting(startPos, data, type, null);
+            h.len = len;
+            ret.add(h);
+        }
+
+        return ret;
+    }
+
+    private static void writeDottedChain(DataOutputStream dos, DottedChain chain) throws IOException {
+        if (chain.isEmpty()) {
+            dos.writeInt(-1);
+            return;
+        }
+
+        dos.writeInt(chain.size());
+        for (int i = 0; i < chain.size(); i++) {
+            writeString(dos, chain.get(i));
+        }
+        writeString(dos, chain.getNamespaceSuffix());
+    }
+
+    private static DottedChain readDottedChain(DataInputStream dis) throws IOException {
+        int size = dis.readInt();
+        if (size == -1) {
+            return DottedChain.EMPTY;
+        }
+
+        String[] parts = new String[size];
+        for (int i = 0; i < size; i++) {
+            parts[i] = readString(dis);
+        }
+        String suffix = readString(dis);
+        return new DottedChain(parts, suffix);
+    }
+}
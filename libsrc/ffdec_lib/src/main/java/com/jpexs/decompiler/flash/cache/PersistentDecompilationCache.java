@@ -0,0 +1,298 @@
+/*
+ *  Copyright (C) 2010-2021 JPEXS, All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3.0 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library. */
+package com.jpexs.decompiler.flash.cache;
+
+import com.jpexs.decompiler.flash.configuration.Configuration;
+import com.jpexs.decompiler.flash.helpers.HighlightedText;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Decompiled scripts stored on disk between runs, keyed by content hash (see
+ * AS3CacheKey).
+ *
+ * Each entry is a separate file, which is written to a temporary file first
+ * and then moved to its place, so several processes can share the directory.
+ * Reading an entry updates its modification time, the least recently used
+ * entries are deleted when the directory exceeds the size limit.
+ *
+ * @author JPEXS
+ */
+public class PersistentDecompilationCache {
+
+    private static final Logger logger = Logger.getLogger(PersistentDecompilationCache.class.getName());
+
+    private static final int FORMAT_VERSION = 1;
+
+    private static final byte[] MAGIC = new byte[]{'F', 'D', 'C', FORMAT_VERSION};
+
+    private static final String ENTRY_EXTENSION = ".bin";
+
+    private static final String TEMP_EXTENSION = ".tmp";
+
+    private static final long TEMP_FILE_MAX_AGE = 60 * 60 * 1000;
+
+    private static final int RESCAN_INTERVAL = 1000;
+
+    private static PersistentDecompilationCache instance;
+
+    private final File directory;
+
+    private final long maxSize;
+
+    private long size = -1;
+
+    private int writesSinceScan = 0;
+
+    public PersistentDecompilationCache(File directory, long maxSize) {
+        this.directory = directory;
+        this.maxSize = maxSize;
+    }
+
+    public static synchronized PersistentDecompilationCache getInstance() {
+        long maxSize = Configuration.persistentDecompilationCacheSize.get() * 1024L * 1024L;
+        if (instance == null || instance.maxSize != maxSize) {
+            instance = new PersistentDecompilationCache(Configuration.getPath("decompilationcache"), maxSize);
+        }
+
+        return instance;
+    }
+
+    public static boolean isEnabled() {
+        return Configuration.persistentDecompilationCache.get();
+    }
+
+    private File getEntryFile(String key) {
+        return new File(new File(directory, key.substring(0, 2)), key + ENTRY_EXTENSION);
+    }
+
+    public HighlightedText get(String key) {
+        File file = getEntryFile(key);
+        if (!file.exists()) {
+            return null;
+        }
+
+        byte[] data;
+        try {
+            data = Files.readAllBytes(file.toPath());
+        } catch (IOException ex) {
+            // deleted by another process meanwhile
+            return null;
+        }
+
+        try {
+            HighlightedText ret = read(new ByteArrayInputStream(data));
+            file.setLastModified(System.currentTimeMillis());
+            return ret;
+        } catch (IOException ex) {
+            logger.log(Level.WARNING, "Invalid decompilation cache entry: {0}", file);
+            file.delete();
+            return null;
+        }
+    }
+
+    public void put(String key, HighlightedText text) {
+        File file = getEntryFile(key);
+        File dir = file.getParentFile();
+        File tempFile = null;
+        try {
+            if (!dir.exists()) {
+                dir.mkdirs();
+            }
+
+            tempFile = File.createTempFile(key, TEMP_EXTENSION, dir);
+            try (OutputStream os = new BufferedOutputStream(Files.newOutputStream(tempFile.toPath()))) {
+                write(text, os);
+            }
+
+            long length = tempFile.length();
+            try {
+                Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            tempFile = null;
+
+            boolean needsTrim;
+            synchronized (this) {
+                writesSinceScan++;
+                if (size != -1) {
+                    size += length;
+                }
+                needsTrim = size == -1 || size > maxSize || writesSinceScan >= RESCAN_INTERVAL;
+            }
+            if (needsTrim) {
+                trim();
+            }
+        } catch (IOException ex) {
+            logger.log(Level.WARNING, "Cannot write decompilation cache entry", ex);
+        } finally {
+            if (tempFile != null) {
+                tempFile.delete();
+            }
+        }
+    }
+
+    /**
+     * Deletes the least recently used entries when the cache is larger than
+     * the limit. Only one process trims the directory at the same time.
+     */
+    public void trim() {
+        File lockFile = new File(directory, "lock");
+        try {
+            if (!directory.exists()) {
+                directory.mkdirs();
+            }
+
+            try (RandomAccessFile raf = new RandomAccessFile(lockFile, "rw");
+                    FileChannel channel = raf.getChannel()) {
+                FileLock lock;
+                try {
+                    lock = channel.tryLock();
+                } catch (OverlappingFileLockException ex) {
+                    lock = null;
+                }
+                if (lock == null) {
+                    // other process (or thread) is trimming
+                    return;
+                }
+
+                try {
+                    trimLocked();
+                } finally {
+                    lock.release();
+                }
+            }
+        } catch (IOException ex) {
+            logger.log(Level.WARNING, "Cannot trim decompilation cache", ex);
+        }
+    }
+
+    private void trimLocked() {
+        List<File> entries = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        File[] subDirs = directory.listFiles();
+        if (subDirs == null) {
+            return;
+        }
+
+        for (File subDir : subDirs) {
+            File[] files = subDir.listFiles();
+            if (files == null) {
+                continue;
+            }
+
+            for (File file : files) {
+                String name = file.getName();
+                if (name.endsWith(ENTRY_EXTENSION)) {
+                    entries.add(file);
+                } else if (name.endsWith(TEMP_EXTENSION) && now - file.lastModified() > TEMP_FILE_MAX_AGE) {
+                    // left by killed process
+                    file.delete();
+                }
+            }
+        }
+
+        final long[] lastModified = new long[entries.size()];
+        long[] lengths = new long[entries.size()];
+        Integer[] order = new Integer[entries.size()];
+        long total = 0;
+        for (int i = 0; i < entries.size(); i++) {
+            File file = entries.get(i);
+            lastModified[i] = file.lastModified();
+            lengths[i] = file.length();
+            order[i] = i;
+            total += lengths[i];
+        }
+
+        if (total > maxSize) {
+            Arrays.sort(order, new Comparator<Integer>() {
+                @Override
+                public int compare(Integer o1, Integer o2) {
+                    return Long.compare(lastModified[o1], lastModified[o2]);
+                }
+            });
+
+            // free some space, so the next trim is not needed immediately
+            long target = maxSize / 4 * 3;
+            for (int i = 0; i < order.length && total > target; i++) {
+                File file = entries.get(order[i]);
+                if (file.delete() || !file.exists()) {
+                    total -= lengths[order[i]];
+                }
+            }
+        }
+
+        synchronized (this) {
+            size = total;
+            writesSinceScan = 0;
+        }
+    }
+
+    public synchronized long getSize() {
+        return size;
+    }
+
+    public static void write(HighlightedText text, OutputStream os) throws IOException {
+        os.write(MAGIC);
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            DataOutputStream dos = new DataOutputStream(new DeflaterOutputStream(os, deflater));
+            HighlightedTextCacheCodec.write(dos, text);
+            dos.close();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    public static HighlightedText read(InputStream is) throws IOException {
+        byte[] magic = new byte[MAGIC.length];
+        DataInputStream header = new DataInputStream(is);
+        header.readFully(magic);
+        if (!Arrays.equals(magic, MAGIC)) {
+            throw new IOException("Invalid decompilation cache entry header");
+        }
+
+        try (DataInputStream dis = new DataInputStream(new BufferedInputStream(new InflaterInputStream(is)))) {
+            return HighlightedTextCacheCodec.read(dis);
+        } catch (RuntimeException ex) {
+            throw new IOException(ex);
+        }
+    }
+}
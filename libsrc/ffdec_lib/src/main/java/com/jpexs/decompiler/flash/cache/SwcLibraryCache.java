@@ -0,0 +1,155 @@
+/*
+ *  Copyright (C) 2010-2021 JPEXS, All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3.0 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library. */
+package com.jpexs.decompiler.flash.cache;
+
+import com.jpexs.decompiler.flash.SWC;
+import com.jpexs.decompiler.flash.SWF;
+import com.jpexs.decompiler.flash.configuration.Configuration;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Libraries of SWC files (like playerglobal.swc) stored uncompressed on disk
+ * between runs.
+ *
+ * Opening the library from the SWC means reading the zip file and
+ * decompressing the SWF. The cache file contains the decompressed SWF, so
+ * later runs only parse its tags (the file is memory mapped when
+ * memoryMappedOpen is enabled). The cache file stores the length and the last
+ * modification time of the SWC it was created from and is created again when
+ * the SWC changes.
+ *
+ * @author JPEXS
+ */
+public class SwcLibraryCache {
+
+    private static final Logger logger = Logger.getLogger(SwcLibraryCache.class.getName());
+
+    private static final int FORMAT_VERSION = 2;
+
+    private static final byte[] MAGIC = new byte[]{'F', 'L', 'C', FORMAT_VERSION};
+
+    private static final String ENTRY_EXTENSION = ".bin";
+
+    private static final String TEMP_EXTENSION = ".tmp";
+
+    private SwcLibraryCache() {
+    }
+
+    /**
+     * Opens the library SWF from the SWC file using the cache.
+     *
+     * @param swcFile SWC file
+     * @param library Name of the library in the SWC, for example library.swf
+     * @param parallelRead Use parallel threads?
+     * @return SWF
+     * @throws IOException On error
+     * @throws InterruptedException On interrupt
+     */
+    public static SWF open(File swcFile, String library, boolean parallelRead) throws IOException, InterruptedException {
+        long length = swcFile.length();
+        long lastModified = swcFile.lastModified();
+        File cacheFile = new File(Configuration.getPath("librarycache"), swcFile.getName() + "_" + library.replaceAll("[^A-Za-z0-9_.-]", "_") + ENTRY_EXTENSION);
+        SWF swf = openCached(cacheFile, length, lastModified, parallelRead);
+        if (swf != null) {
+            return swf;
+        }
+
+        if (write(swcFile, library, cacheFile, length, lastModified)) {
+            swf = openCached(cacheFile, length, lastModified, parallelRead);
+            if (swf != null) {
+                return swf;
+            }
+        }
+
+        InputStream is = new SWC(swcFile).getSWF(library);
+        if (is == null) {
+            throw new IOException("Library " + library + " not found in " + swcFile);
+        }
+
+        return new SWF(is, parallelRead);
+    }
+
+    private static SWF openCached(File cacheFile, long length, long lastModified, boolean parallelRead) throws IOException, InterruptedException {
+        if (!cacheFile.exists()) {
+            return null;
+        }
+
+        try (FileInputStream fis = new FileInputStream(cacheFile)) {
+            DataInputStream dis = new DataInputStream(fis);
+            byte[] magic = new byte[MAGIC.length];
+            dis.readFully(magic);
+            if (!Arrays.equals(magic, MAGIC) || dis.readLong() != length || dis.readLong() != lastModified) {
+                return null;
+            }
+
+            // the stream is positioned at the SWF now
+            return new SWF(fis, parallelRead);
+        } catch (IOException ex) {
+            logger.log(Level.WARNING, "Invalid library cache file: {0}", cacheFile);
+            return null;
+        }
+    }
+
+    private static boolean write(File swcFile, String library, File cacheFile, long length, long lastModified) {
+        File tempFile = null;
+        try {
+            InputStream is = new SWC(swcFile).getSWF(library);
+            if (is == null) {
+                return false;
+            }
+
+            tempFile = File.createTempFile(cacheFile.getName(), TEMP_EXTENSION, cacheFile.getParentFile());
+            try (OutputStream os = new BufferedOutputStream(Files.newOutputStream(tempFile.toPath()))) {
+                DataOutputStream dos = new DataOutputStream(os);
+                dos.write(MAGIC);
+                dos.writeLong(length);
+                dos.writeLong(lastModified);
+                dos.flush();
+                if (!SWF.decompress(is, os)) {
+                    return false;
+                }
+            }
+
+            try {
+                Files.move(tempFile.toPath(), cacheFile.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(tempFile.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            tempFile = null;
+            return true;
+        } catch (IOException ex) {
+            logger.log(Level.WARNING, "Cannot write library cache file", ex);
+            return false;
+        } finally {
+            if (tempFile != null) {
+                tempFile.delete();
+            }
+        }
+    }
+}
@@ -94,6 +94,26 @@ public final class Configuration {
     @ConfigurationCategory("")
     public static ConfigurationItem<Boolean> cacheImages = null;
 
+    @ConfigurationDefaultBoolean(false)
+    @ConfigurationCategory("")
+    public static ConfigurationItem<Boolean> memoryMappedOpen = null;
+
+    @ConfigurationDefaultBoolean(false)
+    @ConfigurationCategory("")
+    public static ConfigurationItem<Boolean> persistentDecompilationCache = null;
+
+    @ConfigurationDefaultInt(256)
+    @ConfigurationCategory("")
+    public static ConfigurationItem<Integer> persistentDecompilationCacheSize = null;
+
+    @ConfigurationDefaultInt(1024)
+    @ConfigurationCategory("")
+    public static ConfigurationItem<Integer> cacheOnDiskSize = null;
+
+    @ConfigurationDefaultInt(512)
+    @ConfigurationCategory("")
+    public static ConfigurationItem<Integer> cacheMemoryBudget = null;
+
     /*
     @ConfigurationDefaultBoolean(false)
     @ConfigurationCategory("display")
@@ -18,15 +18,12 @@ package com.jpexs.decompiler.flash.exporters;
 import com.jpexs.decompiler.flash.AbortRetryIgnoreHandler;
 import com.jpexs.decompiler.flash.EventListener;
 import com.jpexs.decompiler.flash.ReadOnlyTagList;
-import com.jpexs.decompiler.flash.RetryTask;
 import com.jpexs.decompiler.flash.exporters.settings.BinaryDataExportSettings;
 import com.jpexs.decompiler.flash.tags.DefineBinaryDataTag;
 import com.jpexs.decompiler.flash.tags.Tag;
 import com.jpexs.helpers.Helper;
 import com.jpexs.helpers.Path;
-import java.io.BufferedOutputStream;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.util.ArrayList;
@@ -47,42 +44,24 @@ public class BinaryDataExporter {
         File foutdir = new File(outdir);
         Path.createDirectorySafe(foutdir);
 
-        int count = 0;
+        List<DefineBinaryDataTag> binaryDataTags = new ArrayList<>();
+        List<File> files = new ArrayList<>();
         for (Tag t : tags) {
             if (t instanceof DefineBinaryDataTag) {
-                count++;
+                DefineBinaryDataTag bdt = (DefineBinaryDataTag) t;
+                String ext = bdt.innerSwf == null ? ".bin" : ".swf";
+                binaryDataTags.add(bdt);
+                files.add(new File(outdir + File.separator + Helper.makeFileName(bdt.getCharacterExportFileName() + ext)));
             }
         }
 
-        if (count == 0) {
+        if (binaryDataTags.isEmpty()) {
             return ret;
         }
 
-        int currentIndex = 1;
-        for (final Tag t : tags) {
-            if (t instanceof DefineBinaryDataTag) {
-                DefineBinaryDataTag bdt = (DefineBinaryDataTag) t;
-                if (evl != null) {
-                    evl.handleExportingEvent("binarydata", currentIndex, count, t.getName());
-                }
-
-                String ext = bdt.innerSwf == null ? ".bin" : ".swf";
-                final File file = new File(outdir + File.separator + Helper.makeFileName(bdt.getCharacterExportFileName() + ext));
-                new RetryTask(() -> {
-                    try (OutputStream fos = new BufferedOutputStream(new FileOutputStream(file))) {
-                        fos.write(bdt.binaryData.getRangeData());
-                    }
-                }, handler).run();
-
-                ret.add(file);
-
-                if (evl != null) {
-                    evl.handleExportedEvent("binarydata", currentIndex, count, t.getName());
-                }
-
-                currentIndex++;
-            }
-        }
+        ret.addAll(new TagExportDriver<DefineBinaryDataTag>("binarydata", handler, evl).exportFiles(binaryDataTags, files, (DefineBinaryDataTag bdt, OutputStream fos) -> {
+            fos.write(bdt.binaryData.getRangeData());
+        }));
 
         return ret;
     }
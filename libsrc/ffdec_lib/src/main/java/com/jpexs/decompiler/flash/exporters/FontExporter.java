@@ -23,7 +23,6 @@ import com.jpexs.decompiler.flash.AbortRetryIgnoreHandler;
 import com.jpexs.decompiler.flash.ApplicationInfo;
 import com.jpexs.decompiler.flash.EventListener;
 import com.jpexs.decompiler.flash.ReadOnlyTagList;
-import com.jpexs.decompiler.flash.RetryTask;
 import com.jpexs.decompiler.flash.SWF;
 import com.jpexs.decompiler.flash.SWFInputStream;
 import com.jpexs.decompiler.flash.configuration.Configuration;
@@ -67,44 +66,28 @@ public class FontExporter {
         File foutdir = new File(outdir);
         Path.createDirectorySafe(foutdir);
 
-        int count = 0;
+        List<FontTag> fontTags = new ArrayList<>();
+        List<File> files = new ArrayList<>();
         for (Tag t : tags) {
             if (t instanceof FontTag) {
-                count++;
-            }
-        }
-
-        if (count == 0) {
-            return ret;
-        }
-
-        int currentIndex = 1;
-        for (Tag t : tags) {
-            if (t instanceof FontTag) {
-                if (evl != null) {
-                    evl.handleExportingEvent("font", currentIndex, count, t.getName());
-                }
-
-                final FontTag st = (FontTag) t;
+                FontTag st = (FontTag) t;
                 String ext = ".ttf";
                 if (settings.mode == FontExportMode.WOFF) {
                     ext = ".woff";
                 }
-                final File file = new File(outdir + File.separator + Helper.makeFileName(st.getCharacterExportFileName() + ext));
-                new RetryTask(() -> {
-                    exportFont(st, settings.mode, file);
-                }, handler).run();
 
-                ret.add(file);
-
-                if (evl != null) {
-                    evl.handleExportedEvent("font", currentIndex, count, t.getName());
-                }
-
-                currentIndex++;
+                fontTags.add(st);
+                files.add(new File(outdir + File.separator + Helper.makeFileName(st.getCharacterExportFileName() + ext)));
             }
         }
 
+        if (fontTags.isEmpty()) {
+            return ret;
+        }
+
+        ret.addAll(new TagExportDriver<FontTag>("font", handler, evl).exportFiles(fontTags, files, (FontTag st, File file) -> {
+            exportFont(st, settings.mode, file);
+        }));
         return ret;
     }
 
@@ -129,6 +112,13 @@ public class FontExporter {
 
     public void exportFont(FontTag ft, FontExportMode mode, File file) throws IOException {
         final FontTag t = ft.toClassicFont();
+        // the TrueType writer keeps global state, so fonts are written one at a time
+        synchronized (Fontastic.class) {
+            writeFont(t, mode, file);
+        }
+    }
+
+    private void writeFont(final FontTag t, FontExportMode mode, File file) throws IOException {
         List<SHAPE> shapes = t.getGlyphShapeTable();
 
         final double divider = t.getDivider();
@@ -419,43 +419,18 @@ public class FrameExporter {
 
         final Color fbackgroundColor = backgroundColor;
         final boolean fusesTransparency = settings.mode == FrameExportMode.PNG || settings.mode == FrameExportMode.GIF;
-        final Iterator<BufferedImage> frameImages = new Iterator<BufferedImage>() {
-            private int pos = 0;
+        final FrameImageIterator frameImages = new FrameImageIterator(tim, fframes, fusesTransparency ? null : fbackgroundColor, settings.zoom, evl);
 
-            @Override
-            public boolean hasNext() {
-                return fframes.size() > pos;
-            }
-
-            @Override
-            public void remove() {
-                throw new UnsupportedOperationException();
-            }
-
-            @Override
-            public BufferedImage next() {
-                if (!hasNext()) {
-                    return null;
-                }
-
-                Tag parentTag = tim.getParentTag();
-                String tagName = parentTag == null ? "" : parentTag.getName();
-
-                if (evl != null) {
-                    evl.handleExportingEvent("frame", pos + 1, fframes.size(), tagName);
-                }
-
-                int fframe = fframes.get(pos++);
-                BufferedImage result = SWF.frameToImageGet(tim, fframe, fframe, null, 0, tim.displayRect, new Matrix(), null, fusesTransparency ? null : fbackgroundColor, settings.zoom).getBufferedImage();
-
-                if (evl != null) {
-                    evl.handleExportedEvent("frame", pos, fframes.size(), tagName);
-                }
+        try {
+            exportFrameImages(handler, foutdir, swf, tim, fframes, settings, evl, ret, frameImages, fbackgroundColor, fusesTransparency);
+        } finally {
+            frameImages.close();
+        }
 
-                return result;
-            }
-        };
+        return ret;
+    }
 
+    private void exportFrameImages(AbortRetryIgnoreHandler handler, File foutdir, SWF swf, Timeline tim, List<Integer> fframes, FrameExportSettings settings, EventListener evl, List<File> ret, Iterator<BufferedImage> frameImages, Color fbackgroundColor, boolean fusesTransparency) throws IOException, InterruptedException {
         switch (settings.mode) {
             case GIF:
                 new RetryTask(() -> {
@@ -584,8 +559,6 @@ public class FrameExporter {
                 }, handler).run();
                 break;
         }
-
-        return ret;
     }
 
 
@@ -723,10 +696,10 @@ public class FrameExporter {
                     result.append("\t\t\tctx = o.ctx;\r\n");
                     result.append("\t\t\tcanvas = o.canvas;\r\n");
                 }
-                if (!frameObj.layers.containsKey(i)) {
+                if (!frameObj.getLayers().containsKey(i)) {
                     continue;
                 }
-                DepthState layer = frameObj.layers.get(i);
+                DepthState layer = frameObj.getLayers().get(i);
                 if (!timeline.swf.getCharacters().containsKey(layer.characterId)) {
                     continue;
                 }
@@ -0,0 +1,188 @@
+/*
+ *  Copyright (C) 2010-2021 JPEXS, All rights reserved.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3.0 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library. */
+package com.jpexs.decompiler.flash.exporters;
+
+import com.jpexs.decompiler.flash.EventListener;
+import com.jpexs.decompiler.flash.SWF;
+import com.jpexs.decompiler.flash.configuration.Configuration;
+import com.jpexs.decompiler.flash.exporters.commonshape.Matrix;
+import com.jpexs.decompiler.flash.tags.Tag;
+import com.jpexs.decompiler.flash.timeline.Timeline;
+import com.jpexs.decompiler.flash.types.RECT;
+import com.jpexs.helpers.TaskScheduler;
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Renders frames of a timeline for the frame exporter.
+ *
+ * When parallel speed up is enabled, the frames are rendered on the
+ * TaskScheduler ahead of the consumer (the image encoder), and are returned
+ * in frame order. The number of frames rendered or waiting for the consumer
+ * is limited by the queue size, which is derived from the frame size and the
+ * maximum heap size.
+ *
+ * Call close when the iteration is not finished, so the frames rendered in
+ * advance are cancelled.
+ *
+ * @author JPEXS
+ */
+public class FrameImageIterator implements Iterator<BufferedImage>, AutoCloseable {
+
+    private final Timeline timeline;
+
+    private final List<Integer> frames;
+
+    private final Color backgroundColor;
+
+    private final double zoom;
+
+    private final EventListener evl;
+
+    private final int queueSize;
+
+    private final Deque<Future<BufferedImage>> queue = new ArrayDeque<>();
+
+    private int submitted = 0;
+
+    private int pos = 0;
+
+    public FrameImageIterator(Timeline timeline, List<Integer> frames, Color backgroundColor, double zoom, EventListener evl) {
+        this.timeline = timeline;
+        this.frames = frames;
+        this.backgroundColor = backgroundColor;
+        this.zoom = zoom;
+        this.evl = evl;
+        queueSize = Configuration.parallelSpeedUp.get() ? getQueueSize(timeline.displayRect, zoom) : 0;
+
+        // initialize the timeline before the workers use it
+        timeline.getFrameCount();
+    }
+
+    /**
+     * Gets the number of frames which can be rendered in advance: two per
+     * thread, but the frames may use at most quarter of the maximum heap.
+     *
+     * @param rect Display rect
+     * @param zoom Zoom
+     * @return Queue size
+     */
+    public static int getQueueSize(RECT rect, double zoom) {
+        long width = (long) (rect.getWidth() * zoom / SWF.unitDivisor) + 1;
+        long height = (long) (rect.getHeight() * zoom / SWF.unitDivisor) + 1;
+        long frameSize = Math.max(1, width * height * 4);
+        long maxFrames = Runtime.getRuntime().maxMemory() / 4 / frameSize;
+        return (int) Math.max(1, Math.min(Configuration.getParallelThreadCount() * 2, maxFrames));
+    }
+
+    @Override
+    public boolean hasNext() {
+        return frames.size() > pos;
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public BufferedImage next() {
+        if (!hasNext()) {
+            return null;
+        }
+
+        Tag parentTag = timeline.getParentTag();
+        String tagName = parentTag == null ? "" : parentTag.getName();
+
+        if (evl != null) {
+            evl.handleExportingEvent("frame", pos + 1, frames.size(), tagName);
+        }
+
+        BufferedImage result;
+        if (queueSize == 0) {
+            result = render(frames.get(pos));
+        } else {
+            fillQueue();
+            Future<BufferedImage> future = queue.removeFirst();
+            // keep the workers busy while the consumer processes this frame
+            fillQueue();
+            result = join(future);
+        }
+
+        pos++;
+
+        if (evl != null) {
+            evl.handleExportedEvent("frame", pos, frames.size(), tagName);
+        }
+
+        return result;
+    }
+
+    private void fillQueue() {
+        while (submitted < frames.size() && queue.size() < queueSize) {
+            final int frame = frames.get(submitted++);
+            queue.addLast(TaskScheduler.submit(timeline.swf, new Callable<BufferedImage>() {
+                @Override
+                public BufferedImage call() throws Exception {
+                    return render(frame);
+                }
+            }));
+        }
+    }
+
+    private BufferedImage render(int frame) {
+        return SWF.frameToImageGet(timeline, frame, frame, null, 0, timeline.displayRect, new Matrix(), null, backgroundColor, zoom).getBufferedImage();
+    }
+
+    private BufferedImage join(Future<BufferedImage> future) {
+        try {
+            return TaskScheduler.join(future);
+        } catch (InterruptedException ex) {
+            close();
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(ex);
+        } catch (ExecutionException ex) {
+            close();
+            Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+
+            throw new RuntimeException(cause);
+        }
+    }
+
+    /**
+     * Cancels frames rendered in advance.
+     */
+    @Override
+    public void close() {
+        TaskScheduler.cancelAll(new ArrayList<>(queue));
+        queue.clear();
+        submitted = pos;
+    }
+}
@@ -18,7 +18,6 @@ package com.jpexs.decompiler.flash.exporters;
 import com.jpexs.decompiler.flash.AbortRetryIgnoreHandler;
 import com.jpexs.decompiler.flash.EventListener;
 import com.jpexs.decompiler.flash.ReadOnlyTagList;
-import com.jpexs.decompiler.flash.RetryTask;
 import com.jpexs.decompiler.flash.exporters.modes.ImageExportMode;
 import com.jpexs.decompiler.flash.exporters.settings.ImageExportSettings;
 import com.jpexs.decompiler.flash.helpers.BMPFile;
@@ -28,9 +27,7 @@ import com.jpexs.decompiler.flash.tags.base.ImageTag;
 import com.jpexs.decompiler.flash.tags.enums.ImageFormat;
 import com.jpexs.helpers.Helper;
 import com.jpexs.helpers.Path;
-import java.io.BufferedOutputStream;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.util.ArrayList;
@@ -51,66 +48,47 @@ public class ImageExporter {
         File foutdir = new File(outdir);
         Path.createDirectorySafe(foutdir);
 
-        int count = 0;
+        List<ImageTag> imageTags = new ArrayList<>();
         for (Tag t : tags) {
             if (t instanceof ImageTag) {
-                count++;
+                imageTags.add((ImageTag) t);
             }
         }
 
-        if (count == 0) {
+        if (imageTags.isEmpty()) {
             return ret;
         }
 
-        int currentIndex = 1;
-        for (Tag t : tags) {
-            if (t instanceof ImageTag) {
-                if (evl != null) {
-                    evl.handleExportingEvent("image", currentIndex, count, t.getName());
-                }
-
-                final ImageTag imageTag = (ImageTag) t;
-
-                ImageFormat fileFormat = imageTag.getImageFormat();
-                ImageFormat originalFormat = fileFormat;
-                if (settings.mode == ImageExportMode.PNG) {
-                    fileFormat = ImageFormat.PNG;
-                }
-
-                if (settings.mode == ImageExportMode.JPEG) {
-                    fileFormat = ImageFormat.JPEG;
-                }
-
-                if (settings.mode == ImageExportMode.BMP) {
-                    fileFormat = ImageFormat.BMP;
-                }
-
-                {
-                    final File file = new File(outdir + File.separator + Helper.makeFileName(imageTag.getCharacterExportFileName() + "." + ImageHelper.getImageFormatString(fileFormat)));
-                    final ImageFormat ffileFormat = fileFormat;
-
-                    new RetryTask(() -> {
-                        if (ffileFormat == originalFormat) {
-                            try (OutputStream fos = new BufferedOutputStream(new FileOutputStream(file))) {
-                                fos.write(Helper.readStream(imageTag.getImageData()));
-                            }
-                        } else if (ffileFormat == ImageFormat.BMP) {
-                            BMPFile.saveBitmap(imageTag.getImageCached().getBufferedImage(), file);
-                        } else {
-                            ImageHelper.write(imageTag.getImageCached().getBufferedImage(), ffileFormat, file);
-                        }
-                    }, handler).run();
-                    ret.add(file);
-                }
-
-                if (evl != null) {
-                    evl.handleExportedEvent("image", currentIndex, count, t.getName());
-                }
+        List<File> files = new ArrayList<>();
+        for (ImageTag imageTag : imageTags) {
+            ImageFormat fileFormat = getFileFormat(imageTag, settings.mode);
+            files.add(new File(outdir + File.separator + Helper.makeFileName(imageTag.getCharacterExportFileName() + "." + ImageHelper.getImageFormatString(fileFormat))));
+        }
 
-                currentIndex++;
+        ret.addAll(new TagExportDriver<ImageTag>("image", handler, evl).exportFiles(imageTags, files, (ImageTag imageTag, OutputStream fos) -> {
+            ImageFormat fileFormat = getFileFormat(imageTag, settings.mode);
+            if (fileFormat == imageTag.getImageFormat()) {
+                fos.write(Helper.readStream(imageTag.getImageData()));
+            } else if (fileFormat == ImageFormat.BMP) {
+                BMPFile.saveBitmap(imageTag.getImageCached().getBufferedImage(), fos);
+            } else {
+                ImageHelper.write(imageTag.getImageCached().getBufferedImage(), fileFormat, fos);
             }
-        }
+        }));
 
         return ret;
     }
+
+    private static ImageFormat getFileFormat(ImageTag imageTag, ImageExportMode mode) {
+        switch (mode) {
+            case PNG:
+                return ImageFormat.PNG;
+            case JPEG:
+                return ImageFormat.JPEG;
+            case BMP:
+                return ImageFormat.BMP;
+            default:
+                return imageTag.getImageFormat();
+        }
+    }
 }
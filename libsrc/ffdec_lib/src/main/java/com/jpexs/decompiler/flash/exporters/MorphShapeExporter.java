@@ -19,7 +19,6 @@ package com.jpexs.decompiler.flash.exporters;
 import com.jpexs.decompiler.flash.AbortRetryIgnoreHandler;
 import com.jpexs.decompiler.flash.EventListener;
 import com.jpexs.decompiler.flash.ReadOnlyTagList;
-import com.jpexs.decompiler.flash.RetryTask;
 import com.jpexs.decompiler.flash.SWF;
 import com.jpexs.decompiler.flash.action.parser.ActionParseException;
 import com.jpexs.decompiler.flash.exporters.commonshape.ExportRectangle;
@@ -35,10 +34,8 @@ import com.jpexs.decompiler.flash.types.CXFORMWITHALPHA;
 import com.jpexs.helpers.Helper;
 import com.jpexs.helpers.Path;
 import com.jpexs.helpers.utf8.Utf8Helper;
-import java.io.BufferedOutputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.util.ArrayList;
@@ -64,81 +61,59 @@ public class MorphShapeExporter {
         File foutdir = new File(outdir);
         Path.createDirectorySafe(foutdir);
 
-        int count = 0;
+        List<MorphShapeTag> morphShapeTags = new ArrayList<>();
+        List<File> files = new ArrayList<>();
         for (Tag t : tags) {
             if (t instanceof MorphShapeTag) {
-                count++;
-            }
-        }
-
-        if (count == 0) {
-            return ret;
-        }
-
-        int currentIndex = 1;
-        for (final Tag t : tags) {
-            if (t instanceof MorphShapeTag) {
-                if (evl != null) {
-                    evl.handleExportingEvent("morphshape", currentIndex, count, t.getName());
-                }
-
                 int characterID = 0;
                 if (t instanceof CharacterTag) {
                     characterID = ((CharacterTag) t).getCharacterId();
                 }
 
-                final File file = new File(outdir + File.separator + characterID + settings.getFileExtension());
-                new RetryTask(() -> {
-                    MorphShapeTag mst = (MorphShapeTag) t;
-                    switch (settings.mode) {
-                        case SVG:
-                            try (OutputStream fos = new BufferedOutputStream(new FileOutputStream(file))) {
-                                ExportRectangle rect = new ExportRectangle(mst.getRect());
-                                rect.xMax *= settings.zoom;
-                                rect.yMax *= settings.zoom;
-                                rect.xMin *= settings.zoom;
-                                rect.yMin *= settings.zoom;
-                                SVGExporter exporter = new SVGExporter(rect, settings.zoom);
-                                mst.toSVG(exporter, -2, new CXFORMWITHALPHA(), 0);
-                                fos.write(Utf8Helper.getBytes(exporter.getSVG()));
-                            }
-                            break;
-                        case CANVAS:
-                            try (OutputStream fos = new BufferedOutputStream(new FileOutputStream(file))) {
-                                int deltaX = -Math.min(mst.getStartBounds().Xmin, mst.getEndBounds().Xmin);
-                                int deltaY = -Math.min(mst.getStartBounds().Ymin, mst.getEndBounds().Ymin);
-                                CanvasMorphShapeExporter cse = new CanvasMorphShapeExporter(((Tag) mst).getSwf(), mst.getShapeAtRatio(0), mst.getShapeAtRatio(DefineMorphShapeTag.MAX_RATIO), new CXFORMWITHALPHA(), SWF.unitDivisor, deltaX, deltaY);
-                                cse.export();
-                                Set<Integer> needed = new HashSet<>();
-                                CharacterTag ct = ((CharacterTag) mst);
-                                needed.add(ct.getCharacterId());
-                                ct.getNeededCharactersDeep(needed);
-                                ByteArrayOutputStream baos = new ByteArrayOutputStream();
-                                SWF.libraryToHtmlCanvas(ct.getSwf(), needed, baos);
-                                fos.write(Utf8Helper.getBytes(cse.getHtml(new String(baos.toByteArray(), Utf8Helper.charset), SWF.getTypePrefix(mst) + mst.getCharacterId(), mst.getRect())));
-                            }
-                            break;
-                        case SWF:
-                            try (OutputStream fos = new BufferedOutputStream(new FileOutputStream(file))) {
-                                try {
-                                    new PreviewExporter().exportSwf(fos, mst, null, 0, false);
-                                } catch (ActionParseException ex) {
-                                    Logger.getLogger(MorphShapeExporter.class.getName()).log(Level.SEVERE, null, ex);
-                                }
-                            }
+                morphShapeTags.add((MorphShapeTag) t);
+                files.add(new File(outdir + File.separator + characterID + settings.getFileExtension()));
+            }
+        }
 
-                            break;
-                    }
-                }, handler).run();
-                ret.add(file);
+        if (morphShapeTags.isEmpty()) {
+            return ret;
+        }
 
-                if (evl != null) {
-                    evl.handleExportedEvent("morphshape", currentIndex, count, t.getName());
-                }
+        ret.addAll(new TagExportDriver<MorphShapeTag>("morphshape", handler, evl).exportFiles(morphShapeTags, files, (MorphShapeTag mst, OutputStream fos) -> {
+            switch (settings.mode) {
+                case SVG:
+                    ExportRectangle rect = new ExportRectangle(mst.getRect());
+                    rect.xMax *= settings.zoom;
+                    rect.yMax *= settings.zoom;
+                    rect.xMin *= settings.zoom;
+                    rect.yMin *= settings.zoom;
+                    SVGExporter exporter = new SVGExporter(rect, settings.zoom);
+                    mst.toSVG(exporter, -2, new CXFORMWITHALPHA(), 0);
+                    fos.write(Utf8Helper.getBytes(exporter.getSVG()));
+                    break;
+                case CANVAS:
+                    int deltaX = -Math.min(mst.getStartBounds().Xmin, mst.getEndBounds().Xmin);
+                    int deltaY = -Math.min(mst.getStartBounds().Ymin, mst.getEndBounds().Ymin);
+                    CanvasMorphShapeExporter cse = new CanvasMorphShapeExporter(((Tag) mst).getSwf(), mst.getShapeAtRatio(0), mst.getShapeAtRatio(DefineMorphShapeTag.MAX_RATIO), new CXFORMWITHALPHA(), SWF.unitDivisor, deltaX, deltaY);
+                    cse.export();
+                    Set<Integer> needed = new HashSet<>();
+                    CharacterTag ct = ((CharacterTag) mst);
+                    needed.add(ct.getCharacterId());
+                    ct.getNeededCharactersDeep(needed);
+                    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+                    SWF.libraryToHtmlCanvas(ct.getSwf(), needed, baos);
+                    fos.write(Utf8Helper.getBytes(cse.getHtml(new String(baos.toByteArray(), Utf8Helper.charset), SWF.getTypePrefix(mst) + mst.getCharacterId(), mst.getRect())));
+                    break;
+                case SWF:
+                    try {
+                        new PreviewExporter().exportSwf(fos, mst, null, 0, false);
+                    } catch (ActionParseException ex) {
+                        Logger.getLogger(MorphShapeExporter.class.getName()).log(Level.SEVERE, null, ex);
+                    }
 
-                currentIndex++;
+                    break;
             }
-        }
+        }));
 
         if (settings.mode == MorphShapeExportMode.CANVAS) {
             File fcanvas = new File(foutdir + File.separator + "canvas.js");
@@ -376,7 +376,7 @@ public class PreviewExporter {
                 }
 
                 RECT r = parent.getRect();
-                for (Map.Entry<Integer, DepthState> value : fn.layers.entrySet()) {
+                for (Map.Entry<Integer, DepthState> value : fn.getLayers().entrySet()) {
                     PlaceObjectTypeTag pot = value.getValue().toPlaceObjectTag(value.getKey());
                     MATRIX mat = new MATRIX(pot.getMatrix());
                     mat.translateX += width / 2 - r.getWidth() / 2;
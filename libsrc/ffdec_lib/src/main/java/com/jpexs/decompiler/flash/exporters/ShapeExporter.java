@@ -19,7 +19,6 @@ package com.jpexs.decompiler.flash.exporters;
 import com.jpexs.decompiler.flash.AbortRetryIgnoreHandler;
 import com.jpexs.decompiler.flash.EventListener;
 import com.jpexs.decompiler.flash.ReadOnlyTagList;
-import com.jpexs.decompiler.flash.RetryTask;
 import com.jpexs.decompiler.flash.SWF;
 import com.jpexs.decompiler.flash.action.parser.ActionParseException;
 import com.jpexs.decompiler.flash.exporters.commonshape.ExportRectangle;
@@ -44,10 +43,8 @@ import com.jpexs.helpers.Path;
 import com.jpexs.helpers.SerializableImage;
 import com.jpexs.helpers.utf8.Utf8Helper;
 import java.awt.Graphics2D;
-import java.io.BufferedOutputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.util.ArrayList;
@@ -72,100 +69,80 @@ public class ShapeExporter {
         File foutdir = new File(outdir);
         Path.createDirectorySafe(foutdir);
 
-        int count = 0;
+        List<ShapeTag> shapeTags = new ArrayList<>();
+        List<File> files = new ArrayList<>();
         for (Tag t : tags) {
             if (t instanceof ShapeTag) {
-                count++;
+                ShapeTag st = (ShapeTag) t;
+                shapeTags.add(st);
+                files.add(new File(outdir + File.separator + Helper.makeFileName(st.getCharacterExportFileName() + settings.getFileExtension())));
             }
         }
 
-        if (count == 0) {
+        if (shapeTags.isEmpty()) {
             return ret;
         }
 
-        int currentIndex = 1;
-        for (final Tag t : tags) {
-            if (t instanceof ShapeTag) {
-                final ShapeTag st = (ShapeTag) t;
-                if (evl != null) {
-                    evl.handleExportingEvent("shape", currentIndex, count, t.getName());
-                }
-
-                final File file = new File(outdir + File.separator + Helper.makeFileName(st.getCharacterExportFileName() + settings.getFileExtension()));
-                new RetryTask(() -> {
-                    switch (settings.mode) {
-                        case SVG:
-                            try (OutputStream fos = new BufferedOutputStream(new FileOutputStream(file))) {
-                                ExportRectangle rect = new ExportRectangle(st.getRect());
-                                rect.xMax *= settings.zoom;
-                                rect.yMax *= settings.zoom;
-                                rect.xMin *= settings.zoom;
-                                rect.yMin *= settings.zoom;
-                                SVGExporter exporter = new SVGExporter(rect, settings.zoom);
-                                st.toSVG(exporter, -2, new CXFORMWITHALPHA(), 0);
-                                fos.write(Utf8Helper.getBytes(exporter.getSVG()));
-                            }
-                            break;
-                        case PNG:
-                        case BMP:
-                            RECT rect = st.getRect();
-                            int newWidth = (int) (rect.getWidth() * settings.zoom / SWF.unitDivisor) + 1;
-                            int newHeight = (int) (rect.getHeight() * settings.zoom / SWF.unitDivisor) + 1;
-                            SerializableImage img = new SerializableImage(newWidth, newHeight, SerializableImage.TYPE_INT_ARGB_PRE);
-                            img.fillTransparent();
-                            if (settings.mode == ShapeExportMode.BMP) {
-                                RGB backColor = swf.getBackgroundColor().backgroundColor;
-                                if (backColor != null) {
-                                    Graphics2D g = (Graphics2D) img.getGraphics();
-                                    g.setColor(backColor.toColor());
-                                    g.fillRect(0, 0, img.getWidth(), img.getHeight());
-                                }
-                            }
-                            Matrix m = Matrix.getScaleInstance(settings.zoom);
-                            m.translate(-rect.Xmin, -rect.Ymin);
-                            st.toImage(0, 0, 0, new RenderContext(), img, img, false, m, m, m, m, new CXFORMWITHALPHA(), unzoom, false, new ExportRectangle(rect), true, Timeline.DRAW_MODE_ALL);
-                            if (settings.mode == ShapeExportMode.PNG) {
-                                ImageHelper.write(img.getBufferedImage(), ImageFormat.PNG, file);
-                            } else {
-                                BMPFile.saveBitmap(img.getBufferedImage(), file);
-                            }
-                            break;
-                        case CANVAS:
-                            try (OutputStream fos = new BufferedOutputStream(new FileOutputStream(file))) {
-                                SHAPE shp = st.getShapes();
-                                int deltaX = -shp.getBounds().Xmin;
-                                int deltaY = -shp.getBounds().Ymin;
-                                CanvasShapeExporter cse = new CanvasShapeExporter(null, SWF.unitDivisor / settings.zoom, ((Tag) st).getSwf(), shp, new CXFORMWITHALPHA(), deltaX, deltaY);
-                                cse.export();
-                                Set<Integer> needed = new HashSet<>();
-                                needed.add(st.getCharacterId());
-                                st.getNeededCharactersDeep(needed);
-                                ByteArrayOutputStream baos = new ByteArrayOutputStream();
-                                SWF.libraryToHtmlCanvas(st.getSwf(), needed, baos);
-                                fos.write(Utf8Helper.getBytes(cse.getHtml(new String(baos.toByteArray(), Utf8Helper.charset), SWF.getTypePrefix(st) + st.getCharacterId(), st.getRect())));
-                            }
-                            break;
-                        case SWF:
-                            try (OutputStream fos = new BufferedOutputStream(new FileOutputStream(file))) {
-                                try {
-                                    new PreviewExporter().exportSwf(fos, st, null, 0, false);
-                                } catch (ActionParseException ex) {
-                                    Logger.getLogger(MorphShapeExporter.class.getName()).log(Level.SEVERE, null, ex);
-                                }
-                            }
-
-                            break;
+        ret.addAll(new TagExportDriver<ShapeTag>("shape", handler, evl).exportFiles(shapeTags, files, (ShapeTag st, OutputStream fos) -> {
+            switch (settings.mode) {
+                case SVG:
+                    ExportRectangle rect = new ExportRectangle(st.getRect());
+                    rect.xMax *= settings.zoom;
+                    rect.yMax *= settings.zoom;
+                    rect.xMin *= settings.zoom;
+                    rect.yMin *= settings.zoom;
+                    SVGExporter exporter = new SVGExporter(rect, settings.zoom);
+                    st.toSVG(exporter, -2, new CXFORMWITHALPHA(), 0);
+                    fos.write(Utf8Helper.getBytes(exporter.getSVG()));
+                    break;
+                case PNG:
+                case BMP:
+                    RECT srect = st.getRect();
+                    int newWidth = (int) (srect.getWidth() * settings.zoom / SWF.unitDivisor) + 1;
+                    int newHeight = (int) (srect.getHeight() * settings.zoom / SWF.unitDivisor) + 1;
+                    SerializableImage img = new SerializableImage(newWidth, newHeight, SerializableImage.TYPE_INT_ARGB_PRE);
+                    img.fillTransparent();
+                    if (settings.mode == ShapeExportMode.BMP) {
+                        RGB backColor = swf.getBackgroundColor().backgroundColor;
+                        if (backColor != null) {
+                            Graphics2D g = (Graphics2D) img.getGraphics();
+                            g.setColor(backColor.toColor());
+                            g.fillRect(0, 0, img.getWidth(), img.getHeight());
+                        }
+                    }
+                    Matrix m = Matrix.getScaleInstance(settings.zoom);
+                    m.translate(-srect.Xmin, -srect.Ymin);
+                    st.toImage(0, 0, 0, new RenderContext(), img, img, false, m, m, m, m, new CXFORMWITHALPHA(), unzoom, false, new ExportRectangle(srect), true, Timeline.DRAW_MODE_ALL);
+                    if (settings.mode == ShapeExportMode.PNG) {
+                        ImageHelper.write(img.getBufferedImage(), ImageFormat.PNG, fos);
+                    } else {
+                        BMPFile.saveBitmap(img.getBufferedImage(), fos);
+                    }
+                    break;
+                case CANVAS:
+                    SHAPE shp = st.getShapes();
+                    int deltaX = -shp.getBounds().Xmin;
+                    int deltaY = -shp.getBounds().Ymin;
+                    CanvasShapeExporter cse = new CanvasShapeExporter(null, SWF.unitDivisor / settings.zoom, ((Tag) st).getSwf(), shp, new CXFORMWITHALPHA(), deltaX, deltaY);
+                    cse.export();
+                    Set<Integer> needed = new HashSet<>();
+                    needed.add(st.getCharacterId());
+                    st.getNeededCharactersDeep(needed);
+                    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+                    SWF.libraryToHtmlCanvas(st.getSwf(), needed, baos);
+                    fos.write(Utf8Helper.getBytes(cse.getHtml(new String(baos.toByteArray(), Utf8Helper.charset), SWF.getTypePrefix(st) + st.getCharacterId(), st.getRect())));
+                    break;
+                case SWF:
+                    try {
+                        new PreviewExporter().exportSwf(fos, st, null, 0, false);
+                    } catch (ActionParseException ex) {
+                        Logger.getLogger(MorphShapeExporter.class.getName()).log(Level.SEVERE, null, ex);
                     }
-                }, handler).run();
-                ret.add(file);
-
-                if (evl != null) {
-                    evl.handleExportedEvent("shape", currentIndex, count, t.getName());
-                }
 
-                currentIndex++;
+                    break;
             }
-        }
+        }));
+
         if (settings.mode == ShapeExportMode.CANVAS) {
             File fcanvas = new File(foutdir + File.separator + "canvas.js");
             Helper.saveStream(SWF.class.getClassLoader().getResourceAsStream("com/jpexs/helpers/resource/canvas.js"), fcanvas);
@@ -19,7 +19,6 @@ package com.jpexs.decompiler.flash.exporters;
 import com.jpexs.decompiler.flash.AbortRetryIgnoreHandler;
 import com.jpexs.decompiler.flash.EventListener;
 import com.jpexs.decompiler.flash.ReadOnlyTagList;
-import com.jpexs.decompiler.flash.RetryTask;
 import com.jpexs.decompiler.flash.exporters.modes.SoundExportMode;
 import com.jpexs.decompiler.flash.exporters.settings.SoundExportSettings;
 import com.jpexs.decompiler.flash.flv.AUDIODATA;
@@ -35,10 +34,8 @@ import com.jpexs.decompiler.flash.types.sound.SoundFormat;
 import com.jpexs.helpers.ByteArrayRange;
 import com.jpexs.helpers.Helper;
 import com.jpexs.helpers.Path;
-import java.io.BufferedOutputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.util.ArrayList;
@@ -60,25 +57,11 @@ public class SoundExporter {
         File foutdir = new File(outdir);
         Path.createDirectorySafe(foutdir);
 
-        int count = 0;
+        List<SoundTag> soundTags = new ArrayList<>();
+        List<File> files = new ArrayList<>();
         for (Tag t : tags) {
             if (t instanceof SoundTag) {
-                count++;
-            }
-        }
-
-        if (count == 0) {
-            return ret;
-        }
-
-        int currentIndex = 1;
-        for (Tag t : tags) {
-            if (t instanceof SoundTag) {
-                if (evl != null) {
-                    evl.handleExportingEvent("sound", currentIndex, count, t.getName());
-                }
-
-                final SoundTag st = (SoundTag) t;
+                SoundTag st = (SoundTag) t;
 
                 String ext = "wav";
                 SoundFormat fmt = st.getSoundFormat();
@@ -98,22 +81,18 @@ public class SoundExporter {
                     ext = "flv";
                 }
 
-                final File file = new File(outdir + File.separator + Helper.makeFileName(st.getCharacterExportFileName()) + "." + ext);
-                new RetryTask(() -> {
-                    try (OutputStream os = new BufferedOutputStream(new FileOutputStream(file))) {
-                        exportSound(os, st, settings.mode);
-                    }
-                }, handler).run();
-
-                ret.add(file);
-
-                if (evl != null) {
-                    evl.handleExportedEvent("sound", currentIndex, count, t.getName());
-                }
-
-                currentIndex++;
+                soundTags.add(st);
+                files.add(new File(outdir + File.separator + Helper.makeFileName(st.getCharacterExportFileName()) + "." + ext));
             }
         }
+
+        if (soundTags.isEmpty()) {
+            return ret;
+        }
+
+        ret.addAll(new TagExportDriver<SoundTag>("sound", handler, evl).exportFiles(soundTags, files, (SoundTag st, OutputStream os) -> {
+            exportSound(os, st, settings.mode);
+        }));
         return ret;
     }
 
@@ -0,0 +1,270 @@
+/*
+ *  Copyright (C) 2010-2021 JPEXS, All rights reserved.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3.0 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library.
+ */
+package com.jpexs.decompiler.flash.exporters;
+
+import com.jpexs.decompiler.flash.AbortRetryIgnoreHandler;
+import com.jpexs.decompiler.flash.EventListener;
+import com.jpexs.decompiler.flash.RetryTask;
+import com.jpexs.decompiler.flash.RunnableIOEx;
+import com.jpexs.decompiler.flash.configuration.Configuration;
+import com.jpexs.decompiler.flash.tags.Tag;
+import com.jpexs.decompiler.flash.treeitems.TreeItem;
+import com.jpexs.helpers.TaskScheduler;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Exports tags item by item. When parallel speed up is enabled, the items are
+ * exported on the TaskScheduler ahead of the calling thread, at most two per
+ * thread, into memory. The calling thread fires the progress events, writes
+ * the exported data and asks the AbortRetryIgnoreHandler about failed items,
+ * all in the order of the tags.
+ *
+ * @param <T> Tag type
+ * @author JPEXS
+ */
+public class TagExportDriver<T extends TreeItem> {
+
+    /**
+     * Exports a tag to a stream.
+     *
+     * @param <T> Tag type
+     */
+    @FunctionalInterface
+    public interface DataExporter<T> {
+
+        public void export(T tag, OutputStream os) throws IOException, InterruptedException;
+    }
+
+    /**
+     * Exports a tag to a file, used when the export cannot write to a stream.
+     *
+     * @param <T> Tag type
+     */
+    @FunctionalInterface
+    public interface FileExporter<T> {
+
+        public void export(T tag, File file) throws IOException, InterruptedException;
+    }
+
+    private interface ItemExporter {
+
+        /**
+         * Exports an item.
+         *
+         * @param index Index of the item
+         * @param buffered Whether the data should be returned instead of
+         * written, true on the TaskScheduler threads
+         * @return Data to write or null when there is nothing to write
+         */
+        public byte[] export(int index, boolean buffered) throws IOException, InterruptedException;
+
+        public void write(int index, byte[] data) throws IOException;
+    }
+
+    private final String type;
+
+    private final AbortRetryIgnoreHandler handler;
+
+    private final EventListener evl;
+
+    /**
+     * Constructs the driver.
+     *
+     * @param type Type of the exported items passed to the events
+     * @param handler Handler of the failed items, can be null
+     * @param evl Event listener, can be null
+     */
+    public TagExportDriver(String type, AbortRetryIgnoreHandler handler, EventListener evl) {
+        this.type = type;
+        this.handler = handler;
+        this.evl = evl;
+    }
+
+    /**
+     * Exports each tag to its own file.
+     *
+     * @param tags Tags
+     * @param files Target files in the order of the tags
+     * @param exporter Exporter
+     * @return Exported files
+     * @throws IOException On I/O error
+     * @throws InterruptedException On interrupt
+     */
+    public List<File> exportFiles(final List<T> tags, final List<File> files, final DataExporter<T> exporter) throws IOException, InterruptedException {
+        return run(tags, files, new ItemExporter() {
+            @Override
+            public byte[] export(int index, boolean buffered) throws IOException, InterruptedException {
+                if (buffered) {
+                    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+                    exporter.export(tags.get(index), baos);
+                    return baos.toByteArray();
+                }
+
+                try (OutputStream fos = new BufferedOutputStream(new FileOutputStream(files.get(index)))) {
+                    exporter.export(tags.get(index), fos);
+                }
+
+                return null;
+            }
+
+            @Override
+            public void write(int index, byte[] data) throws IOException {
+                try (OutputStream fos = new FileOutputStream(files.get(index))) {
+                    fos.write(data);
+                }
+            }
+        });
+    }
+
+    /**
+     * Exports each tag to its own file, the exporter writes the file itself.
+     *
+     * @param tags Tags
+     * @param files Target files in the order of the tags
+     * @param exporter Exporter
+     * @return Exported files
+     * @throws IOException On I/O error
+     * @throws InterruptedException On interrupt
+     */
+    public List<File> exportFiles(final List<T> tags, final List<File> files, final FileExporter<T> exporter) throws IOException, InterruptedException {
+        return run(tags, files, new ItemExporter() {
+            @Override
+            public byte[] export(int index, boolean buffered) throws IOException, InterruptedException {
+                exporter.export(tags.get(index), files.get(index));
+                return null;
+            }
+
+            @Override
+            public void write(int index, byte[] data) throws IOException {
+            }
+        });
+    }
+
+    /**
+     * Exports all tags to one stream, one after another.
+     *
+     * @param tags Tags
+     * @param os Output stream
+     * @param exporter Exporter
+     * @throws IOException On I/O error
+     * @throws InterruptedException On interrupt
+     */
+    public void exportToStream(final List<T> tags, final OutputStream os, final DataExporter<T> exporter) throws IOException, InterruptedException {
+        run(tags, null, new ItemExporter() {
+            @Override
+            public byte[] export(int index, boolean buffered) throws IOException, InterruptedException {
+                if (buffered) {
+                    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+                    exporter.export(tags.get(index), baos);
+                    return baos.toByteArray();
+                }
+
+                exporter.export(tags.get(index), os);
+                return null;
+            }
+
+            @Override
+            public void write(int index, byte[] data) throws IOException {
+                os.write(data);
+            }
+        });
+    }
+
+    private List<File> run(final List<T> tags, List<File> files, final ItemExporter item) throws IOException, InterruptedException {
+        List<File> ret = new ArrayList<>();
+        int count = tags.size();
+        int queueSize = count > 1 && Configuration.parallelSpeedUp.get() ? Configuration.getParallelThreadCount() * 2 : 0;
+        Deque<Future<byte[]>> pending = new ArrayDeque<>();
+        int submitted = 0;
+        try {
+            for (int i = 0; i < count; i++) {
+                T tag = tags.get(i);
+                String name = tag instanceof Tag ? ((Tag) tag).getName() : tag.toString();
+                if (evl != null) {
+                    evl.handleExportingEvent(type, i + 1, count, name);
+                }
+
+                if (submitted < i) {
+                    submitted = i;
+                }
+
+                while (submitted < count && submitted < i + queueSize) {
+                    final int index = submitted++;
+                    pending.add(TaskScheduler.submit(tags.get(index).getSwf(), new Callable<byte[]>() {
+                        @Override
+                        public byte[] call() throws Exception {
+                            return item.export(index, true);
+                        }
+                    }));
+                }
+
+                final int index = i;
+                final Future<byte[]> future = pending.poll();
+                new RetryTask(new RunnableIOEx() {
+                    private boolean joined = future == null;
+
+                    @Override
+                    public void run() throws IOException, InterruptedException {
+                        byte[] data = null;
+                        boolean exported = false;
+                        if (!joined) {
+                            joined = true;
+                            try {
+                                data = TaskScheduler.join(future);
+                                exported = true;
+                            } catch (ExecutionException ex) {
+                                // export again on this thread, so the error is reported to the handler
+                            }
+                        }
+
+                        if (!exported) {
+                            data = item.export(index, false);
+                        }
+
+                        if (data != null) {
+                            item.write(index, data);
+                        }
+                    }
+                }, handler).run();
+
+                if (files != null) {
+                    ret.add(files.get(i));
+                }
+
+                if (evl != null) {
+                    evl.handleExportedEvent(type, i + 1, count, name);
+                }
+            }
+        } finally {
+            TaskScheduler.cancelAll(new ArrayList<>(pending));
+        }
+
+        return ret;
+    }
+}
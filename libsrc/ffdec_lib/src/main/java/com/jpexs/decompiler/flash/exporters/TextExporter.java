@@ -18,7 +18,6 @@ package com.jpexs.decompiler.flash.exporters;
 import com.jpexs.decompiler.flash.AbortRetryIgnoreHandler;
 import com.jpexs.decompiler.flash.EventListener;
 import com.jpexs.decompiler.flash.ReadOnlyTagList;
-import com.jpexs.decompiler.flash.RetryTask;
 import com.jpexs.decompiler.flash.configuration.Configuration;
 import com.jpexs.decompiler.flash.exporters.commonshape.ExportRectangle;
 import com.jpexs.decompiler.flash.exporters.commonshape.SVGExporter;
@@ -57,44 +56,30 @@ public class TextExporter {
         File foutdir = new File(outdir);
         Path.createDirectorySafe(foutdir);
 
-        int count = 0;
+        List<TextTag> textTags = new ArrayList<>();
         for (Tag t : tags) {
             if (t instanceof TextTag) {
-                count++;
+                textTags.add((TextTag) t);
             }
         }
 
-        if (count == 0) {
+        if (textTags.isEmpty()) {
             return ret;
         }
 
-        int currentIndex = 1;
+        TagExportDriver<TextTag> driver = new TagExportDriver<>("text", handler, evl);
         if (settings.mode == TextExportMode.SVG) {
-            for (Tag t : tags) {
-                if (t instanceof TextTag) {
-                    if (evl != null) {
-                        evl.handleExportingEvent("text", currentIndex, count, t.getName());
-                    }
-
-                    final TextTag textTag = (TextTag) t;
-                    final File file = new File(outdir + File.separator + Helper.makeFileName(textTag.getCharacterExportFileName() + ".svg"));
-                    new RetryTask(() -> {
-                        try (OutputStream fos = new BufferedOutputStream(new FileOutputStream(file))) {
-                            ExportRectangle rect = new ExportRectangle(textTag.getRect());
-                            SVGExporter exporter = new SVGExporter(rect, settings.zoom);
-                            textTag.toSVG(exporter, -2, new CXFORMWITHALPHA(), 0);
-                            fos.write(Utf8Helper.getBytes(exporter.getSVG()));
-                        }
-                    }, handler).run();
-                    ret.add(file);
-
-                    if (evl != null) {
-                        evl.handleExportedEvent("text", currentIndex, count, t.getName());
-                    }
-
-                    currentIndex++;
-                }
+            List<File> files = new ArrayList<>();
+            for (TextTag textTag : textTags) {
+                files.add(new File(outdir + File.separator + Helper.makeFileName(textTag.getCharacterExportFileName() + ".svg")));
             }
+
+            ret.addAll(driver.exportFiles(textTags, files, (TextTag textTag, OutputStream fos) -> {
+                ExportRectangle rect = new ExportRectangle(textTag.getRect());
+                SVGExporter exporter = new SVGExporter(rect, settings.zoom);
+                textTag.toSVG(exporter, -2, new CXFORMWITHALPHA(), 0);
+                fos.write(Utf8Helper.getBytes(exporter.getSVG()));
+            }));
             return ret;
         }
 
@@ -108,56 +93,34 @@ public class TextExporter {
             }
             final File file = new File(outdir + File.separator + fileName);
             try (OutputStream fos = new BufferedOutputStream(new FileOutputStream(file))) {
-                for (final Tag t : tags) {
-                    if (t instanceof TextTag) {
-                        final TextTag textTag = (TextTag) t;
-                        new RetryTask(() -> {
-                            fos.write(Utf8Helper.getBytes("ID: " + textTag.getCharacterId() + Helper.newLine));
-                            if (settings.mode == TextExportMode.FORMATTED) {
-                                fos.write(Utf8Helper.getBytes(textTag.getFormattedText(false).text));
-                            } else {
-                                String separator = Configuration.textExportSingleFileRecordSeparator.get();
-                                separator = Helper.newLine + separator + Helper.newLine;
-                                List<String> texts = textTag.getTexts();
-                                fos.write(Utf8Helper.getBytes(String.join(separator, texts)));
-                            }
-                            fos.write(Utf8Helper.getBytes(Helper.newLine + Configuration.textExportSingleFileSeparator.get() + Helper.newLine));
-                        }, handler).run();
-                    }
-                }
+                driver.exportToStream(textTags, fos, (TextTag textTag, OutputStream os) -> {
+                    os.write(Utf8Helper.getBytes("ID: " + textTag.getCharacterId() + Helper.newLine));
+                    writeText(os, textTag, settings);
+                    os.write(Utf8Helper.getBytes(Helper.newLine + Configuration.textExportSingleFileSeparator.get() + Helper.newLine));
+                });
             }
             ret.add(file);
         } else {
-            for (Tag t : tags) {
-                if (t instanceof TextTag) {
-                    if (evl != null) {
-                        evl.handleExportingEvent("text", currentIndex, count, t.getName());
-                    }
-
-                    final TextTag textTag = (TextTag) t;
-                    final File file = new File(outdir + File.separator + Helper.makeFileName(textTag.getCharacterExportFileName() + ".txt"));
-                    new RetryTask(() -> {
-                        try (OutputStream fos = new BufferedOutputStream(new FileOutputStream(file))) {
-                            if (settings.mode == TextExportMode.FORMATTED) {
-                                fos.write(Utf8Helper.getBytes(textTag.getFormattedText(false).text));
-                            } else {
-                                String separator = Configuration.textExportSingleFileRecordSeparator.get();
-                                separator = Helper.newLine + separator + Helper.newLine;
-                                List<String> texts = textTag.getTexts();
-                                fos.write(Utf8Helper.getBytes(String.join(separator, texts)));
-                            }
-                        }
-                    }, handler).run();
-                    ret.add(file);
-
-                    if (evl != null) {
-                        evl.handleExportedEvent("text", currentIndex, count, t.getName());
-                    }
-
-                    currentIndex++;
-                }
+            List<File> files = new ArrayList<>();
+            for (TextTag textTag : textTags) {
+                files.add(new File(outdir + File.separator + Helper.makeFileName(textTag.getCharacterExportFileName() + ".txt")));
             }
+
+            ret.addAll(driver.exportFiles(textTags, files, (TextTag textTag, OutputStream fos) -> {
+                writeText(fos, textTag, settings);
+            }));
         }
         return ret;
     }
+
+    private void writeText(OutputStream os, TextTag textTag, TextExportSettings settings) throws IOException {
+        if (settings.mode == TextExportMode.FORMATTED) {
+            os.write(Utf8Helper.getBytes(textTag.getFormattedText(false).text));
+        } else {
+            String separator = Configuration.textExportSingleFileRecordSeparator.get();
+            separator = Helper.newLine + separator + Helper.newLine;
+            List<String> texts = textTag.getTexts();
+            os.write(Utf8Helper.getBytes(String.join(separator, texts)));
+        }
+    }
 }
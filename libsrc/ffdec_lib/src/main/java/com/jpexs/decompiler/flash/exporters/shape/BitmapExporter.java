@@ -19,6 +19,7 @@ package com.jpexs.decompiler.flash.exporters.shape;
 import com.jpexs.decompiler.flash.SWF;
 import com.jpexs.decompiler.flash.exporters.commonshape.ExportRectangle;
 import com.jpexs.decompiler.flash.exporters.commonshape.Matrix;
+import com.jpexs.decompiler.flash.exporters.shape.ShapeExportData.StylePath;
 import com.jpexs.decompiler.flash.tags.base.ImageTag;
 import com.jpexs.decompiler.flash.types.ColorTransform;
 import com.jpexs.decompiler.flash.types.FILLSTYLE;
@@ -571,6 +572,11 @@ public class BitmapExporter extends ShapeExporterBase {
         path.quadTo(controlX, controlY, anchorX, anchorY);
     }
 
+    @Override
+    protected void exportPath(StylePath stylePath) {
+        stylePath.appendTo(path);
+    }
+
     protected void finalizePath() {
         if (fillPaint != null) {
             graphics.setComposite(AlphaComposite.SrcOver);
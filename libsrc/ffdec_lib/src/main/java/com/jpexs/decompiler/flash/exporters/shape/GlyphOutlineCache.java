@@ -0,0 +1,533 @@
+/*
+ *  Copyright (C) 2010-2021 JPEXS, All rights reserved.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3.0 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library.
+ */
+package com.jpexs.decompiler.flash.exporters.shape;
+
+import com.jpexs.decompiler.flash.SWF;
+import com.jpexs.decompiler.flash.exporters.commonshape.Matrix;
+import com.jpexs.decompiler.flash.exporters.shape.ShapeExportData.StylePath;
+import com.jpexs.decompiler.flash.types.ColorTransform;
+import com.jpexs.decompiler.flash.types.GRADRECORD;
+import com.jpexs.decompiler.flash.types.RECT;
+import com.jpexs.decompiler.flash.types.RGB;
+import com.jpexs.decompiler.flash.types.SHAPE;
+import com.jpexs.decompiler.flash.types.shaperecords.SHAPERECORD;
+import com.jpexs.helpers.Cache;
+import com.jpexs.helpers.CacheWeigher;
+import com.jpexs.helpers.ImageCacheCodec;
+import com.jpexs.helpers.ImageCacheWeigher;
+import com.jpexs.helpers.SerializableCacheCodec;
+import com.jpexs.helpers.SerializableImage;
+import java.awt.AlphaComposite;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.GeneralPath;
+import java.awt.geom.PathIterator;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+/**
+ * Outlines of font glyphs ready for filling by Java2D.
+ *
+ * Text rendering draws the same glyphs again and again, so the edges of each
+ * glyph are converted to paths only once per font. The cache of a font is
+ * cleared when the font tag is modified. Glyphs of system fonts used by
+ * dynamic texts are cached for each SWF.
+ *
+ * Small glyphs drawn repeatedly with the same color and transformation (up to
+ * the integer part of the translation) are drawn from cached raster masks.
+ * The caches of a SWF are cleared when the SWF is closed.
+ *
+ * @author JPEXS
+ */
+public class GlyphOutlineCache {
+
+    private static final CacheWeigher<GlyphOutline> GLYPH_OUTLINE_WEIGHER = new CacheWeigher<GlyphOutline>() {
+        @Override
+        public long getWeight(GlyphOutline value) {
+            return value.getWeight();
+        }
+    };
+
+    /**
+     * Caches of system font glyphs and glyph masks of each SWF. The caches do
+     * not reference the SWF, so they are released with the SWF.
+     */
+    private static final Map<SWF, SwfCaches> swfCaches = new WeakHashMap<>();
+
+    private static final AffineTransform IDENTITY_TRANSFORM = new AffineTransform();
+
+    /**
+     * Maximal width and height of glyph in pixels to be drawn from a cached
+     * mask
+     */
+    private static final int MAX_MASK_SIZE = 64;
+
+    /**
+     * Maximal number of remembered mask keys of a glyph which were not cached
+     * yet
+     */
+    private static final int MAX_DRAWN_KEYS = 64;
+
+    private volatile GlyphOutline[] outlines = new GlyphOutline[0];
+
+    private static class SwfCaches {
+
+        private final Cache<String, GlyphOutline> systemFontGlyphCache = Cache.getInstance(false, true, "systemFontGlyph", new SerializableCacheCodec<GlyphOutline>(), GLYPH_OUTLINE_WEIGHER, Cache.BUDGET_SHARE_SYSTEM_FONT_GLYPH);
+
+        private final Cache<GlyphMaskKey, SerializableImage> glyphMaskCache = Cache.getInstance(false, true, "glyphMask", new ImageCacheCodec(), new ImageCacheWeigher(), Cache.BUDGET_SHARE_GLYPH_MASK);
+    }
+
+    private static SwfCaches getSwfCaches(SWF swf) {
+        synchronized (swfCaches) {
+            SwfCaches caches = swfCaches.get(swf);
+            if (caches == null) {
+                caches = new SwfCaches();
+                swfCaches.put(swf, caches);
+            }
+            return caches;
+        }
+    }
+
+    /**
+     * Clears the system font glyphs and glyph masks cached for the SWF.
+     *
+     * @param swf SWF
+     */
+    public static void clearSwf(SWF swf) {
+        SwfCaches caches;
+        synchronized (swfCaches) {
+            caches = swfCaches.remove(swf);
+        }
+        if (caches != null) {
+            caches.systemFontGlyphCache.clear();
+            caches.glyphMaskCache.clear();
+        }
+    }
+
+    private static class GlyphMaskKey {
+
+        private final GlyphOutline outline;
+
+        private final double[] matrix = new double[6];
+
+        private final int color;
+
+        private final Object antialiasing;
+
+        private final Object strokeControl;
+
+        public GlyphMaskKey(GlyphOutline outline, AffineTransform transform, int color, Object antialiasing, Object strokeControl) {
+            this.outline = outline;
+            transform.getMatrix(matrix);
+            this.color = color;
+            this.antialiasing = antialiasing;
+            this.strokeControl = strokeControl;
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = 7;
+            hash = 53 * hash + System.identityHashCode(outline);
+            hash = 53 * hash + Arrays.hashCode(matrix);
+            hash = 53 * hash + color;
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (obj == null || getClass() != obj.getClass()) {
+                return false;
+            }
+            final GlyphMaskKey other = (GlyphMaskKey) obj;
+            return outline == other.outline
+                    && color == other.color
+                    && Arrays.equals(matrix, other.matrix)
+                    && Objects.equals(antialiasing, other.antialiasing)
+                    && Objects.equals(strokeControl, other.strokeControl);
+        }
+    }
+
+    /**
+     * Filled paths of one glyph.
+     */
+    public static class GlyphOutline implements Serializable {
+
+        private final SHAPE shape;
+
+        private final RECT bounds;
+
+        /**
+         * Paths filled one by one, null when the glyph uses other styles than
+         * the text color and has to be rendered by BitmapExporter
+         */
+        private final GeneralPath[] paths;
+
+        private final Rectangle2D pathBounds;
+
+        /**
+         * Mask keys drawn once without the mask
+         */
+        private transient Set<GlyphMaskKey> drawnKeys;
+
+        private GlyphOutline(SWF swf, SHAPE shape) {
+            this.shape = shape;
+            bounds = shape.getBounds();
+            paths = OutlineExporter.export(swf, shape);
+            Rectangle2D pb = null;
+            if (paths != null) {
+                for (GeneralPath path : paths) {
+                    if (pb == null) {
+                        pb = path.getBounds2D();
+                    } else {
+                        pb.add(path.getBounds2D());
+                    }
+                }
+            }
+
+            pathBounds = pb;
+        }
+
+        public SHAPE getShape() {
+            return shape;
+        }
+
+        /**
+         * Gets bounds of the glyph.
+         *
+         * @return Copy of the bounds
+         */
+        public RECT getBounds() {
+            return new RECT(bounds);
+        }
+
+        /**
+         * Draws the glyph the same way as BitmapExporter does.
+         *
+         * @param swf SWF
+         * @param color Text color
+         * @param image Target image
+         * @param transformation Transformation of the glyph
+         * @param colorTransform Color transform
+         */
+        public void toImage(SWF swf, Color color, SerializableImage image, Matrix transformation, ColorTransform colorTransform) {
+            if (paths == null) {
+                BitmapExporter.export(swf, shape, color, image, transformation, transformation, colorTransform, true);
+                return;
+            }
+
+            Graphics2D graphics = (Graphics2D) image.getGraphics();
+            AffineTransform at = transformation.toTransform();
+            at.preConcatenate(AffineTransform.getScaleInstance(1 / SWF.unitDivisor, 1 / SWF.unitDivisor));
+            if (pathBounds != null && drawMask(swf, graphics, at, color)) {
+                graphics.setTransform(at);
+                return;
+            }
+
+            graphics.setTransform(at);
+            fill(graphics, color);
+        }
+
+        private void fill(Graphics2D graphics, Color color) {
+            for (GeneralPath path : paths) {
+                graphics.setComposite(AlphaComposite.SrcOver);
+                graphics.setPaint(color);
+                graphics.fill(path);
+            }
+        }
+
+        /**
+         * Draws small glyph from the mask cache. The mask is rendered with the
+         * same transformation within a pixel, so the coverage of the pixels is
+         * the same as when filling the paths directly.
+         */
+        private boolean drawMask(SWF swf, Graphics2D graphics, AffineTransform at, Color color) {
+            double tx = at.getTranslateX();
+            double ty = at.getTranslateY();
+            int ix = (int) Math.floor(tx);
+            int iy = (int) Math.floor(ty);
+            AffineTransform local = new AffineTransform(at.getScaleX(), at.getShearY(), at.getShearX(), at.getScaleY(), tx - ix, ty - iy);
+            Rectangle2D deviceBounds = local.createTransformedShape(pathBounds).getBounds2D();
+            if (deviceBounds.getWidth() > MAX_MASK_SIZE || deviceBounds.getHeight() > MAX_MASK_SIZE) {
+                return false;
+            }
+
+            int x0 = (int) Math.floor(deviceBounds.getMinX()) - 1;
+            int y0 = (int) Math.floor(deviceBounds.getMinY()) - 1;
+            GlyphMaskKey key = new GlyphMaskKey(this, local, color.getRGB(), graphics.getRenderingHint(RenderingHints.KEY_ANTIALIASING), graphics.getRenderingHint(RenderingHints.KEY_STROKE_CONTROL));
+            Cache<GlyphMaskKey, SerializableImage> glyphMaskCache = getSwfCaches(swf).glyphMaskCache;
+            SerializableImage mask = glyphMaskCache.get(key);
+            if (mask == null) {
+                // creating the mask is slower than filling, do it only for
+                // glyphs drawn repeatedly at the same position within a pixel
+                synchronized (this) {
+                    if (drawnKeys == null) {
+                        drawnKeys = new HashSet<>();
+                    } else if (drawnKeys.size() >= MAX_DRAWN_KEYS) {
+                        drawnKeys.clear();
+                    }
+                    if (drawnKeys.add(key)) {
+                        return false;
+                    }
+
+                    drawnKeys.remove(key);
+                }
+
+                int width = (int) Math.ceil(deviceBounds.getMaxX()) + 1 - x0;
+                int height = (int) Math.ceil(deviceBounds.getMaxY()) + 1 - y0;
+                mask = new SerializableImage(width, height, BufferedImage.TYPE_INT_ARGB_PRE);
+                Graphics2D maskGraphics = (Graphics2D) mask.getBufferedImage().getGraphics();
+                maskGraphics.setRenderingHints(graphics.getRenderingHints());
+                AffineTransform maskTransform = AffineTransform.getTranslateInstance(-x0, -y0);
+                maskTransform.concatenate(local);
+                maskGraphics.setTransform(maskTransform);
+                fill(maskGraphics, color);
+                maskGraphics.dispose();
+                glyphMaskCache.put(key, mask);
+            }
+
+            graphics.setTransform(IDENTITY_TRANSFORM);
+            graphics.setComposite(AlphaComposite.SrcOver);
+            graphics.drawImage(mask.getBufferedImage(), ix + x0, iy + y0, null);
+            return true;
+        }
+
+        private long getWeight() {
+            long ret = 256 + shape.shapeRecords.size() * 48;
+            if (paths != null) {
+                for (GeneralPath path : paths) {
+                    int segmentCount = 0;
+                    for (PathIterator it = path.getPathIterator(null); !it.isDone(); it.next()) {
+                        segmentCount++;
+                    }
+                    ret += 32 + segmentCount * 24;
+                }
+            }
+
+            return ret;
+        }
+    }
+
+    /**
+     * Collects the fill paths of a glyph. Glyph shapes have no styles, the
+     * fills use the text color.
+     */
+    private static class OutlineExporter extends ShapeExporterBase {
+
+        private final List<GeneralPath> paths = new ArrayList<>();
+
+        private GeneralPath path;
+
+        private boolean simple = true;
+
+        public static GeneralPath[] export(SWF swf, SHAPE shape) {
+            OutlineExporter exporter = new OutlineExporter(swf, shape);
+            exporter.export();
+            if (!exporter.simple) {
+                return null;
+            }
+
+            return exporter.paths.toArray(new GeneralPath[exporter.paths.size()]);
+        }
+
+        private OutlineExporter(SWF swf, SHAPE shape) {
+            super(swf, shape, null);
+        }
+
+        @Override
+        public void beginShape() {
+        }
+
+        @Override
+        public void endShape() {
+        }
+
+        @Override
+        public void beginFills() {
+        }
+
+        @Override
+        public void endFills() {
+        }
+
+        @Override
+        public void beginLines() {
+            simple = false;
+        }
+
+        @Override
+        public void endLines(boolean close) {
+        }
+
+        @Override
+        public void beginFill(RGB color) {
+            endFill();
+            if (color != null) {
+                simple = false;
+            }
+
+            path = new GeneralPath(GeneralPath.WIND_EVEN_ODD);
+        }
+
+        @Override
+        public void beginGradientFill(int type, GRADRECORD[] gradientRecords, Matrix matrix, int spreadMethod, int interpolationMethod, float focalPointRatio) {
+            simple = false;
+        }
+
+        @Override
+        public void beginBitmapFill(int bitmapId, Matrix matrix, boolean repeat, boolean smooth, ColorTransform colorTransform) {
+            simple = false;
+        }
+
+        @Override
+        public void endFill() {
+            if (path != null) {
+                paths.add(path);
+                path = null;
+            }
+        }
+
+        @Override
+        public void lineStyle(double thickness, RGB color, boolean pixelHinting, String scaleMode, int startCaps, int endCaps, int joints, float miterLimit) {
+            simple = false;
+        }
+
+        @Override
+        public void lineGradientStyle(int type, GRADRECORD[] gradientRecords, Matrix matrix, int spreadMethod, int interpolationMethod, float focalPointRatio) {
+            simple = false;
+        }
+
+        @Override
+        public void lineBitmapStyle(int bitmapId, Matrix matrix, boolean repeat, boolean smooth, ColorTransform colorTransform) {
+            simple = false;
+        }
+
+        @Override
+        public void moveTo(double x, double y) {
+            if (path == null) {
+                simple = false;
+                return;
+            }
+
+            path.moveTo(x, y);
+        }
+
+        @Override
+        public void lineTo(double x, double y) {
+            if (path == null) {
+                simple = false;
+                return;
+            }
+
+            path.lineTo(x, y);
+        }
+
+        @Override
+        public void curveTo(double controlX, double controlY, double anchorX, double anchorY) {
+            if (path == null) {
+                simple = false;
+                return;
+            }
+
+            path.quadTo(controlX, controlY, anchorX, anchorY);
+        }
+
+        @Override
+        protected void exportPath(StylePath stylePath) {
+            if (path == null) {
+                simple = false;
+                return;
+            }
+
+            stylePath.appendTo(path);
+        }
+    }
+
+    /**
+     * Gets outline of a glyph of the font.
+     *
+     * @param swf SWF
+     * @param glyphs Glyph shape table of the font
+     * @param glyphIndex Glyph index
+     * @return Outline
+     */
+    public GlyphOutline get(SWF swf, List<SHAPE> glyphs, int glyphIndex) {
+        SHAPE shape = glyphs.get(glyphIndex);
+        GlyphOutline[] outlines = this.outlines;
+        if (glyphIndex < outlines.length) {
+            GlyphOutline outline = outlines[glyphIndex];
+            // the glyph table can be modified before the font is marked as modified
+            if (outline != null && outline.shape == shape) {
+                return outline;
+            }
+        }
+
+        GlyphOutline outline = new GlyphOutline(swf, shape);
+        synchronized (this) {
+            outlines = this.outlines;
+            if (glyphIndex >= outlines.length) {
+                GlyphOutline[] newOutlines = new GlyphOutline[Math.max(glyphs.size(), glyphIndex + 1)];
+                System.arraycopy(outlines, 0, newOutlines, 0, outlines.length);
+                outlines = newOutlines;
+            }
+
+            outlines[glyphIndex] = outline;
+            this.outlines = outlines;
+        }
+
+        return outline;
+    }
+
+    public synchronized void clear() {
+        outlines = new GlyphOutline[0];
+    }
+
+    /**
+     * Gets outline of a character of a system font.
+     *
+     * @param swf SWF
+     * @param font Font
+     * @param fontSize Font size (em square size in twips)
+     * @param character Character
+     * @return Outline
+     */
+    public static GlyphOutline getSystemFontGlyph(SWF swf, Font font, int fontSize, char character) {
+        String key = font.getName() + "\u0000" + font.getStyle() + "\u0000" + font.getSize() + "\u0000" + fontSize + "\u0000" + character;
+        Cache<String, GlyphOutline> systemFontGlyphCache = getSwfCaches(swf).systemFontGlyphCache;
+        GlyphOutline outline = systemFontGlyphCache.get(key);
+        if (outline == null) {
+            outline = new GlyphOutline(swf, SHAPERECORD.fontCharacterToSHAPE(font, fontSize, character));
+            systemFontGlyphCache.put(key, outline);
+        }
+
+        return outline;
+    }
+}
@@ -18,6 +18,7 @@ package com.jpexs.decompiler.flash.exporters.shape;
 
 import com.jpexs.decompiler.flash.SWF;
 import com.jpexs.decompiler.flash.exporters.commonshape.Matrix;
+import com.jpexs.decompiler.flash.exporters.shape.ShapeExportData.StylePath;
 import com.jpexs.decompiler.flash.types.ColorTransform;
 import com.jpexs.decompiler.flash.types.GRADRECORD;
 import com.jpexs.decompiler.flash.types.RGB;
@@ -142,6 +143,11 @@ public class PathExporter extends ShapeExporterBase {
         path.quadTo(controlX, controlY, anchorX, anchorY);
     }
 
+    @Override
+    protected void exportPath(StylePath stylePath) {
+        stylePath.appendTo(path);
+    }
+
     protected void finalizePath() {
         if (thickness == 0) {
             strokes.add(new GeneralPath());
@@ -17,9 +17,17 @@ package com.jpexs.decompiler.flash.exporters.shape;
 
 import com.jpexs.decompiler.flash.exporters.commonshape.FillStyle;
 import com.jpexs.decompiler.flash.exporters.commonshape.LineStyle;
+import java.awt.geom.Path2D;
+import java.awt.geom.PathIterator;
 import java.util.List;
 
 /**
+ * Shape compiled for export. Fill and line paths are stored as packed
+ * coordinate and command arrays per style, so the shape can be exported
+ * repeatedly at any transformation without building the edge maps again.
+ *
+ * The data is not modified after it is created, it can be shared by several
+ * threads.
  *
  * @author JPEXS
  */
@@ -29,7 +37,121 @@ public class ShapeExportData {
 
     public List<LineStyle> lineStyles;
 
-    public List<List<IEdge>> fillPaths;
+    /**
+     * Fill paths of each group of the shape, ordered by fill style index.
+     */
+    public List<List<StylePath>> fillPaths;
+
+    /**
+     * Line paths of each group of the shape, ordered by line style index.
+     */
+    public List<List<StylePath>> linePaths;
+
+    public long getWeight() {
+        long weight = 256;
+        for (List<StylePath> paths : fillPaths) {
+            for (StylePath path : paths) {
+                weight += path.getWeight();
+            }
+        }
+        for (List<StylePath> paths : linePaths) {
+            for (StylePath path : paths) {
+                weight += path.getWeight();
+            }
+        }
+        return weight;
+    }
+
+    /**
+     * Path drawn with one style. Coordinates are in twips.
+     */
+    public static class StylePath {
+
+        public final int styleIdx;
+
+        /**
+         * PathIterator.SEG_MOVETO, SEG_LINETO or SEG_QUADTO for each segment.
+         */
+        private final byte[] commands;
+
+        private final double[] coords;
+
+        StylePath(int styleIdx, byte[] commands, double[] coords) {
+            this.styleIdx = styleIdx;
+            this.commands = commands;
+            this.coords = coords;
+        }
+
+        public double getStartX() {
+            return coords[0];
+        }
+
+        public double getStartY() {
+            return coords[1];
+        }
+
+        public double getEndX() {
+            return coords[coords.length - 2];
+        }
+
+        public double getEndY() {
+            return coords[coords.length - 1];
+        }
+
+        /**
+         * Appends the segments to Java2D path.
+         *
+         * @param path Path
+         */
+        public void appendTo(Path2D path) {
+            double[] coords = this.coords;
+            int pos = 0;
+            for (byte command : commands) {
+                switch (command) {
+                    case PathIterator.SEG_MOVETO:
+                        path.moveTo(coords[pos], coords[pos + 1]);
+                        pos += 2;
+                        break;
+                    case PathIterator.SEG_LINETO:
+                        path.lineTo(coords[pos], coords[pos + 1]);
+                        pos += 2;
+                        break;
+                    case PathIterator.SEG_QUADTO:
+                        path.quadTo(coords[pos], coords[pos + 1], coords[pos + 2], coords[pos + 3]);
+                        pos += 4;
+                        break;
+                }
+            }
+        }
+
+        /**
+         * Exports the segments as moveTo, lineTo and curveTo calls.
+         *
+         * @param exporter Exporter
+         */
+        public void export(IShapeExporter exporter) {
+            double[] coords = this.coords;
+            int pos = 0;
+            for (byte command : commands) {
+                switch (command) {
+                    case PathIterator.SEG_MOVETO:
+                        exporter.moveTo(coords[pos], coords[pos + 1]);
+                        pos += 2;
+                        break;
+                    case PathIterator.SEG_LINETO:
+                        exporter.lineTo(coords[pos], coords[pos + 1]);
+                        pos += 2;
+                        break;
+                    case PathIterator.SEG_QUADTO:
+                        exporter.curveTo(coords[pos], coords[pos + 1], coords[pos + 2], coords[pos + 3]);
+                        pos += 4;
+                        break;
+                }
+            }
+        }
 
-    public List<List<IEdge>> linePaths;
+        private long getWeight() {
+            return 48 + commands.length + coords.length * 8L;
+        }
+    }
 }
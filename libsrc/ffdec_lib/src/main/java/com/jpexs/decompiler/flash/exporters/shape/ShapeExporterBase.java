@@ -19,6 +19,7 @@ package com.jpexs.decompiler.flash.exporters.shape;
 import com.jpexs.decompiler.flash.SWF;
 import com.jpexs.decompiler.flash.exporters.commonshape.FillStyle;
 import com.jpexs.decompiler.flash.exporters.commonshape.LineStyle;
+import com.jpexs.decompiler.flash.exporters.shape.ShapeExportData.StylePath;
 import com.jpexs.decompiler.flash.types.ColorTransform;
 import com.jpexs.decompiler.flash.types.FILLSTYLE;
 import com.jpexs.decompiler.flash.types.FOCALGRADIENT;
@@ -34,6 +35,7 @@ import com.jpexs.decompiler.flash.types.shaperecords.StraightEdgeRecord;
 import com.jpexs.decompiler.flash.types.shaperecords.StyleChangeRecord;
 import com.jpexs.helpers.Cache;
 import java.awt.Color;
+import java.awt.geom.PathIterator;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -54,9 +56,9 @@ public abstract class ShapeExporterBase implements IShapeExporter {
 
     private final List<LineStyle> _lineStyles;
 
-    private final List<List<IEdge>> _fillPaths;
+    private final List<List<StylePath>> _fillPaths;
 
-    private final List<List<IEdge>> _linePaths;
+    private final List<List<StylePath>> _linePaths;
 
     private final ColorTransform colorTransform;
 
@@ -89,11 +91,11 @@ public abstract class ShapeExporterBase implements IShapeExporter {
                 t.printStackTrace();
             }
             int count = lineEdgeMaps.size();
-            List<List<IEdge>> fillPaths = new ArrayList<>(count);
-            List<List<IEdge>> linePaths = new ArrayList<>(count);
+            List<List<StylePath>> fillPaths = new ArrayList<>(count);
+            List<List<StylePath>> linePaths = new ArrayList<>(count);
             for (int i = 0; i < count; i++) {
-                fillPaths.add(createPathFromEdgeMap(fillEdgeMaps.get(i)));
-                linePaths.add(createPathFromEdgeMap(lineEdgeMaps.get(i)));
+                fillPaths.add(createPathsFromEdgeMap(fillEdgeMaps.get(i)));
+                linePaths.add(createPathsFromEdgeMap(lineEdgeMaps.get(i)));
             }
 
             cachedData = new ShapeExportData();
@@ -255,196 +257,217 @@ public abstract class ShapeExporterBase implements IShapeExporter {
         }
     }
 
-    private void exportFillPath(List<IEdge> path) {
-        int posX = Integer.MAX_VALUE;
-        int posY = Integer.MAX_VALUE;
-        int fillStyleIdx = Integer.MAX_VALUE;
-        if (path.size() > 0) {
+    private void exportFillPath(List<StylePath> paths) {
+        if (paths.size() > 0) {
             beginFills();
-            for (int i = 0; i < path.size(); i++) {
-                IEdge e = path.get(i);
-                if (fillStyleIdx != e.getFillStyleIdx()) {
-                    if (fillStyleIdx != Integer.MAX_VALUE) {
-                        endFill();
+            for (int i = 0; i < paths.size(); i++) {
+                StylePath path = paths.get(i);
+                int fillStyleIdx = path.styleIdx;
+                if (fillStyleIdx - 1 < _fillStyles.size()) {
+                    FillStyle fillStyle = _fillStyles.get(fillStyleIdx - 1);
+                    switch (fillStyle.fillStyleType) {
+                        case FILLSTYLE.SOLID:
+                            // Solid fill
+                            beginFill(colorTransform == null ? fillStyle.color : colorTransform.apply(fillStyle.color));
+                            break;
+                        case FILLSTYLE.LINEAR_GRADIENT:
+                        case FILLSTYLE.RADIAL_GRADIENT:
+                        case FILLSTYLE.FOCAL_RADIAL_GRADIENT:
+                            // Gradient fill
+                            beginGradientFill(
+                                    fillStyle.fillStyleType,
+                                    colorTransform == null ? fillStyle.gradient.gradientRecords : colorTransform.apply(fillStyle.gradient.gradientRecords),
+                                    fillStyle.gradientMatrix,
+                                    fillStyle.gradient.spreadMode,
+                                    fillStyle.gradient.interpolationMode,
+                                    (fillStyle.gradient instanceof FOCALGRADIENT) ? ((FOCALGRADIENT) fillStyle.gradient).focalPoint : 0
+                            );
+                            break;
+                        case FILLSTYLE.REPEATING_BITMAP:
+                        case FILLSTYLE.CLIPPED_BITMAP:
+                        case FILLSTYLE.NON_SMOOTHED_REPEATING_BITMAP:
+                        case FILLSTYLE.NON_SMOOTHED_CLIPPED_BITMAP:
+                            // Bitmap fill
+                            beginBitmapFill(
+                                    fillStyle.bitmapId,
+                                    fillStyle.bitmapMatrix,
+                                    (fillStyle.fillStyleType == FILLSTYLE.REPEATING_BITMAP || fillStyle.fillStyleType == FILLSTYLE.NON_SMOOTHED_REPEATING_BITMAP),
+                                    (fillStyle.fillStyleType == FILLSTYLE.REPEATING_BITMAP || fillStyle.fillStyleType == FILLSTYLE.CLIPPED_BITMAP),
+                                    colorTransform
+                            );
+                            break;
                     }
-                    fillStyleIdx = e.getFillStyleIdx();
-                    posX = Integer.MAX_VALUE;
-                    posY = Integer.MAX_VALUE;
-                    if (fillStyleIdx - 1 < _fillStyles.size()) {
-                        FillStyle fillStyle = _fillStyles.get(fillStyleIdx - 1);
+                } else {
+                    // Font shapes define no fillstyles per se, but do reference fillstyle index 1,
+                    // which represents the font color. We just report null in this case.
+                    beginFill(null);
+                }
+                exportPath(path);
+                endFill();
+            }
+            endFills();
+        }
+    }
+
+    private void exportLinePath(List<StylePath> paths) {
+        if (paths.size() > 0) {
+            boolean autoClose = true;
+            beginLines();
+            for (int i = 0; i < paths.size(); i++) {
+                StylePath path = paths.get(i);
+                int lineStyleIdx = path.styleIdx;
+                LineStyle lineStyle = null;
+                try {
+                    lineStyle = _lineStyles.get(lineStyleIdx - 1);
+                } catch (Exception ex) {
+                }
+                if (lineStyle != null) {
+                    String scaleMode = "NORMAL";
+                    boolean pixelHintingFlag = false;
+                    int startCapStyle = LINESTYLE2.ROUND_CAP;
+                    int endCapStyle = LINESTYLE2.ROUND_CAP;
+                    int joinStyle = LINESTYLE2.ROUND_JOIN;
+                    float miterLimitFactor = 3f;
+                    boolean hasFillFlag = false;
+                    autoClose = true;
+                    if (lineStyle.isLineStyle2) {
+                        if (lineStyle.noClose) {
+                            autoClose = false;
+                        }
+                        if (lineStyle.noHScaleFlag && lineStyle.noVScaleFlag) {
+                            scaleMode = "NONE";
+                        } else if (lineStyle.noHScaleFlag) {
+                            scaleMode = "VERTICAL";
+                        } else if (lineStyle.noVScaleFlag) {
+                            scaleMode = "HORIZONTAL";
+                        }
+                        pixelHintingFlag = lineStyle.pixelHintingFlag;
+                        startCapStyle = lineStyle.startCapStyle;
+                        endCapStyle = lineStyle.endCapStyle;
+                        joinStyle = lineStyle.joinStyle;
+                        miterLimitFactor = lineStyle.miterLimitFactor;
+                        hasFillFlag = lineStyle.hasFillFlag;
+                    }
+                    lineStyle(
+                            lineStyle.width,
+                            colorTransform == null ? lineStyle.color : colorTransform.apply(lineStyle.color),
+                            pixelHintingFlag,
+                            scaleMode,
+                            startCapStyle,
+                            endCapStyle,
+                            joinStyle,
+                            miterLimitFactor);
+
+                    if (hasFillFlag) {
+                        FillStyle fillStyle = lineStyle.fillType;
                         switch (fillStyle.fillStyleType) {
-                            case FILLSTYLE.SOLID:
-                                // Solid fill
-                                beginFill(colorTransform == null ? fillStyle.color : colorTransform.apply(fillStyle.color));
-                                break;
                             case FILLSTYLE.LINEAR_GRADIENT:
                             case FILLSTYLE.RADIAL_GRADIENT:
                             case FILLSTYLE.FOCAL_RADIAL_GRADIENT:
                                 // Gradient fill
-                                beginGradientFill(
+                                lineGradientStyle(
                                         fillStyle.fillStyleType,
-                                        colorTransform == null ? fillStyle.gradient.gradientRecords : colorTransform.apply(fillStyle.gradient.gradientRecords),
+                                        fillStyle.gradient.gradientRecords,
                                         fillStyle.gradientMatrix,
                                         fillStyle.gradient.spreadMode,
                                         fillStyle.gradient.interpolationMode,
                                         (fillStyle.gradient instanceof FOCALGRADIENT) ? ((FOCALGRADIENT) fillStyle.gradient).focalPoint : 0
                                 );
                                 break;
-                            case FILLSTYLE.REPEATING_BITMAP:
                             case FILLSTYLE.CLIPPED_BITMAP:
-                            case FILLSTYLE.NON_SMOOTHED_REPEATING_BITMAP:
+                            case FILLSTYLE.REPEATING_BITMAP:
                             case FILLSTYLE.NON_SMOOTHED_CLIPPED_BITMAP:
-                                // Bitmap fill
-                                beginBitmapFill(
-                                        fillStyle.bitmapId,
+                            case FILLSTYLE.NON_SMOOTHED_REPEATING_BITMAP:
+                                lineBitmapStyle(fillStyle.bitmapId,
                                         fillStyle.bitmapMatrix,
                                         (fillStyle.fillStyleType == FILLSTYLE.REPEATING_BITMAP || fillStyle.fillStyleType == FILLSTYLE.NON_SMOOTHED_REPEATING_BITMAP),
                                         (fillStyle.fillStyleType == FILLSTYLE.REPEATING_BITMAP || fillStyle.fillStyleType == FILLSTYLE.CLIPPED_BITMAP),
-                                        colorTransform
-                                );
+                                        colorTransform);
                                 break;
                         }
-                    } else {
-                        // Font shapes define no fillstyles per se, but do reference fillstyle index 1,
-                        // which represents the font color. We just report null in this case.
-                        beginFill(null);
                     }
-                }
-                if (posX != e.getFromX() || posY != e.getFromY()) {
-                    moveTo(e.getFromX(), e.getFromY());
-                }
-                if (e instanceof CurvedEdge) {
-                    CurvedEdge c = (CurvedEdge) e;
-                    curveTo(c.getControlX(), c.getControlY(), c.toX, c.toY);
                 } else {
-                    lineTo(e.getToX(), e.getToY());
+                    // We should never get here
+                    lineStyle(1, new RGB(Color.black), false, "NORMAL", 0, 0, 0, 3);
                 }
-                posX = e.getToX();
-                posY = e.getToY();
-            }
-            if (fillStyleIdx != Integer.MAX_VALUE) {
-                endFill();
+                exportPath(path);
             }
-            endFills();
+            StylePath firstPath = paths.get(0);
+            StylePath lastPath = paths.get(paths.size() - 1);
+            endLines(autoClose && firstPath.getStartX() == lastPath.getEndX() && firstPath.getStartY() == lastPath.getEndY());
         }
     }
 
-    private void exportLinePath(List<IEdge> path) {
-        int posX = Integer.MAX_VALUE;
-        int posY = Integer.MAX_VALUE;
-        int lineStyleIdx = Integer.MAX_VALUE;
-        if (path.size() > 0) {
-            boolean autoClose = true;
-            beginLines();
-            for (int i = 0; i < path.size(); i++) {
-                IEdge e = path.get(i);
-                if (lineStyleIdx != e.getLineStyleIdx()) {
-                    lineStyleIdx = e.getLineStyleIdx();
-                    posX = Integer.MAX_VALUE;
-                    posY = Integer.MAX_VALUE;
-                    LineStyle lineStyle = null;
-                    try {
-                        lineStyle = _lineStyles.get(lineStyleIdx - 1);
-                    } catch (Exception ex) {
-                    }
-                    if (lineStyle != null) {
-                        String scaleMode = "NORMAL";
-                        boolean pixelHintingFlag = false;
-                        int startCapStyle = LINESTYLE2.ROUND_CAP;
-                        int endCapStyle = LINESTYLE2.ROUND_CAP;
-                        int joinStyle = LINESTYLE2.ROUND_JOIN;
-                        float miterLimitFactor = 3f;
-                        boolean hasFillFlag = false;
-                        autoClose = true;
-                        if (lineStyle.isLineStyle2) {
-                            if (lineStyle.noClose) {
-                                autoClose = false;
-                            }
-                            if (lineStyle.noHScaleFlag && lineStyle.noVScaleFlag) {
-                                scaleMode = "NONE";
-                            } else if (lineStyle.noHScaleFlag) {
-                                scaleMode = "VERTICAL";
-                            } else if (lineStyle.noVScaleFlag) {
-                                scaleMode = "HORIZONTAL";
-                            }
-                            pixelHintingFlag = lineStyle.pixelHintingFlag;
-                            startCapStyle = lineStyle.startCapStyle;
-                            endCapStyle = lineStyle.endCapStyle;
-                            joinStyle = lineStyle.joinStyle;
-                            miterLimitFactor = lineStyle.miterLimitFactor;
-                            hasFillFlag = lineStyle.hasFillFlag;
-                        }
-                        lineStyle(
-                                lineStyle.width,
-                                colorTransform == null ? lineStyle.color : colorTransform.apply(lineStyle.color),
-                                pixelHintingFlag,
-                                scaleMode,
-                                startCapStyle,
-                                endCapStyle,
-                                joinStyle,
-                                miterLimitFactor);
-
-                        if (hasFillFlag) {
-                            FillStyle fillStyle = lineStyle.fillType;
-                            switch (fillStyle.fillStyleType) {
-                                case FILLSTYLE.LINEAR_GRADIENT:
-                                case FILLSTYLE.RADIAL_GRADIENT:
-                                case FILLSTYLE.FOCAL_RADIAL_GRADIENT:
-                                    // Gradient fill
-                                    lineGradientStyle(
-                                            fillStyle.fillStyleType,
-                                            fillStyle.gradient.gradientRecords,
-                                            fillStyle.gradientMatrix,
-                                            fillStyle.gradient.spreadMode,
-                                            fillStyle.gradient.interpolationMode,
-                                            (fillStyle.gradient instanceof FOCALGRADIENT) ? ((FOCALGRADIENT) fillStyle.gradient).focalPoint : 0
-                                    );
-                                    break;
-                                case FILLSTYLE.CLIPPED_BITMAP:
-                                case FILLSTYLE.REPEATING_BITMAP:
-                                case FILLSTYLE.NON_SMOOTHED_CLIPPED_BITMAP:
-                                case FILLSTYLE.NON_SMOOTHED_REPEATING_BITMAP:
-                                    lineBitmapStyle(fillStyle.bitmapId,
-                                            fillStyle.bitmapMatrix,
-                                            (fillStyle.fillStyleType == FILLSTYLE.REPEATING_BITMAP || fillStyle.fillStyleType == FILLSTYLE.NON_SMOOTHED_REPEATING_BITMAP),
-                                            (fillStyle.fillStyleType == FILLSTYLE.REPEATING_BITMAP || fillStyle.fillStyleType == FILLSTYLE.CLIPPED_BITMAP),
-                                            colorTransform);
-                                    break;
-                            }
-                        }
-                    } else {
-                        // We should never get here
-                        lineStyle(1, new RGB(Color.black), false, "NORMAL", 0, 0, 0, 3);
-                    }
-                }
-                if (posX != e.getFromX() || posY != e.getFromY()) {
-                    moveTo(e.getFromX(), e.getFromY());
-                }
-                if (e instanceof CurvedEdge) {
-                    CurvedEdge c = (CurvedEdge) e;
-                    curveTo(c.getControlX(), c.getControlY(), c.toX, c.toY);
-                } else {
-                    lineTo(e.getToX(), e.getToY());
-                }
-                posX = e.getToX();
-                posY = e.getToY();
-            }
-            IEdge firstEdge = path.get(0);
-            endLines(autoClose && firstEdge.getFromX() == posX && firstEdge.getFromY() == posY);
-        }
+    /**
+     * Exports the segments of the path. Exporters which build Java2D paths can
+     * override this to append the segments directly.
+     *
+     * @param path Path
+     */
+    protected void exportPath(StylePath path) {
+        path.export(this);
     }
 
-    private List<IEdge> createPathFromEdgeMap(Map<Integer, List<IEdge>> edgeMap) {
-        List<IEdge> newPath = new ArrayList<>();
+    private List<StylePath> createPathsFromEdgeMap(Map<Integer, List<IEdge>> edgeMap) {
         List<Integer> styleIdxArray = new ArrayList<>();
         for (Integer styleIdx : edgeMap.keySet()) {
             styleIdxArray.add(styleIdx);
         }
         Collections.sort(styleIdxArray);
+        List<StylePath> paths = new ArrayList<>(styleIdxArray.size());
         for (int i = 0; i < styleIdxArray.size(); i++) {
-            appendEdges(newPath, edgeMap.get(styleIdxArray.get(i)));
+            int styleIdx = styleIdxArray.get(i);
+            List<IEdge> edges = edgeMap.get(styleIdx);
+            if (!edges.isEmpty()) {
+                paths.add(createStylePath(styleIdx, edges));
+            }
+        }
+        return paths;
+    }
+
+    private StylePath createStylePath(int styleIdx, List<IEdge> edges) {
+        int commandCount = 0;
+        int coordCount = 0;
+        int posX = Integer.MAX_VALUE;
+        int posY = Integer.MAX_VALUE;
+        for (IEdge e : edges) {
+            if (posX != e.getFromX() || posY != e.getFromY()) {
+                commandCount++;
+                coordCount += 2;
+            }
+            commandCount++;
+            coordCount += e instanceof CurvedEdge ? 4 : 2;
+            posX = e.getToX();
+            posY = e.getToY();
         }
-        return newPath;
+
+        byte[] commands = new byte[commandCount];
+        double[] coords = new double[coordCount];
+        int commandPos = 0;
+        int coordPos = 0;
+        posX = Integer.MAX_VALUE;
+        posY = Integer.MAX_VALUE;
+        for (IEdge e : edges) {
+            if (posX != e.getFromX() || posY != e.getFromY()) {
+                commands[commandPos++] = PathIterator.SEG_MOVETO;
+                coords[coordPos++] = e.getFromX();
+                coords[coordPos++] = e.getFromY();
+            }
+            if (e instanceof CurvedEdge) {
+                CurvedEdge c = (CurvedEdge) e;
+                commands[commandPos++] = PathIterator.SEG_QUADTO;
+                coords[coordPos++] = c.getControlX();
+                coords[coordPos++] = c.getControlY();
+            } else {
+                commands[commandPos++] = PathIterator.SEG_LINETO;
+            }
+            coords[coordPos++] = e.getToX();
+            coords[coordPos++] = e.getToY();
+            posX = e.getToX();
+            posY = e.getToY();
+        }
+
+        return new StylePath(styleIdx, commands, coords);
     }
 
     private void cleanEdgeMap(Map<Integer, List<IEdge>> edgeMap) {
@@ -85,13 +85,17 @@ public class BMPFile extends Component {
     }
 
     public static void saveBitmap(Image image, File file) throws IOException {
-        BMPFile b = new BMPFile();
         try (OutputStream fos = new BufferedOutputStream(new FileOutputStream(file))) {
-            b.fo = fos;
-            b.save(image, image.getWidth(null), image.getHeight(null));
+            saveBitmap(image, fos);
         }
     }
 
+    public static void saveBitmap(Image image, OutputStream os) throws IOException {
+        BMPFile b = new BMPFile();
+        b.fo = os;
+        b.save(image, image.getWidth(null), image.getHeight(null));
+    }
+
     /*
      *  The saveMethod is the main method of the process. This method
      *  will call the convertImage method to convert the memory image to
@@ -21,6 +21,7 @@ import com.jpexs.helpers.Helper;
 import java.awt.Dimension;
 import java.awt.image.BufferedImage;
 import java.awt.image.DataBufferInt;
+import java.awt.image.Raster;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
@@ -48,12 +49,7 @@ public class ImageHelper {
     }
 
     public static BufferedImage read(byte[] data) throws IOException {
-        return read(new ByteArrayInputStream(data));
-    }
-
-    public static BufferedImage read(InputStream input) throws IOException {
         BufferedImage in;
-        byte[] data = Helper.readStream(input);
         try (ImageInputStream iis = ImageIO.createImageInputStream(new ByteArrayInputStream(data))) {
             CMYKJPEGImageReader r = new CMYKJPEGImageReader(new CMYKJPEGImageReaderSpi());
             r.setInput(iis);
@@ -71,15 +67,68 @@ public class ImageHelper {
             // convert to ARGB
             int width = in.getWidth();
             int height = in.getHeight();
-            int[] imgData = in.getRGB(0, 0, width, height, null, 0, width);
             BufferedImage newImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB_PRE);
-            newImage.getRaster().setDataElements(0, 0, width, height, imgData);
+            int[] imgData = ((DataBufferInt) newImage.getRaster().getDataBuffer()).getData();
+            if (!convertToIntArgb(in, imgData)) {
+                in.getRGB(0, 0, width, height, imgData, 0, width);
+            }
+
             return newImage;
         }
 
         return in;
     }
 
+    public static BufferedImage read(InputStream input) throws IOException {
+        return read(Helper.readStream(input));
+    }
+
+    /**
+     * Converts the common types of decoded images to int ARGB pixels, the
+     * result is the same as from getRGB.
+     *
+     * @param image Image
+     * @param pixels Target pixels
+     * @return False when the type is not supported
+     */
+    private static boolean convertToIntArgb(BufferedImage image, int[] pixels) {
+        int type = image.getType();
+        if (type != BufferedImage.TYPE_3BYTE_BGR && type != BufferedImage.TYPE_4BYTE_ABGR && type != BufferedImage.TYPE_INT_ARGB) {
+            return false;
+        }
+
+        if (!image.getColorModel().getColorSpace().isCS_sRGB()) {
+            return false;
+        }
+
+        int width = image.getWidth();
+        int height = image.getHeight();
+        Raster raster = image.getRaster();
+        if (type == BufferedImage.TYPE_INT_ARGB) {
+            raster.getDataElements(0, 0, width, height, pixels);
+            return true;
+        }
+
+        // the data elements are the bands in RGB(A) order
+        int bands = type == BufferedImage.TYPE_3BYTE_BGR ? 3 : 4;
+        byte[] row = new byte[width * bands];
+        int pos = 0;
+        for (int y = 0; y < height; y++) {
+            raster.getDataElements(0, y, width, 1, row);
+            if (bands == 3) {
+                for (int p = 0; p < row.length; p += 3) {
+                    pixels[pos++] = 0xff000000 | ((row[p] & 0xff) << 16) | ((row[p + 1] & 0xff) << 8) | (row[p + 2] & 0xff);
+                }
+            } else {
+                for (int p = 0; p < row.length; p += 4) {
+                    pixels[pos++] = ((row[p + 3] & 0xff) << 24) | ((row[p] & 0xff) << 16) | ((row[p + 1] & 0xff) << 8) | (row[p + 2] & 0xff);
+                }
+            }
+        }
+
+        return true;
+    }
+
     public static void write(BufferedImage image, ImageFormat format, File output) throws IOException {
         String formatName = getImageFormatString(format).toUpperCase(Locale.ENGLISH);
         if (format == ImageFormat.JPEG) {
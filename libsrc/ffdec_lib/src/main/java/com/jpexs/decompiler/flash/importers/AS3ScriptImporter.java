@@ -16,13 +16,18 @@
  */
 package com.jpexs.decompiler.flash.importers;
 
+import com.jpexs.decompiler.flash.SWF;
+import com.jpexs.decompiler.flash.abc.ABC;
 import com.jpexs.decompiler.flash.abc.ScriptPack;
 import com.jpexs.decompiler.flash.exporters.modes.ScriptExportMode;
 import com.jpexs.decompiler.flash.exporters.settings.ScriptExportSettings;
 import com.jpexs.helpers.Helper;
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -43,6 +48,10 @@ public class AS3ScriptImporter {
             scriptsFolder += File.separator;
         }
 
+        if (scriptReplacer instanceof FFDecAs3ScriptReplacer) {
+            return importScriptsBatch(scriptsFolder, packs, listener);
+        }
+
         int importCount = 0;
         for (ScriptPack pack : packs) {
             if (Thread.currentThread().isInterrupted()) {
@@ -77,4 +86,78 @@ public class AS3ScriptImporter {
 
         return importCount;
     }
+
+    /**
+     * Imports the scripts using FFDecAs3ScriptReplaceBatch, the deleted items
+     * are removed once for each ABC after all the scripts are compiled. When
+     * interrupted, the batch is rolled back and no script is imported.
+     */
+    private int importScriptsBatch(String scriptsFolder, List<ScriptPack> packs, ScriptImporterProgressListener listener) {
+        // scripts of the same ABC are compiled one after another
+        Map<ABC, List<ScriptPack>> abcPacks = new LinkedHashMap<>();
+        for (ScriptPack pack : packs) {
+            List<ScriptPack> list = abcPacks.get(pack.abc);
+            if (list == null) {
+                list = new ArrayList<>();
+                abcPacks.put(pack.abc, list);
+            }
+            list.add(pack);
+        }
+
+        Map<SWF, FFDecAs3ScriptReplaceBatch> batches = new LinkedHashMap<>();
+        int importCount = 0;
+        boolean completed = false;
+        try {
+            for (List<ScriptPack> list : abcPacks.values()) {
+                for (ScriptPack pack : list) {
+                    if (Thread.currentThread().isInterrupted()) {
+                        return 0;
+                    }
+                    try {
+                        File file = pack.getExportFile(scriptsFolder, new ScriptExportSettings(ScriptExportMode.AS, false, false));
+                        if (file.exists()) {
+                            SWF swf = pack.getSwf();
+                            swf.informListeners("importing_as", file.getAbsolutePath());
+                            String fileName = file.getAbsolutePath();
+                            String txt = Helper.readTextFile(fileName);
+
+                            FFDecAs3ScriptReplaceBatch batch = batches.get(swf);
+                            if (batch == null) {
+                                batch = new FFDecAs3ScriptReplaceBatch(swf);
+                                batches.put(swf, batch);
+                            }
+
+                            try {
+                                batch.replaceScript(pack, txt);
+                            } catch (As3ScriptReplaceException asre) {
+                                for (As3ScriptReplaceExceptionItem item : asre.getExceptionItems()) {
+                                    logger.log(Level.SEVERE, "%error% on line %line%, column %col%, file: %file%".replace("%error%", item.getMessage()).replace("%line%", Long.toString(item.getLine())).replace("%file%", fileName).replace("%col%", "" + item.getCol()));
+                                }
+                            } catch (InterruptedException ex) {
+                                return 0;
+                            }
+
+                            importCount++;
+                            if (listener != null) {
+                                listener.scriptImported();
+                            }
+                        }
+                    } catch (IOException ex) {
+                        logger.log(Level.SEVERE, null, ex);
+                    }
+                }
+            }
+            completed = true;
+        } finally {
+            for (FFDecAs3ScriptReplaceBatch batch : batches.values()) {
+                if (completed) {
+                    batch.commit();
+                } else {
+                    batch.rollback();
+                }
+            }
+        }
+
+        return importCount;
+    }
 }
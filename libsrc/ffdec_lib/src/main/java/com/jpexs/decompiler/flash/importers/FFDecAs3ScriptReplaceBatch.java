@@ -0,0 +1,224 @@
+/*
+ *  Copyright (C) 2010-2021 JPEXS, All rights reserved.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3.0 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library.
+ */
+package com.jpexs.decompiler.flash.importers;
+
+import com.jpexs.decompiler.flash.SWF;
+import com.jpexs.decompiler.flash.abc.ABC;
+import com.jpexs.decompiler.flash.abc.ScriptPack;
+import com.jpexs.decompiler.flash.abc.avm2.parser.AVM2ParseException;
+import com.jpexs.decompiler.flash.tags.ABCContainerTag;
+import com.jpexs.decompiler.flash.tags.Tag;
+import com.jpexs.decompiler.graph.CompilationException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Replaces multiple AS3 scripts of one SWF file using the FFDec compiler.
+ *
+ * All scripts are compiled against the shared ABC index of the SWF. The
+ * replaced items are removed once for each ABC on commit and only the cached
+ * decompiled scripts whose content changed are removed from the cache. Scripts
+ * of the same ABC should be replaced one after another, the index is refreshed
+ * when the next script is in another ABC.
+ *
+ * When compilation of a script fails, its ABC is restored to the state before
+ * the script. Rollback restores all ABCs to the state before the batch.
+ *
+ * @author JPEXS
+ */
+public class FFDecAs3ScriptReplaceBatch {
+
+    private final SWF swf;
+
+    private final Map<ScriptPack, String> oldCacheKeys;
+
+    private final Map<ABC, ABC> originalAbcs = new IdentityHashMap<>();
+
+    private final Map<ABC, Boolean> originalModified = new IdentityHashMap<>();
+
+    private final List<ABC> modifiedAbcs = new ArrayList<>();
+
+    /**
+     * ABC which is compiled to, its entries in the SWF index are refreshed when
+     * another ABC is selected or on commit
+     */
+    private ABC currentAbc;
+
+    /**
+     * Copy of the current ABC before the replaced scripts
+     */
+    private ABC currentSnapshot;
+
+    /**
+     * Scripts replaced in the current ABC since the snapshot
+     */
+    private final Map<ScriptPack, String> currentScripts = new LinkedHashMap<>();
+
+    private boolean finished;
+
+    /**
+     * Starts the batch.
+     *
+     * @param swf SWF file
+     */
+    public FFDecAs3ScriptReplaceBatch(SWF swf) {
+        this.swf = swf;
+        this.oldCacheKeys = swf.as3Cache.getKeys();
+    }
+
+    /**
+     * Compiles the script in place of the pack. The pack must be from the SWF
+     * of this batch.
+     *
+     * @param pack Script pack
+     * @param text New source code
+     * @throws As3ScriptReplaceException On parse or compilation error, the ABC
+     * is left as it was before this script
+     * @throws IOException On I/O error
+     * @throws InterruptedException On interrupt
+     */
+    public void replaceScript(ScriptPack pack, String text) throws As3ScriptReplaceException, IOException, InterruptedException {
+        if (finished) {
+            throw new IllegalStateException("The batch is already finished");
+        }
+        ABC abc = pack.abc;
+        if (abc != currentAbc) {
+            selectAbc(abc);
+        }
+
+        boolean success = false;
+        try {
+            FFDecAs3ScriptReplacer.compileScript(pack, text, swf.getAbcIndex());
+            success = true;
+        } catch (AVM2ParseException ex) {
+            throw new As3ScriptReplaceException(new As3ScriptReplaceExceptionItem(null, ex.text, (int) ex.line));
+        } catch (CompilationException ex) {
+            throw new As3ScriptReplaceException(new As3ScriptReplaceExceptionItem(null, ex.text, (int) ex.line));
+        } finally {
+            if (!success) {
+                restoreCurrentAbc();
+            }
+        }
+
+        currentScripts.put(pack, text);
+        ((Tag) abc.parentTag).setModified(true);
+    }
+
+    /**
+     * Removes the replaced items, refreshes the index and clears the cache of
+     * the modified scripts.
+     */
+    public void commit() {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        currentAbc = null;
+        currentSnapshot = null;
+        currentScripts.clear();
+        for (ABC abc : modifiedAbcs) {
+            abc.removeDeleted();
+            swf.refreshAbcIndex(abc);
+        }
+        swf.clearAbcListCache();
+        swf.clearScriptCache(oldCacheKeys);
+    }
+
+    /**
+     * Restores all ABCs to the state before the batch.
+     */
+    public void rollback() {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        currentAbc = null;
+        currentSnapshot = null;
+        currentScripts.clear();
+        for (ABC abc : modifiedAbcs) {
+            restore(abc, originalAbcs.get(abc));
+            ((Tag) abc.parentTag).setModified(originalModified.get(abc));
+            swf.refreshAbcIndex(abc);
+        }
+        swf.clearAbcListCache();
+        swf.clearScriptCache(oldCacheKeys);
+    }
+
+    private void selectAbc(ABC abc) throws IOException, InterruptedException {
+        if (currentAbc != null) {
+            swf.refreshAbcIndex(currentAbc);
+        }
+        currentAbc = null;
+        currentSnapshot = null;
+        currentScripts.clear();
+
+        if (originalAbcs.containsKey(abc)) {
+            // the snapshot does not keep deleted flags
+            abc.removeDeleted();
+        } else {
+            originalAbcs.put(abc, copy(abc));
+            originalModified.put(abc, ((Tag) abc.parentTag).isModified());
+            modifiedAbcs.add(abc);
+        }
+
+        currentSnapshot = copy(abc);
+        currentAbc = abc;
+    }
+
+    /**
+     * Restores the current ABC to the snapshot and compiles the scripts which
+     * were successfully replaced since the snapshot again.
+     */
+    private void restoreCurrentAbc() throws IOException, InterruptedException {
+        restore(currentAbc, copy(currentSnapshot));
+        if (currentScripts.isEmpty()) {
+            return;
+        }
+
+        try {
+            for (ScriptPack pack : currentScripts.keySet()) {
+                FFDecAs3ScriptReplacer.compileScript(pack, currentScripts.get(pack), swf.getAbcIndex());
+            }
+        } catch (AVM2ParseException | CompilationException ex) {
+            // the same scripts were compiled successfully before
+            throw new IOException(ex);
+        }
+        currentSnapshot = copy(currentAbc);
+        currentScripts.clear();
+    }
+
+    private static ABC copy(ABC abc) throws IOException, InterruptedException {
+        return ((ABCContainerTag) ((Tag) abc.parentTag).cloneTag()).getABC();
+    }
+
+    private static void restore(ABC abc, ABC copy) {
+        abc.constants = copy.constants;
+        abc.method_info = copy.method_info;
+        abc.metadata_info = copy.metadata_info;
+        abc.instance_info = copy.instance_info;
+        abc.class_info = copy.class_info;
+        abc.script_info = copy.script_info;
+        abc.bodies = copy.bodies;
+        // clears method indexing of the replaced bodies
+        abc.free();
+        abc.getMethodIndexing();
+    }
+}
@@ -16,10 +16,10 @@
  */
 package com.jpexs.decompiler.flash.importers;
 
-import com.jpexs.decompiler.flash.SWF;
 import com.jpexs.decompiler.flash.abc.ABC;
 import com.jpexs.decompiler.flash.abc.ScriptPack;
 import com.jpexs.decompiler.flash.abc.avm2.parser.AVM2ParseException;
+import com.jpexs.decompiler.flash.abc.avm2.parser.script.AbcIndexing;
 import com.jpexs.decompiler.flash.abc.avm2.parser.script.ActionScript3Parser;
 import com.jpexs.decompiler.flash.abc.types.ScriptInfo;
 import com.jpexs.decompiler.flash.abc.types.traits.TraitClass;
@@ -36,51 +36,76 @@ public class FFDecAs3ScriptReplacer implements As3ScriptReplacerInterface {
     @Override
     public void replaceScript(ScriptPack pack, String text) throws As3ScriptReplaceException, IOException, InterruptedException {
         ABC abc = pack.abc;
-        SWF swf = pack.abc.getSwf();
-        String scriptName = pack.getPathScriptName() + ".as";
         int oldIndex = pack.scriptIndex;
-        int newIndex = abc.script_info.size();
         try {
-            ScriptInfo si = abc.script_info.get(oldIndex);
-            if (pack.isSimple) {
-                si.delete(abc, true);
-            } else {
-                for (int t : pack.traitIndices) {
-                    si.traits.traits.get(t).delete(abc, true);
-                }
-            }
+            compileScript(pack, text, null);
+        } catch (AVM2ParseException ex) {
+            abc.script_info.get(oldIndex).delete(abc, false);
+            throw new As3ScriptReplaceException(new As3ScriptReplaceExceptionItem(null, ex.text, (int) ex.line));
+        } catch (CompilationException ex) {
+            abc.script_info.get(oldIndex).delete(abc, false);
+            throw new As3ScriptReplaceException(new As3ScriptReplaceExceptionItem(null, ex.text, (int) ex.line));
+        }
+        abc.pack();//remove old deleted items
+        ((Tag) abc.parentTag).setModified(true);
+    }
 
-            int newClassIndex = abc.instance_info.size();
+    /**
+     * Compiles the script in place of the pack. The replaced items are only
+     * marked as deleted.
+     *
+     * @param pack Script pack
+     * @param text New source code
+     * @param swfIndex Index of the SWF, its entries of the ABC of the pack are
+     * ignored. When null,
+     * the other ABCs of the pack are indexed and the ABC is restored when the
+     * compilation fails.
+     * @throws AVM2ParseException On parse error
+     * @throws CompilationException On compilation error
+     * @throws IOException On I/O error
+     * @throws InterruptedException On interrupt
+     */
+    static void compileScript(ScriptPack pack, String text, AbcIndexing swfIndex) throws AVM2ParseException, CompilationException, IOException, InterruptedException {
+        ABC abc = pack.abc;
+        String scriptName = pack.getPathScriptName() + ".as";
+        int oldIndex = pack.scriptIndex;
+        int newIndex = abc.script_info.size();
+        ScriptInfo si = abc.script_info.get(oldIndex);
+        if (pack.isSimple) {
+            si.delete(abc, true);
+        } else {
             for (int t : pack.traitIndices) {
-                if (si.traits.traits.get(t) instanceof TraitClass) {
-                    TraitClass tc = (TraitClass) si.traits.traits.get(t);
-                    newClassIndex = tc.class_info + 1;
-                }
+                si.traits.traits.get(t).delete(abc, true);
+            }
+        }
 
+        int newClassIndex = abc.instance_info.size();
+        for (int t : pack.traitIndices) {
+            if (si.traits.traits.get(t) instanceof TraitClass) {
+                TraitClass tc = (TraitClass) si.traits.traits.get(t);
+                newClassIndex = tc.class_info + 1;
             }
-            List<ABC> otherAbcs = new ArrayList<>(pack.allABCs);
 
-            otherAbcs.remove(abc);
-            abc.script_info.get(oldIndex).delete(abc, true);
+        }
 
+        abc.script_info.get(oldIndex).delete(abc, true);
+
+        if (swfIndex == null) {
+            List<ABC> otherAbcs = new ArrayList<>(pack.allABCs);
+            otherAbcs.remove(abc);
             ActionScript3Parser.compile(text, abc, otherAbcs, scriptName, newClassIndex, oldIndex);
-            if (pack.isSimple) {
-                // Move newly added script to its position
-                abc.script_info.set(oldIndex, abc.script_info.get(newIndex));
-                abc.script_info.remove(newIndex);
-            } else {
-                //???
-            }
-            abc.script_info.get(oldIndex).setModified(true);
-            abc.pack();//remove old deleted items            
-            ((Tag) abc.parentTag).setModified(true);
-        } catch (AVM2ParseException ex) {
-            abc.script_info.get(oldIndex).delete(abc, false);
-            throw new As3ScriptReplaceException(new As3ScriptReplaceExceptionItem(null, ex.text, (int) ex.line));
-        } catch (CompilationException ex) {
-            abc.script_info.get(oldIndex).delete(abc, false);
-            throw new As3ScriptReplaceException(new As3ScriptReplaceExceptionItem(null, ex.text, (int) ex.line));
+        } else {
+            ActionScript3Parser parser = new ActionScript3Parser(swfIndex, abc);
+            parser.addScript(text, scriptName, newClassIndex, oldIndex);
+        }
+        if (pack.isSimple) {
+            // Move newly added script to its position
+            abc.script_info.set(oldIndex, abc.script_info.get(newIndex));
+            abc.script_info.remove(newIndex);
+        } else {
+            //???
         }
+        abc.script_info.get(oldIndex).setModified(true);
     }
 
     @Override
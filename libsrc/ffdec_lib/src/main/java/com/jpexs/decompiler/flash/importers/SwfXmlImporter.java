@@ -100,7 +100,6 @@ import com.jpexs.decompiler.flash.types.shaperecords.EndShapeRecord;
 import com.jpexs.decompiler.flash.types.shaperecords.StraightEdgeRecord;
 import com.jpexs.decompiler.flash.types.shaperecords.StyleChangeRecord;
 import com.jpexs.helpers.ByteArrayRange;
-import com.jpexs.helpers.HashArrayList;
 import com.jpexs.helpers.ReflectionTools;
 import com.jpexs.helpers.utf8.Utf8InputStreamReader;
 import java.io.BufferedInputStream;
@@ -113,6 +112,7 @@ import java.lang.reflect.Array;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -317,7 +317,13 @@ public class SwfXmlImporter {
                 Class childCls = field.getType();
                 
                 if(isList(childCls)) {
-                    List list = HashArrayList.class.isAssignableFrom(childCls) ? new HashArrayList() : new ArrayList();
+                    List list;
+                    if (!childCls.isArray() && !childCls.isInterface() && !Modifier.isAbstract(childCls.getModifiers())) {
+                        // HashArrayList, LongArrayList, ...
+                        list = (List) childCls.getConstructor().newInstance();
+                    } else {
+                        list = new ArrayList();
+                    }
                     Class reqType = childCls.isArray() ? childCls.getComponentType() : ReflectionTools.getFieldSubType(obj, field);
                     
                     // Check for list item elements
@@ -26,6 +26,7 @@ import com.jpexs.decompiler.flash.exporters.modes.ScriptExportMode;
 import com.jpexs.decompiler.flash.helpers.HighlightedText;
 import com.jpexs.decompiler.flash.helpers.HighlightedTextWriter;
 import com.jpexs.decompiler.flash.tags.base.ASMSource;
+import com.jpexs.helpers.TaskScheduler;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -33,6 +34,7 @@ import java.util.Map;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
+import java.util.function.Predicate;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.regex.Pattern;
@@ -57,6 +59,9 @@ public class ActionScriptSearch {
                     ? Pattern.compile(txt, ignoreCase ? (Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE) : 0)
                     : Pattern.compile(Pattern.quote(txt), ignoreCase ? (Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE) : 0);
 
+            // scripts whose decompiled text is indexed and cannot match are skipped
+            Predicate<ASMSource> candidateFilter = regexp || pcode ? null : swf.as2Cache.getSearchIndex().getCandidateFilter(txt, ignoreCase);
+
             int pos = 0;
             List<Future<HighlightedText>> futures = new ArrayList<>();
             try {
@@ -64,6 +69,13 @@ public class ActionScriptSearch {
                     pos++;
                     ASMSource asm = item.getValue();
 
+                    if (candidateFilter != null && !candidateFilter.test(asm)) {
+                        if (listener != null) {
+                            listener.onSearch(pos, asms.size(), item.getKey());
+                        }
+                        continue;
+                    }
+
                     if (pcode) {
                         if (listener != null) {
                             listener.onSearch(pos, asms.size(), item.getKey());
@@ -102,7 +114,7 @@ public class ActionScriptSearch {
                     }
                     for (Future<HighlightedText> future : futures) {
                         try {
-                            future.get();
+                            TaskScheduler.join(future);
                         } catch (CancellationException ex) {
                             throw new InterruptedException();
                         } catch (ExecutionException ex) {
@@ -143,6 +155,9 @@ public class ActionScriptSearch {
                     ? Pattern.compile(txt, ignoreCase ? (Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE) : 0)
                     : Pattern.compile(Pattern.quote(txt), ignoreCase ? (Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE) : 0);
 
+            // scripts whose decompiled text is indexed and cannot match are skipped
+            Predicate<ScriptPack> candidateFilter = regexp || pcode ? null : swf.as3Cache.getSearchIndex().getCandidateFilter(txt, ignoreCase);
+
             int pos = 0;
             List<Future<HighlightedText>> futures = new ArrayList<>();
             try {
@@ -164,6 +179,13 @@ public class ActionScriptSearch {
                         }
                     }
 
+                    if (candidateFilter != null && !candidateFilter.test(pack)) {
+                        if (listener != null) {
+                            listener.onSearch(pos, fscope.size(), pack.getClassPath().toString());
+                        }
+                        continue;
+                    }
+
                     if (pcode) {
                         if (listener != null) {
                             listener.onSearch(pos, fscope.size(), pack.getClassPath().toString());
@@ -221,7 +243,7 @@ public class ActionScriptSearch {
 
                 for (Future<HighlightedText> future : futures) {
                     try {
-                        future.get();
+                        TaskScheduler.join(future);
                     } catch (CancellationException ex) {
                         throw new InterruptedException();
                     } catch (ExecutionException ex) {
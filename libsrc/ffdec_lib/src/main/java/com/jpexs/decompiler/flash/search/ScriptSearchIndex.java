@@ -0,0 +1,281 @@
+/*
+ *  Copyright (C) 2010-2021 JPEXS, All rights reserved.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3.0 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library.
+ */
+package com.jpexs.decompiler.flash.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Inverted index of words in decompiled scripts. It is filled when the
+ * decompiled text is put into the script cache and it allows the text search
+ * to skip the scripts which cannot contain the searched text.
+ *
+ * @param <E> Type of the indexed scripts
+ * @author JPEXS
+ */
+public class ScriptSearchIndex<E> {
+
+    private static class Entry {
+
+        private final int id;
+
+        private final String[] words;
+
+        public Entry(int id, String[] words) {
+            this.id = id;
+            this.words = words;
+        }
+    }
+
+    private static class Postings {
+
+        private final String word;
+
+        private int[] ids = new int[4];
+
+        private int size;
+
+        public Postings(String word) {
+            this.word = word;
+        }
+
+        public void add(int id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+    }
+
+    private final Map<E, Entry> entries = new WeakHashMap<>();
+
+    private Map<String, Postings> postings = new HashMap<>();
+
+    private int nextId;
+
+    private int postedEntryCount;
+
+    /**
+     * Adds decompiled text of the script to the index. Previous text of the
+     * script is replaced.
+     *
+     * @param entry Script
+     * @param text Decompiled text
+     */
+    public void add(E entry, String text) {
+        Set<String> words = getWords(text);
+        synchronized (this) {
+            String[] entryWords = new String[words.size()];
+            int i = 0;
+            for (String word : words) {
+                Postings wordPostings = postings.get(word);
+                if (wordPostings == null) {
+                    wordPostings = new Postings(word);
+                    postings.put(word, wordPostings);
+                }
+                // share the word instance with the postings
+                entryWords[i++] = wordPostings.word;
+            }
+            Entry e = new Entry(nextId++, entryWords);
+            for (String word : entryWords) {
+                postings.get(word).add(e.id);
+            }
+            entries.put(entry, e);
+            postedEntryCount++;
+            compactIfNeeded();
+        }
+    }
+
+    /**
+     * Removes the script from the index.
+     *
+     * @param entry Script
+     */
+    public synchronized void remove(E entry) {
+        entries.remove(entry);
+        compactIfNeeded();
+    }
+
+    /**
+     * Removes all scripts from the index.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        postings = new HashMap<>();
+        postedEntryCount = 0;
+    }
+
+    /**
+     * Gets filter of the scripts which may contain the text. The scripts which
+     * are not indexed always pass the filter, the indexed scripts pass it only
+     * when they contain all the words of the text.
+     *
+     * @param text Searched text (not a regular expression)
+     * @param ignoreCase Ignore case
+     * @return Filter or null when the text contains no words and so the index
+     * cannot be used
+     */
+    public Predicate<E> getCandidateFilter(String text, boolean ignoreCase) {
+        List<int[]> runs = getWordRuns(text);
+        if (runs.isEmpty()) {
+            return null;
+        }
+
+        final BitSet candidates;
+        final int maxId;
+        synchronized (this) {
+            maxId = nextId;
+            BitSet result = null;
+            for (int[] run : runs) {
+                String word = text.substring(run[0], run[1]);
+                boolean wordStart = run[0] > 0;
+                boolean wordEnd = run[1] < text.length();
+                BitSet runCandidates = new BitSet(maxId);
+                if (wordStart && wordEnd && !ignoreCase) {
+                    addPostings(postings.get(word), runCandidates);
+                } else {
+                    for (Map.Entry<String, Postings> p : postings.entrySet()) {
+                        if (wordMatches(p.getKey(), word, wordStart, wordEnd, ignoreCase)) {
+                            addPostings(p.getValue(), runCandidates);
+                        }
+                    }
+                }
+                if (result == null) {
+                    result = runCandidates;
+                } else {
+                    result.and(runCandidates);
+                }
+            }
+            candidates = result;
+        }
+
+        return new Predicate<E>() {
+            @Override
+            public boolean test(E entry) {
+                Entry e;
+                synchronized (ScriptSearchIndex.this) {
+                    e = entries.get(entry);
+                }
+                if (e == null || e.id >= maxId) {
+                    return true;
+                }
+                return candidates.get(e.id);
+            }
+        };
+    }
+
+    private static void addPostings(Postings wordPostings, BitSet target) {
+        if (wordPostings == null) {
+            return;
+        }
+        for (int i = 0; i < wordPostings.size; i++) {
+            target.set(wordPostings.ids[i]);
+        }
+    }
+
+    /**
+     * Checks whether word of the text can be the part of the searched text.
+     *
+     * @param textWord Word of the text
+     * @param word Word of the searched text
+     * @param wordStart The word is preceded by a non word character in the
+     * searched text, so it must be at the start of the text word
+     * @param wordEnd The word is followed by a non word character in the
+     * searched text, so it must be at the end of the text word
+     * @param ignoreCase Ignore case
+     * @return True when it can be the part
+     */
+    private static boolean wordMatches(String textWord, String word, boolean wordStart, boolean wordEnd, boolean ignoreCase) {
+        int len = word.length();
+        if (textWord.length() < len) {
+            return false;
+        }
+        if (wordStart && wordEnd) {
+            return textWord.length() == len && textWord.regionMatches(ignoreCase, 0, word, 0, len);
+        }
+        if (wordStart) {
+            return textWord.regionMatches(ignoreCase, 0, word, 0, len);
+        }
+        if (wordEnd) {
+            return textWord.regionMatches(ignoreCase, textWord.length() - len, word, 0, len);
+        }
+        for (int i = 0; i <= textWord.length() - len; i++) {
+            if (textWord.regionMatches(ignoreCase, i, word, 0, len)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Rebuilds the postings when most of them belong to removed scripts.
+     */
+    private void compactIfNeeded() {
+        int size = entries.size();
+        if (postedEntryCount < 64 || postedEntryCount < 2 * size) {
+            return;
+        }
+        Map<String, Postings> newPostings = new HashMap<>();
+        for (Entry e : entries.values()) {
+            for (String word : e.words) {
+                Postings wordPostings = newPostings.get(word);
+                if (wordPostings == null) {
+                    wordPostings = new Postings(word);
+                    newPostings.put(word, wordPostings);
+                }
+                wordPostings.add(e.id);
+            }
+        }
+        postings = newPostings;
+        postedEntryCount = size;
+    }
+
+    private static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$';
+    }
+
+    private static List<int[]> getWordRuns(String text) {
+        List<int[]> ret = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean word = i < text.length() && isWordChar(text.charAt(i));
+            if (word && start == -1) {
+                start = i;
+            } else if (!word && start != -1) {
+                ret.add(new int[]{start, i});
+                start = -1;
+            }
+        }
+        return ret;
+    }
+
+    private static Set<String> getWords(String text) {
+        Set<String> ret = new HashSet<>();
+        for (int[] run : getWordRuns(text)) {
+            ret.add(text.substring(run[0], run[1]));
+        }
+        return ret;
+    }
+}
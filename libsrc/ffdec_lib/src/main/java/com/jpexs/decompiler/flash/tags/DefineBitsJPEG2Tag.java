@@ -130,7 +130,7 @@ public class DefineBitsJPEG2Tag extends ImageTag implements AloneTag {
         JpegFixer jpegFixer = new JpegFixer();
         ByteArrayOutputStream baos = new ByteArrayOutputStream();
         try {
-            jpegFixer.fixJpeg(new ByteArrayInputStream(imageData.getArray(), imageData.getPos() + errorLength, imageData.getLength() - errorLength), baos);
+            jpegFixer.fixJpeg(imageData.getSubRange(errorLength, imageData.getLength() - errorLength).getInputStream(), baos);
         } catch (IOException ex) {
             Logger.getLogger(DefineBitsJPEG2Tag.class.getName()).log(Level.SEVERE, null, ex);
         }
@@ -158,6 +158,7 @@ public class DefineBitsJPEG2Tag extends ImageTag implements AloneTag {
 
     @Override
     public Dimension getImageDimension() {
+        SerializableImage cachedImage = getImageFromCache();
         if (cachedImage != null) {
             return new Dimension(cachedImage.getWidth(), cachedImage.getHeight());
         }
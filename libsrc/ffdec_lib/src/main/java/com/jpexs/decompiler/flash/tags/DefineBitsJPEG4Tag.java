@@ -32,7 +32,6 @@ import com.jpexs.helpers.JpegFixer;
 import com.jpexs.helpers.SerializableImage;
 import java.awt.Dimension;
 import java.awt.image.BufferedImage;
-import java.awt.image.DataBufferInt;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
@@ -182,9 +181,9 @@ public class DefineBitsJPEG4Tag extends ImageTag implements AloneTag {
         if (bitmapAlphaData.getLength() == 0) { // No alpha
 
             JpegFixer jpegFixer = new JpegFixer();
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            ByteArrayOutputStream baos = new ByteArrayOutputStream(imageData.getLength());
             try {
-                jpegFixer.fixJpeg(new ByteArrayInputStream(imageData.getArray(), imageData.getPos(), imageData.getLength()), baos);
+                jpegFixer.fixJpeg(imageData.getInputStream(), baos);
             } catch (IOException ex) {
                 Logger.getLogger(DefineBitsJPEG4Tag.class.getName()).log(Level.SEVERE, null, ex);
             }
@@ -198,13 +197,13 @@ public class DefineBitsJPEG4Tag extends ImageTag implements AloneTag {
     protected SerializableImage getImage() {
         try {
             JpegFixer jpegFixer = new JpegFixer();
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            ByteArrayOutputStream baos = new ByteArrayOutputStream(imageData.getLength());
             try {
-                jpegFixer.fixJpeg(new ByteArrayInputStream(imageData.getArray(), imageData.getPos(), imageData.getLength()), baos);
+                jpegFixer.fixJpeg(imageData.getInputStream(), baos);
             } catch (IOException ex) {
                 Logger.getLogger(DefineBitsJPEG3Tag.class.getName()).log(Level.SEVERE, null, ex);
             }
-            BufferedImage image = ImageHelper.read(new ByteArrayInputStream(baos.toByteArray()));
+            BufferedImage image = ImageHelper.read(baos.toByteArray());
             if (image == null) {
                 Logger.getLogger(DefineBitsJPEG4Tag.class.getName()).log(Level.SEVERE, "Failed to load image");
                 return null;
@@ -220,33 +219,7 @@ public class DefineBitsJPEG4Tag extends ImageTag implements AloneTag {
                 return img;
             }
 
-            int width = img.getWidth();
-            int height = img.getHeight();
-            SerializableImage img2 = new SerializableImage(width, height, SerializableImage.TYPE_INT_ARGB);
-            int[] pixels = ((DataBufferInt) img.getRaster().getDataBuffer()).getData();
-            int[] pixels2 = ((DataBufferInt) img2.getRaster().getDataBuffer()).getData();
-            for (int i = 0; i < pixels.length; i++) {
-                int a = alphaData[i] & 0xff;
-                int b = (pixels[i] >> 16) & 0xff;
-                int g = (pixels[i] >> 8) & 0xff;
-                int r = (pixels[i]) & 0xff;
-                r = (int) Math.floor(r * 255.0 / a);
-                g = (int) Math.floor(g * 255.0 / a);
-                b = (int) Math.floor(b * 255.0 / a);
-                if (r > 255) {
-                    r = 255;
-                }
-                if (g > 255) {
-                    g = 255;
-                }
-                if (b > 255) {
-                    b = 255;
-                }
-
-                pixels2[i] = (a << 24) | (b << 16) | (g << 8) | r;
-            }
-
-            return img2;
+            return applyAlpha(img, alphaData);
         } catch (IOException ex) {
             Logger.getLogger(DefineBitsJPEG4Tag.class.getName()).log(Level.SEVERE, "Failed to get image", ex);
         }
@@ -255,12 +228,13 @@ public class DefineBitsJPEG4Tag extends ImageTag implements AloneTag {
 
     @Override
     public Dimension getImageDimension() {
+        SerializableImage cachedImage = getImageFromCache();
         if (cachedImage != null) {
             return new Dimension(cachedImage.getWidth(), cachedImage.getHeight());
         }
 
         try {
-            ByteArrayInputStream bis = new ByteArrayInputStream(imageData.getArray(), imageData.getPos(), imageData.getLength());
+            InputStream bis = imageData.getInputStream();
             return ImageHelper.getDimesion(bis);
         } catch (IOException ex) {
             Logger.getLogger(DefineBitsJPEG3Tag.class.getName()).log(Level.SEVERE, "Failed to get image dimension", ex);
@@ -12,7 +12,7 @@
  * Lesser General Public License for more details.
  * 
  * You should have received a copy of the GNU Lesser General Public
- * License along with this library. */
+ * License along with this library. */
 package com.jpexs.decompiler.flash.tags;
 
 import com.jpexs.decompiler.flash.SWF;
@@ -209,7 +209,7 @@ public class DefineBitsLossless2Tag extends ImageTag implements AloneTag {
 
     private void uncompressData() {
         try {
-            byte[] uncompressedData = SWFInputStream.uncompressByteArray(zlibBitmapData.getArray(), zlibBitmapData.getPos(), zlibBitmapData.getLength());
+            byte[] uncompressedData = SWFInputStream.uncompressByteArray(zlibBitmapData);
             SWFInputStream sis = new SWFInputStream(swf, uncompressedData);
             if (bitmapFormat == FORMAT_8BIT_COLORMAPPED) {
                 colorMapData = sis.readALPHACOLORMAPDATA(bitmapColorTableSize, bitmapWidth, bitmapHeight, "colorMapData");
@@ -238,38 +238,46 @@ public class DefineBitsLossless2Tag extends ImageTag implements AloneTag {
 
     @Override
     protected SerializableImage getImage() {
-        SerializableImage bi = new SerializableImage(bitmapWidth, bitmapHeight, SerializableImage.TYPE_INT_ARGB_PRE);
-        int[] pixels = ((DataBufferInt) bi.getRaster().getDataBuffer()).getData();
-
-        ALPHACOLORMAPDATA colorMapData = null;
-        ALPHABITMAPDATA bitmapData = null;
+        int width = bitmapWidth;
+        int height = bitmapHeight;
+        int colorTableLength = 0;
+        int rowLength = 0; // rows are 32 bit aligned
         if (bitmapFormat == FORMAT_8BIT_COLORMAPPED) {
-            colorMapData = getColorMapData();
+            colorTableLength = (bitmapColorTableSize + 1) * 4;
+            rowLength = (width + 3) & ~3;
+        } else if (bitmapFormat == FORMAT_32BIT_ARGB) {
+            rowLength = width * 4;
         }
-        if (bitmapFormat == FORMAT_32BIT_ARGB) {
-            bitmapData = getBitmapData();
+
+        byte[] data;
+        try {
+            data = SWFInputStream.uncompressByteArray(zlibBitmapData, colorTableLength + rowLength * height);
+        } catch (IOException ex) {
+            Logger.getLogger(DefineBitsLossless2Tag.class.getName()).log(Level.SEVERE, "Failed to get image", ex);
+            return null;
         }
-        int pos32aligned = 0;
-        int pos = 0;
-        for (int y = 0; y < bitmapHeight; y++) {
-            for (int x = 0; x < bitmapWidth; x++) {
-                int c = 0;
-                if ((bitmapFormat == FORMAT_8BIT_COLORMAPPED)) {
-                    int colorTableIndex = colorMapData.colorMapPixelData[pos32aligned] & 0xff;
-                    if (colorTableIndex < colorMapData.colorTableRGB.length) {
-                        c = colorMapData.colorTableRGB[colorTableIndex];
-                    }
-                }
-                if ((bitmapFormat == FORMAT_32BIT_ARGB)) {
-                    c = bitmapData.bitmapPixelData[pos];
-                }
 
-                pixels[pos] = c;
-                pos32aligned++;
-                pos++;
+        // the colors are premultiplied by alpha in SWF, they are written
+        // directly to the raster of the image
+        SerializableImage bi = new SerializableImage(width, height, SerializableImage.TYPE_INT_ARGB_PRE);
+        int[] pixels = ((DataBufferInt) bi.getRaster().getDataBuffer()).getData();
+        if (bitmapFormat == FORMAT_8BIT_COLORMAPPED) {
+            // indices outside of the color table are transparent
+            int[] colorTable = new int[256];
+            for (int i = 0, p = 0; p < colorTableLength; i++, p += 4) {
+                colorTable[i] = ((data[p + 3] & 0xff) << 24) | ((data[p] & 0xff) << 16) | ((data[p + 1] & 0xff) << 8) | (data[p + 2] & 0xff);
+            }
+
+            for (int y = 0; y < height; y++) {
+                int p = colorTableLength + y * rowLength;
+                int pos = y * width;
+                for (int x = 0; x < width; x++) {
+                    pixels[pos++] = colorTable[data[p++] & 0xff];
+                }
             }
-            while ((pos32aligned % 4 != 0)) {
-                pos32aligned++;
+        } else if (bitmapFormat == FORMAT_32BIT_ARGB) {
+            for (int pos = 0, p = 0; pos < pixels.length; pos++, p += 4) {
+                pixels[pos] = ((data[p] & 0xff) << 24) | ((data[p + 1] & 0xff) << 16) | ((data[p + 2] & 0xff) << 8) | (data[p + 3] & 0xff);
             }
         }
 
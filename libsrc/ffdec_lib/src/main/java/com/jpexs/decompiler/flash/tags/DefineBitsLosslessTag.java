@@ -12,7 +12,7 @@
  * Lesser General Public License for more details.
  * 
  * You should have received a copy of the GNU Lesser General Public
- * License along with this library. */
+ * License along with this library. */
 package com.jpexs.decompiler.flash.tags;
 
 import com.jpexs.decompiler.flash.SWF;
@@ -205,7 +205,7 @@ public class DefineBitsLosslessTag extends ImageTag implements AloneTag {
 
     private void uncompressData() {
         try {
-            byte[] uncompressedData = SWFInputStream.uncompressByteArray(zlibBitmapData.getArray(), zlibBitmapData.getPos(), zlibBitmapData.getLength());
+            byte[] uncompressedData = SWFInputStream.uncompressByteArray(zlibBitmapData);
             SWFInputStream sis = new SWFInputStream(swf, uncompressedData);
             if (bitmapFormat == FORMAT_8BIT_COLORMAPPED) {
                 colorMapData = sis.readCOLORMAPDATA(bitmapColorTableSize, bitmapWidth, bitmapHeight, "colorMapData");
@@ -234,46 +234,60 @@ public class DefineBitsLosslessTag extends ImageTag implements AloneTag {
 
     @Override
     protected SerializableImage getImage() {
-        int[] pixels = new int[bitmapWidth * bitmapHeight];
+        int width = bitmapWidth;
+        int height = bitmapHeight;
+        int colorTableLength = 0;
+        int rowLength = 0; // rows are 32 bit aligned
         if (bitmapFormat == FORMAT_8BIT_COLORMAPPED) {
-            COLORMAPDATA colorMapData = getColorMapData();
-            int pos32aligned = 0;
-            int pos = 0;
-            for (int y = 0; y < bitmapHeight; y++) {
-                for (int x = 0; x < bitmapWidth; x++) {
-                    int c = 0;
-                    int colorTableIndex = colorMapData.colorMapPixelData[pos32aligned] & 0xff;
-                    if (colorTableIndex < colorMapData.colorTableRGB.length) {
-                        c = colorMapData.colorTableRGB[colorTableIndex];
-                    }
-
-                    pixels[pos++] = c;
-                    pos32aligned++;
-                }
+            colorTableLength = (bitmapColorTableSize + 1) * 3;
+            rowLength = (width + 3) & ~3;
+        } else if (bitmapFormat == FORMAT_15BIT_RGB) {
+            rowLength = (width * 2 + 3) & ~3;
+        } else if (bitmapFormat == FORMAT_24BIT_RGB) {
+            rowLength = width * 4;
+        }
 
-                while ((pos32aligned % 4 != 0)) {
-                    pos32aligned++;
-                }
-            }
-        } else if ((bitmapFormat == FORMAT_15BIT_RGB) || (bitmapFormat == FORMAT_24BIT_RGB)) {
-            BITMAPDATA bitmapData = getBitmapData();
-            int pos = 0;
-            int[] bitmapPixelData = null;
-            if (bitmapFormat == FORMAT_15BIT_RGB) {
-                bitmapPixelData = bitmapData.bitmapPixelDataPix15;
-            } else if (bitmapFormat == FORMAT_24BIT_RGB) {
-                bitmapPixelData = bitmapData.bitmapPixelDataPix24;
+        byte[] data;
+        try {
+            data = SWFInputStream.uncompressByteArray(zlibBitmapData, colorTableLength + rowLength * height);
+        } catch (IOException ex) {
+            Logger.getLogger(DefineBitsLosslessTag.class.getName()).log(Level.SEVERE, "Failed to get image", ex);
+            return null;
+        }
+
+        // the pixels are written directly to the raster of the image
+        SerializableImage bi = new SerializableImage(width, height, SerializableImage.TYPE_INT_RGB);
+        int[] pixels = ((DataBufferInt) bi.getRaster().getDataBuffer()).getData();
+        if (bitmapFormat == FORMAT_8BIT_COLORMAPPED) {
+            // indices outside of the color table are black
+            int[] colorTable = new int[256];
+            for (int i = 0, p = 0; p < colorTableLength; i++, p += 3) {
+                colorTable[i] = 0xff000000 | ((data[p] & 0xff) << 16) | ((data[p + 1] & 0xff) << 8) | (data[p + 2] & 0xff);
             }
 
-            for (int y = 0; y < bitmapHeight; y++) {
-                for (int x = 0; x < bitmapWidth; x++) {
-                    int c = bitmapPixelData[pos] | 0xff000000;
-                    pixels[pos++] = c;
+            for (int y = 0; y < height; y++) {
+                int p = colorTableLength + y * rowLength;
+                int pos = y * width;
+                for (int x = 0; x < width; x++) {
+                    pixels[pos++] = colorTable[data[p++] & 0xff];
                 }
             }
+        } else if (bitmapFormat == FORMAT_15BIT_RGB) {
+            for (int y = 0; y < height; y++) {
+                int p = y * rowLength;
+                int pos = y * width;
+                for (int x = 0; x < width; x++) {
+                    int c = ((data[p] & 0xff) << 8) | (data[p + 1] & 0xff);
+                    pixels[pos++] = 0xff000000 | ((c & 0x7c00) << 9) | ((c & 0x3e0) << 6) | ((c & 0x1f) << 3);
+                    p += 2;
+                }
+            }
+        } else if (bitmapFormat == FORMAT_24BIT_RGB) {
+            for (int pos = 0, p = 0; pos < pixels.length; pos++, p += 4) {
+                pixels[pos] = 0xff000000 | ((data[p + 1] & 0xff) << 16) | ((data[p + 2] & 0xff) << 8) | (data[p + 3] & 0xff);
+            }
         }
 
-        SerializableImage bi = new SerializableImage(bitmapWidth, bitmapHeight, SerializableImage.TYPE_INT_RGB, pixels);
         return bi;
     }
 
@@ -213,6 +213,7 @@ public class DefineBitsTag extends ImageTag implements TagChangedListener {
 
     @Override
     public Dimension getImageDimension() {
+        SerializableImage cachedImage = getImageFromCache();
         if (cachedImage != null) {
             return new Dimension(cachedImage.getWidth(), cachedImage.getHeight());
         }
@@ -253,35 +253,35 @@ public class DefineButtonTag extends ButtonTag implements ASMSourceContainer {
             }
 
             if (r.buttonStateUp) {
-                frameUp.layers.put(r.placeDepth, new DepthState(layer, frameUp, false));
+                frameUp.getLayers().put(r.placeDepth, new DepthState(layer, frameUp, false));
             }
             if (r.buttonStateDown) {
-                frameDown.layers.put(r.placeDepth, new DepthState(layer, frameDown, false));
+                frameDown.getLayers().put(r.placeDepth, new DepthState(layer, frameDown, false));
             }
             if (r.buttonStateOver) {
-                frameOver.layers.put(r.placeDepth, new DepthState(layer, frameOver, false));
+                frameOver.getLayers().put(r.placeDepth, new DepthState(layer, frameOver, false));
             }
             if (r.buttonStateHitTest) {
-                frameHit.layers.put(r.placeDepth, new DepthState(layer, frameHit, false));
+                frameHit.getLayers().put(r.placeDepth, new DepthState(layer, frameHit, false));
             }
 
         }
 
         timeline.addFrame(frameUp);
 
-        if (frameOver.layers.isEmpty()) {
+        if (frameOver.getLayers().isEmpty()) {
             frameOver = frameUp;
         }
 
         timeline.addFrame(frameOver);
 
-        if (frameDown.layers.isEmpty()) {
+        if (frameDown.getLayers().isEmpty()) {
             frameDown = frameOver;
         }
 
         timeline.addFrame(frameDown);
 
-        if (frameHit.layers.isEmpty()) {
+        if (frameHit.getLayers().isEmpty()) {
             frameHit = frameUp;
         }
 
@@ -420,7 +420,7 @@ public abstract class Tag implements NeedsCharacters, Exportable, Serializable {
             sos.write(newHeaderData);
             sos.write(newData);
         } else {
-            sos.write(originalRange.getArray(), originalRange.getPos(), originalRange.getLength());
+            sos.write(originalRange);
         }
     }
 
@@ -515,11 +515,7 @@ public abstract class Tag implements NeedsCharacters, Exportable, Serializable {
         }
 
         int dataLength = getOriginalDataLength();
-        int pos = (int) (originalRange.getPos() + originalRange.getLength() - dataLength);
-
-        byte[] data = new byte[dataLength];
-        System.arraycopy(originalRange.getArray(), pos, data, 0, dataLength);
-        return data;
+        return originalRange.getRangeData(originalRange.getLength() - dataLength, dataLength);
     }
 
     public final int getOriginalDataLength() {
@@ -531,7 +527,7 @@ public abstract class Tag implements NeedsCharacters, Exportable, Serializable {
     }
 
     private boolean isLongOriginal() {
-        int shortLength = originalRange.getArray()[(int) originalRange.getPos()] & 0x003F;
+        int shortLength = originalRange.get(0) & 0x003F;
         return shortLength == 0x3f;
     }
 
@@ -23,6 +23,7 @@ import com.jpexs.decompiler.flash.exporters.commonshape.ExportRectangle;
 import com.jpexs.decompiler.flash.exporters.commonshape.Matrix;
 import com.jpexs.decompiler.flash.exporters.commonshape.SVGExporter;
 import com.jpexs.decompiler.flash.exporters.shape.CanvasShapeExporter;
+import com.jpexs.decompiler.flash.exporters.shape.GlyphOutlineCache;
 import com.jpexs.decompiler.flash.helpers.FontHelper;
 import com.jpexs.decompiler.flash.tags.DefineFontNameTag;
 import com.jpexs.decompiler.flash.tags.Tag;
@@ -31,6 +32,7 @@ import com.jpexs.decompiler.flash.types.GLYPHENTRY;
 import com.jpexs.decompiler.flash.types.RECT;
 import com.jpexs.decompiler.flash.types.SHAPE;
 import com.jpexs.decompiler.flash.types.TEXTRECORD;
+import com.jpexs.decompiler.flash.types.annotations.Internal;
 import com.jpexs.decompiler.flash.types.shaperecords.SHAPERECORD;
 import com.jpexs.helpers.ByteArrayRange;
 import com.jpexs.helpers.SerializableImage;
@@ -58,12 +60,42 @@ public abstract class FontTag extends DrawableTag implements AloneTag {
 
     public static final int PREVIEWSIZE = 500;
 
+    @Internal
+    private transient GlyphOutlineCache glyphOutlineCache;
+
     public FontTag(SWF swf, int id, String name, ByteArrayRange data) {
         super(swf, id, name, data);
     }
 
     public abstract List<SHAPE> getGlyphShapeTable();
 
+    /**
+     * Gets outlines of the glyphs for text rendering.
+     *
+     * @return Glyph outline cache of this font
+     */
+    public synchronized GlyphOutlineCache getGlyphOutlineCache() {
+        if (glyphOutlineCache == null) {
+            glyphOutlineCache = new GlyphOutlineCache();
+        }
+
+        return glyphOutlineCache;
+    }
+
+    public synchronized void clearGlyphOutlineCache() {
+        if (glyphOutlineCache != null) {
+            glyphOutlineCache.clear();
+        }
+    }
+
+    @Override
+    public void setModified(boolean value) {
+        super.setModified(value);
+        if (value) {
+            clearGlyphOutlineCache();
+        }
+    }
+
     public abstract void addCharacter(char character, Font font);
 
     public abstract boolean removeCharacter(char character);
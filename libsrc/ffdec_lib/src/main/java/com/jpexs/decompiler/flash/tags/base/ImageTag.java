@@ -44,6 +44,7 @@ import com.jpexs.helpers.ByteArrayRange;
 import com.jpexs.helpers.SerializableImage;
 import java.awt.Dimension;
 import java.awt.Shape;
+import java.awt.image.DataBufferInt;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
@@ -60,8 +61,6 @@ public abstract class ImageTag extends DrawableTag {
     @SWFType(BasicType.UI16)
     public int characterID;
 
-    protected SerializableImage cachedImage;
-
     public ImageTag(SWF swf, int id, String name, ByteArrayRange data) {
         super(swf, id, name, data);
     }
@@ -106,19 +105,82 @@ public abstract class ImageTag extends DrawableTag {
         return ImageFormat.UNKNOWN;
     }
 
+    /**
+     * Gets the decoded image. Decoded images are kept in the image cache of
+     * the SWF, which is limited by Configuration.cacheMemoryBudget. When the
+     * memory is not limited, they are kept only when
+     * Configuration.cacheImages is set.
+     *
+     * @return Image
+     */
     public SerializableImage getImageCached() {
-        if (cachedImage != null) {
-            return cachedImage;
+        SerializableImage image = getImageFromCache();
+        if (image != null) {
+            return image;
         }
 
-        SerializableImage image = getImage();
-        if (Configuration.cacheImages.get()) {
-            cachedImage = image;
+        image = getImage();
+        if (image != null && swf != null && (Configuration.cacheImages.get() || Configuration.cacheMemoryBudget.get() > 0)) {
+            swf.getImageCache().put(this, image);
         }
 
         return image;
     }
 
+    /**
+     * Gets the decoded image from the image cache.
+     *
+     * @return Image or null when it is not cached
+     */
+    protected SerializableImage getImageFromCache() {
+        if (swf == null) {
+            return null;
+        }
+
+        return swf.getImageCache().get(this);
+    }
+
+    /**
+     * Table for converting premultiplied color components to straight ones,
+     * indexed by alpha * 256 + component.
+     */
+    private static final byte[] UNPREMULTIPLY_TABLE = new byte[256 * 256];
+
+    static {
+        for (int a = 0; a < 256; a++) {
+            for (int c = 0; c < 256; c++) {
+                UNPREMULTIPLY_TABLE[(a << 8) | c] = (byte) (a == 0 ? (c == 0 ? 0 : 255) : Math.min(255, c * 255 / a));
+            }
+        }
+    }
+
+    /**
+     * Combines decoded JPEG image with separate alpha channel. The colors of
+     * the JPEG image are premultiplied by the alpha.
+     *
+     * @param image Image with int pixels
+     * @param alphaData Alpha of the pixels
+     * @return Image with straight alpha
+     */
+    protected static SerializableImage applyAlpha(SerializableImage image, byte[] alphaData) {
+        SerializableImage result = new SerializableImage(image.getWidth(), image.getHeight(), SerializableImage.TYPE_INT_ARGB);
+        int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        int[] resultPixels = ((DataBufferInt) result.getRaster().getDataBuffer()).getData();
+        byte[] table = UNPREMULTIPLY_TABLE;
+        int count = Math.min(pixels.length, alphaData.length);
+        for (int i = 0; i < count; i++) {
+            int p = pixels[i];
+            int a = alphaData[i] & 0xff;
+            int row = a << 8;
+            resultPixels[i] = (a << 24)
+                    | ((table[row | ((p >> 16) & 0xff)] & 0xff) << 16)
+                    | ((table[row | ((p >> 8) & 0xff)] & 0xff) << 8)
+                    | (table[row | (p & 0xff)] & 0xff);
+        }
+
+        return result;
+    }
+
     public InputStream getImageData() {
         InputStream is = getOriginalImageData();
         if (is != null) {
@@ -259,7 +321,9 @@ public abstract class ImageTag extends DrawableTag {
     }
 
     public void clearCache() {
-        cachedImage = null;
+        if (swf != null) {
+            swf.getImageCache().remove(this);
+        }
     }
 
     @Override
@@ -77,10 +77,10 @@ public abstract class ShapeTag extends DrawableTag implements LazyObject {
 
     public abstract int getShapeNum();
 
-    public SHAPEWITHSTYLE getShapes() {
+    public synchronized SHAPEWITHSTYLE getShapes() {
         if (shapes == null && shapeData != null) {
             try {
-                SWFInputStream sis = new SWFInputStream(swf, shapeData.getArray(), 0, shapeData.getPos() + shapeData.getLength());
+                SWFInputStream sis = new SWFInputStream(swf, shapeData.getBuffer(), 0, shapeData.getPos() + shapeData.getLength());
                 sis.seek(shapeData.getPos());
                 shapes = sis.readSHAPEWITHSTYLE(getShapeNum(), false, "shapes");
                 shapeData = null; // not needed anymore, give it to GC
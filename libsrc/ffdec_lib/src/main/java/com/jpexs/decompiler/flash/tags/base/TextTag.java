@@ -26,6 +26,8 @@ import com.jpexs.decompiler.flash.exporters.commonshape.SVGExporter;
 import com.jpexs.decompiler.flash.exporters.modes.FontExportMode;
 import com.jpexs.decompiler.flash.exporters.shape.BitmapExporter;
 import com.jpexs.decompiler.flash.exporters.shape.CanvasShapeExporter;
+import com.jpexs.decompiler.flash.exporters.shape.GlyphOutlineCache;
+import com.jpexs.decompiler.flash.exporters.shape.GlyphOutlineCache.GlyphOutline;
 import com.jpexs.decompiler.flash.exporters.shape.SVGShapeExporter;
 import com.jpexs.decompiler.flash.helpers.HighlightedText;
 import com.jpexs.decompiler.flash.importers.TextImportResizeTextBoundsMode;
@@ -330,7 +332,7 @@ public abstract class TextTag extends DrawableTag {
                 if (e < rec.glyphEntries.size() - 1) {
                     nextEntry = rec.glyphEntries.get(e + 1);
                 }
-                RECT rect = SHAPERECORD.getBounds(glyphs.get(entry.glyphIndex).shapeRecords);
+                RECT rect = font.getGlyphOutlineCache().get(swf, glyphs, entry.glyphIndex).getBounds();
                 rect.Xmax = (int) Math.round(((double) rect.Xmax * textHeight) / (font.getDivider() * 1024));
                 rect.Xmin = (int) Math.round(((double) rect.Xmin * textHeight) / (font.getDivider() * 1024));
                 rect.Ymax = (int) Math.round(((double) rect.Ymax * textHeight) / (font.getDivider() * 1024));
@@ -495,28 +497,28 @@ public abstract class TextTag extends DrawableTag {
                 matScale.translateY = y;
 
                 Matrix mat = mat0.concatenate(matScale);
-                SHAPE shape = null;
+                GlyphOutline outline = null;
                 if (entry.glyphIndex != -1 && glyphs != null) {
                     // shapeNum: 1
-                    shape = glyphs.get(entry.glyphIndex);
+                    outline = font.getGlyphOutlineCache().get(swf, glyphs, entry.glyphIndex);
                 } else if (entry instanceof DynamicTextGlyphEntry) {
                     DynamicTextGlyphEntry dynamicEntry = (DynamicTextGlyphEntry) entry;
                     if (dynamicEntry.fontFace != null) {
                         FontTag fnt = swf.getFontByName(dynamicEntry.fontFace);
                         if (fnt != null && entry.glyphIndex != -1) {
-                            shape = fnt.getGlyphShapeTable().get(entry.glyphIndex);
+                            outline = fnt.getGlyphOutlineCache().get(swf, fnt.getGlyphShapeTable(), entry.glyphIndex);
                         } else {
-                            shape = SHAPERECORD.fontCharacterToSHAPE(new Font(dynamicEntry.fontFace, dynamicEntry.fontStyle, 12), (int) Math.round(divider * 1024), dynamicEntry.character);
+                            outline = GlyphOutlineCache.getSystemFontGlyph(swf, new Font(dynamicEntry.fontFace, dynamicEntry.fontStyle, 12), (int) Math.round(divider * 1024), dynamicEntry.character);
                         }
                     }
                 }
 
-                if (shape != null) {
-                    BitmapExporter.export(swf, shape, textColor2, image, mat, mat, colorTransform, true);
+                if (outline != null) {
+                    outline.toImage(swf, textColor2, image, mat, colorTransform);
                     if (SHAPERECORD.DRAW_BOUNDING_BOX) {
                         RGB borderColor = new RGBA(Color.black);
                         RGB fillColor = new RGBA(new Color(255, 255, 255, 0));
-                        RECT bounds = shape.getBounds();
+                        RECT bounds = outline.getBounds();
                         mat = Matrix.getTranslateInstance(bounds.Xmin, bounds.Ymin).preConcatenate(mat);
                         TextTag.drawBorder(swf, image, borderColor, fillColor, bounds, new MATRIX(), mat, colorTransform);
                     }
@@ -557,8 +559,7 @@ public abstract class TextTag extends DrawableTag {
                 mat = mat.concatenate(Matrix.getScaleInstance(rat));
                 if (entry.glyphIndex != -1 && glyphs != null) {
                     // shapeNum: 1
-                    SHAPE shape = glyphs.get(entry.glyphIndex);
-                    RECT glyphBounds = shape.getBounds();
+                    RECT glyphBounds = font.getGlyphOutlineCache().get(swf, glyphs, entry.glyphIndex).getBounds();
                     int glyphWidth = glyphBounds.getWidth();
                     int glyphHeight = glyphBounds.getHeight();
                     glyphBounds.Xmin -= glyphWidth / 2;
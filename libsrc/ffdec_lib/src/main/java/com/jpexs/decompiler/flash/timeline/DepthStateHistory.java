@@ -0,0 +1,393 @@
+/*
+ *  Copyright (C) 2010-2021 JPEXS, All rights reserved.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3.0 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library.
+ */
+package com.jpexs.decompiler.flash.timeline;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Depth states of a timeline stored as changes per frame instead of full
+ * layer maps for each frame.
+ *
+ * Each frame keeps the depth states which were placed, modified or removed
+ * (null value) in it. A depth state of a frame which was not changed is
+ * shared with the previous frames until the layers of the frame are
+ * materialized. Full layer maps are stored for every SNAPSHOT_INTERVAL-th
+ * frame, so materializing a frame applies at most SNAPSHOT_INTERVAL - 1
+ * frames of changes.
+ *
+ * Depth states in the changes belong to the frame they were changed in (see
+ * DepthState.frame). Materialized layers contain them for that frame and
+ * copies for the other frames.
+ *
+ * @author JPEXS
+ */
+public class DepthStateHistory {
+
+    private static final int SNAPSHOT_INTERVAL = 32;
+
+    /**
+     * Changes by frame, null when the frame has no changes.
+     */
+    private final List<Map<Integer, DepthState>> changes = new ArrayList<>();
+
+    private final List<TreeMap<Integer, DepthState>> snapshots = new ArrayList<>();
+
+    /**
+     * Frames with a change by depth, ascending.
+     */
+    private final Map<Integer, List<Integer>> depthChangeFrames = new HashMap<>();
+
+    /**
+     * Motion tween ranges (first and last frame) by depth.
+     */
+    private final Map<Integer, List<int[]>> tweenRanges = new HashMap<>();
+
+    private TreeMap<Integer, DepthState> current = new TreeMap<>();
+
+    private Set<Integer> newInFrame = new HashSet<>();
+
+    private int frameCount;
+
+    /**
+     * Gets the depth state for modification in the frame. When the state
+     * belongs to a previous frame, it is copied to this frame.
+     *
+     * @param frame Frame being built
+     * @param depth Depth
+     * @return Depth state or null when the depth is empty
+     */
+    public DepthState getForChange(Frame frame, int depth) {
+        DepthState ds = current.get(depth);
+        if (ds == null || ds.frame == frame) {
+            return ds;
+        }
+
+        ds = copyToFrame(ds, frame);
+        current.put(depth, ds);
+        addChange(frame.frame, depth, ds);
+        return ds;
+    }
+
+    /**
+     * Places new depth state in the frame being built.
+     *
+     * @param frame Frame
+     * @param ds Depth state
+     */
+    public void put(Frame frame, DepthState ds) {
+        current.put(ds.depth, ds);
+        Map<Integer, DepthState> frameChanges = getChanges(frame.frame);
+        if (!frameChanges.containsKey(ds.depth)) {
+            newInFrame.add(ds.depth);
+        }
+
+        addChange(frame.frame, ds.depth, ds);
+    }
+
+    /**
+     * Removes depth in the frame being built.
+     *
+     * @param frame Frame
+     * @param depth Depth
+     */
+    public void remove(Frame frame, int depth) {
+        if (current.remove(depth) == null) {
+            return;
+        }
+
+        if (newInFrame.remove(depth)) {
+            // placed and removed in the same frame, no change
+            getChanges(frame.frame).remove(depth);
+            List<Integer> frames = depthChangeFrames.get(depth);
+            frames.remove(frames.size() - 1);
+            if (frames.isEmpty()) {
+                depthChangeFrames.remove(depth);
+            }
+        } else {
+            addChange(frame.frame, depth, null);
+        }
+    }
+
+    /**
+     * Finishes the frame being built.
+     *
+     * @param frame Frame
+     */
+    public void endFrame(Frame frame) {
+        while (changes.size() <= frame.frame) {
+            changes.add(null);
+        }
+
+        newInFrame.clear();
+        if (frame.frame % SNAPSHOT_INTERVAL == 0) {
+            snapshots.add(new TreeMap<>(current));
+        }
+    }
+
+    /**
+     * Finishes building.
+     *
+     * @param frameCount Number of frames
+     */
+    public void finish(int frameCount) {
+        this.frameCount = frameCount;
+        current = null;
+        newInFrame = null;
+    }
+
+    private Map<Integer, DepthState> getChanges(int frame) {
+        while (changes.size() <= frame) {
+            changes.add(null);
+        }
+
+        Map<Integer, DepthState> ret = changes.get(frame);
+        if (ret == null) {
+            ret = new HashMap<>();
+            changes.set(frame, ret);
+        }
+
+        return ret;
+    }
+
+    private void addChange(int frame, int depth, DepthState ds) {
+        Map<Integer, DepthState> frameChanges = getChanges(frame);
+        if (!frameChanges.containsKey(depth)) {
+            List<Integer> frames = depthChangeFrames.get(depth);
+            if (frames == null) {
+                frames = new ArrayList<>();
+                depthChangeFrames.put(depth, frames);
+            }
+
+            frames.add(frame);
+        }
+
+        frameChanges.put(depth, ds);
+    }
+
+    private static DepthState copyToFrame(DepthState ds, Frame frame) {
+        DepthState ret = new DepthState(ds, frame, true);
+        ret.time = ds.time + frame.frame - ds.frame.frame;
+        return ret;
+    }
+
+    /**
+     * Materializes layers of the frame.
+     *
+     * @param frame Frame
+     * @return Layers
+     */
+    public TreeMap<Integer, DepthState> getLayers(Frame frame) {
+        int f = frame.frame;
+        int snapshotIndex = f / SNAPSHOT_INTERVAL;
+        TreeMap<Integer, DepthState> ret = new TreeMap<>(snapshots.get(snapshotIndex));
+        for (int i = snapshotIndex * SNAPSHOT_INTERVAL + 1; i <= f; i++) {
+            Map<Integer, DepthState> frameChanges = changes.get(i);
+            if (frameChanges == null) {
+                continue;
+            }
+
+            for (Map.Entry<Integer, DepthState> entry : frameChanges.entrySet()) {
+                if (entry.getValue() == null) {
+                    ret.remove(entry.getKey());
+                } else {
+                    ret.put(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+
+        for (Map.Entry<Integer, DepthState> entry : ret.entrySet()) {
+            DepthState ds = entry.getValue();
+            if (ds.frame.frame != f) {
+                ds = copyToFrame(ds, frame);
+                applyTweenRanges(ds, entry.getKey(), f);
+                entry.setValue(ds);
+            }
+        }
+
+        return ret;
+    }
+
+    private void applyTweenRanges(DepthState ds, int depth, int frame) {
+        List<int[]> ranges = tweenRanges.get(depth);
+        if (ranges == null) {
+            return;
+        }
+
+        for (int[] range : ranges) {
+            if (frame >= range[0] && frame <= range[1]) {
+                ds.motionTween = true;
+                ds.key = frame == range[0];
+            }
+        }
+    }
+
+    /**
+     * Gets the maximum depth or clip depth used.
+     *
+     * @return Max depth
+     */
+    public int getMaxDepth() {
+        int maxDepth = 0;
+        for (Map<Integer, DepthState> frameChanges : changes) {
+            if (frameChanges == null) {
+                continue;
+            }
+
+            for (Map.Entry<Integer, DepthState> entry : frameChanges.entrySet()) {
+                DepthState ds = entry.getValue();
+                if (ds != null) {
+                    maxDepth = Math.max(maxDepth, Math.max(entry.getKey(), ds.clipDepth));
+                }
+            }
+        }
+
+        return maxDepth;
+    }
+
+    /**
+     * Gets the last frame of each depth (depths lower than 1 are ignored).
+     *
+     * @param depthMaxFrame Result
+     */
+    public void getDepthMaxFrames(Map<Integer, Integer> depthMaxFrame) {
+        for (Map.Entry<Integer, List<Integer>> entry : depthChangeFrames.entrySet()) {
+            int depth = entry.getKey();
+            if (depth < 1) {
+                continue;
+            }
+
+            List<Integer> frames = entry.getValue();
+            int lastChange = frames.get(frames.size() - 1);
+            if (changes.get(lastChange).get(depth) != null) {
+                depthMaxFrame.put(depth, frameCount - 1);
+            } else {
+                // depth is removed only when it was present in the previous frame
+                depthMaxFrame.put(depth, lastChange - 1);
+            }
+        }
+    }
+
+    /**
+     * Gets character ids used in all frames.
+     *
+     * @param characterIds Result
+     */
+    public void getCharacterIds(Set<Integer> characterIds) {
+        for (Map<Integer, DepthState> frameChanges : changes) {
+            if (frameChanges == null) {
+                continue;
+            }
+
+            for (DepthState ds : frameChanges.values()) {
+                if (ds != null && ds.characterId != -1) {
+                    characterIds.add(ds.characterId);
+                }
+            }
+        }
+    }
+
+    /**
+     * Detects motion tweens in sequences of frames with the same character
+     * on a depth.
+     */
+    public void detectTweens() {
+        List<Integer> depths = new ArrayList<>(depthChangeFrames.keySet());
+        Collections.sort(depths);
+        for (int depth : depths) {
+            if (depth < 1) {
+                continue;
+            }
+
+            List<Integer> frames = depthChangeFrames.get(depth);
+            int characterId = -1;
+            int start = 0;
+            for (int i = 0; i <= frames.size(); i++) {
+                int frame = i == frames.size() ? frameCount : frames.get(i);
+                DepthState ds = i == frames.size() ? null : changes.get(frame).get(depth);
+                if (ds != null && characterId != -1 && ds.characterId == characterId) {
+                    continue;
+                }
+
+                if (characterId != -1) {
+                    detectTweens(depth, start, frame - start);
+                }
+
+                characterId = ds == null ? -1 : ds.characterId;
+                start = frame;
+            }
+        }
+    }
+
+    private void detectTweens(final int depth, final int startPos, final int len) {
+        final List<Integer> frames = depthChangeFrames.get(depth);
+        List<DepthState> states = new AbstractList<DepthState>() {
+            @Override
+            public DepthState get(int index) {
+                return getRecord(frames, depth, startPos + index);
+            }
+
+            @Override
+            public int size() {
+                return len;
+            }
+        };
+
+        List<TweenRange> ranges = TweenDetector.detectRanges(states);
+        for (TweenRange r : ranges) {
+            int first = startPos + r.startPosition;
+            int last = startPos + r.endPosition;
+            List<int[]> depthRanges = tweenRanges.get(depth);
+            if (depthRanges == null) {
+                depthRanges = new ArrayList<>();
+                tweenRanges.put(depth, depthRanges);
+            }
+
+            depthRanges.add(new int[]{first, last});
+
+            // states stored in the changes are modified directly, the copies
+            // get the flags when materialized
+            int index = Collections.binarySearch(frames, first);
+            if (index < 0) {
+                index = -index - 1;
+            }
+
+            for (; index < frames.size() && frames.get(index) <= last; index++) {
+                int frame = frames.get(index);
+                DepthState ds = changes.get(frame).get(depth);
+                ds.motionTween = true;
+                ds.key = frame == first;
+            }
+        }
+    }
+
+    private DepthState getRecord(List<Integer> frames, int depth, int frame) {
+        int index = Collections.binarySearch(frames, frame);
+        if (index < 0) {
+            index = -index - 2;
+        }
+
+        return changes.get(frames.get(index)).get(depth);
+    }
+}
@@ -27,10 +27,13 @@ import com.jpexs.decompiler.flash.treeitems.TreeItem;
 import com.jpexs.decompiler.flash.types.RGB;
 import com.jpexs.decompiler.flash.types.RGBA;
 import com.jpexs.decompiler.flash.types.SOUNDINFO;
+import java.lang.ref.SoftReference;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
+import java.util.SortedMap;
 import java.util.TreeMap;
 
 /**
@@ -41,7 +44,11 @@ public class Frame implements TreeItem, Exportable {
 
     public final int frame;
 
-    public TreeMap<Integer, DepthState> layers = new TreeMap<>();
+    private TreeMap<Integer, DepthState> layers;
+
+    private SoftReference<SortedMap<Integer, DepthState>> materializedLayers;
+
+    final DepthStateHistory history;
 
     public RGB backgroundColor = new RGBA(0, 0, 0, 0);
 
@@ -70,19 +77,60 @@ public class Frame implements TreeItem, Exportable {
     public Frame(Timeline timeline, int frame) {
         this.timeline = timeline;
         this.frame = frame;
+        layers = new TreeMap<>();
+        history = null;
+    }
+
+    /**
+     * Creates frame with layers stored in the depth state history.
+     *
+     * @param timeline Timeline
+     * @param frame Frame index
+     * @param history History of the timeline
+     */
+    Frame(Timeline timeline, int frame, DepthStateHistory history) {
+        this.timeline = timeline;
+        this.frame = frame;
+        this.history = history;
     }
 
     public Frame(Frame obj, int frame) {
         this.frame = frame;
         layers = new TreeMap<>();
+        history = null;
         backgroundColor = obj.backgroundColor;
         timeline = obj.timeline;
-        for (int depth : obj.layers.keySet()) {
-            layers.put(depth, new DepthState(obj.layers.get(depth), this, true));
+        SortedMap<Integer, DepthState> objLayers = obj.getLayers();
+        for (int depth : objLayers.keySet()) {
+            layers.put(depth, new DepthState(objLayers.get(depth), this, true));
         }
         //Do not copy sounds
     }
 
+    /**
+     * Gets depth states of the frame. Layers of frames from the timeline tags
+     * are materialized from the history on demand and can be freed by the GC
+     * when not used. For these frames the returned map is unmodifiable and
+     * the depth states are new instances after each materialization, so a
+     * change of a depth state is kept only while the caller holds the map.
+     *
+     * @return Depth states by depth
+     */
+    public SortedMap<Integer, DepthState> getLayers() {
+        if (history == null) {
+            return layers;
+        }
+
+        SoftReference<SortedMap<Integer, DepthState>> ref = materializedLayers;
+        SortedMap<Integer, DepthState> ret = ref == null ? null : ref.get();
+        if (ret == null) {
+            ret = Collections.unmodifiableSortedMap(history.getLayers(this));
+            materializedLayers = new SoftReference<>(ret);
+        }
+
+        return ret;
+    }
+
     @Override
     public SWF getSwf() {
         return timeline.swf;
@@ -0,0 +1,444 @@
+/*
+ *  Copyright (C) 2010-2021 JPEXS, All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3.0 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library.
+ */
+package com.jpexs.decompiler.flash.timeline;
+
+import com.jpexs.decompiler.flash.SWF;
+import com.jpexs.decompiler.flash.exporters.commonshape.ExportRectangle;
+import com.jpexs.decompiler.flash.exporters.commonshape.Matrix;
+import com.jpexs.decompiler.flash.tags.DefineSpriteTag;
+import com.jpexs.decompiler.flash.tags.base.BoundedTag;
+import com.jpexs.decompiler.flash.tags.base.ButtonTag;
+import com.jpexs.decompiler.flash.tags.base.CharacterTag;
+import com.jpexs.decompiler.flash.tags.base.DisplayObjectCacheKey;
+import com.jpexs.decompiler.flash.tags.base.DrawableTag;
+import com.jpexs.decompiler.flash.tags.base.RenderContext;
+import com.jpexs.decompiler.flash.types.ColorTransform;
+import com.jpexs.decompiler.flash.types.MATRIX;
+import com.jpexs.decompiler.flash.types.filters.FILTER;
+import com.jpexs.helpers.Cache;
+import com.jpexs.helpers.SerializableImage;
+import java.awt.AlphaComposite;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Renders frames of a timeline into a retained image, redrawing only the tiles
+ * which changed since the previously rendered frame.
+ *
+ * The layers of the rendered frame are compared with the layers of the
+ * previous one (character, matrix, color transform, ratio, filters, ...). The
+ * bounds of the changed layers in both frames mark the dirty tiles and their
+ * bounding rectangle is drawn again. Characters which
+ * change by themselves (sprites with more frames, buttons under the cursor)
+ * are redrawn in every frame.
+ *
+ * The whole image is drawn again when the size, the transformation or the
+ * background changes. Call invalidate when the characters are modified.
+ *
+ * @author JPEXS
+ */
+public class IncrementalTimelineRenderer {
+
+    public static final int TILE_SIZE = 64;
+
+    /**
+     * Margin added to the layer bounds in pixels, covers antialiasing and
+     * rounding of the bounds.
+     */
+    private static final int MARGIN = 2;
+
+    /**
+     * Size of the part drawn right and below a redrawn region in pixels.
+     */
+    private static final int EDGE_PADDING = TILE_SIZE;
+
+    private final Timeline timeline;
+
+    private final int imageType;
+
+    private BufferedImage image;
+
+    private AffineTransform lastTransformation;
+
+    private AffineTransform lastFullTransformation;
+
+    private ColorTransform lastColorTransform;
+
+    private double lastUnzoom;
+
+    private ExportRectangle lastViewRect;
+
+    private Color lastBaseColor;
+
+    private Color lastBackgroundColor;
+
+    private boolean lastHover;
+
+    private Map<Integer, LayerState> lastLayers;
+
+    private int redrawnTileCount;
+
+    public IncrementalTimelineRenderer(Timeline timeline, int imageType) {
+        this.timeline = timeline;
+        this.imageType = imageType;
+    }
+
+    public Timeline getTimeline() {
+        return timeline;
+    }
+
+    /**
+     * Draws the whole image in the next render call.
+     */
+    public synchronized void invalidate() {
+        image = null;
+        lastLayers = null;
+    }
+
+    /**
+     * Gets the number of tiles drawn by the last render call.
+     *
+     * @return Number of tiles
+     */
+    public synchronized int getRedrawnTileCount() {
+        return redrawnTileCount;
+    }
+
+    /**
+     * Renders the frame. The parameters are the same as in Timeline.toImage,
+     * the returned image is reused by the next render call, so it should be
+     * copied when it is used later.
+     *
+     * @param frame Frame
+     * @param time Time
+     * @param renderContext Render context
+     * @param width Image width
+     * @param height Image height
+     * @param baseColor Color of the image under the frame background, null
+     * for transparent
+     * @param transformation Transformation
+     * @param colorTransform Color transform
+     * @param unzoom Unzoom
+     * @param viewRect View rectangle
+     * @param fullTransformation Full transformation
+     * @return Image
+     */
+    public synchronized SerializableImage render(int frame, int time, RenderContext renderContext, int width, int height, Color baseColor, Matrix transformation, ColorTransform colorTransform, double unzoom, ExportRectangle viewRect, Matrix fullTransformation) {
+        if (baseColor == null) {
+            baseColor = new Color(0, 0, 0, 0);
+        }
+
+        Frame frameObj = timeline.getFrame(frame);
+        boolean hover = renderContext.cursorPosition != null;
+        AffineTransform transformationAt = transformation.toTransform();
+        AffineTransform fullTransformationAt = fullTransformation.toTransform();
+        Color backgroundColor = frameObj.backgroundColor.toColor();
+        Map<Integer, LayerState> layers = new HashMap<>();
+        for (DepthState layer : frameObj.getLayers().values()) {
+            layers.put(layer.depth, new LayerState(timeline.swf, layer, transformation, unzoom, hover || lastHover));
+        }
+
+        boolean full = image == null
+                || lastLayers == null
+                || image.getWidth() != width
+                || image.getHeight() != height
+                || !transformationAt.equals(lastTransformation)
+                || !fullTransformationAt.equals(lastFullTransformation)
+                || colorTransform != lastColorTransform
+                || Double.compare(unzoom, lastUnzoom) != 0
+                || !viewRect.equals(lastViewRect)
+                || !baseColor.equals(lastBaseColor)
+                || !backgroundColor.equals(lastBackgroundColor);
+
+        int tilesX = (width + TILE_SIZE - 1) / TILE_SIZE;
+        int tilesY = (height + TILE_SIZE - 1) / TILE_SIZE;
+        boolean[] dirty = new boolean[tilesX * tilesY];
+        if (full) {
+            image = new BufferedImage(width, height, imageType);
+            Arrays.fill(dirty, true);
+        } else {
+            for (Map.Entry<Integer, LayerState> entry : layers.entrySet()) {
+                LayerState layer = entry.getValue();
+                LayerState lastLayer = lastLayers.get(entry.getKey());
+                if (lastLayer == null || layer.dynamic || !layer.isSameAs(lastLayer)) {
+                    if (!markDirty(dirty, tilesX, tilesY, layer) || !markDirty(dirty, tilesX, tilesY, lastLayer)) {
+                        Arrays.fill(dirty, true);
+                        break;
+                    }
+                }
+            }
+            for (Map.Entry<Integer, LayerState> entry : lastLayers.entrySet()) {
+                if (!layers.containsKey(entry.getKey())) {
+                    if (!markDirty(dirty, tilesX, tilesY, entry.getValue())) {
+                        Arrays.fill(dirty, true);
+                        break;
+                    }
+                }
+            }
+        }
+
+        lastTransformation = transformationAt;
+        lastFullTransformation = fullTransformationAt;
+        lastColorTransform = colorTransform;
+        lastUnzoom = unzoom;
+        lastViewRect = new ExportRectangle(viewRect);
+        lastBaseColor = baseColor;
+        lastBackgroundColor = backgroundColor;
+        lastHover = hover;
+        lastLayers = layers;
+
+        Rectangle region = getDirtyRegion(dirty, tilesX, tilesY, width, height);
+        if (region == null && hover) {
+            // drawing finds the objects under the cursor
+            region = new Rectangle(0, 0, 1, 1);
+        }
+        if (region != null && 2L * Math.min(width - region.x, region.width + EDGE_PADDING) * Math.min(height - region.y, region.height + EDGE_PADDING) > (long) width * height) {
+            // drawing most of the image as a separate view is slower than drawing it whole
+            region = new Rectangle(0, 0, width, height);
+        }
+
+        redrawnTileCount = 0;
+        if (region != null) {
+            redrawnTileCount = ((region.width + TILE_SIZE - 1) / TILE_SIZE) * ((region.height + TILE_SIZE - 1) / TILE_SIZE);
+            renderRegion(region, frame, time, renderContext, baseColor, transformation, colorTransform, unzoom, viewRect, fullTransformation);
+        }
+
+        return new SerializableImage(image);
+    }
+
+    /**
+     * Draws the frame into a part of the image.
+     *
+     * The part is drawn as a view of its own, so the objects outside of it are
+     * skipped. The view is drawn into a separate image instead of clipping the
+     * graphics, as clipping by a shape changes the antialiasing of clipped
+     * fills. The view is larger than the part by EDGE_PADDING on the right and
+     * bottom, because the objects are cut there before their filters are
+     * applied. Bitmaps cached for the view are not stored, they would replace
+     * the bitmaps of the whole view.
+     */
+    private void renderRegion(Rectangle region, int frame, int time, RenderContext renderContext, Color baseColor, Matrix transformation, ColorTransform colorTransform, double unzoom, ExportRectangle viewRect, Matrix fullTransformation) {
+        boolean whole = region.x == 0 && region.y == 0 && region.width == image.getWidth() && region.height == image.getHeight();
+        int targetWidth = whole ? region.width : Math.min(image.getWidth() - region.x, region.width + EDGE_PADDING);
+        int targetHeight = whole ? region.height : Math.min(image.getHeight() - region.y, region.height + EDGE_PADDING);
+        SerializableImage target = whole ? new SerializableImage(image) : new SerializableImage(targetWidth, targetHeight, imageType);
+        Graphics2D g = (Graphics2D) target.getGraphics();
+        g.setComposite(AlphaComposite.Src);
+        g.setColor(baseColor);
+        g.fillRect(0, 0, targetWidth, targetHeight);
+
+        if (whole) {
+            timeline.toImage(frame, time, renderContext, target, target, false, transformation, new Matrix(), transformation, colorTransform, unzoom, false, viewRect, fullTransformation, true, Timeline.DRAW_MODE_ALL);
+            return;
+        }
+
+        Matrix translate = Matrix.getTranslateInstance(-region.x * SWF.unitDivisor, -region.y * SWF.unitDivisor);
+        Matrix m = transformation.preConcatenate(translate);
+        Matrix fullM = fullTransformation.preConcatenate(translate);
+
+        // the origin stays the same, the cursor position is relative to it
+        ExportRectangle regionViewRect = new ExportRectangle(viewRect.xMin, viewRect.yMin,
+                viewRect.xMin + targetWidth * SWF.unitDivisor / unzoom, viewRect.yMin + targetHeight * SWF.unitDivisor / unzoom);
+        Cache<DisplayObjectCacheKey, SerializableImage> displayObjectCache = renderContext.displayObjectCache;
+        renderContext.displayObjectCache = null;
+        try {
+            timeline.toImage(frame, time, renderContext, target, target, false, m, new Matrix(), transformation, colorTransform, unzoom, false, regionViewRect, fullM, true, Timeline.DRAW_MODE_ALL);
+        } finally {
+            renderContext.displayObjectCache = displayObjectCache;
+        }
+        image.getRaster().setDataElements(region.x, region.y, target.getBufferedImage().getRaster().createChild(0, 0, region.width, region.height, 0, 0, null));
+    }
+
+    /**
+     * Gets the bounding rectangle of the dirty tiles.
+     *
+     * @return Rectangle, null when there are no dirty tiles
+     */
+    private static Rectangle getDirtyRegion(boolean[] dirty, int tilesX, int tilesY, int width, int height) {
+        int x1 = tilesX;
+        int y1 = tilesY;
+        int x2 = -1;
+        int y2 = -1;
+        for (int y = 0; y < tilesY; y++) {
+            for (int x = 0; x < tilesX; x++) {
+                if (dirty[y * tilesX + x]) {
+                    x1 = Math.min(x1, x);
+                    y1 = Math.min(y1, y);
+                    x2 = Math.max(x2, x);
+                    y2 = Math.max(y2, y);
+                }
+            }
+        }
+
+        if (x2 == -1) {
+            return null;
+        }
+
+        int left = x1 * TILE_SIZE;
+        int top = y1 * TILE_SIZE;
+        return new Rectangle(left, top, Math.min(width, (x2 + 1) * TILE_SIZE) - left, Math.min(height, (y2 + 1) * TILE_SIZE) - top);
+    }
+
+    /**
+     * Marks tiles covered by the layer.
+     *
+     * @return False when the bounds of the layer are unknown
+     */
+    private static boolean markDirty(boolean[] dirty, int tilesX, int tilesY, LayerState layer) {
+        if (layer == null || layer.empty) {
+            return true;
+        }
+
+        if (layer.bounds == null) {
+            return false;
+        }
+
+        Rectangle r = layer.bounds;
+        int x1 = Math.max(0, Math.floorDiv(r.x, TILE_SIZE));
+        int y1 = Math.max(0, Math.floorDiv(r.y, TILE_SIZE));
+        int x2 = Math.min(tilesX - 1, Math.floorDiv(r.x + r.width, TILE_SIZE));
+        int y2 = Math.min(tilesY - 1, Math.floorDiv(r.y + r.height, TILE_SIZE));
+        for (int y = y1; y <= y2; y++) {
+            for (int x = x1; x <= x2; x++) {
+                dirty[y * tilesX + x] = true;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Properties of a layer which affect its drawing.
+     */
+    private static class LayerState {
+
+        private final int characterId;
+
+        private final CharacterTag character;
+
+        private final MATRIX matrix;
+
+        private final ColorTransform colorTransform;
+
+        private final int ratio;
+
+        private final int blendMode;
+
+        private final int clipDepth;
+
+        private final boolean visible;
+
+        private final boolean hasImage;
+
+        private final FILTER[] filters;
+
+        /**
+         * Layer draws something different in each frame.
+         */
+        private final boolean dynamic;
+
+        /**
+         * Layer draws nothing.
+         */
+        private final boolean empty;
+
+        /**
+         * Bounds in image pixels, null when they are not known.
+         */
+        private final Rectangle bounds;
+
+        public LayerState(SWF swf, DepthState layer, Matrix transformation, double unzoom, boolean hover) {
+            characterId = layer.characterId;
+            character = swf.getCharacter(layer.characterId);
+            matrix = layer.matrix;
+            colorTransform = layer.colorTransForm;
+            ratio = layer.ratio;
+            blendMode = layer.blendMode;
+            clipDepth = layer.clipDepth;
+            visible = layer.isVisible;
+            hasImage = layer.hasImage;
+            filters = layer.filters == null ? new FILTER[0] : layer.filters.toArray(new FILTER[layer.filters.size()]);
+
+            if (character instanceof DrawableTag) {
+                DrawableTag drawable = (DrawableTag) character;
+                dynamic = !drawable.isSingleFrame()
+                        || (hover && (character instanceof ButtonTag || character instanceof DefineSpriteTag));
+            } else {
+                dynamic = false;
+            }
+
+            if (!(character instanceof BoundedTag)) {
+                empty = true;
+                bounds = null;
+            } else if (!(character instanceof DrawableTag)) {
+                // placeholder with the name of the character
+                empty = false;
+                bounds = null;
+            } else {
+                empty = false;
+                bounds = getBounds((BoundedTag) character, layer.matrix, layer.filters, transformation, unzoom);
+            }
+        }
+
+        private static Rectangle getBounds(BoundedTag character, MATRIX layerMatrix, List<FILTER> filters, Matrix transformation, double unzoom) {
+            Matrix mat = transformation.concatenate(new Matrix(layerMatrix));
+            ExportRectangle rect = mat.transform(new ExportRectangle(character.getRectWithStrokes()));
+            double deltaX = 0;
+            double deltaY = 0;
+            if (filters != null) {
+                for (FILTER filter : filters) {
+                    deltaX = Math.max(deltaX, filter.getDeltaX());
+                    deltaY = Math.max(deltaY, filter.getDeltaY());
+                }
+            }
+
+            double xMin = rect.xMin / SWF.unitDivisor - deltaX * unzoom;
+            double yMin = rect.yMin / SWF.unitDivisor - deltaY * unzoom;
+            double xMax = rect.xMax / SWF.unitDivisor + deltaX * unzoom;
+            double yMax = rect.yMax / SWF.unitDivisor + deltaY * unzoom;
+            if (Double.isNaN(xMin) || Double.isNaN(yMin) || Double.isNaN(xMax) || Double.isNaN(yMax)
+                    || Double.isInfinite(xMin) || Double.isInfinite(yMin) || Double.isInfinite(xMax) || Double.isInfinite(yMax)) {
+                return null;
+            }
+
+            int x = (int) Math.floor(xMin) - MARGIN;
+            int y = (int) Math.floor(yMin) - MARGIN;
+            return new Rectangle(x, y, (int) Math.ceil(xMax) + MARGIN - x, (int) Math.ceil(yMax) + MARGIN - y);
+        }
+
+        public boolean isSameAs(LayerState other) {
+            return characterId == other.characterId
+                    && character == other.character
+                    && Objects.equals(matrix, other.matrix)
+                    && colorTransform == other.colorTransform
+                    && ratio == other.ratio
+                    && blendMode == other.blendMode
+                    && clipDepth == other.clipDepth
+                    && visible == other.visible
+                    && hasImage == other.hasImage
+                    && Arrays.equals(filters, other.filters);
+        }
+    }
+}
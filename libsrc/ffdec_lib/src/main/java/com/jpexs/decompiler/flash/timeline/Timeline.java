@@ -75,6 +75,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -103,6 +104,8 @@ public class Timeline {
 
     private final List<Frame> frames = new ArrayList<>();
 
+    private DepthStateHistory history;
+
     private final Map<Integer, Integer> depthMaxFrame = new HashMap<>();
 
     public final List<ASMSource> asmSources = new ArrayList<>();
@@ -117,7 +120,7 @@ public class Timeline {
 
     public final List<Tag> otherTags = new ArrayList<>();
 
-    private boolean initialized = false;
+    private volatile boolean initialized = false;
 
     private Map<String, Integer> labelToFrame = new HashMap<>();
 
@@ -127,8 +130,13 @@ public class Timeline {
 
     private void ensureInitialized() {
         if (!initialized) {
-            initialize();
-            initialized = true;
+            // frames can be rendered from several threads
+            synchronized (this) {
+                if (!initialized) {
+                    initialize();
+                    initialized = true;
+                }
+            }
         }
     }
 
@@ -178,6 +186,7 @@ public class Timeline {
     public void reset(SWF swf, Timelined timelined, int id, RECT displayRect) {
         initialized = false;
         frames.clear();
+        history = null;
         depthMaxFrame.clear();
         asmSources.clear();
         asmSourceContainers.clear();
@@ -198,13 +207,16 @@ public class Timeline {
     }
 
     private int getMaxDepthInternal() {
-        int max_depth = 0;
+        int max_depth = history == null ? 0 : history.getMaxDepth();
         for (Frame f : frames) {
-            for (int depth : f.layers.keySet()) {
+            if (f.history != null) {
+                continue;
+            }
+            for (int depth : f.getLayers().keySet()) {
                 if (depth > max_depth) {
                     max_depth = depth;
                 }
-                int clipDepth = f.layers.get(depth).clipDepth;
+                int clipDepth = f.getLayers().get(depth).clipDepth;
                 if (clipDepth > max_depth) {
                     max_depth = clipDepth;
                 }
@@ -266,7 +278,8 @@ public class Timeline {
 
     private void initialize() {
         int frameIdx = 0;
-        Frame frame = new Frame(this, frameIdx++);
+        history = new DepthStateHistory();
+        Frame frame = new Frame(this, frameIdx++, history);
         frame.layersChanged = true;
         boolean newFrameNeeded = false;
         for (Tag t : timelined.getTags()) {
@@ -309,10 +322,11 @@ public class Timeline {
                 newFrameNeeded = true;
                 PlaceObjectTypeTag po = (PlaceObjectTypeTag) t;
                 int depth = po.getDepth();
-                DepthState fl = frame.layers.get(depth);
+                DepthState fl = history.getForChange(frame, depth);
                 if (fl == null) {
-                    frame.layers.put(depth, fl = new DepthState(swf, frame));
+                    fl = new DepthState(swf, frame);
                     fl.depth = depth;
+                    history.put(frame, fl);
                 }
                 frame.layersChanged = true;
                 fl.placeObjectTag = po;
@@ -384,7 +398,7 @@ public class Timeline {
                 newFrameNeeded = true;
                 RemoveTag r = (RemoveTag) t;
                 int depth = r.getDepth();
-                frame.layers.remove(depth);
+                history.remove(frame, depth);
                 frame.layersChanged = true;
             } else if (t instanceof DoActionTag) {
                 newFrameNeeded = true;
@@ -392,8 +406,11 @@ public class Timeline {
                 actionFrames.put((DoActionTag) t, frame.frame);
             } else if (t instanceof ShowFrameTag) {
                 frame.showFrameTag = (ShowFrameTag) t;
+                history.endFrame(frame);
                 frames.add(frame);
-                frame = new Frame(frame, frameIdx++);
+                Frame prevFrame = frame;
+                frame = new Frame(this, frameIdx++, history);
+                frame.backgroundColor = prevFrame.backgroundColor;
                 newFrameNeeded = false;
             } else if (t instanceof ASMSource) {
                 asmSources.add((ASMSource) t);
@@ -402,9 +419,12 @@ public class Timeline {
             }
         }
         if (newFrameNeeded) {
+            history.endFrame(frame);
             frames.add(frame);
         }
 
+        history.finish(frames.size());
+
         maxDepth = getMaxDepthInternal();
 
         detectTweens();
@@ -420,47 +440,19 @@ public class Timeline {
     }
 
     private void detectTweens() {
-        for (int d = 1; d <= maxDepth; d++) {
-            int characterId = -1;
-            int len = 0;
-            for (int f = 0; f <= frames.size(); f++) {
-                DepthState ds = f >= frames.size() ? null : frames.get(f).layers.get(d);
-
-                if (ds != null && characterId != -1 && ds.characterId == characterId) {
-                    len++;
-                } else {
-                    if (characterId != -1) {
-                        int startPos = f - len;
-                        List<DepthState> matrices = new ArrayList<>(len);
-                        for (int k = 0; k < len; k++) {
-                            matrices.add(frames.get(startPos + k).layers.get(d));
-                        }
-
-                        List<TweenRange> ranges = TweenDetector.detectRanges(matrices);
-                        for (TweenRange r : ranges) {
-                            for (int t = r.startPosition; t <= r.endPosition; t++) {
-                                DepthState layer = frames.get(startPos + t).layers.get(d);
-                                layer.motionTween = true;
-                                layer.key = false;
-                            }
-
-                            frames.get(startPos + r.startPosition).layers.get(d).key = true;
-                        }
-                    }
-
-                    len = 1;
-                }
-
-                characterId = ds == null ? -1 : ds.characterId;
-            }
-        }
+        history.detectTweens();
     }
 
     private void calculateMaxDepthFrames() {
         depthMaxFrame.clear();
+        if (history != null) {
+            history.getDepthMaxFrames(depthMaxFrame);
+        }
+
+        // frames added by addFrame follow the frames stored in the history
         for (int d = 1; d <= maxDepth; d++) {
-            for (int f = frames.size() - 1; f >= 0; f--) {
-                if (frames.get(f).layers.get(d) != null) {
+            for (int f = frames.size() - 1; f >= 0 && frames.get(f).history == null; f--) {
+                if (frames.get(f).getLayers().get(d) != null) {
                     depthMaxFrame.put(d, f);
                     break;
                 }
@@ -525,28 +517,43 @@ public class Timeline {
     }
 
     public void getNeededCharacters(Set<Integer> usedCharacters) {
-        for (int i = 0; i < getFrameCount(); i++) {
-            getNeededCharacters(i, usedCharacters);
+        ensureInitialized();
+
+        // depth states of all frames are copies of the states in the history,
+        // no need to materialize the frames
+        Set<Integer> characterIds = new HashSet<>();
+        history.getCharacterIds(characterIds);
+        for (Frame frameObj : frames) {
+            if (frameObj.history == null) {
+                for (DepthState layer : frameObj.getLayers().values()) {
+                    characterIds.add(layer.characterId);
+                }
+            }
+        }
+
+        for (int characterId : characterIds) {
+            addNeededCharacter(characterId, usedCharacters);
         }
     }
 
     public void getNeededCharacters(List<Integer> frames, Set<Integer> usedCharacters) {
-        for (int frame = 0; frame < getFrameCount(); frame++) {
-            getNeededCharacters(frame, usedCharacters);
-        }
+        getNeededCharacters(usedCharacters);
     }
 
     public void getNeededCharacters(int frame, Set<Integer> usedCharacters) {
         Frame frameObj = getFrame(frame);
-        for (int depth : frameObj.layers.keySet()) {
-            DepthState layer = frameObj.layers.get(depth);
-            if (layer.characterId != -1) {
-                if (!swf.getCharacters().containsKey(layer.characterId)) {
-                    continue;
-                }
-                usedCharacters.add(layer.characterId);
-                swf.getCharacter(layer.characterId).getNeededCharactersDeep(usedCharacters);
+        for (DepthState layer : frameObj.getLayers().values()) {
+            addNeededCharacter(layer.characterId, usedCharacters);
+        }
+    }
+
+    private void addNeededCharacter(int characterId, Set<Integer> usedCharacters) {
+        if (characterId != -1) {
+            if (!swf.getCharacters().containsKey(characterId)) {
+                return;
             }
+            usedCharacters.add(characterId);
+            swf.getCharacter(characterId).getNeededCharactersDeep(usedCharacters);
         }
     }
 
@@ -1007,10 +1014,10 @@ public class Timeline {
                 clipCount = clips.size();
             }
 
-            if (!frameObj.layers.containsKey(i)) {
+            if (!frameObj.getLayers().containsKey(i)) {
                 continue;
             }
-            DepthState layer = frameObj.layers.get(i);
+            DepthState layer = frameObj.getLayers().get(i);
             if (!swf.getCharacters().containsKey(layer.characterId)) {
                 continue;
             }
@@ -1166,10 +1173,10 @@ public class Timeline {
                 clipCount = clips.size();
             }
 
-            if (!frameObj.layers.containsKey(i)) {
+            if (!frameObj.getLayers().containsKey(i)) {
                 continue;
             }
-            DepthState layer = frameObj.layers.get(i);
+            DepthState layer = frameObj.getLayers().get(i);
             if (!swf.getCharacters().containsKey(layer.characterId)) {
                 continue;
             }
@@ -1258,7 +1265,7 @@ public class Timeline {
         soundClasses.addAll(fr.soundClasses);
         soundInfos.addAll(fr.soundInfos);
         for (int d = maxDepth; d >= 0; d--) {
-            DepthState ds = fr.layers.get(d);
+            DepthState ds = fr.getLayers().get(d);
             if (ds != null) {
                 CharacterTag c = swf.getCharacter(ds.characterId);
                 if (c instanceof Timelined) {
@@ -1298,7 +1305,7 @@ public class Timeline {
             if (!clips.isEmpty()) {
                 currentClip = clips.peek();
             }
-            DepthState layer = fr.layers.get(d);
+            DepthState layer = fr.getLayers().get(d);
             if (layer == null) {
                 continue;
             }
@@ -1362,10 +1369,10 @@ public class Timeline {
     public boolean isSingleFrame(int frame) {
         Frame frameObj = getFrame(frame);
         for (int i = 1; i <= maxDepth; i++) {
-            if (!frameObj.layers.containsKey(i)) {
+            if (!frameObj.getLayers().containsKey(i)) {
                 continue;
             }
-            DepthState layer = frameObj.layers.get(i);
+            DepthState layer = frameObj.getLayers().get(i);
             if (!swf.getCharacters().containsKey(layer.characterId)) {
                 continue;
             }
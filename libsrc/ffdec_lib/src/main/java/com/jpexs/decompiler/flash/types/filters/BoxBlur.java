@@ -0,0 +1,315 @@
+/*
+ *  Copyright (C) 2010-2021 JPEXS, All rights reserved.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3.0 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library. */
+package com.jpexs.decompiler.flash.types.filters;
+
+import com.jpexs.decompiler.flash.configuration.Configuration;
+import com.jpexs.helpers.TaskScheduler;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Box blur of premultiplied ARGB pixels used by the filters.
+ *
+ * Every pass blurs rows of the image. The vertical pass works on the
+ * transposed image, so it reads the memory sequentially too. Large images
+ * are split to bands of rows, which are blurred in parallel on the
+ * TaskScheduler.
+ *
+ * @author JPEXS
+ */
+class BoxBlur {
+
+    private static final int PARALLEL_MIN_PIXELS = 256 * 256;
+
+    private static final int MIN_LINES_PER_TASK = 16;
+
+    private static final int TRANSPOSE_BLOCK_SIZE = 32;
+
+    /**
+     * Sums are divided by multiplying with 2^RECIPROCAL_SHIFT / hits, which
+     * gives exact integer quotients for sums of 8 bit channels of up to 2^23
+     * pixels.
+     */
+    private static final int RECIPROCAL_SHIFT = 55;
+
+    private static final ThreadLocal<int[]> lineBuffer = new ThreadLocal<>();
+
+    private interface RangeTask {
+
+        void run(int from, int to);
+    }
+
+    private BoxBlur() {
+    }
+
+    /**
+     * Blurs the pixels in place.
+     *
+     * @param pixels ARGB pixels
+     * @param width Width
+     * @param height Height
+     * @param hRadius Horizontal blur size
+     * @param vRadius Vertical blur size
+     * @param iterations Number of passes
+     * @param mask Only pixels with nonzero alpha in the mask are blurred, the
+     * others are cleared. Null when the whole image is blurred.
+     */
+    public static void blur(final int[] pixels, final int width, final int height, int hRadius, int vRadius, int iterations, final int[] mask) {
+        final boolean parallel = Configuration.parallelSpeedUp.get() && width * height >= PARALLEL_MIN_PIXELS;
+        final int horizontalRadius = hRadius / 2;
+        final int verticalRadius = vRadius / 2;
+
+        forEachRange(pixels.length, parallel, new RangeTask() {
+            @Override
+            public void run(int from, int to) {
+                premultiply(pixels, from, to);
+            }
+        });
+
+        final long[] horizontalReciprocals = getReciprocals(Math.min(2 * horizontalRadius + 1, width));
+        final long[] verticalReciprocals = getReciprocals(Math.min(2 * verticalRadius + 1, height));
+        final int[] transposed = iterations > 0 ? new int[pixels.length] : null;
+        final int[] transposedMask = iterations > 0 && mask != null ? new int[mask.length] : null;
+        if (transposedMask != null) {
+            transpose(mask, transposedMask, width, height, parallel);
+        }
+
+        for (int i = 0; i < iterations; i++) {
+            forEachRange(height, parallel, new RangeTask() {
+                @Override
+                public void run(int from, int to) {
+                    blurLines(pixels, mask, width, from, to, horizontalRadius, horizontalReciprocals);
+                }
+            });
+
+            transpose(pixels, transposed, width, height, parallel);
+            forEachRange(width, parallel, new RangeTask() {
+                @Override
+                public void run(int from, int to) {
+                    blurLines(transposed, transposedMask, height, from, to, verticalRadius, verticalReciprocals);
+                }
+            });
+            transpose(transposed, pixels, height, width, parallel);
+        }
+
+        forEachRange(pixels.length, parallel, new RangeTask() {
+            @Override
+            public void run(int from, int to) {
+                unpremultiply(pixels, from, to);
+            }
+        });
+    }
+
+    private static long[] getReciprocals(int maxHits) {
+        long[] ret = new long[maxHits + 1];
+        for (int hits = 1; hits <= maxHits; hits++) {
+            ret[hits] = ((1L << RECIPROCAL_SHIFT) + hits - 1) / hits;
+        }
+
+        return ret;
+    }
+
+    private static int[] getLineBuffer(int length) {
+        int[] ret = lineBuffer.get();
+        if (ret == null || ret.length < length) {
+            ret = new int[length];
+            lineBuffer.set(ret);
+        }
+
+        return ret;
+    }
+
+    /**
+     * Blurs the lines (rows) from-to of the image with the given line length.
+     */
+    private static void blurLines(int[] pixels, int[] mask, int length, int from, int to, int radius, long[] reciprocals) {
+        int[] newColors = getLineBuffer(length);
+        for (int line = from; line < to; line++) {
+            int index = line * length;
+            int hits = 0;
+            long r = 0;
+            long g = 0;
+            long b = 0;
+            long a = 0;
+            for (int x = -radius; x < length; x++) {
+                int oldPixel = x - radius - 1;
+                if (oldPixel >= 0) {
+                    if ((mask == null) || (((mask[index + oldPixel] >> 24) & 0xff) > 0)) {
+                        int color = pixels[index + oldPixel];
+                        if (color != 0) {
+                            a -= (color >> 24) & 0xff;
+                            r -= (color >> 16) & 0xff;
+                            g -= (color >> 8) & 0xff;
+                            b -= color & 0xff;
+                        }
+                        hits--;
+                    }
+                }
+
+                int newPixel = x + radius;
+                if (newPixel < length) {
+                    if ((mask == null) || (((mask[index + newPixel] >> 24) & 0xff) > 0)) {
+                        int color = pixels[index + newPixel];
+                        if (color != 0) {
+                            a += (color >> 24) & 0xff;
+                            r += (color >> 16) & 0xff;
+                            g += (color >> 8) & 0xff;
+                            b += color & 0xff;
+                        }
+                        hits++;
+                    }
+                }
+
+                if (x >= 0) {
+                    if (hits == 0 || ((mask != null) && (((mask[index + x] >> 24) & 0xff) == 0))) {
+                        newColors[x] = 0;
+                    } else {
+                        long reciprocal = reciprocals[hits];
+                        newColors[x] = (int) ((a * reciprocal) >>> RECIPROCAL_SHIFT) << 24
+                                | (int) ((r * reciprocal) >>> RECIPROCAL_SHIFT) << 16
+                                | (int) ((g * reciprocal) >>> RECIPROCAL_SHIFT) << 8
+                                | (int) ((b * reciprocal) >>> RECIPROCAL_SHIFT);
+                    }
+                }
+            }
+
+            System.arraycopy(newColors, 0, pixels, index, length);
+        }
+    }
+
+    /**
+     * Transposes the image by square blocks, so both the source and the
+     * target are accessed mostly sequentially.
+     */
+    private static void transpose(final int[] src, final int[] dst, final int width, final int height, boolean parallel) {
+        int blockRows = (height + TRANSPOSE_BLOCK_SIZE - 1) / TRANSPOSE_BLOCK_SIZE;
+        forEachRange(blockRows, parallel, new RangeTask() {
+            @Override
+            public void run(int from, int to) {
+                for (int y0 = from * TRANSPOSE_BLOCK_SIZE; y0 < Math.min(to * TRANSPOSE_BLOCK_SIZE, height); y0 += TRANSPOSE_BLOCK_SIZE) {
+                    int y1 = Math.min(y0 + TRANSPOSE_BLOCK_SIZE, height);
+                    for (int x0 = 0; x0 < width; x0 += TRANSPOSE_BLOCK_SIZE) {
+                        int x1 = Math.min(x0 + TRANSPOSE_BLOCK_SIZE, width);
+                        for (int y = y0; y < y1; y++) {
+                            int index = y * width;
+                            for (int x = x0; x < x1; x++) {
+                                dst[x * height + y] = src[index + x];
+                            }
+                        }
+                    }
+                }
+            }
+        });
+    }
+
+    private static void premultiply(int[] p, int from, int to) {
+        for (int i = from; i < to; i++) {
+            int rgb = p[i];
+            int a = rgb >> 24 & 0xff;
+            int r = rgb >> 16 & 0xff;
+            int g = rgb >> 8 & 0xff;
+            int b = rgb & 0xff;
+            float f = (float) a * 0.003921569F;
+            r = (int) ((float) r * f);
+            g = (int) ((float) g * f);
+            b = (int) ((float) b * f);
+            p[i] = a << 24 | r << 16 | g << 8 | b;
+        }
+    }
+
+    private static void unpremultiply(int[] p, int from, int to) {
+        for (int i = from; i < to; i++) {
+            int rgb = p[i];
+            int a = rgb >> 24 & 0xff;
+            int r = rgb >> 16 & 0xff;
+            int g = rgb >> 8 & 0xff;
+            int b = rgb & 0xff;
+            if (a == 0 || a == 255) {
+                continue;
+            }
+            float f = 255F / (float) a;
+            r = (int) ((float) r * f);
+            g = (int) ((float) g * f);
+            b = (int) ((float) b * f);
+            if (r > 255) {
+                r = 255;
+            }
+            if (g > 255) {
+                g = 255;
+            }
+            if (b > 255) {
+                b = 255;
+            }
+            p[i] = a << 24 | r << 16 | g << 8 | b;
+        }
+    }
+
+    /**
+     * Runs the task for the range 0-count, split to parallel parts when
+     * allowed.
+     */
+    private static void forEachRange(int count, boolean parallel, final RangeTask task) {
+        int taskCount = parallel ? Math.min(Configuration.getParallelThreadCount(), count / MIN_LINES_PER_TASK) : 1;
+        if (taskCount < 2) {
+            task.run(0, count);
+            return;
+        }
+
+        List<Future<Void>> futures = new ArrayList<>(taskCount);
+        for (int t = 0; t < taskCount; t++) {
+            final int from = (int) ((long) count * t / taskCount);
+            final int to = (int) ((long) count * (t + 1) / taskCount);
+            futures.add(TaskScheduler.submit(null, new Callable<Void>() {
+                @Override
+                public Void call() {
+                    task.run(from, to);
+                    return null;
+                }
+            }));
+        }
+
+        // the parts work on the same arrays, so all of them have to finish
+        // even when the current thread is interrupted
+        boolean interrupted = false;
+        RuntimeException error = null;
+        for (Future<Void> future : futures) {
+            while (true) {
+                try {
+                    TaskScheduler.join(future);
+                    break;
+                } catch (InterruptedException ex) {
+                    interrupted = true;
+                } catch (ExecutionException ex) {
+                    if (error == null) {
+                        Throwable cause = ex.getCause();
+                        error = cause instanceof RuntimeException ? (RuntimeException) cause : new RuntimeException(cause);
+                    }
+                    break;
+                }
+            }
+        }
+
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if (error != null) {
+            throw error;
+        }
+    }
+}
@@ -205,7 +205,7 @@ public class SoundFormat {
         ByteArrayOutputStream baos = new ByteArrayOutputStream();
         SoundDecoder decoder = getDecoder();
         for (ByteArrayRange dataRange : dataRanges) {
-            SWFInputStream sis = new SWFInputStream(null, dataRange.getArray(), 0, dataRange.getPos() + dataRange.getLength());
+            SWFInputStream sis = new SWFInputStream(null, dataRange.getBuffer(), 0, dataRange.getPos() + dataRange.getLength());
             sis.seek(dataRange.getPos());
             decoder.decode(sis, baos);
         }
@@ -284,7 +284,6 @@ public class Graph {
         return getCommonPart(localData, part, getNextParts(localData, part), loops, throwStates);
     }
 
-    //TODO: Make this faster!
     public GraphPart getCommonPart(BaseLocalData localData, GraphPart prev, List<GraphPart> parts, List<Loop> loops, List<ThrowState> throwStates) throws InterruptedException {
         if (parts.isEmpty()) {
             return null;
@@ -300,6 +299,7 @@ public class Graph {
             }
         }
 
+        GraphPartReachability reachability = new GraphPartReachability(localData, this, code, loops, throwStates);
         for (GraphPart p : parts) {
             if (loopContinues.contains(p)) {
                 break;
@@ -309,7 +309,7 @@ public class Graph {
                 if (q == p) {
                     continue;
                 }
-                if (!q.leadsTo(localData, this, code, p, loops, throwStates, false /*!!THROW*/)) {
+                if (!reachability.leadsTo(q, p)) {
                     common = false;
                     break;
                 }
@@ -372,6 +372,7 @@ public class Graph {
             allReachable.add(p);
             allReachable.addAll(r1);
         }
+        GraphPartReachability reachability = new GraphPartReachability(localData, this, code, loops, throwStates);
         int maxCommonLevel = -1;
         GraphPart maxCommonPart = null;
         for (GraphPart r : allReachable) {
@@ -385,7 +386,7 @@ public class Graph {
                     commonLevel++;
                     continue;
                 }
-                if (!p.leadsTo(localData, this, code, r, loops, throwStates, false)) {
+                if (!reachability.leadsTo(p, r)) {
                     common = false;
                 } else {
                     commonLevel++;
@@ -421,7 +422,7 @@ public class Graph {
                         if (visited.contains(n)) {
                             continue;
                         }
-                        if (!n.leadsTo(localData, this, code, r, loops, throwStates, false)) {
+                        if (!reachability.leadsTo(n, r)) {
                             common = false;
                             break loopprocess;
                         }
@@ -2756,11 +2757,15 @@ public class Graph {
         HashMap<Integer, List<Integer>> refs = code.visitCode(alternateEntries);
         List<GraphPart> ret = new ArrayList<>();
         boolean[] visited = new boolean[code.size()];
-        ret.add(makeGraph(null, new GraphPath(), code, 0, 0, allBlocks, refs, visited));
+        GraphPartIndex index = new GraphPartIndex(code.size() + 1);
+        for (GraphPart p : allBlocks) {
+            index.add(p);
+        }
+        ret.add(makeGraph(null, new GraphPath(), code, 0, 0, allBlocks, index, refs, visited));
         for (int pos : alternateEntries) {
             GraphPart e1 = new GraphPart(-1, -1);
             e1.path = new GraphPath("e");
-            ret.add(makeGraph(e1, new GraphPath("e"), code, pos, pos, allBlocks, refs, visited));
+            ret.add(makeGraph(e1, new GraphPath("e"), code, pos, pos, allBlocks, index, refs, visited));
         }
         checkGraph(allBlocks);
         return ret;
@@ -2782,13 +2787,18 @@ public class Graph {
         return null;
     }
 
-    private GraphPart makeGraph(GraphPart parent, GraphPath path, GraphSource code, int startip, int lastIp, List<GraphPart> allBlocks, HashMap<Integer, List<Integer>> refs, boolean[] visited) throws InterruptedException {
+    private void addBlock(List<GraphPart> allBlocks, GraphPartIndex index, GraphPart part) {
+        allBlocks.add(part);
+        index.add(part);
+    }
+
+    private GraphPart makeGraph(GraphPart parent, GraphPath path, GraphSource code, int startip, int lastIp, List<GraphPart> allBlocks, GraphPartIndex index, HashMap<Integer, List<Integer>> refs, boolean[] visited) throws InterruptedException {
         if (Thread.currentThread().isInterrupted()) {
             throw new InterruptedException();
         }
 
         int ip = startip;
-        GraphPart existingPart = searchPart(ip, allBlocks);
+        GraphPart existingPart = index.get(ip);
         if (existingPart != null) {
             if (parent != null) {
                 existingPart.refs.add(parent);
@@ -2810,9 +2820,9 @@ public class Graph {
             }
             if (visited[ip] || ((ip != startip) && (refs.get(ip).size() > 1))) {
                 part.end = lastIp;
-                GraphPart found = searchPart(ip, allBlocks);
+                GraphPart found = index.get(ip);
 
-                allBlocks.add(part);
+                addBlock(allBlocks, index, part);
 
                 if (found != null) {
                     part.nextParts.add(found);
@@ -2844,7 +2854,7 @@ public class Graph {
 
                     if ((ins instanceof ActionDefineFunction) || (ins instanceof ActionDefineFunction2)) {
                         part.end = lastIp;
-                        allBlocks.add(part);
+                        addBlock(allBlocks, index, part);
                         GraphPart nextGraphPart = new GraphPart(ip, -1);
                         nextGraphPart.path = path;
                         part.nextParts.add(nextGraphPart);
@@ -2856,21 +2866,21 @@ public class Graph {
                 continue;
             } else if (ins.isExit()) {
                 part.end = ip;
-                allBlocks.add(part);
+                addBlock(allBlocks, index, part);
                 break;
             } else if (ins.isJump()) {
                 part.end = ip;
-                allBlocks.add(part);
+                addBlock(allBlocks, index, part);
                 ip = ins.getBranches(code).get(0);
-                makeGraph(part, path, code, ip, lastIp, allBlocks, refs, visited);
+                makeGraph(part, path, code, ip, lastIp, allBlocks, index, refs, visited);
                 break;
             } else if (ins.isBranch()) {
                 part.end = ip;
 
-                allBlocks.add(part);
+                addBlock(allBlocks, index, part);
                 List<Integer> branches = ins.getBranches(code);
                 for (int i = 0; i < branches.size(); i++) {
-                    makeGraph(part, path.sub(i, ip), code, branches.get(i), ip, allBlocks, refs, visited);
+                    makeGraph(part, path.sub(i, ip), code, branches.get(i), ip, allBlocks, index, refs, visited);
                 }
                 break;
             }
@@ -2879,22 +2889,21 @@ public class Graph {
         if ((part.end == -1) && (ip >= code.size())) {
             if (part.start == code.size()) {
                 part.end = code.size();
-                allBlocks.add(part);
+                addBlock(allBlocks, index, part);
             } else {
                 part.end = ip - 1;
-                for (GraphPart p : allBlocks) {
-                    if (p.start == ip) {
-                        p.refs.add(part);
-                        part.nextParts.add(p);
-                        allBlocks.add(part);
-                        return ret;
-                    }
+                GraphPart p = index.getStartingAt(ip);
+                if (p != null) {
+                    p.refs.add(part);
+                    part.nextParts.add(p);
+                    addBlock(allBlocks, index, part);
+                    return ret;
                 }
                 GraphPart gp = new GraphPart(ip, ip);
-                allBlocks.add(gp);
+                addBlock(allBlocks, index, gp);
                 gp.refs.add(part);
                 part.nextParts.add(gp);
-                allBlocks.add(part);
+                addBlock(allBlocks, index, part);
             }
         }
         return ret;
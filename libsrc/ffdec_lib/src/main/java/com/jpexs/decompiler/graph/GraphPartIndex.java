@@ -0,0 +1,80 @@
+/*
+ *  Copyright (C) 2010-2021 JPEXS, All rights reserved.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3.0 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library. */
+package com.jpexs.decompiler.graph;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Finds parts by instruction position while the graph is being built.
+ *
+ * Gives the same results as Graph.searchPart on the list of parts in the
+ * order they were added - when parts overlap, the first added one wins.
+ *
+ * @author JPEXS
+ */
+public class GraphPartIndex {
+
+    private final GraphPart[] partsByIp;
+
+    private final Map<Integer, GraphPart> partsByStart = new HashMap<>();
+
+    /**
+     * Constructor.
+     *
+     * @param size Maximum instruction position + 1
+     */
+    public GraphPartIndex(int size) {
+        partsByIp = new GraphPart[size];
+    }
+
+    public void add(GraphPart part) {
+        if (!partsByStart.containsKey(part.start)) {
+            partsByStart.put(part.start, part);
+        }
+
+        int end = Math.min(part.end, partsByIp.length - 1);
+        for (int ip = Math.max(part.start, 0); ip <= end; ip++) {
+            if (partsByIp[ip] == null) {
+                partsByIp[ip] = part;
+            }
+        }
+    }
+
+    /**
+     * Gets part containing the instruction.
+     *
+     * @param ip Instruction position
+     * @return Part or null
+     */
+    public GraphPart get(int ip) {
+        if (ip < 0 || ip >= partsByIp.length) {
+            return null;
+        }
+
+        return partsByIp[ip];
+    }
+
+    /**
+     * Gets part starting at the instruction.
+     *
+     * @param ip Instruction position
+     * @return Part or null
+     */
+    public GraphPart getStartingAt(int ip) {
+        return partsByStart.get(ip);
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ *  Copyright (C) 2010-2021 JPEXS, All rights reserved.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3.0 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library.
+ */
+package com.jpexs.decompiler.graph;
+
+import com.jpexs.decompiler.flash.BaseLocalData;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Stack;
+
+/**
+ * Answers GraphPart.leadsTo queries with the same loops and throw states.
+ *
+ * The parts visited from a source part do not depend on the target, so they
+ * are walked only once for each source and the targets they lead to are
+ * remembered. Must not be used after the loops or throw states change.
+ *
+ * @author JPEXS
+ */
+public class GraphPartReachability {
+
+    private final BaseLocalData localData;
+
+    private final Graph graph;
+
+    private final GraphSource code;
+
+    private final List<Loop> loops;
+
+    private final List<ThrowState> throwStates;
+
+    private final Map<GraphPart, Set<GraphPart>> targets = new HashMap<>();
+
+    private static class Frame {
+
+        public final GraphPart part;
+
+        public final List<GraphPart> next;
+
+        public int pos = 0;
+
+        public Frame(GraphPart part, List<GraphPart> next) {
+            this.part = part;
+            this.next = next;
+        }
+    }
+
+    public GraphPartReachability(BaseLocalData localData, Graph graph, GraphSource code, List<Loop> loops, List<ThrowState> throwStates) {
+        this.localData = localData;
+        this.graph = graph;
+        this.code = code;
+        this.loops = loops;
+        this.throwStates = throwStates;
+    }
+
+    /**
+     * Same result as from.leadsTo(localData, graph, code, to, loops,
+     * throwStates, useThrow).
+     *
+     * @param from Source part
+     * @param to Target part
+     * @return True when the target is reachable
+     * @throws InterruptedException On interrupt
+     */
+    public boolean leadsTo(GraphPart from, GraphPart to) throws InterruptedException {
+        Set<GraphPart> ret = targets.get(from);
+        if (ret == null) {
+            ret = walk(from);
+            targets.put(from, ret);
+        }
+
+        return ret.contains(to);
+    }
+
+    /**
+     * Walks the parts in the same order as GraphPart.leadsTo does, so
+     * checkPart gets the same previous parts.
+     */
+    private Set<GraphPart> walk(GraphPart from) throws InterruptedException {
+        Set<GraphPart> ret = new HashSet<>();
+        Set<GraphPart> visited = new HashSet<>();
+        Stack<Frame> stack = new Stack<>();
+        enter(null, from, visited, stack);
+        while (!stack.isEmpty()) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new InterruptedException();
+            }
+
+            Frame frame = stack.peek();
+            if (frame.pos == frame.next.size()) {
+                stack.pop();
+                continue;
+            }
+
+            GraphPart p = frame.next.get(frame.pos++);
+            ret.add(p);
+            enter(frame.part, p, visited, stack);
+        }
+
+        return ret;
+    }
+
+    private void enter(GraphPart prev, GraphPart part, Set<GraphPart> visited, Stack<Frame> stack) {
+        while (true) {
+            GraphPart tpart = graph.checkPart(null, localData, prev, part, null);
+            if (tpart == null) {
+                return;
+            }
+            if (tpart == part) {
+                break;
+            }
+            prev = null;
+            part = tpart;
+        }
+
+        for (Loop l : loops) {
+            if (l.phase == 1) {
+                if (l.loopContinue == part || l.loopPreContinue == part) {
+                    return;
+                }
+            }
+        }
+
+        if (!visited.add(part)) {
+            return;
+        }
+
+        if (part.end < code.size() && code.get(part.end).isBranch() && (code.get(part.end).ignoredLoops())) {
+            return;
+        }
+
+        List<GraphPart> next = new ArrayList<>(part.nextParts);
+        for (ThrowState ts : throwStates) {
+            if (ts.state != 1) {
+                if (ts.throwingParts.contains(part)) {
+                    next.add(ts.targetPart);
+                }
+            }
+        }
+
+        stack.push(new Frame(part, next));
+    }
+}
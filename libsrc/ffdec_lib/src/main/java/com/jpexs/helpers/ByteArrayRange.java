@@ -12,12 +12,18 @@
  * Lesser General Public License for more details.
  * 
  * You should have received a copy of the GNU Lesser General Public
- * License along with this library. */
+ * License along with this library. */
 package com.jpexs.helpers;
 
 import com.jpexs.decompiler.flash.SWFInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
 
 /**
+ * Range of bytes in a byte array or in a memory mapped file.
  *
  * @author JPEXS
  */
@@ -25,20 +31,33 @@ public class ByteArrayRange {
 
     public static final ByteArrayRange EMPTY = new ByteArrayRange(SWFInputStream.BYTE_ARRAY_EMPTY);
 
-    private final byte[] array;
+    private final ByteBuffer buffer;
 
     private final int pos;
 
     private final int length;
 
     public ByteArrayRange(byte[] array) {
-        this.array = array;
+        this.buffer = ByteBuffer.wrap(array);
         this.pos = 0;
         this.length = array.length;
     }
 
     public ByteArrayRange(byte[] array, int pos, int length) {
-        this.array = array;
+        this.buffer = ByteBuffer.wrap(array);
+        this.pos = pos;
+        this.length = length;
+    }
+
+    /**
+     * Creates range in a buffer. Positions are absolute indices to the buffer.
+     *
+     * @param buffer Buffer
+     * @param pos Start position
+     * @param length Length
+     */
+    public ByteArrayRange(ByteBuffer buffer, int pos, int length) {
+        this.buffer = buffer;
         this.pos = pos;
         this.length = length;
     }
@@ -48,13 +67,32 @@ public class ByteArrayRange {
         for (int i = 0; i < hexString.length() / 2; i++) {
             array[i] = (byte) Integer.parseInt(hexString.substring(i * 2, i * 2 + 2), 16);
         }
-        this.array = array;
+        this.buffer = ByteBuffer.wrap(array);
         this.pos = 0;
         this.length = array.length;
     }
 
+    /**
+     * Gets the backing array. Ranges in memory mapped files have no backing
+     * array, check hasArray() first or use getBuffer().
+     *
+     * @return Backing array
+     */
     public byte[] getArray() {
-        return array;
+        return buffer.array();
+    }
+
+    public boolean hasArray() {
+        return buffer.hasArray();
+    }
+
+    /**
+     * Gets the whole backing buffer, the range starts at getPos().
+     *
+     * @return Backing buffer
+     */
+    public ByteBuffer getBuffer() {
+        return buffer;
     }
 
     public int getPos() {
@@ -66,22 +104,52 @@ public class ByteArrayRange {
     }
 
     public byte get(int index) {
-        return array[pos + index];
+        return buffer.get(pos + index);
     }
 
     public byte[] getRangeData() {
-        byte[] data = new byte[length];
-        System.arraycopy(array, pos, data, 0, length);
-        return data;
+        return getRangeData(0, length);
     }
 
     public byte[] getRangeData(int pos, int length) {
         byte[] data = new byte[length];
-        System.arraycopy(array, this.pos + pos, data, 0, length);
+        if (buffer.hasArray()) {
+            System.arraycopy(buffer.array(), this.pos + pos, data, 0, length);
+        } else {
+            ByteBuffer dup = buffer.duplicate();
+            dup.position(this.pos + pos);
+            dup.get(data);
+        }
+
         return data;
     }
 
     public ByteArrayRange getSubRange(int pos, int length) {
-        return new ByteArrayRange(array, this.pos + pos, length);
+        return new ByteArrayRange(buffer, this.pos + pos, length);
+    }
+
+    public InputStream getInputStream() throws IOException {
+        if (buffer.hasArray()) {
+            return new ByteArrayInputStream(buffer.array(), pos, length);
+        }
+
+        return new MemoryInputStream(buffer, pos, length);
+    }
+
+    public void writeTo(OutputStream os) throws IOException {
+        if (buffer.hasArray()) {
+            os.write(buffer.array(), pos, length);
+        } else {
+            byte[] buf = new byte[4096];
+            ByteBuffer dup = buffer.duplicate();
+            dup.position(pos);
+            int remaining = length;
+            while (remaining > 0) {
+                int count = Math.min(buf.length, remaining);
+                dup.get(buf, 0, count);
+                os.write(buf, 0, count);
+                remaining -= count;
+            }
+        }
     }
 }
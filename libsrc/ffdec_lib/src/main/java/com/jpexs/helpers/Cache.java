@@ -16,18 +16,22 @@
  */
 package com.jpexs.helpers;
 
+import com.jpexs.decompiler.flash.configuration.Configuration;
 import com.jpexs.decompiler.flash.helpers.Freed;
 import java.io.File;
 import java.io.IOException;
 import java.lang.ref.WeakReference;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.TreeSet;
+import java.util.TreeMap;
 import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  *
@@ -37,20 +41,61 @@ import java.util.WeakHashMap;
  */
 public class Cache<K, V> implements Freed {
 
-    private Map<K, V> cache;
+    private volatile Map<K, V> cache;
 
     private static final List<WeakReference<Cache>> instances = new ArrayList<>();
 
+    /**
+     * Memory budgets by cache name. All caches of the same name (for example
+     * the frame caches of all opened SWFs) share one part of the budget.
+     */
+    private static final Map<String, WeightedLruMap.Budget> budgets = new HashMap<>();
+
     public static final int STORAGE_FILES = 1;
 
     public static final int STORAGE_MEMORY = 2;
 
+    /*
+     * Parts of Configuration.cacheMemoryBudget in percent for the caches
+     * limited by weight, they sum to 100. Caches of the same name share one
+     * part, see getInstance.
+     */
+    public static final int BUDGET_SHARE_DISPLAY_OBJECT = 25;
+
+    public static final int BUDGET_SHARE_FRAME = 20;
+
+    public static final int BUDGET_SHARE_SOUND = 15;
+
+    public static final int BUDGET_SHARE_IMAGE = 15;
+
+    public static final int BUDGET_SHARE_SHAPE_EXPORT_DATA = 12;
+
+    public static final int BUDGET_SHARE_RECT = 5;
+
+    public static final int BUDGET_SHARE_GLYPH_MASK = 5;
+
+    public static final int BUDGET_SHARE_SYSTEM_FONT_GLYPH = 3;
+
     private final boolean weak;
 
     private final boolean memoryOnly;
 
     private final String name;
 
+    private final CacheCodec<V> codec;
+
+    private final CacheWeigher<V> weigher;
+
+    private final int budgetShare;
+
+    private final AtomicLong hitCount = new AtomicLong();
+
+    private final AtomicLong missCount = new AtomicLong();
+
+    private long previousEvictionCount = 0;
+
+    private WeightedLruMap<K, V> lruMap;
+
     static {
         Runtime.getRuntime().addShutdownHook(new Thread() {
 
@@ -69,15 +114,64 @@ public class Cache<K, V> implements Freed {
     }
 
     public static <K, V> Cache<K, V> getInstance(boolean weak, boolean memoryOnly, String name) {
-        Cache<K, V> instance = new Cache<>(weak, memoryOnly, name);
-        instances.add(new WeakReference<>(instance));
+        return getInstance(weak, memoryOnly, name, new SerializableCacheCodec<V>());
+    }
+
+    /**
+     * Gets cache instance.
+     *
+     * @param <K> Key type
+     * @param <V> Value type
+     * @param weak Use weak keys in memory storage
+     * @param memoryOnly Never store to file
+     * @param name Name of the cache
+     * @param codec Converts the values to bytes for file storage
+     * @return Cache
+     */
+    public static <K, V> Cache<K, V> getInstance(boolean weak, boolean memoryOnly, String name, CacheCodec<V> codec) {
+        return getInstance(weak, memoryOnly, name, codec, null, 0);
+    }
+
+    /**
+     * Gets cache instance with limited size in memory. Least recently used
+     * values are removed when the total weight of the values of all caches
+     * with the same name exceeds the given part of
+     * Configuration.cacheMemoryBudget. The weak flag is ignored for memory
+     * storage in this case.
+     *
+     * @param <K> Key type
+     * @param <V> Value type
+     * @param weak Use weak keys when the budget is not set
+     * @param memoryOnly Never store to file
+     * @param name Name of the cache
+     * @param codec Converts the values to bytes for file storage
+     * @param weigher Estimates memory used by the value
+     * @param budgetShare Part of the memory budget for this cache in percent,
+     * one of the BUDGET_SHARE_ constants
+     * @return Cache
+     */
+    public static <K, V> Cache<K, V> getInstance(boolean weak, boolean memoryOnly, String name, CacheCodec<V> codec, CacheWeigher<V> weigher, int budgetShare) {
+        Cache<K, V> instance = new Cache<>(weak, memoryOnly, name, codec, weigher, budgetShare);
+        synchronized (instances) {
+            Iterator<WeakReference<Cache>> it = instances.iterator();
+            while (it.hasNext()) {
+                if (it.next().get() == null) {
+                    it.remove();
+                }
+            }
+            instances.add(new WeakReference<>(instance));
+        }
         return instance;
     }
 
     private static int storageType = STORAGE_FILES;
 
     public static void clearAll() {
-        for (WeakReference<Cache> cw : instances) {
+        List<WeakReference<Cache>> list;
+        synchronized (instances) {
+            list = new ArrayList<>(instances);
+        }
+        for (WeakReference<Cache> cw : list) {
             Cache c = cw.get();
             if (c != null) {
                 c.clear();
@@ -107,58 +201,92 @@ public class Cache<K, V> implements Freed {
         return storageType;
     }
 
-    private void initCache() {
+    private synchronized void initCache() {
         int thisStorageType = storageType;
         if (memoryOnly) {
             thisStorageType = STORAGE_MEMORY;
         }
         Map<K, V> newCache = null;
+        WeightedLruMap<K, V> newLruMap = null;
         if (thisStorageType == STORAGE_FILES) {
             try {
-                newCache = new FileHashMap<>(File.createTempFile("ffdec_cache_" + name + "_", ".tmp"));
+                long maxSize = Configuration.cacheOnDiskSize.get() * 1024L * 1024L;
+                newCache = new MappedSlabMap<>(File.createTempFile("ffdec_cache_" + name + "_", ".tmp"), codec, maxSize);
             } catch (IOException ex) {
                 thisStorageType = STORAGE_MEMORY;
             }
         }
         if (thisStorageType == STORAGE_MEMORY) {
-            if (weak) {
-                newCache = new WeakHashMap<>();
+            long budget = Configuration.cacheMemoryBudget.get() * 1024L * 1024L;
+            if (weigher != null && budget > 0) {
+                // synchronized on the shared budget
+                newLruMap = new WeightedLruMap<>(weigher, getBudget(name, budget * budgetShare / 100));
+                newCache = newLruMap;
+            } else if (weak) {
+                newCache = Collections.synchronizedMap(new WeakHashMap<K, V>());
             } else {
-                newCache = new HashMap<>();
+                newCache = Collections.synchronizedMap(new HashMap<K, V>());
             }
         }
+        if (this.cache != null) {
+            previousEvictionCount += getCurrentEvictionCount();
+        }
         if (this.cache instanceof Freed) {
             ((Freed) this.cache).free();
         }
+        this.lruMap = newLruMap;
         this.cache = newCache;
     }
 
-    private Cache(boolean weak, boolean memoryOnly, String name) {
+    private static WeightedLruMap.Budget getBudget(String name, long maxWeight) {
+        synchronized (budgets) {
+            WeightedLruMap.Budget budget = budgets.get(name);
+            if (budget == null || budget.getMaxWeight() != maxWeight) {
+                budget = new WeightedLruMap.Budget(maxWeight);
+                budgets.put(name, budget);
+            }
+            return budget;
+        }
+    }
+
+    private Cache(boolean weak, boolean memoryOnly, String name, CacheCodec<V> codec, CacheWeigher<V> weigher, int budgetShare) {
         this.weak = weak;
         this.name = name;
         this.memoryOnly = memoryOnly;
+        this.codec = codec;
+        this.weigher = weigher;
+        this.budgetShare = budgetShare;
         initCache();
     }
 
-    public synchronized boolean contains(K key) {
-        return cache.containsKey(key);
+    // the underlying maps are thread safe, so different keys do not block each other
+    public boolean contains(K key) {
+        boolean ret = cache.containsKey(key);
+        if (!ret) {
+            missCount.incrementAndGet();
+        }
+        return ret;
     }
 
-    public synchronized void clear() {
+    public void clear() {
         cache.clear();
     }
 
-    public synchronized void remove(K key) {
-        if (cache.containsKey(key)) {
-            cache.remove(key);
-        }
+    public void remove(K key) {
+        cache.remove(key);
     }
 
-    public synchronized V get(K key) {
-        return cache.get(key);
+    public V get(K key) {
+        V ret = cache.get(key);
+        if (ret == null) {
+            missCount.incrementAndGet();
+        } else {
+            hitCount.incrementAndGet();
+        }
+        return ret;
     }
 
-    public synchronized void put(K key, V value) {
+    public void put(K key, V value) {
         cache.put(key, value);
     }
 
@@ -175,8 +303,75 @@ public class Cache<K, V> implements Freed {
     }
 
     public Set<K> keys() {
+        Map<K, V> c = cache;
         Set<K> ret = new HashSet<>();
-        ret.addAll(cache.keySet());
+        synchronized (c) {
+            ret.addAll(c.keySet());
+        }
         return ret;
     }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    public synchronized long getEvictionCount() {
+        return previousEvictionCount + getCurrentEvictionCount();
+    }
+
+    private long getCurrentEvictionCount() {
+        Map<K, V> c = cache;
+        if (c instanceof MappedSlabMap) {
+            return ((MappedSlabMap) c).getEvictionCount();
+        }
+        if (lruMap != null) {
+            return lruMap.getEvictionCount();
+        }
+        return 0;
+    }
+
+    /**
+     * Gets statistics of all caches.
+     *
+     * @return Hits, misses and evictions by cache name
+     */
+    public static String getStatistics() {
+        Map<String, long[]> stats = new TreeMap<>();
+        List<WeakReference<Cache>> list;
+        synchronized (instances) {
+            list = new ArrayList<>(instances);
+        }
+        for (WeakReference<Cache> cw : list) {
+            Cache c = cw.get();
+            if (c == null) {
+                continue;
+            }
+            long[] stat = stats.get(c.name);
+            if (stat == null) {
+                stat = new long[3];
+                stats.put(c.name, stat);
+            }
+            stat[0] += c.getHitCount();
+            stat[1] += c.getMissCount();
+            stat[2] += c.getEvictionCount();
+        }
+
+        StringBuilder sb = new StringBuilder();
+        for (String name : stats.keySet()) {
+            long[] stat = stats.get(name);
+            sb.append(name).append(": hits ").append(stat[0])
+                    .append(", misses ").append(stat[1])
+                    .append(", evictions ").append(stat[2])
+                    .append(Helper.newLine);
+        }
+        return sb.toString();
+    }
 }
@@ -0,0 +1,39 @@
+/*
+ *  Copyright (C) 2010-2021 JPEXS, All rights reserved.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3.0 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library. */
+package com.jpexs.helpers;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Binary format of values stored in file based cache.
+ *
+ * @author JPEXS
+ * @param <V> Value type
+ */
+public interface CacheCodec<V> {
+
+    public byte[] encode(V value) throws IOException;
+
+    /**
+     * Decodes the value.
+     *
+     * @param data Encoded value, position is at the start, limit at the end
+     * @return Value
+     * @throws IOException On invalid data
+     */
+    public V decode(ByteBuffer data) throws IOException;
+}
@@ -39,6 +39,11 @@ import java.util.logging.Logger;
  */
 public abstract class CancellableWorker<T> implements RunnableFuture<T> {
 
+    /**
+     * Workers can block for a long time (running processes, waiting for
+     * subtasks), so they have their own unbounded pool instead of the
+     * TaskScheduler.
+     */
     private static final ExecutorService THREAD_POOL = Executors.newCachedThreadPool();
 
     private static List<CancellableWorker> workers = Collections.synchronizedList(new ArrayList<CancellableWorker>());
@@ -123,13 +128,17 @@ public abstract class CancellableWorker<T> implements RunnableFuture<T> {
 
     @Override
     public final T get() throws InterruptedException, ExecutionException {
+        TaskScheduler.awaitDone(future);
         return future.get();
     }
 
     @Override
     public final T get(long timeout, TimeUnit unit) throws InterruptedException,
             ExecutionException, TimeoutException {
-        return future.get(timeout, unit);
+        if (!TaskScheduler.awaitDone(future, timeout, unit)) {
+            throw new TimeoutException();
+        }
+        return future.get();
     }
 
     private void workerDone() {
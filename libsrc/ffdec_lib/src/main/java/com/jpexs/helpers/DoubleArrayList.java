@@ -0,0 +1,156 @@
+/*
+ *  Copyright (C) 2010-2021 JPEXS, All rights reserved.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3.0 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library.
+ */
+package com.jpexs.helpers;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * List of doubles stored in a primitive array. Like HashArrayList, indexOf is a
+ * hash lookup returning the last position of the value, the hash index is
+ * built on the first indexOf call only. Values are compared like in
+ * Double.equals - NaN equals NaN, 0.0 and -0.0 differ.
+ *
+ * Not thread safe, except for building the index.
+ *
+ * @author JPEXS
+ */
+public class DoubleArrayList extends AbstractList<Double> implements RandomAccess {
+
+    private double[] values;
+
+    private int size;
+
+    private volatile LongIndex index;
+
+    public DoubleArrayList() {
+        this(10);
+    }
+
+    public DoubleArrayList(int initialCapacity) {
+        values = new double[initialCapacity];
+    }
+
+    public DoubleArrayList(DoubleArrayList list) {
+        values = Arrays.copyOf(list.values, list.size);
+        size = list.size;
+    }
+
+    public void ensureCapacity(int minCapacity) {
+        if (minCapacity > values.length) {
+            values = Arrays.copyOf(values, Math.max(minCapacity, values.length + (values.length >> 1)));
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    public double getDouble(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+
+        return values[index];
+    }
+
+    @Override
+    public Double get(int index) {
+        return getDouble(index);
+    }
+
+    public void addDouble(double value) {
+        ensureCapacity(size + 1);
+        values[size] = value;
+        LongIndex idx = index;
+        if (idx != null) {
+            idx.put(Double.doubleToLongBits(value), size);
+        }
+
+        size++;
+        modCount++;
+    }
+
+    /**
+     * Adds the value, null is stored as zero.
+     *
+     * @param value Value
+     * @return True
+     */
+    @Override
+    public boolean add(Double value) {
+        addDouble(value == null ? 0 : value);
+        return true;
+    }
+
+    public double setDouble(int index, double value) {
+        double old = getDouble(index);
+        values[index] = value;
+        this.index = null;
+        return old;
+    }
+
+    @Override
+    public Double set(int index, Double value) {
+        return setDouble(index, value == null ? 0 : value);
+    }
+
+    /**
+     * Gets the last position of the value.
+     *
+     * @param value Value
+     * @return Position or -1 when not found
+     */
+    public int indexOfDouble(double value) {
+        return getIndex().get(Double.doubleToLongBits(value));
+    }
+
+    @Override
+    public int indexOf(Object o) {
+        if (!(o instanceof Double)) {
+            return -1;
+        }
+
+        return indexOfDouble((Double) o);
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return indexOf(o) != -1;
+    }
+
+    private LongIndex getIndex() {
+        LongIndex ret = index;
+        if (ret == null) {
+            synchronized (this) {
+                ret = index;
+                if (ret == null) {
+                    ret = new LongIndex(size);
+                    for (int i = 0; i < size; i++) {
+                        ret.put(Double.doubleToLongBits(values[i]), i);
+                    }
+
+                    index = ret;
+                }
+            }
+        }
+
+        return ret;
+    }
+}
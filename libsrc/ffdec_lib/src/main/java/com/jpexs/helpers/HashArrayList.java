@@ -20,54 +20,74 @@ import java.util.Collection;
 import java.util.HashMap;
 
 /**
+ * ArrayList with hash lookup in indexOf, which returns the last position of
+ * the value. The hash map is built on the first indexOf call only, so lists
+ * which are only read by position do not pay for it.
  *
  * @author JPEXS
  */
 public class HashArrayList<E> extends ArrayList<E> {
 
-    private HashMap<E, Integer> map = new HashMap<>();
+    private volatile HashMap<E, Integer> map;
 
     public HashArrayList() {
     }
 
     public HashArrayList(Collection<? extends E> c) {
-        for (E e : c) {
-            add(e);
-        }
+        super(c);
     }
 
     public HashArrayList(int initialCapacity) {
         super(initialCapacity);
     }
 
-    @Override
-    public void ensureCapacity(int minCapacity) {
-        super.ensureCapacity(minCapacity);
-        HashMap<E, Integer> oldMap = map;
-        map = new HashMap<>(minCapacity * 10 / 7);
-        map.putAll(oldMap);
-    }
-
     @Override
     public boolean add(E e) {
-        map.put(e, size());
+        HashMap<E, Integer> m = map;
+        if (m != null) {
+            m.put(e, size());
+        }
+
         return super.add(e);
     }
 
     @Override
     public E set(int index, E element) {
-        map.remove(get(index));
-        map.put(element, index);
+        HashMap<E, Integer> m = map;
+        if (m != null) {
+            m.remove(get(index));
+            m.put(element, index);
+        }
+
         return super.set(index, element);
     }
 
     @Override
     public int indexOf(Object o) {
-        Integer index = map.get(o);
+        Integer index = getMap().get(o);
         if (index == null) {
             return -1;
         }
 
         return index;
     }
+
+    private HashMap<E, Integer> getMap() {
+        HashMap<E, Integer> ret = map;
+        if (ret == null) {
+            synchronized (this) {
+                ret = map;
+                if (ret == null) {
+                    ret = new HashMap<>(size() * 4 / 3 + 1);
+                    for (int i = 0; i < size(); i++) {
+                        ret.put(get(i), i);
+                    }
+
+                    map = ret;
+                }
+            }
+        }
+
+        return ret;
+    }
 }
@@ -753,7 +753,7 @@ public class Helper {
     }
 
     public static byte[] readStream(InputStream is) {
-        if (is instanceof MemoryInputStream) {
+        if (is instanceof MemoryInputStream && ((MemoryInputStream) is).getBuffer().hasArray()) {
             return ((MemoryInputStream) is).getAllRead();
         }
 
@@ -0,0 +1,86 @@
+/*
+ *  Copyright (C) 2010-2021 JPEXS, All rights reserved.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3.0 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library. */
+package com.jpexs.helpers;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Codec storing int based images as raw pixels, so no PNG compression is
+ * needed on each access. Other image types are serialized.
+ *
+ * @author JPEXS
+ */
+public class ImageCacheCodec implements CacheCodec<SerializableImage> {
+
+    private static final int FORMAT_RAW = 0;
+
+    private static final int FORMAT_SERIALIZED = 1;
+
+    private final SerializableCacheCodec<SerializableImage> serializableCodec = new SerializableCacheCodec<>();
+
+    private static boolean isRawType(int type) {
+        return type == BufferedImage.TYPE_INT_ARGB
+                || type == BufferedImage.TYPE_INT_ARGB_PRE
+                || type == BufferedImage.TYPE_INT_RGB;
+    }
+
+    @Override
+    public byte[] encode(SerializableImage value) throws IOException {
+        BufferedImage image = value.getBufferedImage();
+        int type = image.getType();
+        if (!isRawType(type)) {
+            byte[] data = serializableCodec.encode(value);
+            ByteBuffer ret = ByteBuffer.allocate(1 + data.length);
+            ret.put((byte) FORMAT_SERIALIZED);
+            ret.put(data);
+            return ret.array();
+        }
+
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int[] pixels = (int[]) image.getRaster().getDataElements(0, 0, width, height, null);
+        ByteBuffer ret = ByteBuffer.allocate(1 + 3 * 4 + pixels.length * 4);
+        ret.put((byte) FORMAT_RAW);
+        ret.putInt(type);
+        ret.putInt(width);
+        ret.putInt(height);
+        ret.asIntBuffer().put(pixels);
+        return ret.array();
+    }
+
+    @Override
+    public SerializableImage decode(ByteBuffer data) throws IOException {
+        int format = data.get();
+        if (format == FORMAT_SERIALIZED) {
+            return serializableCodec.decode(data.slice());
+        }
+
+        int type = data.getInt();
+        int width = data.getInt();
+        int height = data.getInt();
+        if (!isRawType(type) || width <= 0 || height <= 0 || (long) width * height * 4 != data.remaining()) {
+            throw new IOException("Invalid image data");
+        }
+
+        int[] pixels = new int[width * height];
+        data.asIntBuffer().get(pixels);
+        BufferedImage image = new BufferedImage(width, height, type);
+        image.getRaster().setDataElements(0, 0, width, height, pixels);
+        return new SerializableImage(image);
+    }
+}
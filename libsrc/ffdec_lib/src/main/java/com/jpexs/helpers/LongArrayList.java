@@ -0,0 +1,154 @@
+/*
+ *  Copyright (C) 2010-2021 JPEXS, All rights reserved.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3.0 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library. */
+package com.jpexs.helpers;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * List of longs stored in a primitive array. Like HashArrayList, indexOf is a
+ * hash lookup returning the last position of the value, the hash index is
+ * built on the first indexOf call only.
+ *
+ * Not thread safe, except for building the index.
+ *
+ * @author JPEXS
+ */
+public class LongArrayList extends AbstractList<Long> implements RandomAccess {
+
+    private long[] values;
+
+    private int size;
+
+    private volatile LongIndex index;
+
+    public LongArrayList() {
+        this(10);
+    }
+
+    public LongArrayList(int initialCapacity) {
+        values = new long[initialCapacity];
+    }
+
+    public LongArrayList(LongArrayList list) {
+        values = Arrays.copyOf(list.values, list.size);
+        size = list.size;
+    }
+
+    public void ensureCapacity(int minCapacity) {
+        if (minCapacity > values.length) {
+            values = Arrays.copyOf(values, Math.max(minCapacity, values.length + (values.length >> 1)));
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    public long getLong(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+
+        return values[index];
+    }
+
+    @Override
+    public Long get(int index) {
+        return getLong(index);
+    }
+
+    public void addLong(long value) {
+        ensureCapacity(size + 1);
+        values[size] = value;
+        LongIndex idx = index;
+        if (idx != null) {
+            idx.put(value, size);
+        }
+
+        size++;
+        modCount++;
+    }
+
+    /**
+     * Adds the value, null is stored as zero.
+     *
+     * @param value Value
+     * @return True
+     */
+    @Override
+    public boolean add(Long value) {
+        addLong(value == null ? 0 : value);
+        return true;
+    }
+
+    public long setLong(int index, long value) {
+        long old = getLong(index);
+        values[index] = value;
+        this.index = null;
+        return old;
+    }
+
+    @Override
+    public Long set(int index, Long value) {
+        return setLong(index, value == null ? 0 : value);
+    }
+
+    /**
+     * Gets the last position of the value.
+     *
+     * @param value Value
+     * @return Position or -1 when not found
+     */
+    public int indexOfLong(long value) {
+        return getIndex().get(value);
+    }
+
+    @Override
+    public int indexOf(Object o) {
+        if (!(o instanceof Long)) {
+            return -1;
+        }
+
+        return indexOfLong((Long) o);
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return indexOf(o) != -1;
+    }
+
+    private LongIndex getIndex() {
+        LongIndex ret = index;
+        if (ret == null) {
+            synchronized (this) {
+                ret = index;
+                if (ret == null) {
+                    ret = new LongIndex(size);
+                    for (int i = 0; i < size; i++) {
+                        ret.put(values[i], i);
+                    }
+
+                    index = ret;
+                }
+            }
+        }
+
+        return ret;
+    }
+}
@@ -0,0 +1,734 @@
+/*
+ *  Copyright (C) 2010-2021 JPEXS, All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3.0 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library. */
+package com.jpexs.helpers;
+
+import com.jpexs.decompiler.flash.helpers.Freed;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.AbstractMap;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Map storing encoded values in a memory mapped temporary file.
+ *
+ * The file is divided to pages, each page to slots of one size class (powers
+ * of two). A value is stored in the smallest slot it fits in. When the file
+ * reached maximum size, an old entry of the same size class is evicted, or
+ * less recently used pages of other size classes are reclaimed for the size
+ * class, so the map works as a cache - a value put to it can be missing later.
+ *
+ * Keys are split to stripes with own locks, values are encoded and decoded
+ * outside of the locks. Values are written to the slots under a shared lock
+ * which clear takes exclusively, so a slot is never reused while written.
+ *
+ * @author JPEXS
+ * @param <K> Key type
+ * @param <V> Value type
+ */
+public class MappedSlabMap<K, V> extends AbstractMap<K, V> implements Freed {
+
+    private static final Logger logger = Logger.getLogger(MappedSlabMap.class.getName());
+
+    private static final int STRIPE_COUNT = 16;
+
+    private static final int MIN_SLOT_SHIFT = 6;
+
+    private static final int CHUNK_SIZE = 64 * 1024 * 1024;
+
+    private static final int PAGE_SIZE = 1024 * 1024;
+
+    private static final int SIZE_CLASS_COUNT = Integer.numberOfTrailingZeros(CHUNK_SIZE) - MIN_SLOT_SHIFT + 1;
+
+    private static final int EVICTION_SAMPLES = 8;
+
+    private static class Page {
+
+        public final long offset;
+
+        public final int size;
+
+        /**
+         * Size class of the slots, -1 for free page
+         */
+        public final int sizeClass;
+
+        /**
+         * Number of slots given by allocate and not registered yet, such page
+         * cannot be reclaimed
+         */
+        public int pending;
+
+        public volatile long lastAccess;
+
+        /**
+         * Position in the list of pages
+         */
+        public int listPos = -1;
+
+        public Page(long offset, int size, int sizeClass) {
+            this.offset = offset;
+            this.size = size;
+            this.sizeClass = sizeClass;
+        }
+    }
+
+    private static class Slot {
+
+        public final int sizeClass;
+
+        public final long offset;
+
+        public final int epoch;
+
+        public final Page page;
+
+        public Slot(int sizeClass, long offset, int epoch, Page page) {
+            this.sizeClass = sizeClass;
+            this.offset = offset;
+            this.epoch = epoch;
+            this.page = page;
+        }
+    }
+
+    private static class Entry<K> {
+
+        public final K key;
+
+        public final Slot slot;
+
+        public final int length;
+
+        public volatile long lastAccess;
+
+        /**
+         * Set before the slot is reused, readers must check it after reading
+         */
+        public volatile boolean evicted;
+
+        /**
+         * Position in the entries of the size class, -1 when not registered
+         */
+        public int classPos = -1;
+
+        public Entry(K key, Slot slot, int length) {
+            this.key = key;
+            this.slot = slot;
+            this.length = length;
+        }
+    }
+
+    private final Map<K, Entry<K>>[] stripes;
+
+    private final CacheCodec<V> codec;
+
+    private final long maxSize;
+
+    private final File fileName;
+
+    private final RandomAccessFile file;
+
+    private final FileChannel channel;
+
+    private final List<MappedByteBuffer> chunks = new CopyOnWriteArrayList<>();
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    private final ReentrantReadWriteLock clearLock = new ReentrantReadWriteLock();
+
+    private final Object allocatorLock = new Object();
+
+    // guarded by allocatorLock
+    private final List<ArrayDeque<Slot>> freeSlots = new ArrayList<>();
+
+    private final List<List<Entry<K>>> classEntries = new ArrayList<>();
+
+    private final TreeMap<Long, Page> pagesByOffset = new TreeMap<>();
+
+    private final List<Page> pages = new ArrayList<>();
+
+    private final ArrayDeque<Page> freePages = new ArrayDeque<>();
+
+    private final Random random = new Random();
+
+    private long allocated = 0;
+
+    private int chunkIndex = -1;
+
+    private int chunkUsed = CHUNK_SIZE;
+
+    private int epoch = 0;
+
+    private volatile boolean deleted = false;
+
+    @SuppressWarnings("unchecked")
+    public MappedSlabMap(File file, CacheCodec<V> codec, long maxSize) throws IOException {
+        this.fileName = file;
+        this.file = new RandomAccessFile(file, "rw");
+        this.file.setLength(0);
+        this.channel = this.file.getChannel();
+        this.codec = codec;
+        this.maxSize = maxSize;
+        file.deleteOnExit();
+        stripes = new Map[STRIPE_COUNT];
+        for (int i = 0; i < STRIPE_COUNT; i++) {
+            stripes[i] = new HashMap<>();
+        }
+        for (int i = 0; i < SIZE_CLASS_COUNT; i++) {
+            freeSlots.add(new ArrayDeque<>());
+            classEntries.add(new ArrayList<>());
+        }
+    }
+
+    private Map<K, Entry<K>> getStripe(Object key) {
+        int h = key == null ? 0 : key.hashCode();
+        h ^= (h >>> 16);
+        return stripes[h & (STRIPE_COUNT - 1)];
+    }
+
+    private static int getSizeClass(int length) {
+        int sizeClass = 0;
+        while ((1 << (sizeClass + MIN_SLOT_SHIFT)) < length) {
+            sizeClass++;
+        }
+
+        return sizeClass < SIZE_CLASS_COUNT ? sizeClass : -1;
+    }
+
+    private static int getSlotSize(int sizeClass) {
+        return 1 << (sizeClass + MIN_SLOT_SHIFT);
+    }
+
+    private static int getPageSize(int sizeClass) {
+        return Math.max(PAGE_SIZE, getSlotSize(sizeClass));
+    }
+
+    private void checkDeleted() {
+        if (deleted) {
+            throw new NullPointerException();
+        }
+    }
+
+    /**
+     * Gets free slot, adds a page or evicts old entries when needed.
+     */
+    private Slot allocate(int length) throws IOException {
+        int sizeClass = getSizeClass(length);
+        if (sizeClass == -1) {
+            return null;
+        }
+
+        synchronized (allocatorLock) {
+            ArrayDeque<Slot> free = freeSlots.get(sizeClass);
+            if (free.isEmpty()) {
+                int pageSize = getPageSize(sizeClass);
+                if (pageSize == PAGE_SIZE && !freePages.isEmpty()) {
+                    Page page = freePages.poll();
+                    removePage(page);
+                    addPage(sizeClass, page.offset, pageSize);
+                } else if (allocated + pageSize <= maxSize) {
+                    addNewPage(sizeClass, pageSize);
+                } else {
+                    Entry<K> victim = selectVictim(sizeClass);
+                    List<Page> victimPages = selectVictimPages(sizeClass, pageSize);
+                    if (victimPages != null && (victim == null || getLastAccess(victimPages) < victim.lastAccess)) {
+                        reclaimPages(victimPages, sizeClass, pageSize);
+                    } else if (victim != null) {
+                        victim.evicted = true;
+                        unregister(victim);
+                        evictionCount.incrementAndGet();
+                        victim.slot.page.pending++;
+                        return victim.slot;
+                    } else {
+                        return null;
+                    }
+                }
+            }
+
+            Slot slot = free.poll();
+            slot.page.pending++;
+            return slot;
+        }
+    }
+
+    private void addNewPage(int sizeClass, int pageSize) throws IOException {
+        if (chunkUsed + pageSize > CHUNK_SIZE) {
+            chunkIndex++;
+            if (chunkIndex >= chunks.size()) {
+                chunks.add(channel.map(FileChannel.MapMode.READ_WRITE, (long) chunkIndex * CHUNK_SIZE, CHUNK_SIZE));
+            }
+            chunkUsed = 0;
+        }
+
+        addPage(sizeClass, (long) chunkIndex * CHUNK_SIZE + chunkUsed, pageSize);
+        chunkUsed += pageSize;
+        allocated += pageSize;
+    }
+
+    private void addPage(int sizeClass, long offset, int pageSize) {
+        Page page = new Page(offset, pageSize, sizeClass);
+        putPage(page);
+        int slotSize = getSlotSize(sizeClass);
+        ArrayDeque<Slot> free = freeSlots.get(sizeClass);
+        for (int i = 0; i < pageSize / slotSize; i++) {
+            free.add(new Slot(sizeClass, offset + (long) i * slotSize, epoch, page));
+        }
+    }
+
+    private void putPage(Page page) {
+        pagesByOffset.put(page.offset, page);
+        page.listPos = pages.size();
+        pages.add(page);
+    }
+
+    private void removePage(Page page) {
+        pagesByOffset.remove(page.offset);
+        Page last = pages.remove(pages.size() - 1);
+        if (last != page) {
+            pages.set(page.listPos, last);
+            last.listPos = page.listPos;
+        }
+        page.listPos = -1;
+    }
+
+    /**
+     * Selects contiguous pages of other size classes to reclaim. Approximate
+     * LRU - the least recently used of few randomly chosen page runs.
+     *
+     * @param sizeClass Size class which needs the page
+     * @param pageSize Size of the needed page
+     * @return Pages or null when there are no suitable pages
+     */
+    private List<Page> selectVictimPages(int sizeClass, int pageSize) {
+        if (pages.isEmpty()) {
+            return null;
+        }
+
+        List<Page> ret = null;
+        long retLastAccess = Long.MAX_VALUE;
+        for (int i = 0; i < EVICTION_SAMPLES; i++) {
+            Page page = pages.get(random.nextInt(pages.size()));
+            if (page.sizeClass == sizeClass) {
+                continue;
+            }
+
+            List<Page> run = new ArrayList<>();
+            long size = 0;
+            long chunk = page.offset / CHUNK_SIZE;
+            while (page != null && page.pending == 0 && page.offset / CHUNK_SIZE == chunk) {
+                run.add(page);
+                size += page.size;
+                if (size >= pageSize) {
+                    break;
+                }
+                page = pagesByOffset.get(page.offset + page.size);
+            }
+
+            if (size >= pageSize) {
+                long lastAccess = getLastAccess(run);
+                if (lastAccess < retLastAccess) {
+                    ret = run;
+                    retLastAccess = lastAccess;
+                }
+            }
+        }
+
+        return ret;
+    }
+
+    private static long getLastAccess(List<Page> run) {
+        long ret = 0;
+        for (Page page : run) {
+            ret = Math.max(ret, page.lastAccess);
+        }
+
+        return ret;
+    }
+
+    /**
+     * Evicts all entries of the pages and uses their space for new page of the
+     * size class. The rest of the space is kept as free pages.
+     */
+    private void reclaimPages(List<Page> victimPages, int sizeClass, int pageSize) {
+        long offset = victimPages.get(0).offset;
+        long size = 0;
+        for (Page page : victimPages) {
+            evictPage(page);
+            removePage(page);
+            size += page.size;
+        }
+
+        addPage(sizeClass, offset, pageSize);
+        for (long o = offset + pageSize; o < offset + size; o += PAGE_SIZE) {
+            Page free = new Page(o, PAGE_SIZE, -1);
+            putPage(free);
+            freePages.add(free);
+        }
+    }
+
+    private void evictPage(Page page) {
+        if (page.sizeClass == -1) {
+            freePages.remove(page);
+            return;
+        }
+
+        List<Entry<K>> entries = classEntries.get(page.sizeClass);
+        // unregister moves the last entry to the removed position, go backwards
+        for (int i = entries.size() - 1; i >= 0; i--) {
+            Entry<K> e = entries.get(i);
+            if (e.slot.page == page) {
+                e.evicted = true;
+                unregister(e);
+                evictionCount.incrementAndGet();
+            }
+        }
+        freeSlots.get(page.sizeClass).removeIf(slot -> slot.page == page);
+    }
+
+    /**
+     * Approximate LRU - the oldest of few randomly chosen entries.
+     */
+    private Entry<K> selectVictim(int sizeClass) {
+        List<Entry<K>> entries = classEntries.get(sizeClass);
+        if (entries.isEmpty()) {
+            return null;
+        }
+
+        Entry<K> victim = null;
+        for (int i = 0; i < EVICTION_SAMPLES; i++) {
+            Entry<K> e = entries.get(random.nextInt(entries.size()));
+            if (victim == null || e.lastAccess < victim.lastAccess) {
+                victim = e;
+            }
+        }
+
+        return victim;
+    }
+
+    private void register(Entry<K> entry) {
+        entry.slot.page.pending--;
+        entry.slot.page.lastAccess = entry.lastAccess;
+        if (entry.slot.epoch != epoch || entry.evicted) {
+            // cleared meanwhile
+            entry.evicted = true;
+            return;
+        }
+        List<Entry<K>> entries = classEntries.get(entry.slot.sizeClass);
+        entry.classPos = entries.size();
+        entries.add(entry);
+    }
+
+    private void unregister(Entry<K> entry) {
+        if (entry.classPos == -1) {
+            return;
+        }
+
+        List<Entry<K>> entries = classEntries.get(entry.slot.sizeClass);
+        Entry<K> last = entries.remove(entries.size() - 1);
+        if (last != entry) {
+            entries.set(entry.classPos, last);
+            last.classPos = entry.classPos;
+        }
+        entry.classPos = -1;
+    }
+
+    private void release(Entry<K> entry) {
+        if (entry.evicted) {
+            return;
+        }
+        entry.evicted = true;
+        unregister(entry);
+        if (entry.slot.epoch == epoch) {
+            freeSlots.get(entry.slot.sizeClass).push(entry.slot);
+        }
+    }
+
+    private ByteBuffer getData(Slot slot, int length) {
+        ByteBuffer buf = chunks.get((int) (slot.offset / CHUNK_SIZE)).duplicate();
+        int pos = (int) (slot.offset % CHUNK_SIZE);
+        buf.position(pos);
+        buf.limit(pos + length);
+        return buf.slice();
+    }
+
+    private Entry<K> getEntry(Object key) {
+        Map<K, Entry<K>> stripe = getStripe(key);
+        synchronized (stripe) {
+            Entry<K> e = stripe.get(key);
+            if (e != null && e.evicted) {
+                stripe.remove(key);
+                return null;
+            }
+            return e;
+        }
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        checkDeleted();
+        return getEntry(key) != null;
+    }
+
+    @Override
+    public V get(Object key) {
+        checkDeleted();
+        Entry<K> e = getEntry(key);
+        if (e == null) {
+            return null;
+        }
+
+        e.lastAccess = clock.incrementAndGet();
+        e.slot.page.lastAccess = e.lastAccess;
+        V ret;
+        try {
+            ret = codec.decode(getData(e.slot, e.length));
+        } catch (IOException | RuntimeException ex) {
+            if (!e.evicted) {
+                logger.log(Level.SEVERE, null, ex);
+            }
+            return null;
+        }
+
+        if (e.evicted) {
+            // the slot was reused while decoding
+            return null;
+        }
+        return ret;
+    }
+
+    @Override
+    public V put(K key, V value) {
+        checkDeleted();
+        byte[] data;
+        try {
+            data = codec.encode(value);
+        } catch (IOException ex) {
+            logger.log(Level.SEVERE, null, ex);
+            remove(key);
+            return value;
+        }
+
+        clearLock.readLock().lock();
+        try {
+            Slot slot;
+            try {
+                slot = allocate(data.length);
+            } catch (IOException ex) {
+                logger.log(Level.SEVERE, null, ex);
+                slot = null;
+            }
+
+            if (slot == null) {
+                // too big or no space, do not keep old value
+                remove(key);
+                return value;
+            }
+
+            getData(slot, data.length).put(data);
+            Entry<K> e = new Entry<>(key, slot, data.length);
+            e.lastAccess = clock.incrementAndGet();
+            Map<K, Entry<K>> stripe = getStripe(key);
+            synchronized (stripe) {
+                Entry<K> old = stripe.put(key, e);
+                synchronized (allocatorLock) {
+                    register(e);
+                    if (old != null) {
+                        release(old);
+                    }
+                }
+            }
+        } finally {
+            clearLock.readLock().unlock();
+        }
+
+        return value;
+    }
+
+    /**
+     * Removes the entry.
+     *
+     * @param key Key
+     * @return Always null, the old value is not decoded
+     */
+    @Override
+    public V remove(Object key) {
+        checkDeleted();
+        Map<K, Entry<K>> stripe = getStripe(key);
+        synchronized (stripe) {
+            Entry<K> e = stripe.remove(key);
+            if (e != null) {
+                synchronized (allocatorLock) {
+                    release(e);
+                }
+            }
+        }
+
+        return null;
+    }
+
+    @Override
+    public void clear() {
+        checkDeleted();
+        clearLock.writeLock().lock();
+        try {
+            for (Map<K, Entry<K>> stripe : stripes) {
+                synchronized (stripe) {
+                    for (Entry<K> e : stripe.values()) {
+                        e.evicted = true;
+                    }
+                    stripe.clear();
+                }
+            }
+
+            synchronized (allocatorLock) {
+                epoch++;
+                for (int i = 0; i < SIZE_CLASS_COUNT; i++) {
+                    freeSlots.get(i).clear();
+                    classEntries.get(i).clear();
+                }
+                pagesByOffset.clear();
+                pages.clear();
+                freePages.clear();
+                allocated = 0;
+                chunkIndex = -1;
+                chunkUsed = CHUNK_SIZE;
+            }
+        } finally {
+            clearLock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Set<K> keySet() {
+        checkDeleted();
+        Set<K> ret = new HashSet<>();
+        for (Map<K, Entry<K>> stripe : stripes) {
+            synchronized (stripe) {
+                for (Entry<K> e : stripe.values()) {
+                    if (!e.evicted) {
+                        ret.add(e.key);
+                    }
+                }
+            }
+        }
+
+        return ret;
+    }
+
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+        checkDeleted();
+        Set<Map.Entry<K, V>> ret = new HashSet<>();
+        for (K key : keySet()) {
+            V value = get(key);
+            if (value != null) {
+                ret.add(new SimpleImmutableEntry<>(key, value));
+            }
+        }
+
+        return ret;
+    }
+
+    @Override
+    public int size() {
+        checkDeleted();
+        int size = 0;
+        for (Map<K, Entry<K>> stripe : stripes) {
+            synchronized (stripe) {
+                for (Entry<K> e : stripe.values()) {
+                    if (!e.evicted) {
+                        size++;
+                    }
+                }
+            }
+        }
+
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Gets size of the allocated pages.
+     *
+     * @return Size in bytes
+     */
+    public long getAllocatedSize() {
+        synchronized (allocatorLock) {
+            return allocated;
+        }
+    }
+
+    /**
+     * Gets number of entries removed to free space.
+     *
+     * @return Count
+     */
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    public void delete() {
+        checkDeleted();
+        deleted = true;
+        for (Map<K, Entry<K>> stripe : stripes) {
+            synchronized (stripe) {
+                stripe.clear();
+            }
+        }
+        chunks.clear();
+        try {
+            file.close();
+        } catch (IOException ex) {
+            logger.log(Level.SEVERE, null, ex);
+        }
+        // can fail while the buffers are not garbage collected, deleteOnExit is set
+        fileName.delete();
+    }
+
+    @Override
+    public boolean isFreeing() {
+        return !deleted;
+    }
+
+    @Override
+    public void free() {
+        if (!deleted) {
+            delete();
+        }
+    }
+}
@@ -12,11 +12,13 @@
  * Lesser General Public License for more details.
  * 
  * You should have received a copy of the GNU Lesser General Public
- * License along with this library. */
+ * License along with this library. */
 package com.jpexs.helpers;
 
 import com.jpexs.helpers.streams.SeekableInputStream;
+import java.io.EOFException;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 /**
  *
@@ -24,7 +26,7 @@ import java.io.IOException;
  */
 public class MemoryInputStream extends SeekableInputStream {
 
-    private final byte[] buffer;
+    private final ByteBuffer buffer;
 
     private long pos;
 
@@ -41,18 +43,43 @@ public class MemoryInputStream extends SeekableInputStream {
     }
 
     public MemoryInputStream(byte[] buffer, int startPos, int maxLength) throws IOException {
+        this(ByteBuffer.wrap(buffer), startPos, maxLength);
+    }
+
+    /**
+     * Creates stream over a byte buffer. The buffer can be a heap buffer or a
+     * memory mapped file, only absolute reads are used, so the buffer position
+     * is never modified.
+     *
+     * @param buffer Buffer
+     * @param startPos Start position in the buffer
+     * @param maxLength Maximum length
+     * @throws IOException
+     */
+    public MemoryInputStream(ByteBuffer buffer, int startPos, int maxLength) throws IOException {
         this.buffer = buffer;
         this.startPos = startPos;
-        if (startPos > buffer.length) {
+        int capacity = buffer.capacity();
+        if (startPos > capacity) {
             throw new IOException("Invalid startPos");
         }
         this.maxLength = maxLength;
-        if (startPos + maxLength >= buffer.length) {
-            this.maxLength = buffer.length - startPos;
+        if (startPos + maxLength >= capacity) {
+            this.maxLength = capacity - startPos;
         }
     }
 
+    /**
+     * Gets the backing array. Not available for streams over memory mapped
+     * files.
+     *
+     * @return Backing array
+     */
     public byte[] getAllRead() {
+        return buffer.array();
+    }
+
+    public ByteBuffer getBuffer() {
         return buffer;
     }
 
@@ -76,7 +103,7 @@ public class MemoryInputStream extends SeekableInputStream {
     @Override
     public int read() throws IOException {
         if (pos < maxLength) {
-            int ret = buffer[(int) pos + startPos] & 0xff;
+            int ret = buffer.get((int) pos + startPos) & 0xff;
             pos++;
             return ret;
         }
@@ -86,9 +113,26 @@ public class MemoryInputStream extends SeekableInputStream {
 
     @Override
     public int read(byte[] bytes) throws IOException {
+        return read(bytes, 0, bytes.length);
+    }
+
+    @Override
+    public int read(byte[] bytes, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+
         if (pos < maxLength) {
-            int toRead = Math.min(available(), bytes.length);
-            System.arraycopy(buffer, (int) pos + startPos, bytes, 0, toRead);
+            int toRead = Math.min(available(), len);
+            int srcPos = (int) pos + startPos;
+            if (buffer.hasArray()) {
+                System.arraycopy(buffer.array(), srcPos, bytes, off, toRead);
+            } else {
+                ByteBuffer dup = buffer.duplicate();
+                dup.position(srcPos);
+                dup.get(bytes, off, toRead);
+            }
+
             pos += toRead;
             return toRead;
         }
@@ -96,6 +140,33 @@ public class MemoryInputStream extends SeekableInputStream {
         return -1;
     }
 
+    /**
+     * Reads 1 to 8 bytes as one big endian unsigned value.
+     *
+     * @param count Number of bytes
+     * @return Value
+     * @throws IOException When there is not enough bytes available
+     */
+    public long readUnsignedBigEndian(int count) throws IOException {
+        if (count > maxLength - pos) {
+            throw new EOFException();
+        }
+
+        int srcPos = (int) pos + startPos;
+        long ret;
+        if (srcPos + 8 <= buffer.capacity()) {
+            ret = buffer.getLong(srcPos) >>> (64 - (count << 3));
+        } else {
+            ret = 0;
+            for (int i = 0; i < count; i++) {
+                ret = (ret << 8) | (buffer.get(srcPos + i) & 0xff);
+            }
+        }
+
+        pos += count;
+        return ret;
+    }
+
     @Override
     public int available() throws IOException {
         return maxLength - (int) pos;
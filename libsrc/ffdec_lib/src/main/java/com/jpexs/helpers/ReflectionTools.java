@@ -24,6 +24,7 @@ import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Modifier;
 import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -271,7 +272,12 @@ public class ReflectionTools {
             }
         }
         if (List.class.isAssignableFrom(field.getType())) {
-            ParameterizedType listType = (ParameterizedType) field.getGenericType();
+            Type type = field.getGenericType();
+            if (!(type instanceof ParameterizedType)) {
+                // specialized list like LongArrayList
+                type = field.getType().getGenericSuperclass();
+            }
+            ParameterizedType listType = (ParameterizedType) type;
             return (Class<?>) listType.getActualTypeArguments()[0];
         }
         return null;
@@ -0,0 +1,51 @@
+/*
+ *  Copyright (C) 2010-2021 JPEXS, All rights reserved.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3.0 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library. */
+package com.jpexs.helpers;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Codec using java serialization, used for values without own codec.
+ *
+ * @author JPEXS
+ * @param <V> Value type
+ */
+public class SerializableCacheCodec<V> implements CacheCodec<V> {
+
+    @Override
+    public byte[] encode(V value) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(baos)) {
+            oos.writeObject(value);
+        }
+        return baos.toByteArray();
+    }
+
+    @Override
+    public V decode(ByteBuffer data) throws IOException {
+        try (ObjectInputStream ois = new ObjectInputStream(new MemoryInputStream(data, data.position(), data.remaining()))) {
+            @SuppressWarnings("unchecked")
+            V ret = (V) ois.readObject();
+            return ret;
+        } catch (ClassNotFoundException ex) {
+            throw new IOException(ex);
+        }
+    }
+}
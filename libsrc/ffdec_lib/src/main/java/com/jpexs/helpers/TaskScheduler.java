@@ -0,0 +1,336 @@
+/*
+ *  Copyright (C) 2010-2021 JPEXS, All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3.0 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library. */
+package com.jpexs.helpers;
+
+import com.jpexs.decompiler.flash.configuration.Configuration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RunnableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Library wide work-stealing scheduler.
+ *
+ * All parallel work (tag resolution, class and trait conversion, script
+ * export, background decompilation) is submitted here instead of to per-call
+ * thread pools, so nested parallel work shares one set of threads. The
+ * parallelism is taken from Configuration.parallelSpeedUpThreadCount.
+ *
+ * Waiting for a task which has not started yet runs it on the waiting thread,
+ * other waits are reported to the pool as managed blocking so it can
+ * compensate with a spare thread.
+ *
+ * @author JPEXS
+ */
+public class TaskScheduler {
+
+    private static ForkJoinPool pool;
+
+    private static final Map<Object, Set<ScheduledTask<?>>> ownerTasks = new WeakHashMap<>();
+
+    private static class ScheduledTask<T> extends FutureTask<T> {
+
+        private final Object owner;
+
+        public ScheduledTask(Object owner, Callable<T> callable) {
+            super(callable);
+            this.owner = owner;
+        }
+
+        @Override
+        protected void done() {
+            if (owner != null) {
+                unregister(owner, this);
+            }
+        }
+    }
+
+    private static class FutureBlocker implements ForkJoinPool.ManagedBlocker {
+
+        private final Future<?> future;
+
+        private final long deadline;
+
+        private final boolean timed;
+
+        public FutureBlocker(Future<?> future, long deadline, boolean timed) {
+            this.future = future;
+            this.deadline = deadline;
+            this.timed = timed;
+        }
+
+        @Override
+        public boolean block() throws InterruptedException {
+            try {
+                if (timed) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining > 0) {
+                        future.get(remaining, TimeUnit.NANOSECONDS);
+                    }
+                } else {
+                    future.get();
+                }
+            } catch (ExecutionException | CancellationException | TimeoutException ex) {
+                // reported by the caller
+            }
+
+            return true;
+        }
+
+        @Override
+        public boolean isReleasable() {
+            return future.isDone() || (timed && deadline - System.nanoTime() <= 0);
+        }
+    }
+
+    private static synchronized ForkJoinPool getPool() {
+        int parallelism = Configuration.getParallelThreadCount();
+        if (pool == null || pool.getParallelism() != parallelism) {
+            ForkJoinPool oldPool = pool;
+            pool = new ForkJoinPool(parallelism);
+            if (oldPool != null) {
+                // tasks already queued there still run, new ones are rejected
+                oldPool.shutdown();
+            }
+        }
+
+        return pool;
+    }
+
+    private static void register(Object owner, ScheduledTask<?> task) {
+        synchronized (ownerTasks) {
+            Set<ScheduledTask<?>> tasks = ownerTasks.get(owner);
+            if (tasks == null) {
+                tasks = new HashSet<>();
+                ownerTasks.put(owner, tasks);
+            }
+
+            tasks.add(task);
+        }
+    }
+
+    private static void unregister(Object owner, ScheduledTask<?> task) {
+        synchronized (ownerTasks) {
+            Set<ScheduledTask<?>> tasks = ownerTasks.get(owner);
+            if (tasks != null) {
+                tasks.remove(task);
+                if (tasks.isEmpty()) {
+                    ownerTasks.remove(owner);
+                }
+            }
+        }
+    }
+
+    /**
+     * Submits a task.
+     *
+     * @param <T> Result type
+     * @param owner Object the task belongs to (usually SWF), can be null. All
+     * tasks of an owner can be cancelled by cancel(owner).
+     * @param callable Task
+     * @return Future of the task
+     */
+    public static <T> Future<T> submit(Object owner, Callable<T> callable) {
+        ScheduledTask<T> task = new ScheduledTask<>(owner, callable);
+        if (owner != null) {
+            register(owner, task);
+        }
+
+        execute(task);
+        return task;
+    }
+
+    /**
+     * Submits all tasks.
+     *
+     * @param <T> Result type
+     * @param owner Object the tasks belong to, can be null
+     * @param callables Tasks
+     * @return Futures in the order of the tasks
+     */
+    public static <T> List<Future<T>> submitAll(Object owner, List<? extends Callable<T>> callables) {
+        List<Future<T>> ret = new ArrayList<>(callables.size());
+        for (Callable<T> callable : callables) {
+            ret.add(submit(owner, callable));
+        }
+
+        return ret;
+    }
+
+    /**
+     * Executes already created task on the pool.
+     *
+     * @param task Task
+     */
+    private static void execute(final RunnableFuture<?> task) {
+        Runnable runnable = new Runnable() {
+            @Override
+            public void run() {
+                task.run();
+                if (task.isCancelled()) {
+                    // do not leak the cancellation interrupt to the next task of this worker
+                    Thread.interrupted();
+                }
+            }
+        };
+        while (true) {
+            try {
+                getPool().execute(runnable);
+                return;
+            } catch (RejectedExecutionException ex) {
+                // the pool was replaced and shut down meanwhile
+            }
+        }
+    }
+
+    /**
+     * Waits for the task result. When the task was not started yet, it is
+     * executed on the current thread.
+     *
+     * @param <T> Result type
+     * @param future Future returned by submit
+     * @return Result
+     * @throws InterruptedException On interrupt or when the task was cancelled
+     * @throws ExecutionException When the task failed
+     */
+    public static <T> T join(Future<T> future) throws InterruptedException, ExecutionException {
+        if (!future.isDone() && future instanceof ScheduledTask) {
+            boolean wasInterrupted = Thread.currentThread().isInterrupted();
+            ((ScheduledTask<?>) future).run();
+            if (future.isCancelled() && !wasInterrupted) {
+                Thread.interrupted();
+            }
+        }
+
+        awaitDone(future);
+        return get(future);
+    }
+
+    /**
+     * Waits for the task result at most the given time. The task is never
+     * executed on the current thread, so it can be cancelled after timeout.
+     *
+     * @param <T> Result type
+     * @param future Future
+     * @param timeout Timeout
+     * @param unit Timeout unit
+     * @return Result
+     * @throws InterruptedException On interrupt or when the task was cancelled
+     * @throws ExecutionException When the task failed
+     * @throws TimeoutException When the timeout elapsed
+     */
+    public static <T> T join(Future<T> future, long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+        if (!awaitDone(future, timeout, unit)) {
+            throw new TimeoutException();
+        }
+
+        return get(future);
+    }
+
+    /**
+     * Waits until the future is done. Use instead of plain Future.get when the
+     * current thread can be a worker of the scheduler.
+     *
+     * @param future Future
+     * @throws InterruptedException On interrupt
+     */
+    public static void awaitDone(Future<?> future) throws InterruptedException {
+        if (!future.isDone()) {
+            ForkJoinPool.managedBlock(new FutureBlocker(future, 0, false));
+        }
+    }
+
+    /**
+     * Waits at most the given time until the future is done.
+     *
+     * @param future Future
+     * @param timeout Timeout
+     * @param unit Timeout unit
+     * @return True when the future is done
+     * @throws InterruptedException On interrupt
+     */
+    public static boolean awaitDone(Future<?> future, long timeout, TimeUnit unit) throws InterruptedException {
+        if (!future.isDone()) {
+            ForkJoinPool.managedBlock(new FutureBlocker(future, System.nanoTime() + unit.toNanos(timeout), true));
+        }
+
+        return future.isDone();
+    }
+
+    private static <T> T get(Future<T> future) throws InterruptedException, ExecutionException {
+        try {
+            return future.get();
+        } catch (CancellationException ex) {
+            // the owner was cancelled, the waiting work should stop as well
+            throw new InterruptedException();
+        }
+    }
+
+    /**
+     * Cancels all not finished tasks of the owner.
+     *
+     * @param owner Owner
+     */
+    public static void cancel(Object owner) {
+        List<ScheduledTask<?>> tasks;
+        synchronized (ownerTasks) {
+            Set<ScheduledTask<?>> ts = ownerTasks.remove(owner);
+            if (ts == null) {
+                return;
+            }
+
+            tasks = new ArrayList<>(ts);
+        }
+
+        for (ScheduledTask<?> task : tasks) {
+            task.cancel(true);
+        }
+    }
+
+    /**
+     * Cancels the futures, used after an error or timeout in a group of
+     * tasks.
+     *
+     * @param futures Futures
+     */
+    public static void cancelAll(List<? extends Future<?>> futures) {
+        for (Future<?> future : futures) {
+            future.cancel(true);
+        }
+    }
+
+    public static String getStat() {
+        ForkJoinPool p = getPool();
+        return "parallelism: " + p.getParallelism()
+                + " size: " + p.getPoolSize()
+                + " active: " + p.getActiveThreadCount()
+                + " running: " + p.getRunningThreadCount()
+                + " queued: " + (p.getQueuedSubmissionCount() + p.getQueuedTaskCount())
+                + " steals: " + p.getStealCount();
+    }
+}
@@ -0,0 +1,260 @@
+/*
+ *  Copyright (C) 2010-2021 JPEXS, All rights reserved.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3.0 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library. */
+package com.jpexs.helpers;
+
+import java.lang.ref.WeakReference;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Map with limited total weight of the values. Least recently used entries
+ * are removed when the limit is exceeded.
+ *
+ * Several maps can share one budget, the limit then applies to their total
+ * weight and the least recently used entry of all the maps is removed. All
+ * maps of a budget are synchronized on the budget.
+ *
+ * @author JPEXS
+ * @param <K> Key type
+ * @param <V> Value type
+ */
+public class WeightedLruMap<K, V> extends AbstractMap<K, V> {
+
+    /**
+     * Weight limit shared by several maps.
+     */
+    public static class Budget {
+
+        private final long maxWeight;
+
+        private final List<WeakReference<WeightedLruMap<?, ?>>> maps = new ArrayList<>();
+
+        private long clock = 0;
+
+        public Budget(long maxWeight) {
+            this.maxWeight = maxWeight;
+        }
+
+        public long getMaxWeight() {
+            return maxWeight;
+        }
+
+        /**
+         * Gets total weight of all maps of the budget.
+         *
+         * @return Weight
+         */
+        public synchronized long getWeight() {
+            long weight = 0;
+            Iterator<WeakReference<WeightedLruMap<?, ?>>> it = maps.iterator();
+            while (it.hasNext()) {
+                WeightedLruMap<?, ?> map = it.next().get();
+                if (map == null) {
+                    it.remove();
+                } else {
+                    weight += map.weight;
+                }
+            }
+
+            return weight;
+        }
+
+        private void evict() {
+            long weight = getWeight();
+            while (weight > maxWeight) {
+                WeightedLruMap<?, ?> eldestMap = null;
+                long eldestStamp = Long.MAX_VALUE;
+                for (WeakReference<WeightedLruMap<?, ?>> ref : maps) {
+                    WeightedLruMap<?, ?> map = ref.get();
+                    if (map != null && !map.map.isEmpty()) {
+                        long stamp = map.map.values().iterator().next().stamp;
+                        if (stamp < eldestStamp) {
+                            eldestMap = map;
+                            eldestStamp = stamp;
+                        }
+                    }
+                }
+
+                if (eldestMap == null) {
+                    break;
+                }
+                weight -= eldestMap.removeEldest();
+            }
+        }
+    }
+
+    private static class Node<V> {
+
+        private final V value;
+
+        private final long weight;
+
+        private long stamp;
+
+        public Node(V value, long weight, long stamp) {
+            this.value = value;
+            this.weight = weight;
+            this.stamp = stamp;
+        }
+    }
+
+    private final LinkedHashMap<K, Node<V>> map = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final CacheWeigher<V> weigher;
+
+    private final Budget budget;
+
+    private long weight = 0;
+
+    private long evictionCount = 0;
+
+    public WeightedLruMap(CacheWeigher<V> weigher, long maxWeight) {
+        this(weigher, new Budget(maxWeight));
+    }
+
+    public WeightedLruMap(CacheWeigher<V> weigher, Budget budget) {
+        this.weigher = weigher;
+        this.budget = budget;
+        synchronized (budget) {
+            budget.maps.add(new WeakReference<>(this));
+        }
+    }
+
+    @Override
+    public V get(Object key) {
+        synchronized (budget) {
+            Node<V> node = map.get(key);
+            if (node == null) {
+                return null;
+            }
+            node.stamp = ++budget.clock;
+            return node.value;
+        }
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        synchronized (budget) {
+            return map.containsKey(key);
+        }
+    }
+
+    @Override
+    public V put(K key, V value) {
+        long valueWeight = weigher.getWeight(value);
+        synchronized (budget) {
+            Node<V> old = map.put(key, new Node<>(value, valueWeight, ++budget.clock));
+            if (old != null) {
+                weight -= old.weight;
+            }
+            weight += valueWeight;
+
+            // the new value is the last one, it is removed too when it alone exceeds the limit
+            budget.evict();
+            return old == null ? null : old.value;
+        }
+    }
+
+    private long removeEldest() {
+        Iterator<Node<V>> it = map.values().iterator();
+        Node<V> eldest = it.next();
+        it.remove();
+        weight -= eldest.weight;
+        evictionCount++;
+        return eldest.weight;
+    }
+
+    @Override
+    public V remove(Object key) {
+        synchronized (budget) {
+            Node<V> old = map.remove(key);
+            if (old == null) {
+                return null;
+            }
+            weight -= old.weight;
+            return old.value;
+        }
+    }
+
+    @Override
+    public void clear() {
+        synchronized (budget) {
+            map.clear();
+            weight = 0;
+        }
+    }
+
+    @Override
+    public int size() {
+        synchronized (budget) {
+            return map.size();
+        }
+    }
+
+    /**
+     * Gets copy of the keys.
+     *
+     * @return Keys
+     */
+    @Override
+    public Set<K> keySet() {
+        synchronized (budget) {
+            return new HashSet<>(map.keySet());
+        }
+    }
+
+    /**
+     * Gets copy of the entries.
+     *
+     * @return Entries
+     */
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+        Set<Map.Entry<K, V>> ret = new HashSet<>();
+        synchronized (budget) {
+            for (Map.Entry<K, Node<V>> entry : map.entrySet()) {
+                ret.add(new SimpleImmutableEntry<>(entry.getKey(), entry.getValue().value));
+            }
+        }
+        return ret;
+    }
+
+    public long getWeight() {
+        synchronized (budget) {
+            return weight;
+        }
+    }
+
+    public long getMaxWeight() {
+        return budget.getMaxWeight();
+    }
+
+    public Budget getBudget() {
+        return budget;
+    }
+
+    public long getEvictionCount() {
+        synchronized (budget) {
+            return evictionCount;
+        }
+    }
+}
@@ -0,0 +1,254 @@
+/*
+ *  Copyright (C) 2010-2021 JPEXS, All rights reserved.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3.0 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library.
+ */
+package com.jpexs.decompiler.flash;
+
+import com.jpexs.decompiler.flash.abc.ABC;
+import com.jpexs.decompiler.flash.abc.ScriptPack;
+import com.jpexs.decompiler.flash.abc.types.ConvertData;
+import com.jpexs.decompiler.flash.abc.types.ScriptInfo;
+import com.jpexs.decompiler.flash.abc.types.traits.Trait;
+import com.jpexs.decompiler.flash.abc.types.traits.TraitClass;
+import com.jpexs.decompiler.flash.abc.types.traits.TraitFunction;
+import com.jpexs.decompiler.flash.abc.types.traits.TraitMethodGetterSetter;
+import com.jpexs.decompiler.flash.abc.types.traits.Traits;
+import com.jpexs.decompiler.flash.configuration.Configuration;
+import com.jpexs.decompiler.flash.exporters.modes.ScriptExportMode;
+import com.jpexs.decompiler.flash.helpers.CodeFormatting;
+import com.jpexs.decompiler.flash.helpers.HighlightedTextWriter;
+import com.jpexs.decompiler.flash.importers.As3ScriptReplaceException;
+import com.jpexs.decompiler.flash.importers.FFDecAs3ScriptReplaceBatch;
+import com.jpexs.decompiler.flash.tags.ABCContainerTag;
+import com.jpexs.decompiler.flash.tags.Tag;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+import org.testng.SkipException;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+/**
+ *
+ * @author JPEXS
+ */
+public class AS3ScriptReplaceBatchTest {
+
+    private static final String BATCH_SWF = "testdata/as3_new/bin/as3_new.air.swf";
+
+    @BeforeClass
+    public void init() {
+        Configuration.autoDeobfuscate.set(false);
+        Configuration.simplifyExpressions.set(false);
+        Configuration._debugCopy.set(false);
+        Configuration.useFlexAs3Compiler.set(false);
+    }
+
+    @DataProvider(name = "provideAbcFiles")
+    public Object[][] provideAbcFiles() {
+        return new Object[][]{
+            {"testdata/as3_new/bin/as3_new.air.swf"},
+            {"testdata/as3/as3.swf"},
+            {"testdata/namespaces/namespaces.swf"}
+        };
+    }
+
+    private static SWF open(String filePath) throws IOException, InterruptedException {
+        return new SWF(new BufferedInputStream(new FileInputStream(filePath)), false);
+    }
+
+    private static ABC copy(ABC abc) throws IOException, InterruptedException {
+        return ((ABCContainerTag) ((Tag) abc.parentTag).cloneTag()).getABC();
+    }
+
+    private static byte[] getBytes(ABC abc) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        abc.saveToStream(baos);
+        return baos.toByteArray();
+    }
+
+    private static void markTraitsDeleted(ABC abc, Traits traits) {
+        for (Trait t : traits.traits) {
+            if (t instanceof TraitMethodGetterSetter) {
+                abc.method_info.get(((TraitMethodGetterSetter) t).method_info).deleted = true;
+            }
+            if (t instanceof TraitFunction) {
+                abc.method_info.get(((TraitFunction) t).method_info).deleted = true;
+            }
+            if (t instanceof TraitClass) {
+                int c = ((TraitClass) t).class_info;
+                abc.instance_info.get(c).deleted = true;
+                abc.method_info.get(abc.instance_info.get(c).iinit_index).deleted = true;
+                abc.method_info.get(abc.class_info.get(c).cinit_index).deleted = true;
+                markTraitsDeleted(abc, abc.instance_info.get(c).instance_traits);
+                markTraitsDeleted(abc, abc.class_info.get(c).static_traits);
+            }
+        }
+    }
+
+    /**
+     * Marks every third script deleted with its classes and methods, the
+     * same way the compiler marks a replaced script.
+     */
+    private static boolean markScriptsDeleted(ABC abc) {
+        boolean marked = false;
+        for (int s = 1; s < abc.script_info.size(); s += 3) {
+            ScriptInfo si = abc.script_info.get(s);
+            si.deleted = true;
+            abc.method_info.get(si.init_index).deleted = true;
+            markTraitsDeleted(abc, si.traits);
+            marked = true;
+        }
+        return marked;
+    }
+
+    /**
+     * Removes the deleted items one by one, the way ABC.pack did before
+     * removeDeleted.
+     */
+    private static void removeDeletedOneByOne(ABC abc) {
+        for (int pass = 0; pass < 2; pass++) {
+            for (int m = 0; m < abc.method_info.size(); m++) {
+                if (abc.method_info.get(m).deleted) {
+                    abc.removeMethod(m);
+                    m--;
+                }
+            }
+            if (pass == 0) {
+                for (int c = 0; c < abc.instance_info.size(); c++) {
+                    if (abc.instance_info.get(c).deleted) {
+                        abc.removeClass(c);
+                        c--;
+                    }
+                }
+            }
+        }
+        for (int s = 0; s < abc.script_info.size(); s++) {
+            if (abc.script_info.get(s).deleted) {
+                abc.script_info.remove(s);
+                s--;
+            }
+        }
+    }
+
+    @Test(dataProvider = "provideAbcFiles")
+    public void testRemoveDeleted(String filePath) throws IOException, InterruptedException {
+        SWF swf = open(filePath);
+        boolean marked = false;
+        for (ABCContainerTag ct : swf.getAbcList()) {
+            ABC expected = copy(ct.getABC());
+            ABC actual = copy(ct.getABC());
+            if (!markScriptsDeleted(expected)) {
+                continue;
+            }
+            markScriptsDeleted(actual);
+            marked = true;
+
+            removeDeletedOneByOne(expected);
+            actual.removeDeleted();
+            assertEquals(actual.method_info.size(), expected.method_info.size());
+            assertEquals(actual.instance_info.size(), expected.instance_info.size());
+            assertEquals(actual.script_info.size(), expected.script_info.size());
+            assertEquals(getBytes(actual), getBytes(expected));
+        }
+        assertTrue(marked, "No script was removed");
+    }
+
+    private static void checkPlayerSwc() {
+        if (Configuration.getPlayerSWC() == null) {
+            throw new SkipException("Player SWC library not found, please place it to " + Configuration.getFlashLibPath());
+        }
+    }
+
+    private static ScriptPack findPack(SWF swf, String classPath) {
+        for (ScriptPack pack : swf.getAS3Packs()) {
+            if (pack.getClassPath().toString().equals(classPath)) {
+                return pack;
+            }
+        }
+        fail("Script " + classPath + " not found");
+        return null;
+    }
+
+    private static String getSource(SWF swf, String classPath) throws InterruptedException {
+        ScriptPack pack = findPack(swf, classPath);
+        HighlightedTextWriter writer = new HighlightedTextWriter(new CodeFormatting(), false);
+        pack.toSource(writer, pack.abc.script_info.get(pack.scriptIndex).traits.traits, new ConvertData(), ScriptExportMode.AS, false, false);
+        return writer.toString();
+    }
+
+    private static final String NEW_INCDEC_SOURCE = "package tests\n"
+            + "{\n"
+            + "   public class TestIncDec\n"
+            + "   {\n"
+            + "      public function run() : *\n"
+            + "      {\n"
+            + "         trace(\"batch\");\n"
+            + "      }\n"
+            + "   }\n"
+            + "}\n";
+
+    @Test
+    public void testFailedScriptKeepsPreviousScripts() throws IOException, InterruptedException, As3ScriptReplaceException {
+        checkPlayerSwc();
+        SWF swf = open(BATCH_SWF);
+        String originalComma = getSource(swf, "tests.TestComma");
+        String originalStrings = getSource(swf, "tests.TestStrings");
+
+        FFDecAs3ScriptReplaceBatch batch = new FFDecAs3ScriptReplaceBatch(swf);
+        batch.replaceScript(findPack(swf, "tests.TestIncDec"), NEW_INCDEC_SOURCE);
+        try {
+            batch.replaceScript(findPack(swf, "tests.TestComma"), "package tests {");
+            fail("Invalid script was compiled");
+        } catch (As3ScriptReplaceException ex) {
+            //expected
+        }
+
+        // the ABC is restored to the state after the first script
+        assertTrue(getSource(swf, "tests.TestIncDec").contains("trace(\"batch\");"));
+        assertEquals(getSource(swf, "tests.TestComma"), originalComma);
+
+        batch.replaceScript(findPack(swf, "tests.TestStrings"), originalStrings);
+        batch.commit();
+
+        assertTrue(getSource(swf, "tests.TestIncDec").contains("trace(\"batch\");"));
+        assertEquals(getSource(swf, "tests.TestComma"), originalComma);
+        assertEquals(getSource(swf, "tests.TestStrings"), originalStrings);
+    }
+
+    @Test
+    public void testRollback() throws IOException, InterruptedException, As3ScriptReplaceException {
+        checkPlayerSwc();
+        SWF swf = open(BATCH_SWF);
+        ABC abc = findPack(swf, "tests.TestIncDec").abc;
+        byte[] originalBytes = getBytes(abc);
+        boolean originalModified = ((Tag) abc.parentTag).isModified();
+
+        FFDecAs3ScriptReplaceBatch batch = new FFDecAs3ScriptReplaceBatch(swf);
+        batch.replaceScript(findPack(swf, "tests.TestIncDec"), NEW_INCDEC_SOURCE);
+        assertTrue(getSource(swf, "tests.TestIncDec").contains("trace(\"batch\");"));
+        batch.rollback();
+
+        assertEquals(getBytes(abc), originalBytes);
+        assertEquals(((Tag) abc.parentTag).isModified(), originalModified);
+        assertFalse(getSource(swf, "tests.TestIncDec").contains("trace(\"batch\");"));
+    }
+}
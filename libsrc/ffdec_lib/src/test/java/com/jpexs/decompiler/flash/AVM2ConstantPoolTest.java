@@ -0,0 +1,108 @@
+/*
+ *  Copyright (C) 2010-2021 JPEXS, All rights reserved.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3.0 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library. */
+package com.jpexs.decompiler.flash;
+import com.jpexs.decompiler.flash.abc.avm2.AVM2ConstantPool;
+import com.jpexs.helpers.LongIndex;
+import static org.testng.Assert.assertEquals;
+import org.testng.annotations.Test;
+
+/**
+ *
+ * @author JPEXS
+ */
+public class AVM2ConstantPoolTest {
+
+    @Test
+    public void testIntIds() {
+        AVM2ConstantPool cpool = new AVM2ConstantPool();
+        assertEquals(cpool.getIntId(0, false), -1);
+        int id5 = cpool.getIntId(5, true);
+        assertEquals(id5, 1);
+        assertEquals(cpool.getIntId(0, true), 2);
+        assertEquals(cpool.getIntId(5, false), id5);
+        assertEquals(cpool.getIntId(-7, false), -1);
+        for (int i = 0; i < 1000; i++) {
+            cpool.addInt(i * 1000L);
+        }
+        // last duplicate wins
+        assertEquals(cpool.getIntId(5000, false), 8);
+        assertEquals(cpool.getIntId(999000, false), 1002);
+        assertEquals(cpool.getInt(8), 5000);
+
+        cpool.setInt(8, 42);
+        assertEquals(cpool.getIntId(42, false), 8);
+        assertEquals(cpool.getIntId(5000, false), -1);
+
+        AVM2ConstantPool clone = cpool.clone();
+        clone.addInt(123456);
+        assertEquals(clone.getIntId(123456, false), 1003);
+        assertEquals(cpool.getIntId(123456, false), -1);
+        assertEquals(cpool.getIntCount(), 1003);
+    }
+
+    @Test
+    public void testUIntIds() {
+        AVM2ConstantPool cpool = new AVM2ConstantPool();
+        int id = cpool.getUIntId(0xffffffffL, true);
+        assertEquals(cpool.getUInt(id), 0xffffffffL);
+        assertEquals(cpool.getUIntId(0xffffffffL, false), id);
+        assertEquals(cpool.getUIntId(0, false), -1);
+    }
+
+    @Test
+    public void testDoubleIds() {
+        AVM2ConstantPool cpool = new AVM2ConstantPool();
+        assertEquals(cpool.getDoubleId(0.0, false), -1);
+        int nanId = cpool.getDoubleId(Double.NaN, true);
+        int zeroId = cpool.getDoubleId(0.0, true);
+        int negZeroId = cpool.getDoubleId(-0.0, true);
+        assertEquals(cpool.getDoubleId(Double.NaN, false), nanId);
+        assertEquals(cpool.getDoubleId(0.0, false), zeroId);
+        assertEquals(cpool.getDoubleId(-0.0, false), negZeroId);
+        assertEquals(cpool.getDoubleCount(), 4);
+        assertEquals(cpool.getDoubleId(1.5, true), 4);
+        assertEquals(cpool.getDouble(4), 1.5);
+    }
+
+    @Test
+    public void testStringIds() {
+        AVM2ConstantPool cpool = new AVM2ConstantPool();
+        assertEquals(cpool.getStringId((String) null, false), 0);
+        assertEquals(cpool.getStringId("a", false), -1);
+        assertEquals(cpool.getStringId("a", true), 1);
+        cpool.addString("b");
+        assertEquals(cpool.getStringId("b", false), 2);
+        cpool.setString(2, "c");
+        assertEquals(cpool.getStringId("b", false), -1);
+        assertEquals(cpool.getStringId("c", false), 2);
+    }
+
+    @Test
+    public void testLongIndex() {
+        LongIndex index = new LongIndex(0);
+        for (int i = 0; i < 100000; i++) {
+            index.put(i * 31L - 50000, i);
+        }
+        index.put(Long.MIN_VALUE, 7);
+        index.put(Long.MIN_VALUE, 8);
+        assertEquals(index.size(), 100001);
+        for (int i = 0; i < 100000; i++) {
+            assertEquals(index.get(i * 31L - 50000), i);
+        }
+        assertEquals(index.get(Long.MIN_VALUE), 8);
+        assertEquals(index.get(1), -1);
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ *  Copyright (C) 2010-2021 JPEXS, All rights reserved.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3.0 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library.
+ */
+package com.jpexs.decompiler.flash;
+
+import com.jpexs.decompiler.flash.configuration.Configuration;
+import com.jpexs.helpers.ByteArrayCacheWeigher;
+import com.jpexs.helpers.Cache;
+import com.jpexs.helpers.SerializableCacheCodec;
+import com.jpexs.helpers.WeightedLruMap;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+import org.testng.annotations.Test;
+
+/**
+ *
+ * @author JPEXS
+ */
+public class CacheTest {
+
+    @Test
+    public void testWeightedLruMap() {
+        WeightedLruMap<String, byte[]> map = new WeightedLruMap<>(new ByteArrayCacheWeigher(), 100);
+        map.put("A", new byte[40]);
+        map.put("B", new byte[40]);
+        assertEquals(map.getWeight(), 80);
+
+        // A is used more recently than B
+        map.get("A");
+        map.put("C", new byte[40]);
+        assertTrue(map.containsKey("A"));
+        assertFalse(map.containsKey("B"));
+        assertTrue(map.containsKey("C"));
+        assertEquals(map.getWeight(), 80);
+        assertEquals(map.getEvictionCount(), 1);
+
+        map.put("A", new byte[10]);
+        assertEquals(map.getWeight(), 50);
+        map.remove("C");
+        assertEquals(map.getWeight(), 10);
+
+        // larger than the limit
+        map.put("D", new byte[200]);
+        assertFalse(map.containsKey("D"));
+        assertEquals(map.getWeight(), 0);
+    }
+
+    @Test
+    public void testSharedBudget() {
+        WeightedLruMap.Budget budget = new WeightedLruMap.Budget(100);
+        WeightedLruMap<String, byte[]> map1 = new WeightedLruMap<>(new ByteArrayCacheWeigher(), budget);
+        WeightedLruMap<String, byte[]> map2 = new WeightedLruMap<>(new ByteArrayCacheWeigher(), budget);
+        map1.put("A", new byte[40]);
+        map2.put("B", new byte[40]);
+        assertEquals(budget.getWeight(), 80);
+
+        // A is used more recently than B, which is in the other map
+        map1.get("A");
+        map1.put("C", new byte[40]);
+        assertTrue(map1.containsKey("A"));
+        assertTrue(map1.containsKey("C"));
+        assertFalse(map2.containsKey("B"));
+        assertEquals(map1.getWeight(), 80);
+        assertEquals(map2.getWeight(), 0);
+        assertEquals(map2.getEvictionCount(), 1);
+        assertEquals(budget.getWeight(), 80);
+    }
+
+    @Test
+    public void testSharedBudgetOfCacheName() {
+        int oldBudget = Configuration.cacheMemoryBudget.get();
+        Configuration.cacheMemoryBudget.set(1);
+        try {
+            Cache<String, byte[]> cache1 = Cache.getInstance(false, true, "budgettest", new SerializableCacheCodec<byte[]>(), new ByteArrayCacheWeigher(), 100);
+            Cache<String, byte[]> cache2 = Cache.getInstance(false, true, "budgettest", new SerializableCacheCodec<byte[]>(), new ByteArrayCacheWeigher(), 100);
+            Cache<String, byte[]> other = Cache.getInstance(false, true, "budgettest2", new SerializableCacheCodec<byte[]>(), new ByteArrayCacheWeigher(), 100);
+            cache1.put("A", new byte[600 * 1024]);
+            other.put("A", new byte[600 * 1024]);
+            cache2.put("B", new byte[600 * 1024]);
+            assertFalse(cache1.contains("A"));
+            assertTrue(cache2.contains("B"));
+            assertTrue(other.contains("A"));
+        } finally {
+            Configuration.cacheMemoryBudget.set(oldBudget);
+        }
+    }
+
+    @Test
+    public void testStatistics() {
+        Cache<String, byte[]> cache = Cache.getInstance(false, true, "test", new SerializableCacheCodec<byte[]>(), new ByteArrayCacheWeigher(), 100);
+        cache.put("A", new byte[1]);
+        assertEquals(cache.get("A").length, 1);
+        assertNull(cache.get("B"));
+        assertFalse(cache.contains("C"));
+        assertEquals(cache.getHitCount(), 1);
+        assertEquals(cache.getMissCount(), 2);
+        assertEquals(cache.getEvictionCount(), 0);
+        assertTrue(Cache.getStatistics().contains("test: hits 1, misses 2, evictions 0"));
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ *  Copyright (C) 2010-2021 JPEXS, All rights reserved.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3.0 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library.
+ */
+package com.jpexs.decompiler.flash;
+
+import com.jpexs.helpers.ByteArrayCacheCodec;
+import com.jpexs.helpers.ImageCacheCodec;
+import com.jpexs.helpers.MappedSlabMap;
+import com.jpexs.helpers.SerializableCacheCodec;
+import com.jpexs.helpers.SerializableImage;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+import org.testng.annotations.Test;
+
+/**
+ *
+ * @author JPEXS
+ */
+public class MappedSlabMapTest {
+
+    @Test
+    public void testMappedSlabMap() throws Exception {
+        File tfile = File.createTempFile("ffdec_slabtest_", ".bin");
+        MappedSlabMap<String, String> map = new MappedSlabMap<>(tfile, new SerializableCacheCodec<String>(), 16 * 1024 * 1024);
+        assertTrue(map.isEmpty());
+        assertEquals(map.size(), 0);
+        map.put("A", "cat");
+        assertEquals(map.get("A"), "cat");
+        assertNull(map.get("B"));
+        map.put("B", "dog");
+        assertEquals(map.get("B"), "dog");
+        assertEquals(map.get("A"), "cat");
+        map.put("C", "parrot");
+        map.put("A", "lion");
+        assertEquals(map.get("A"), "lion");
+        assertTrue(map.containsKey("B"));
+        assertTrue(map.containsKey("C"));
+        assertFalse(map.containsKey("D"));
+        assertEquals(map.size(), 3);
+        map.remove("A");
+        assertFalse(map.containsKey("A"));
+        map.clear();
+        assertEquals(map.size(), 0);
+        map.put("X", "tac");
+        assertEquals(map.get("X"), "tac");
+        map.delete();
+        try {
+            map.get("X");
+            fail();
+        } catch (NullPointerException nfe) {
+            //okay
+        }
+    }
+
+    @Test
+    public void testEviction() throws Exception {
+        File tfile = File.createTempFile("ffdec_slabtest_", ".bin");
+        long maxSize = 4 * 1024 * 1024;
+        MappedSlabMap<Integer, byte[]> map = new MappedSlabMap<>(tfile, new ByteArrayCacheCodec(), maxSize);
+        try {
+            for (int i = 0; i < 1000; i++) {
+                byte[] data = new byte[10000];
+                Arrays.fill(data, (byte) i);
+                map.put(i, data);
+                assertEquals(map.get(i), data);
+            }
+
+            assertTrue(map.getAllocatedSize() <= maxSize);
+            assertTrue(map.size() < 1000);
+            assertTrue(map.size() > 0);
+            for (Integer key : map.keySet()) {
+                byte[] data = map.get(key);
+                assertEquals(data.length, 10000);
+                assertEquals(data[9999], (byte) (int) key);
+            }
+
+            // larger than the whole map
+            map.put(-1, new byte[(int) maxSize * 2]);
+            assertFalse(map.containsKey(-1));
+        } finally {
+            map.delete();
+        }
+    }
+
+    @Test
+    public void testReclaimOtherSizeClass() throws Exception {
+        File tfile = File.createTempFile("ffdec_slabtest_", ".bin");
+        long maxSize = 4 * 1024 * 1024;
+        MappedSlabMap<Integer, byte[]> map = new MappedSlabMap<>(tfile, new ByteArrayCacheCodec(), maxSize);
+        try {
+            // all pages used by one size class
+            for (int i = 0; i < 1000; i++) {
+                byte[] data = new byte[10000];
+                Arrays.fill(data, (byte) i);
+                map.put(i, data);
+            }
+            assertEquals(map.getAllocatedSize(), maxSize);
+
+            // other size classes take over the pages
+            for (int i = 1000; i < 1100; i++) {
+                byte[] data = new byte[100];
+                Arrays.fill(data, (byte) i);
+                map.put(i, data);
+                assertEquals(map.get(i), data);
+            }
+
+            byte[] large = new byte[1500000];
+            Arrays.fill(large, (byte) 7);
+            map.put(-1, large);
+            assertEquals(map.get(-1), large);
+
+            assertTrue(map.getAllocatedSize() <= maxSize);
+            for (Integer key : map.keySet()) {
+                byte[] data = map.get(key);
+                assertEquals(data[data.length - 1], key == -1 ? (byte) 7 : (byte) (int) key);
+            }
+        } finally {
+            map.delete();
+        }
+    }
+
+    @Test
+    public void testConcurrentClear() throws Exception {
+        File tfile = File.createTempFile("ffdec_slabtest_", ".bin");
+        final MappedSlabMap<Integer, byte[]> map = new MappedSlabMap<>(tfile, new ByteArrayCacheCodec(), 4 * 1024 * 1024);
+        final AtomicBoolean failed = new AtomicBoolean();
+        try {
+            Thread[] threads = new Thread[4];
+            for (int t = 0; t < threads.length; t++) {
+                final int base = t * 100000;
+                threads[t] = new Thread(() -> {
+                    for (int i = 0; i < 20000; i++) {
+                        int key = base + i;
+                        byte[] data = new byte[100 + key % 5000];
+                        Arrays.fill(data, (byte) key);
+                        map.put(key, data);
+                        byte[] read = map.get(key);
+                        if (read != null && !Arrays.equals(read, data)) {
+                            failed.set(true);
+                        }
+                    }
+                });
+                threads[t].start();
+            }
+
+            Thread clearing = new Thread(() -> {
+                for (int i = 0; i < 200; i++) {
+                    map.clear();
+                    Thread.yield();
+                }
+            });
+            clearing.start();
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            clearing.join();
+            assertFalse(failed.get());
+            for (Integer key : map.keySet()) {
+                byte[] data = map.get(key);
+                if (data != null) {
+                    assertEquals(data.length, 100 + key % 5000);
+                    assertEquals(data[0], (byte) (int) key);
+                }
+            }
+        } finally {
+            map.delete();
+        }
+    }
+
+    @Test
+    public void testImageCodec() throws Exception {
+        BufferedImage img = new BufferedImage(3, 2, BufferedImage.TYPE_INT_ARGB_PRE);
+        img.setRGB(1, 1, 0x80ff0000);
+        img.setRGB(2, 0, 0xff00ff00);
+        ImageCacheCodec codec = new ImageCacheCodec();
+        byte[] data = codec.encode(new SerializableImage(img));
+        SerializableImage decoded = codec.decode(ByteBuffer.wrap(data));
+        assertEquals(decoded.getWidth(), 3);
+        assertEquals(decoded.getHeight(), 2);
+        assertEquals(decoded.getBufferedImage().getType(), BufferedImage.TYPE_INT_ARGB_PRE);
+        for (int y = 0; y < 2; y++) {
+            for (int x = 0; x < 3; x++) {
+                assertEquals(decoded.getRGB(x, y), img.getRGB(x, y));
+            }
+        }
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ *  Copyright (C) 2010-2021 JPEXS, All rights reserved.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3.0 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library. */
+package com.jpexs.decompiler.flash;
+import com.jpexs.decompiler.flash.abc.ScriptPack;
+import com.jpexs.decompiler.flash.cache.AS3CacheKey;
+import com.jpexs.decompiler.flash.cache.PersistentDecompilationCache;
+import com.jpexs.decompiler.flash.helpers.HighlightedText;
+import com.jpexs.decompiler.flash.helpers.hilight.HighlightData;
+import com.jpexs.decompiler.flash.helpers.hilight.Highlighting;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+import org.testng.annotations.Test;
+
+/**
+ *
+ * @author JPEXS
+ */
+public class PersistentDecompilationCacheTest {
+
+    private static List<String> getKeys(SWF swf) {
+        List<ScriptPack> packs = swf.getAS3Packs();
+        List<String> keys = new ArrayList<>();
+        for (ScriptPack pack : packs) {
+            keys.add(AS3CacheKey.of(pack, AS3CacheKey.createSimpleNameIndex(pack.allABCs)));
+        }
+        return keys;
+    }
+
+    private static void assertHighlightsEqual(List<Highlighting> actual, List<Highlighting> expected) {
+        assertEquals(actual.size(), expected.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Highlighting e = expected.get(i);
+            Highlighting a = actual.get(i);
+            assertEquals(a.type, e.type);
+            assertEquals(a.startPos, e.startPos);
+            assertEquals(a.len, e.len);
+            HighlightData ed = e.getProperties();
+            HighlightData ad = a.getProperties();
+            assertEquals(ad.declaration, ed.declaration);
+            assertEquals(ad.declaredType == null ? null : ad.declaredType.toRawString(), ed.declaredType == null ? null : ed.declaredType.toRawString());
+            assertEquals(ad.localName, ed.localName);
+            assertEquals(ad.subtype, ed.subtype);
+            assertEquals(ad.specialValue, ed.specialValue);
+            assertEquals(ad.index, ed.index);
+            assertEquals(ad.offset, ed.offset);
+            assertEquals(ad.fileOffset, ed.fileOffset);
+            assertEquals(ad.firstLineOffset, ed.firstLineOffset);
+            assertEquals(ad.regIndex, ed.regIndex);
+        }
+    }
+
+    @Test
+    public void testKeys() throws IOException, InterruptedException {
+        SWF swf1 = new SWF(new BufferedInputStream(new FileInputStream("testdata/as3/as3.swf")), false);
+        SWF swf2 = new SWF(new BufferedInputStream(new FileInputStream("testdata/as3/as3.swf")), false);
+        List<String> keys = getKeys(swf1);
+        assertEquals(getKeys(swf2), keys);
+        assertEquals(new HashSet<>(keys).size(), keys.size());
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException, InterruptedException {
+        SWF swf = new SWF(new BufferedInputStream(new FileInputStream("testdata/as3/as3.swf")), false);
+        for (ScriptPack pack : swf.getAS3Packs()) {
+            HighlightedText text = SWF.getCached(pack);
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            PersistentDecompilationCache.write(text, baos);
+            HighlightedText text2 = PersistentDecompilationCache.read(new ByteArrayInputStream(baos.toByteArray()));
+            assertEquals(text2.text, text.text);
+            assertHighlightsEqual(text2.getTraitHighlights(), text.getTraitHighlights());
+            assertHighlightsEqual(text2.getClassHighlights(), text.getClassHighlights());
+            assertHighlightsEqual(text2.getMethodHighlights(), text.getMethodHighlights());
+            assertHighlightsEqual(text2.getInstructionHighlights(), text.getInstructionHighlights());
+            assertHighlightsEqual(text2.getSpecialHighlights(), text.getSpecialHighlights());
+        }
+    }
+
+    @Test
+    public void testEviction() throws IOException, InterruptedException {
+        File dir = Files.createTempDirectory("ffdeccache").toFile();
+        try {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < 10000; i++) {
+                sb.append(i * 7919);
+            }
+            // the text is compressed, so the entries have about 20 kB
+            PersistentDecompilationCache cache = new PersistentDecompilationCache(dir, 200 * 1024);
+            List<String> keys = new ArrayList<>();
+            for (int i = 0; i < 30; i++) {
+                String key = String.format("%064x", i);
+                keys.add(key);
+                cache.put(key, new HighlightedText(i + sb.toString()));
+                // keep the first entry recently used
+                Thread.sleep(5);
+                assertNotNull(cache.get(keys.get(0)));
+            }
+
+            cache.trim();
+            assertTrue(cache.getSize() <= 200 * 1024);
+            assertEquals(cache.get(keys.get(0)).text, 0 + sb.toString());
+            assertEquals(cache.get(keys.get(29)).text, 29 + sb.toString());
+            assertNull(cache.get(keys.get(1)));
+        } finally {
+            deleteDir(dir);
+        }
+    }
+
+    private static void deleteDir(File dir) {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                deleteDir(file);
+            }
+        }
+        dir.delete();
+    }
+}
@@ -12,14 +12,30 @@
  * Lesser General Public License for more details.
  * 
  * You should have received a copy of the GNU Lesser General Public
- * License along with this library. */
+ * License along with this library. */
 package com.jpexs.decompiler.flash;
 
 //import com.jpexs.decompiler.flash.gui.Main;
+import com.jpexs.decompiler.flash.action.Action;
+import com.jpexs.decompiler.flash.action.ActionList;
+import com.jpexs.decompiler.flash.configuration.Configuration;
+import com.jpexs.decompiler.flash.dumpview.DumpInfo;
+import com.jpexs.decompiler.flash.tags.Tag;
+import com.jpexs.decompiler.flash.tags.base.ASMSource;
 import com.jpexs.decompiler.flash.types.RECT;
+import java.io.BufferedInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
 import static org.testng.Assert.assertTrue;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
@@ -98,6 +114,42 @@ public class SWFStreamTest {
         }
     }
 
+    @Test
+    public void testMixedBits() throws IOException {
+        Random random = new Random(42);
+        int count = 2000;
+        int[] sizes = new int[count];
+        long[] values = new long[count];
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (SWFOutputStream sos = new SWFOutputStream(baos, SWF.DEFAULT_VERSION)) {
+            for (int i = 0; i < count; i++) {
+                int nBits = 1 + random.nextInt(31);
+                sizes[i] = nBits;
+                if (i % 50 == 49) {
+                    values[i] = random.nextInt(256);
+                    sos.writeUI8((int) values[i]);
+                } else if (i % 2 == 0) {
+                    values[i] = random.nextInt() & ((1L << nBits) - 1);
+                    sos.writeUB(nBits, values[i]);
+                } else {
+                    values[i] = (random.nextInt() << (32 - nBits)) >> (32 - nBits);
+                    sos.writeSB(nBits, values[i]);
+                }
+            }
+        }
+        try (SWFInputStream sis = new SWFInputStream(null, baos.toByteArray())) {
+            for (int i = 0; i < count; i++) {
+                if (i % 50 == 49) {
+                    assertEquals(sis.readUI8("test"), values[i]);
+                } else if (i % 2 == 0) {
+                    assertEquals(sis.readUB(sizes[i], "test"), values[i]);
+                } else {
+                    assertEquals(sis.readSB(sizes[i], "test"), values[i]);
+                }
+            }
+        }
+    }
+
     @Test
     public void testFLOATAndDouble() throws IOException {
         ByteArrayOutputStream baos = new ByteArrayOutputStream();
@@ -195,4 +247,139 @@ public class SWFStreamTest {
             assertEquals(readRECT.Ymax, 0x3FFFFFFF);
         }
     }
+
+    private byte[] openAndSave(InputStream is, boolean mapped) throws IOException, InterruptedException {
+        boolean oldMapped = Configuration.memoryMappedOpen.get();
+        Configuration.memoryMappedOpen.set(mapped);
+        try {
+            SWF swf = new SWF(is, false);
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            swf.saveTo(baos);
+            return baos.toByteArray();
+        } finally {
+            Configuration.memoryMappedOpen.set(oldMapped);
+            is.close();
+        }
+    }
+
+    @Test
+    public void testMemoryMappedOpen() throws IOException, InterruptedException {
+        File compressedFile = new File("testdata/graphics/graphics.swf");
+        byte[] expected = openAndSave(new BufferedInputStream(new FileInputStream(compressedFile)), false);
+        assertEquals(openAndSave(new BufferedInputStream(new FileInputStream(compressedFile)), true), expected);
+
+        File uncompressedFile = File.createTempFile("ffdec_test_", ".swf");
+        try {
+            try (InputStream is = new FileInputStream(compressedFile);
+                    OutputStream os = new FileOutputStream(uncompressedFile)) {
+                assertTrue(SWF.decompress(is, os));
+            }
+
+            byte[] expectedUncompressed = openAndSave(new FileInputStream(uncompressedFile), false);
+            assertEquals(openAndSave(new FileInputStream(uncompressedFile), true), expectedUncompressed);
+        } finally {
+            uncompressedFile.delete();
+        }
+    }
+
+    private List<byte[]> getOriginalActionBytes(boolean mapped) throws IOException, InterruptedException {
+        boolean oldMapped = Configuration.memoryMappedOpen.get();
+        Configuration.memoryMappedOpen.set(mapped);
+        try (InputStream is = new BufferedInputStream(new FileInputStream("testdata/as2/as2.swf"))) {
+            SWF swf = new SWF(is, false);
+            List<byte[]> ret = new ArrayList<>();
+            for (ASMSource src : swf.getASMs(true).values()) {
+                ActionList list = src.getActions();
+                assertNotNull(list.fileData);
+                assertEquals(list.fileData.hasArray(), !mapped);
+                for (Action a : list) {
+                    if (a.getFileOffset() == -1) {
+                        continue;
+                    }
+                    byte[] bytes = new byte[a.getTotalActionLength()];
+                    for (int i = 0; i < bytes.length; i++) {
+                        bytes[i] = list.fileData.get((int) a.getFileOffset() + i);
+                    }
+                    ret.add(bytes);
+                }
+            }
+            return ret;
+        } finally {
+            Configuration.memoryMappedOpen.set(oldMapped);
+        }
+    }
+
+    @Test
+    public void testMemoryMappedOriginalActionBytes() throws IOException, InterruptedException {
+        List<byte[]> expected = getOriginalActionBytes(false);
+        List<byte[]> actual = getOriginalActionBytes(true);
+        assertEquals(actual.size(), expected.size());
+        assertTrue(!expected.isEmpty());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(actual.get(i), expected.get(i));
+        }
+    }
+
+    private int countMappedTempFiles() {
+        String[] names = new File(System.getProperty("java.io.tmpdir")).list((dir, name) -> name.startsWith("ffdec_swf_"));
+        return names == null ? 0 : names.length;
+    }
+
+    @Test
+    public void testMemoryMappedOpenKeepsFileWritable() throws IOException, InterruptedException {
+        File compressedFile = new File("testdata/graphics/graphics.swf");
+        File uncompressedFile = File.createTempFile("ffdec_test_", ".swf");
+        boolean oldMapped = Configuration.memoryMappedOpen.get();
+        Configuration.memoryMappedOpen.set(true);
+        try {
+            try (InputStream is = new FileInputStream(compressedFile);
+                    OutputStream os = new FileOutputStream(uncompressedFile)) {
+                assertTrue(SWF.decompress(is, os));
+            }
+
+            byte[] expected = openAndSave(new FileInputStream(uncompressedFile), false);
+            int tempFileCount = countMappedTempFiles();
+            SWF swf;
+            try (InputStream is = new BufferedInputStream(new FileInputStream(uncompressedFile))) {
+                swf = new SWF(is, false);
+            }
+
+            assertEquals(countMappedTempFiles(), tempFileCount);
+
+            // saving over the opened file must not change the opened SWF
+            try (OutputStream os = new FileOutputStream(uncompressedFile)) {
+                os.write(new byte[16]);
+            }
+
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            swf.saveTo(baos);
+            assertEquals(baos.toByteArray(), expected);
+        } finally {
+            Configuration.memoryMappedOpen.set(oldMapped);
+            uncompressedFile.delete();
+        }
+    }
+
+    @Test
+    public void testLazyDumpInfo() throws IOException, InterruptedException {
+        SWF swf;
+        try (InputStream is = new BufferedInputStream(new FileInputStream("testdata/graphics/graphics.swf"))) {
+            swf = new SWF(is, false);
+        }
+
+        List<DumpInfo> tagInfos = new ArrayList<>();
+        for (DumpInfo di : swf.getDumpInfo().getChildInfos()) {
+            if (di.tagToResolve != null) {
+                tagInfos.add(di);
+            }
+        }
+
+        assertTrue(tagInfos.size() >= swf.getTags().size());
+        for (int i = 0; i < swf.getTags().size(); i++) {
+            Tag tag = swf.getTags().get(i);
+            DumpInfo di = tagInfos.get(i);
+            assertEquals(di.getTag().getId(), tag.getId());
+            assertEquals(di.getTag().getName(), tag.getName());
+        }
+    }
 }
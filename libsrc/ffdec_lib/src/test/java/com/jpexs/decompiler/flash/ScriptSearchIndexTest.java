@@ -0,0 +1,133 @@
+/*
+ *  Copyright (C) 2010-2021 JPEXS, All rights reserved.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3.0 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library.
+ */
+package com.jpexs.decompiler.flash;
+
+import com.jpexs.decompiler.flash.search.ScriptSearchIndex;
+import java.util.function.Predicate;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+import org.testng.annotations.Test;
+
+/**
+ *
+ * @author JPEXS
+ */
+public class ScriptSearchIndexTest {
+
+    private ScriptSearchIndex<String> createIndex() {
+        ScriptSearchIndex<String> index = new ScriptSearchIndex<>();
+        index.add("A", "var myVariable = getValue(x);");
+        index.add("B", "trace(\"Hello world\");");
+        index.add("C", "return otherThing;");
+        return index;
+    }
+
+    @Test
+    public void testWholeWords() {
+        Predicate<String> filter = createIndex().getCandidateFilter("getValue", false);
+        assertTrue(filter.test("A"));
+        assertFalse(filter.test("B"));
+        assertFalse(filter.test("C"));
+    }
+
+    @Test
+    public void testPartialWords() {
+        ScriptSearchIndex<String> index = createIndex();
+
+        // starts and ends in the middle of a word
+        Predicate<String> filter = index.getCandidateFilter("yVari", false);
+        assertTrue(filter.test("A"));
+        assertFalse(filter.test("B"));
+
+        // ends in the middle of a word
+        filter = index.getCandidateFilter("otherTh", false);
+        assertTrue(filter.test("C"));
+        assertFalse(filter.test("A"));
+
+        // starts in the middle of a word
+        filter = index.getCandidateFilter("Thing", false);
+        assertTrue(filter.test("C"));
+        assertFalse(filter.test("A"));
+    }
+
+    @Test
+    public void testPunctuation() {
+        ScriptSearchIndex<String> index = createIndex();
+
+        // "able" must end a word, "get" must start a word
+        Predicate<String> filter = index.getCandidateFilter("able = get", false);
+        assertTrue(filter.test("A"));
+        assertFalse(filter.test("B"));
+        assertFalse(filter.test("C"));
+
+        // "Value" does not start a word
+        filter = index.getCandidateFilter("able = Value", false);
+        assertFalse(filter.test("A"));
+
+        // "x" is a whole word between the parentheses
+        filter = index.getCandidateFilter("(x)", false);
+        assertTrue(filter.test("A"));
+        assertFalse(filter.test("C"));
+
+        // no words, the index cannot be used
+        assertNull(index.getCandidateFilter("();", false));
+    }
+
+    @Test
+    public void testIgnoreCase() {
+        ScriptSearchIndex<String> index = createIndex();
+        assertFalse(index.getCandidateFilter("hello", false).test("B"));
+        assertTrue(index.getCandidateFilter("hello", true).test("B"));
+        assertTrue(index.getCandidateFilter("HELLO WORLD", true).test("B"));
+        assertFalse(index.getCandidateFilter("HELLO WORLD", true).test("A"));
+        assertTrue(index.getCandidateFilter("\"hELLO", true).test("B"));
+        assertFalse(index.getCandidateFilter("\"ELLO", true).test("B"));
+    }
+
+    @Test
+    public void testRemovedAndNotIndexed() {
+        ScriptSearchIndex<String> index = createIndex();
+        index.add("D", "uniqueName();");
+        assertTrue(index.getCandidateFilter("uniqueName", false).test("D"));
+        assertFalse(index.getCandidateFilter("otherThing", false).test("D"));
+
+        // removed scripts are not indexed, so they must be searched
+        index.remove("D");
+        assertTrue(index.getCandidateFilter("otherThing", false).test("D"));
+        assertFalse(index.getCandidateFilter("uniqueName", false).test("A"));
+
+        // not indexed script
+        assertTrue(index.getCandidateFilter("otherThing", false).test("E"));
+
+        // added after the filter was created
+        Predicate<String> filter = index.getCandidateFilter("otherThing", false);
+        index.add("F", "nothing");
+        assertTrue(filter.test("F"));
+    }
+
+    @Test
+    public void testReplacedText() {
+        ScriptSearchIndex<String> index = createIndex();
+        index.add("A", "newText");
+        assertFalse(index.getCandidateFilter("myVariable", false).test("A"));
+        assertTrue(index.getCandidateFilter("newText", false).test("A"));
+
+        index.clear();
+        assertTrue(index.getCandidateFilter("newText", false).test("A"));
+    }
+}
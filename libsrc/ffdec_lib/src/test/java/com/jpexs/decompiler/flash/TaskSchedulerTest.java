@@ -0,0 +1,88 @@
+/*
+ *  Copyright (C) 2010-2021 JPEXS, All rights reserved.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3.0 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library. */
+package com.jpexs.decompiler.flash;
+
+import com.jpexs.helpers.TaskScheduler;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import org.testng.annotations.Test;
+
+/**
+ *
+ * @author JPEXS
+ */
+public class TaskSchedulerTest {
+
+    private static int sum(final int depth) throws InterruptedException, ExecutionException {
+        if (depth == 0) {
+            return 1;
+        }
+
+        List<Callable<Integer>> tasks = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            tasks.add(new Callable<Integer>() {
+                @Override
+                public Integer call() throws Exception {
+                    return sum(depth - 1);
+                }
+            });
+        }
+
+        int ret = 0;
+        for (Future<Integer> future : TaskScheduler.submitAll(null, tasks)) {
+            ret += TaskScheduler.join(future);
+        }
+
+        return ret;
+    }
+
+    @Test(timeOut = 60000)
+    public void testNestedJoin() throws InterruptedException, ExecutionException {
+        // 4^5 leaves, nesting is much deeper than the parallelism
+        assertEquals(sum(5), 1024);
+    }
+
+    @Test(timeOut = 60000)
+    public void testCancelOwner() throws InterruptedException {
+        Object owner = new Object();
+        final CountDownLatch started = new CountDownLatch(1);
+        Future<Void> future = TaskScheduler.submit(owner, new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                started.countDown();
+                Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+                return null;
+            }
+        });
+
+        started.await();
+        TaskScheduler.cancel(owner);
+        assertTrue(future.isCancelled());
+        try {
+            TaskScheduler.join(future);
+            assertTrue(false, "Cancelled task should not return");
+        } catch (InterruptedException | ExecutionException ex) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ *  Copyright (C) 2010-2021 JPEXS, All rights reserved.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3.0 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library.
+ */
+package com.jpexs.decompiler.flash.benchmarks;
+
+import com.jpexs.helpers.ByteArrayCacheCodec;
+import com.jpexs.helpers.FileHashMap;
+import com.jpexs.helpers.MappedSlabMap;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compares the disk cache stores - FileHashMap and MappedSlabMap. Puts and
+ * reads values of mixed sizes from several threads and prints operations per
+ * second.
+ *
+ * Usage: CacheStoreBenchmark [threads] [operations per thread]
+ *
+ * @author JPEXS
+ */
+public class CacheStoreBenchmark {
+
+    private static final int KEY_COUNT = 2000;
+
+    private static final int[] VALUE_SIZES = new int[]{100, 2000, 30000, 200000};
+
+    public static void main(String[] args) throws Exception {
+        int threadCount = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        int operations = args.length > 1 ? Integer.parseInt(args[1]) : 20000;
+
+        byte[][] values = new byte[VALUE_SIZES.length][];
+        Random random = new Random(1);
+        for (int i = 0; i < values.length; i++) {
+            values[i] = new byte[VALUE_SIZES[i]];
+            random.nextBytes(values[i]);
+        }
+
+        for (int round = 0; round < 2; round++) {
+            // first round is warm up
+            File file1 = File.createTempFile("ffdec_bench_", ".tmp");
+            FileHashMap<Integer, byte[]> fileHashMap = new FileHashMap<>(file1);
+            // FileHashMap is not thread safe, Cache used to lock it as a whole
+            run("FileHashMap", Collections.synchronizedMap(fileHashMap), values, threadCount, operations);
+            fileHashMap.delete();
+
+            File file2 = File.createTempFile("ffdec_bench_", ".tmp");
+            MappedSlabMap<Integer, byte[]> slabMap = new MappedSlabMap<>(file2, new ByteArrayCacheCodec(), 256L * 1024 * 1024);
+            run("MappedSlabMap", slabMap, values, threadCount, operations);
+            slabMap.delete();
+        }
+    }
+
+    private static void run(String name, final Map<Integer, byte[]> map, final byte[][] values, int threadCount, final int operations) throws InterruptedException, IOException {
+        final AtomicLong hits = new AtomicLong();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < threadCount; t++) {
+            final int seed = t;
+            threads.add(new Thread() {
+                @Override
+                public void run() {
+                    Random random = new Random(seed);
+                    for (int i = 0; i < operations; i++) {
+                        int key = random.nextInt(KEY_COUNT);
+                        if (random.nextInt(4) == 0) {
+                            map.put(key, values[key % values.length]);
+                        } else if (map.get(key) != null) {
+                            hits.incrementAndGet();
+                        }
+                    }
+                }
+            });
+        }
+
+        long start = System.nanoTime();
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long time = System.nanoTime() - start;
+
+        long total = (long) threadCount * operations;
+        System.out.println(name + ": " + threadCount + " threads, " + (total * 1000000000L / time) + " ops/s, " + hits.get() + " hits");
+    }
+}
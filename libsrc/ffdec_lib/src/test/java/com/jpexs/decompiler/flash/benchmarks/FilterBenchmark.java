@@ -0,0 +1,138 @@
+/*
+ *  Copyright (C) 2010-2021 JPEXS, All rights reserved.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3.0 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library.
+ */
+package com.jpexs.decompiler.flash.benchmarks;
+
+import com.jpexs.decompiler.flash.types.filters.Filtering;
+import com.jpexs.helpers.SerializableImage;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Measures the blur based filters (blur, glow, drop shadow, bevel and their
+ * gradient variants) on a 1080p image. Prints the time of each filter and a
+ * hash of its result, so outputs of different implementations can be
+ * compared.
+ *
+ * Usage: FilterBenchmark [repeat count] [blur size] [passes]
+ *
+ * @author JPEXS
+ */
+public class FilterBenchmark {
+
+    private static final int WIDTH = 1920;
+
+    private static final int HEIGHT = 1080;
+
+    private interface FilterRun {
+
+        SerializableImage run(SerializableImage src);
+    }
+
+    public static void main(String[] args) throws Exception {
+        int repeatCount = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        final int blur = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+        final int passes = args.length > 2 ? Integer.parseInt(args[2]) : 2;
+
+        BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_ARGB_PRE);
+        Graphics2D g = image.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        Random random = new Random(1);
+        for (int i = 0; i < 200; i++) {
+            g.setColor(new Color(random.nextInt(256), random.nextInt(256), random.nextInt(256), random.nextInt(256)));
+            g.fillOval(random.nextInt(WIDTH), random.nextInt(HEIGHT), 20 + random.nextInt(300), 20 + random.nextInt(300));
+        }
+        g.dispose();
+        final SerializableImage src = new SerializableImage(image);
+
+        final Color[] colors = new Color[]{new Color(255, 0, 0, 0), new Color(255, 255, 0, 255), new Color(0, 0, 255, 255)};
+        final float[] ratios = new float[]{0, 0.5f, 1};
+
+        String[] names = new String[]{"blur", "glow", "inner glow", "drop shadow", "bevel", "gradient glow", "gradient bevel"};
+        FilterRun[] runs = new FilterRun[]{
+            new FilterRun() {
+                @Override
+                public SerializableImage run(SerializableImage src) {
+                    return Filtering.blur(src, blur, blur, passes);
+                }
+            },
+            new FilterRun() {
+                @Override
+                public SerializableImage run(SerializableImage src) {
+                    return Filtering.glow(src, blur, blur, 1, Color.RED, false, false, passes);
+                }
+            },
+            new FilterRun() {
+                @Override
+                public SerializableImage run(SerializableImage src) {
+                    return Filtering.glow(src, blur, blur, 1, Color.RED, true, false, passes);
+                }
+            },
+            new FilterRun() {
+                @Override
+                public SerializableImage run(SerializableImage src) {
+                    return Filtering.dropShadow(src, blur, blur, 45, 8, Color.BLACK, false, passes, 1, false);
+                }
+            },
+            new FilterRun() {
+                @Override
+                public SerializableImage run(SerializableImage src) {
+                    return Filtering.bevel(src, blur, blur, 1, Filtering.INNER, 0xffffffff, 0xff000000, 45, 4, false, passes);
+                }
+            },
+            new FilterRun() {
+                @Override
+                public SerializableImage run(SerializableImage src) {
+                    return Filtering.gradientGlow(src, blur, blur, 45, 4, colors, ratios, Filtering.OUTER, passes, 1, false);
+                }
+            },
+            new FilterRun() {
+                @Override
+                public SerializableImage run(SerializableImage src) {
+                    return Filtering.gradientBevel(src, colors, ratios, blur, blur, 1, Filtering.FULL, 45, 4, false, passes);
+                }
+            }
+        };
+
+        for (int round = 0; round < 2; round++) {
+            // first round is warm up
+            for (int f = 0; f < runs.length; f++) {
+                long start = System.nanoTime();
+                SerializableImage result = null;
+                for (int r = 0; r < repeatCount; r++) {
+                    result = runs[f].run(src);
+                }
+                long time = (System.nanoTime() - start) / repeatCount;
+                if (round == 1) {
+                    System.out.println(names[f] + ": " + (time / 1000000) + " ms, hash " + Integer.toHexString(getHash(result.getBufferedImage())));
+                }
+            }
+        }
+    }
+
+    private static int getHash(BufferedImage image) {
+        if (image.getRaster().getDataBuffer() instanceof DataBufferInt) {
+            return Arrays.hashCode(((DataBufferInt) image.getRaster().getDataBuffer()).getData());
+        }
+
+        return Arrays.hashCode(image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth()));
+    }
+}
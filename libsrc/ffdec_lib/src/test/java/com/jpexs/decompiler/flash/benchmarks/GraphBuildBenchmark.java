@@ -0,0 +1,166 @@
+/*
+ *  Copyright (C) 2010-2021 JPEXS, All rights reserved.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3.0 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library.
+ */
+package com.jpexs.decompiler.flash.benchmarks;
+
+import com.jpexs.decompiler.flash.SWF;
+import com.jpexs.decompiler.flash.abc.ABC;
+import com.jpexs.decompiler.flash.abc.avm2.AVM2Code;
+import com.jpexs.decompiler.flash.abc.avm2.graph.AVM2Graph;
+import com.jpexs.decompiler.flash.abc.avm2.parser.AVM2ParseException;
+import com.jpexs.decompiler.flash.abc.avm2.parser.pcode.ASM3Parser;
+import com.jpexs.decompiler.flash.abc.types.ABCException;
+import com.jpexs.decompiler.flash.abc.types.MethodInfo;
+import com.jpexs.decompiler.flash.abc.types.MethodBody;
+import com.jpexs.decompiler.flash.abc.types.traits.Traits;
+import com.jpexs.decompiler.flash.tags.ABCContainerTag;
+import com.jpexs.decompiler.graph.ScopeStack;
+import java.io.BufferedInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Measures control flow graph construction (Graph.makeGraph) of the largest
+ * method bodies and of generated methods with many blocks, like the ones
+ * produced by Alchemy or Haxe.
+ *
+ * Usage: GraphBuildBenchmark [swf files...], defaults to as3_new and flex test
+ * SWFs.
+ * Alchemy or Haxe SWFs with huge methods can be passed as arguments.
+ *
+ * @author JPEXS
+ */
+public class GraphBuildBenchmark {
+
+    private static final int METHOD_COUNT = 22;
+
+    private static final int REPEAT_COUNT = 20;
+
+    private static final int[] GENERATED_BLOCK_COUNTS = new int[]{1000, 5000};
+
+    public static void main(final String[] args) throws Exception {
+        // the parser and the graph builder recurse per block
+        final Exception[] error = new Exception[1];
+        Thread thread = new Thread(null, new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    runBenchmark(args);
+                } catch (Exception ex) {
+                    error[0] = ex;
+                }
+            }
+        }, "benchmark", 1024L * 1024 * 1024);
+        thread.start();
+        thread.join();
+        if (error[0] != null) {
+            throw error[0];
+        }
+    }
+
+    private static void runBenchmark(String[] args) throws Exception {
+        if (args.length == 0) {
+            args = new String[]{"testdata/as3_new/bin/as3_new.flex.swf", "testdata/as3_new/bin/as3_new.air.swf", "testdata/flex/TestFlex.swf"};
+        }
+
+        List<ABC> abcs = new ArrayList<>();
+        final List<MethodBody> bodies = new ArrayList<>();
+        for (String file : args) {
+            SWF swf = open(file);
+            for (ABCContainerTag tag : swf.getAbcList()) {
+                for (MethodBody body : tag.getABC().bodies) {
+                    abcs.add(tag.getABC());
+                    bodies.add(body);
+                }
+            }
+        }
+
+        ABC firstAbc = abcs.get(0);
+        for (int blockCount : GENERATED_BLOCK_COUNTS) {
+            abcs.add(firstAbc);
+            bodies.add(generateBody(firstAbc, blockCount));
+        }
+
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < bodies.size(); i++) {
+            order.add(i);
+        }
+        Collections.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer o1, Integer o2) {
+                return bodies.get(o2).getCode().code.size() - bodies.get(o1).getCode().code.size();
+            }
+        });
+
+        for (int round = 0; round < 2; round++) {
+            // first round is warm up
+            long total = 0;
+            for (int i = 0; i < Math.min(METHOD_COUNT, order.size()); i++) {
+                MethodBody body = bodies.get(order.get(i));
+                ABC abc = abcs.get(order.get(i));
+                long start = System.nanoTime();
+                for (int r = 0; r < REPEAT_COUNT; r++) {
+                    AVM2Graph graph = new AVM2Graph(body.getCode(), abc, body, false, -1, -1, new HashMap<>(), new ScopeStack(), new HashMap<>(), new ArrayList<>(), new HashMap<>(), body.getCode().visitCode(body));
+                    graph.init(null);
+                }
+                long time = (System.nanoTime() - start) / REPEAT_COUNT;
+                total += time;
+                if (round == 1) {
+                    System.out.println("method body " + body.method_info + ": " + body.getCode().code.size() + " instructions, " + (time / 1000) + " us");
+                }
+            }
+            if (round == 1) {
+                System.out.println("total: " + (total / 1000) + " us");
+            }
+        }
+    }
+
+    /**
+     * Generates method with a sequence of ifs.
+     */
+    private static MethodBody generateBody(ABC abc, int blockCount) throws IOException, AVM2ParseException, InterruptedException {
+        StringBuilder sb = new StringBuilder();
+        sb.append("code\r\n");
+        sb.append("getlocal0\r\n");
+        sb.append("pushscope\r\n");
+        for (int i = 0; i < blockCount; i++) {
+            sb.append("getlocal1\r\n");
+            sb.append("iffalse label").append(i).append("\r\n");
+            sb.append("pushbyte 1\r\n");
+            sb.append("setlocal2\r\n");
+            sb.append("label").append(i).append(":nop\r\n");
+        }
+        sb.append("returnvoid\r\n");
+
+        MethodBody body = new MethodBody(abc, new Traits(), new byte[0], new ABCException[0]);
+        AVM2Code code = ASM3Parser.parse(abc, new StringReader(sb.toString()), null, body, new MethodInfo());
+        body.setCode(code);
+        return body;
+    }
+
+    private static SWF open(String file) throws IOException, InterruptedException {
+        try (InputStream is = new BufferedInputStream(new FileInputStream(file))) {
+            return new SWF(is, false);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ *  Copyright (C) 2010-2021 JPEXS, All rights reserved.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3.0 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library.
+ */
+package com.jpexs.decompiler.flash.benchmarks;
+
+import com.jpexs.decompiler.flash.SWF;
+import com.jpexs.decompiler.flash.tags.DefineSpriteTag;
+import com.jpexs.decompiler.flash.tags.PlaceObject2Tag;
+import com.jpexs.decompiler.flash.tags.RemoveObject2Tag;
+import com.jpexs.decompiler.flash.tags.ShowFrameTag;
+import com.jpexs.decompiler.flash.timeline.Timeline;
+import com.jpexs.decompiler.flash.types.MATRIX;
+import com.jpexs.decompiler.flash.types.RECT;
+import java.util.Random;
+
+/**
+ * Measures initialization time and memory of a long timeline with many
+ * depths, and the time of getting layers of random frames.
+ *
+ * Usage: TimelineBenchmark [frames] [depths] [changes per frame]
+ *
+ * @author JPEXS
+ */
+public class TimelineBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int frameCount = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+        int depthCount = args.length > 1 ? Integer.parseInt(args[1]) : 300;
+        int changeCount = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+
+        SWF swf = new SWF();
+        DefineSpriteTag sprite = new DefineSpriteTag(swf);
+        Random random = new Random(1);
+        for (int d = 1; d <= depthCount; d++) {
+            sprite.addTag(new PlaceObject2Tag(swf, false, d, 1, new MATRIX(), null, -1, null, -1, null));
+        }
+        sprite.addTag(new ShowFrameTag(swf));
+        for (int f = 1; f < frameCount; f++) {
+            for (int i = 0; i < changeCount; i++) {
+                int depth = 1 + random.nextInt(depthCount);
+                if (random.nextInt(10) == 0) {
+                    RemoveObject2Tag remove = new RemoveObject2Tag(swf);
+                    remove.depth = depth;
+                    sprite.addTag(remove);
+                    sprite.addTag(new PlaceObject2Tag(swf, false, depth, 1, new MATRIX(), null, -1, null, -1, null));
+                } else {
+                    MATRIX matrix = new MATRIX();
+                    matrix.translateX = f;
+                    sprite.addTag(new PlaceObject2Tag(swf, true, depth, -1, matrix, null, -1, null, -1, null));
+                }
+            }
+            sprite.addTag(new ShowFrameTag(swf));
+        }
+
+        for (int round = 0; round < 3; round++) {
+            // first rounds are warm up
+            long memoryBefore = getUsedMemory();
+            long start = System.nanoTime();
+            Timeline timeline = new Timeline(swf, sprite, 1, new RECT());
+            timeline.getFrameCount();
+            long initTime = System.nanoTime() - start;
+            long memory = getUsedMemory() - memoryBefore;
+
+            start = System.nanoTime();
+            int layerCount = 0;
+            for (int i = 0; i < 1000; i++) {
+                layerCount += timeline.getFrame(random.nextInt(frameCount)).getLayers().size();
+            }
+            long layersTime = System.nanoTime() - start;
+
+            if (round == 2) {
+                System.out.println(frameCount + " frames, " + depthCount + " depths: init " + (initTime / 1000000) + " ms, "
+                        + (memory / 1024 / 1024) + " MB, 1000 random frames layers " + (layersTime / 1000000) + " ms (" + layerCount + " states)");
+            }
+        }
+    }
+
+    private static long getUsedMemory() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
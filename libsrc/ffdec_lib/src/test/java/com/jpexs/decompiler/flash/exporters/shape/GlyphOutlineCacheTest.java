@@ -0,0 +1,171 @@
+/*
+ *  Copyright (C) 2010-2021 JPEXS, All rights reserved.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3.0 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library.
+ */
+package com.jpexs.decompiler.flash.exporters.shape;
+
+import com.jpexs.decompiler.flash.SWF;
+import com.jpexs.decompiler.flash.exporters.commonshape.Matrix;
+import com.jpexs.decompiler.flash.exporters.shape.GlyphOutlineCache.GlyphOutline;
+import com.jpexs.decompiler.flash.tags.Tag;
+import com.jpexs.decompiler.flash.tags.base.FontTag;
+import com.jpexs.decompiler.flash.types.ColorTransform;
+import com.jpexs.decompiler.flash.types.RECT;
+import com.jpexs.decompiler.flash.types.SHAPE;
+import com.jpexs.helpers.SerializableImage;
+import java.awt.Color;
+import java.awt.Font;
+import java.io.BufferedInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.List;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+/**
+ *
+ * @author JPEXS
+ */
+public class GlyphOutlineCacheTest {
+
+    private static final int IMAGE_SIZE = 160;
+
+    @BeforeClass
+    public void init() {
+        // adding characters reads kerning of the installed fonts
+        FontTag.reload();
+    }
+
+    private static FontTag getFont(SWF swf) {
+        FontTag ret = null;
+        for (Tag tag : swf.getTags()) {
+            if (tag instanceof FontTag) {
+                FontTag font = (FontTag) tag;
+                if (ret == null || font.getGlyphShapeTable().size() > ret.getGlyphShapeTable().size()) {
+                    ret = font;
+                }
+            }
+        }
+        assertNotNull(ret);
+        assertTrue(ret.getGlyphShapeTable().size() > 2);
+        return ret;
+    }
+
+    private static SWF open() throws IOException, InterruptedException {
+        return new SWF(new BufferedInputStream(new FileInputStream("testdata/as2/as2.swf")), false);
+    }
+
+    private static void assertImagesEqual(SerializableImage actual, SerializableImage expected, String message) {
+        int[] actualPixels = actual.getBufferedImage().getRGB(0, 0, IMAGE_SIZE, IMAGE_SIZE, null, 0, IMAGE_SIZE);
+        int[] expectedPixels = expected.getBufferedImage().getRGB(0, 0, IMAGE_SIZE, IMAGE_SIZE, null, 0, IMAGE_SIZE);
+        for (int i = 0; i < expectedPixels.length; i++) {
+            assertEquals(Integer.toHexString(actualPixels[i]), Integer.toHexString(expectedPixels[i]), message + ", pixel " + (i % IMAGE_SIZE) + "," + (i / IMAGE_SIZE));
+        }
+    }
+
+    @Test
+    public void testRenderingSameAsBitmapExporter() throws IOException, InterruptedException {
+        SWF swf = open();
+        FontTag font = getFont(swf);
+        List<SHAPE> glyphs = font.getGlyphShapeTable();
+        Color color = new Color(0x80, 0x20, 0xc0, 0xd0);
+        // the small sizes are drawn from the glyph mask cache from the third
+        // draw at the same position within a pixel
+        double[] textHeights = new double[]{240, 2400};
+        for (int i = 0; i < glyphs.size(); i++) {
+            SHAPE shape = glyphs.get(i);
+            GlyphOutline outline = font.getGlyphOutlineCache().get(swf, glyphs, i);
+            assertSame(outline.getShape(), shape);
+
+            RECT bounds = outline.getBounds();
+            RECT shapeBounds = shape.getBounds();
+            assertEquals(bounds.Xmin, shapeBounds.Xmin);
+            assertEquals(bounds.Ymin, shapeBounds.Ymin);
+            assertEquals(bounds.Xmax, shapeBounds.Xmax);
+            assertEquals(bounds.Ymax, shapeBounds.Ymax);
+
+            for (double textHeight : textHeights) {
+                Matrix transformation = Matrix.getScaleInstance(textHeight / 1024.0 / font.getDivider());
+                transformation.translateX = 20 * 20 + 7.5;
+                transformation.translateY = 120 * 20 + 3.25;
+                for (int draw = 0; draw < 3; draw++) {
+                    SerializableImage expected = new SerializableImage(IMAGE_SIZE, IMAGE_SIZE, SerializableImage.TYPE_INT_ARGB_PRE);
+                    BitmapExporter.export(swf, shape, color, expected, transformation, transformation, new ColorTransform(), true);
+                    SerializableImage actual = new SerializableImage(IMAGE_SIZE, IMAGE_SIZE, SerializableImage.TYPE_INT_ARGB_PRE);
+                    outline.toImage(swf, color, actual, transformation, new ColorTransform());
+                    assertImagesEqual(actual, expected, "glyph " + i + ", text height " + textHeight + ", draw " + draw);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testModifiedFontClearsCache() throws IOException, InterruptedException {
+        SWF swf = open();
+        FontTag font = getFont(swf);
+        GlyphOutlineCache cache = font.getGlyphOutlineCache();
+        List<SHAPE> glyphs = font.getGlyphShapeTable();
+        int last = glyphs.size() - 1;
+        GlyphOutline lastOutline = cache.get(swf, glyphs, last);
+        assertSame(cache.get(swf, glyphs, last), lastOutline);
+
+        // a character before all the others shifts the glyph indices
+        char first = (char) font.glyphToChar(0);
+        char added = (char) (first - 1);
+        font.addCharacter(added, new Font(Font.SANS_SERIF, Font.PLAIN, 12));
+        glyphs = font.getGlyphShapeTable();
+        assertEquals(font.charToGlyph(added), 0);
+        assertSame(glyphs.get(last + 1), lastOutline.getShape());
+        GlyphOutline shiftedOutline = cache.get(swf, glyphs, last + 1);
+        assertNotSame(shiftedOutline, lastOutline);
+        for (int i = 0; i < glyphs.size(); i++) {
+            assertSame(cache.get(swf, glyphs, i).getShape(), glyphs.get(i));
+        }
+
+        assertTrue(font.removeCharacter(added));
+        glyphs = font.getGlyphShapeTable();
+        assertSame(glyphs.get(last), lastOutline.getShape());
+        assertNotSame(cache.get(swf, glyphs, last), shiftedOutline);
+        for (int i = 0; i < glyphs.size(); i++) {
+            assertSame(cache.get(swf, glyphs, i).getShape(), glyphs.get(i));
+        }
+
+        // a character after all the others keeps the glyph indices, the
+        // outlines are created again anyway
+        GlyphOutline firstOutline = cache.get(swf, glyphs, 0);
+        assertSame(cache.get(swf, glyphs, 0), firstOutline);
+        added = (char) (font.glyphToChar(last) + 1);
+        font.addCharacter(added, new Font(Font.SANS_SERIF, Font.PLAIN, 12));
+        glyphs = font.getGlyphShapeTable();
+        assertEquals(font.charToGlyph(added), last + 1);
+        assertSame(glyphs.get(0), firstOutline.getShape());
+        GlyphOutline outline = cache.get(swf, glyphs, 0);
+        assertNotSame(outline, firstOutline);
+        assertSame(cache.get(swf, glyphs, 0), outline);
+
+        assertTrue(font.removeCharacter(added));
+        glyphs = font.getGlyphShapeTable();
+        assertNotSame(cache.get(swf, glyphs, 0), outline);
+
+        outline = cache.get(swf, glyphs, 0);
+        font.setModified(true);
+        assertNotSame(cache.get(swf, glyphs, 0), outline);
+    }
+}
@@ -0,0 +1,267 @@
+/*
+ *  Copyright (C) 2010-2021 JPEXS, All rights reserved.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3.0 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library.
+ */
+package com.jpexs.decompiler.flash.timeline;
+
+import com.jpexs.decompiler.flash.SWF;
+import com.jpexs.decompiler.flash.tags.PlaceObject2Tag;
+import com.jpexs.decompiler.flash.tags.base.PlaceObjectTypeTag;
+import com.jpexs.decompiler.flash.types.MATRIX;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.SortedMap;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+import org.testng.annotations.Test;
+
+/**
+ * Compares DepthStateHistory with the full copies of layers for each frame
+ * which the timeline used before.
+ *
+ * @author JPEXS
+ */
+public class DepthStateHistoryTest {
+
+    private static final int FRAME_COUNT = 200;
+
+    private final SWF swf = new SWF();
+
+    private DepthStateHistory history;
+
+    private List<Frame> frames;
+
+    private List<Frame> expectedFrames;
+
+    private Frame frame;
+
+    private Frame expectedFrame;
+
+    private void place(int depth, int characterId, int translateX, int clipDepth) {
+        MATRIX matrix = new MATRIX();
+        matrix.translateX = translateX;
+        PlaceObjectTypeTag po = new PlaceObject2Tag(swf, characterId == -1, depth, characterId, matrix, null, -1, null, clipDepth, null);
+
+        DepthState ds = history.getForChange(frame, depth);
+        if (ds == null) {
+            ds = new DepthState(swf, frame);
+            ds.depth = depth;
+            history.put(frame, ds);
+        }
+        apply(ds, po);
+
+        ds = expectedFrame.getLayers().get(depth);
+        if (ds == null) {
+            ds = new DepthState(swf, expectedFrame);
+            ds.depth = depth;
+            expectedFrame.getLayers().put(depth, ds);
+        }
+        apply(ds, po);
+    }
+
+    private static void apply(DepthState ds, PlaceObjectTypeTag po) {
+        ds.placeObjectTag = po;
+        if (po.getCharacterId() != -1) {
+            ds.characterId = po.getCharacterId();
+        }
+        ds.matrix = po.getMatrix();
+        if (po.getClipDepth() > -1) {
+            ds.clipDepth = po.getClipDepth();
+        }
+        ds.key = po.getCharacterId() != -1;
+    }
+
+    private void remove(int depth) {
+        history.remove(frame, depth);
+        expectedFrame.getLayers().remove(depth);
+    }
+
+    private void showFrame() {
+        history.endFrame(frame);
+        frames.add(frame);
+        expectedFrames.add(expectedFrame);
+        frame = new Frame(null, frames.size(), history);
+        expectedFrame = new Frame(expectedFrame, expectedFrames.size());
+    }
+
+    /**
+     * Builds frames with random changes. Depth 1 moves in every frame, so its
+     * tweens span the snapshots.
+     */
+    private void build(long seed) {
+        Random random = new Random(seed);
+        history = new DepthStateHistory();
+        frames = new ArrayList<>();
+        expectedFrames = new ArrayList<>();
+        frame = new Frame(null, 0, history);
+        expectedFrame = new Frame((Timeline) null, 0);
+        for (int f = 0; f < FRAME_COUNT; f++) {
+            place(1, f % 70 == 0 ? 1 + f / 70 : -1, f, f == 100 ? 30 : -1);
+            for (int i = 0; i < 5; i++) {
+                int depth = 2 + random.nextInt(12);
+                switch (random.nextInt(10)) {
+                    case 0:
+                    case 1:
+                        remove(depth);
+                        break;
+                    case 2:
+                        place(depth, 1 + random.nextInt(3), f, -1);
+                        break;
+                    case 3:
+                        // placed and removed in the same frame
+                        place(20, 1, f, -1);
+                        place(20, -1, f + 1, -1);
+                        remove(20);
+                        break;
+                    default:
+                        if (expectedFrame.getLayers().containsKey(depth)) {
+                            place(depth, -1, f, -1);
+                        }
+                }
+            }
+            showFrame();
+        }
+        history.finish(FRAME_COUNT);
+    }
+
+    private int getExpectedMaxDepth() {
+        int maxDepth = 0;
+        for (Frame f : expectedFrames) {
+            for (DepthState ds : f.getLayers().values()) {
+                maxDepth = Math.max(maxDepth, Math.max(ds.depth, ds.clipDepth));
+            }
+        }
+        return maxDepth;
+    }
+
+    private void detectExpectedTweens(int maxDepth) {
+        for (int d = 1; d <= maxDepth; d++) {
+            int characterId = -1;
+            int len = 0;
+            for (int f = 0; f <= expectedFrames.size(); f++) {
+                DepthState ds = f >= expectedFrames.size() ? null : expectedFrames.get(f).getLayers().get(d);
+                if (ds != null && characterId != -1 && ds.characterId == characterId) {
+                    len++;
+                } else {
+                    if (characterId != -1) {
+                        int startPos = f - len;
+                        List<DepthState> states = new ArrayList<>(len);
+                        for (int k = 0; k < len; k++) {
+                            states.add(expectedFrames.get(startPos + k).getLayers().get(d));
+                        }
+
+                        for (TweenRange r : TweenDetector.detectRanges(states)) {
+                            for (int t = r.startPosition; t <= r.endPosition; t++) {
+                                DepthState layer = expectedFrames.get(startPos + t).getLayers().get(d);
+                                layer.motionTween = true;
+                                layer.key = false;
+                            }
+                            expectedFrames.get(startPos + r.startPosition).getLayers().get(d).key = true;
+                        }
+                    }
+                    len = 1;
+                }
+                characterId = ds == null ? -1 : ds.characterId;
+            }
+        }
+    }
+
+    private Map<Integer, Integer> getExpectedDepthMaxFrames(int maxDepth) {
+        Map<Integer, Integer> ret = new HashMap<>();
+        for (int d = 1; d <= maxDepth; d++) {
+            for (int f = expectedFrames.size() - 1; f >= 0; f--) {
+                if (expectedFrames.get(f).getLayers().get(d) != null) {
+                    ret.put(d, f);
+                    break;
+                }
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * Instance ids of the expected depth states mapped to the ids of the
+     * actual ones, both are generated independently.
+     */
+    private final Map<Long, Long> instanceIds = new HashMap<>();
+
+    private void assertDepthState(DepthState actual, DepthState expected, int frame) {
+        String message = "frame " + frame + ", depth " + expected.depth;
+        assertEquals(actual.depth, expected.depth, message);
+        assertEquals(actual.frame.frame, frame, message);
+        assertEquals(actual.characterId, expected.characterId, message);
+        assertSame(actual.matrix, expected.matrix, message);
+        assertSame(actual.placeObjectTag, expected.placeObjectTag, message);
+        assertEquals(actual.clipDepth, expected.clipDepth, message);
+        assertEquals(actual.time, expected.time, message);
+        Long instanceId = instanceIds.get(expected.instanceId);
+        if (instanceId == null) {
+            assertTrue(!instanceIds.containsValue(actual.instanceId), message);
+            instanceIds.put(expected.instanceId, actual.instanceId);
+        } else {
+            assertEquals(actual.instanceId, (long) instanceId, message);
+        }
+        assertEquals(actual.motionTween, expected.motionTween, message);
+        assertEquals(actual.key, expected.key, message);
+    }
+
+    @Test
+    public void testSameAsFrameCopies() {
+        build(1);
+
+        int maxDepth = getExpectedMaxDepth();
+        assertEquals(history.getMaxDepth(), maxDepth);
+
+        history.detectTweens();
+        detectExpectedTweens(maxDepth);
+
+        Map<Integer, Integer> depthMaxFrames = new HashMap<>();
+        history.getDepthMaxFrames(depthMaxFrames);
+        assertEquals(depthMaxFrames, getExpectedDepthMaxFrames(maxDepth));
+
+        boolean tweenAcrossSnapshot = false;
+        for (int f = 0; f < FRAME_COUNT; f++) {
+            SortedMap<Integer, DepthState> layers = frames.get(f).getLayers();
+            SortedMap<Integer, DepthState> expectedLayers = expectedFrames.get(f).getLayers();
+            assertEquals(layers.keySet(), expectedLayers.keySet(), "frame " + f);
+            for (int depth : expectedLayers.keySet()) {
+                assertDepthState(layers.get(depth), expectedLayers.get(depth), f);
+            }
+
+            DepthState ds = layers.get(1);
+            if (f % 32 == 0 && f > 0 && ds.motionTween && !ds.key) {
+                tweenAcrossSnapshot = true;
+            }
+        }
+        assertTrue(tweenAcrossSnapshot, "No tween spans a snapshot");
+    }
+
+    @Test
+    public void testLayersAreUnmodifiable() {
+        build(2);
+        SortedMap<Integer, DepthState> layers = frames.get(40).getLayers();
+        try {
+            layers.remove(1);
+            fail("Layers from the history must not be modifiable");
+        } catch (UnsupportedOperationException ex) {
+            //expected
+        }
+    }
+}
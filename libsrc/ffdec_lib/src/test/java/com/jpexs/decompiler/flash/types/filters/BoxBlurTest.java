@@ -0,0 +1,285 @@
+/*
+ *  Copyright (C) 2010-2021 JPEXS, All rights reserved.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3.0 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library.
+ */
+package com.jpexs.decompiler.flash.types.filters;
+
+import com.jpexs.decompiler.flash.configuration.Configuration;
+import com.jpexs.decompiler.flash.types.RGBA;
+import java.util.Random;
+import static org.testng.Assert.assertEquals;
+import org.testng.annotations.Test;
+
+/**
+ * Compares BoxBlur with the previous blur of Filtering, which blurred the
+ * columns in place.
+ *
+ * @author JPEXS
+ */
+public class BoxBlurTest {
+
+    private static void boxBlurHorizontal(int[] pixels, int[] mask, int[] newColors, int w, int h, int radius) {
+        int index = 0;
+
+        for (int y = 0; y < h; y++) {
+            int hits = 0;
+            long r = 0;
+            long g = 0;
+            long b = 0;
+            long a = 0;
+            for (int x = -radius; x < w; x++) {
+                int oldPixel = x - radius - 1;
+                if (oldPixel >= 0) {
+
+                    int color = pixels[index + oldPixel];
+                    if ((mask == null) || (((mask[index + oldPixel] >> 24) & 0xff) > 0)) {
+                        if (color != 0) {
+                            a -= (color >> 24) & 0xff;
+                            r -= ((color >> 16) & 0xff);
+                            g -= ((color >> 8) & 0xff);
+                            b -= ((color) & 0xff);
+
+                        }
+                        hits--;
+                    }
+                }
+
+                int newPixel = x + radius;
+                if (newPixel < w) {
+                    int color = pixels[index + newPixel];
+                    if ((mask == null) || (((mask[index + newPixel] >> 24) & 0xff) > 0)) {
+                        if (color != 0) {
+                            a += (color >> 24) & 0xff;
+                            r += ((color >> 16) & 0xff);
+                            g += ((color >> 8) & 0xff);
+                            b += ((color) & 0xff);
+                        }
+                        hits++;
+                    }
+                }
+
+                if (x >= 0) {
+                    if ((mask == null) || (((mask[index + x] >> 24) & 0xff) > 0)) {
+                        if (hits == 0) {
+                            newColors[x] = 0;
+                        } else {
+                            newColors[x] = RGBA.toInt((int) (r / hits) & 0xff, (int) (g / hits) & 0xff, (int) (b / hits) & 0xff, (int) (a / hits));
+                        }
+                    } else {
+                        newColors[x] = 0;
+                    }
+                }
+            }
+
+            System.arraycopy(newColors, 0, pixels, index, w);
+
+            index += w;
+        }
+    }
+
+    private static void boxBlurVertical(int[] pixels, int[] mask, int[] newColors, int w, int h, int radius) {
+        int oldPixelOffset = -(radius + 1) * w;
+        int newPixelOffset = (radius) * w;
+
+        for (int x = 0; x < w; x++) {
+            int hits = 0;
+            long r = 0;
+            long g = 0;
+            long b = 0;
+            long a = 0;
+            int index = -radius * w + x;
+            for (int y = -radius; y < h; y++) {
+                int oldPixel = y - radius - 1;
+                if (oldPixel >= 0) {
+                    int color = pixels[index + oldPixelOffset];
+                    if ((mask == null) || (((mask[index + oldPixelOffset] >> 24) & 0xff) > 0)) {
+                        if (color != 0) {
+                            a -= (color >> 24) & 0xff;
+                            r -= ((color >> 16) & 0xff);
+                            g -= ((color >> 8) & 0xff);
+                            b -= ((color) & 0xff);
+
+                        }
+                        hits--;
+                    }
+
+                }
+
+                int newPixel = y + radius;
+                if (newPixel < h) {
+                    if ((mask == null) || (((mask[index + newPixelOffset] >> 24) & 0xff) > 0)) {
+                        int color = pixels[index + newPixelOffset];
+                        if (color != 0) {
+                            a += (color >> 24) & 0xff;
+                            r += ((color >> 16) & 0xff);
+                            g += ((color >> 8) & 0xff);
+                            b += ((color) & 0xff);
+
+                        }
+                        hits++;
+                    }
+                }
+
+                if (y >= 0) {
+                    if ((mask == null) || (((mask[y * w + x] >> 24) & 0xff) > 0)) {
+                        if (hits == 0) {
+                            newColors[y] = 0;
+                        } else {
+                            newColors[y] = RGBA.toInt((int) (r / hits) & 0xff, (int) (g / hits) & 0xff, (int) (b / hits) & 0xff, (int) (a / hits) & 0xff);
+                        }
+                    } else {
+                        newColors[y] = 0;
+                    }
+                }
+
+                index += w;
+            }
+
+            for (int y = 0; y < h; y++) {
+                pixels[y * w + x] = newColors[y];
+            }
+        }
+    }
+
+    private static void premultiply(int[] p) {
+        for (int i = 0; i < p.length; i++) {
+            int rgb = p[i];
+            int a = rgb >> 24 & 0xff;
+            int r = rgb >> 16 & 0xff;
+            int g = rgb >> 8 & 0xff;
+            int b = rgb & 0xff;
+            float f = (float) a * 0.003921569F;
+            r = (int) ((float) r * f);
+            g = (int) ((float) g * f);
+            b = (int) ((float) b * f);
+            p[i] = a << 24 | r << 16 | g << 8 | b;
+        }
+    }
+
+    private static void unpremultiply(int[] p) {
+        for (int i = 0; i < p.length; i++) {
+            int rgb = p[i];
+            int a = rgb >> 24 & 0xff;
+            int r = rgb >> 16 & 0xff;
+            int g = rgb >> 8 & 0xff;
+            int b = rgb & 0xff;
+            if (a == 0 || a == 255) {
+                continue;
+            }
+            float f = 255F / (float) a;
+            r = (int) ((float) r * f);
+            g = (int) ((float) g * f);
+            b = (int) ((float) b * f);
+            if (r > 255) {
+                r = 255;
+            }
+            if (g > 255) {
+                g = 255;
+            }
+            if (b > 255) {
+                b = 255;
+            }
+            p[i] = a << 24 | r << 16 | g << 8 | b;
+        }
+    }
+
+    private static void oldBlur(int[] src, int width, int height, int hRadius, int vRadius, int iterations, int[] mask) {
+        int[] inPixels = src;
+        premultiply(inPixels);
+
+        int[] tempRow = new int[width];
+        int[] tempColumn = new int[height];
+        for (int i = 0; i < iterations; i++) {
+            boxBlurHorizontal(inPixels, mask, tempRow, width, height, hRadius / 2);
+            boxBlurVertical(inPixels, mask, tempColumn, width, height, vRadius / 2);
+        }
+        unpremultiply(inPixels);
+    }
+
+    private static int[] createPixels(Random random, int count) {
+        int[] pixels = new int[count];
+        for (int i = 0; i < count; i++) {
+            switch (random.nextInt(4)) {
+                case 0:
+                    pixels[i] = 0;
+                    break;
+                case 1:
+                    pixels[i] = 0xff000000 | random.nextInt(0x1000000);
+                    break;
+                default:
+                    pixels[i] = random.nextInt();
+                    break;
+            }
+        }
+        return pixels;
+    }
+
+    private static void assertSameAsOldBlur(int[] pixels, int width, int height, int hRadius, int vRadius, int iterations, int[] mask) {
+        int[] expected = pixels.clone();
+        oldBlur(expected, width, height, hRadius, vRadius, iterations, mask);
+        int[] actual = pixels.clone();
+        BoxBlur.blur(actual, width, height, hRadius, vRadius, iterations, mask);
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(Integer.toHexString(actual[i]), Integer.toHexString(expected[i]),
+                    "pixel " + (i % width) + "," + (i / width) + " of " + width + "x" + height
+                    + ", radius " + hRadius + "x" + vRadius + ", iterations " + iterations + ", mask " + (mask != null));
+        }
+    }
+
+    @Test
+    public void testSmallImages() {
+        Random random = new Random(1);
+        int[][] sizes = new int[][]{{1, 1}, {1, 9}, {13, 1}, {7, 5}, {33, 17}, {65, 3}};
+        int[] iterationCounts = new int[]{0, 1, 2, 3};
+        boolean parallelSpeedUp = Configuration.parallelSpeedUp.get();
+        Configuration.parallelSpeedUp.set(false);
+        try {
+            for (int[] size : sizes) {
+                int width = size[0];
+                int height = size[1];
+                // blur sizes are halved, the largest ones reach over the whole image
+                int[] radii = new int[]{0, 1, 2, 3, 5, 8, 2 * width, 2 * height + 1, 3 * Math.max(width, height)};
+                for (int hRadius : radii) {
+                    for (int vRadius : radii) {
+                        for (int iterations : iterationCounts) {
+                            int[] pixels = createPixels(random, width * height);
+                            assertSameAsOldBlur(pixels, width, height, hRadius, vRadius, iterations, null);
+                            assertSameAsOldBlur(pixels, width, height, hRadius, vRadius, iterations, createPixels(random, width * height));
+                        }
+                    }
+                }
+            }
+        } finally {
+            Configuration.parallelSpeedUp.set(parallelSpeedUp);
+        }
+    }
+
+    @Test
+    public void testParallel() {
+        Random random = new Random(2);
+        // large enough to be split to bands, odd sizes leave partial transpose blocks
+        int width = 301;
+        int height = 263;
+        boolean parallelSpeedUp = Configuration.parallelSpeedUp.get();
+        Configuration.parallelSpeedUp.set(true);
+        try {
+            int[] pixels = createPixels(random, width * height);
+            assertSameAsOldBlur(pixels, width, height, 9, 4, 2, null);
+            assertSameAsOldBlur(pixels, width, height, 700, 3, 3, createPixels(random, width * height));
+        } finally {
+            Configuration.parallelSpeedUp.set(parallelSpeedUp);
+        }
+    }
+}
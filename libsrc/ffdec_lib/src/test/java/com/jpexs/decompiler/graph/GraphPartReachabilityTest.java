@@ -0,0 +1,307 @@
+/*
+ *  Copyright (C) 2010-2021 JPEXS, All rights reserved.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3.0 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library.
+ */
+package com.jpexs.decompiler.graph;
+
+import com.jpexs.decompiler.flash.BaseLocalData;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import org.testng.annotations.Test;
+
+/**
+ *
+ * @author JPEXS
+ */
+public class GraphPartReachabilityTest {
+
+    private static final int PART_LENGTH = 10;
+
+    /**
+     * Code where the last instruction of some parts is a branch ignoring
+     * loops.
+     */
+    private static class TestSource extends GraphSource {
+
+        private final int size;
+
+        private final Set<Integer> ignoredLoopsBranches = new HashSet<>();
+
+        public TestSource(int size) {
+            this.size = size;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public GraphSourceItem get(final int pos) {
+            return (GraphSourceItem) Proxy.newProxyInstance(GraphSourceItem.class.getClassLoader(), new Class<?>[]{GraphSourceItem.class}, new InvocationHandler() {
+                @Override
+                public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                    switch (method.getName()) {
+                        case "isBranch":
+                        case "ignoredLoops":
+                            return ignoredLoopsBranches.contains(pos);
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                }
+            });
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return size == 0;
+        }
+
+        @Override
+        public List<GraphTargetItem> translatePart(GraphPart part, BaseLocalData localData, TranslateStack stack, int start, int end, int staticOperation, String path) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Set<Long> getImportantAddresses() {
+            return new HashSet<>();
+        }
+
+        @Override
+        public String insToString(int pos) {
+            return "";
+        }
+
+        @Override
+        public int adr2pos(long adr) {
+            return (int) adr;
+        }
+
+        @Override
+        public int adr2pos(long adr, boolean nearest) {
+            return (int) adr;
+        }
+
+        @Override
+        public long pos2adr(int pos) {
+            return pos;
+        }
+    }
+
+    /**
+     * Graph where some parts are replaced by other parts or skipped, like the
+     * finally blocks of AVM2Graph.
+     */
+    private static class TestGraph extends Graph {
+
+        private final Map<GraphPart, GraphPart> replaced = new HashMap<>();
+
+        private final Set<GraphPart> skipped = new HashSet<>();
+
+        private final Map<GraphPart, GraphPart> skippedAfter = new HashMap<>();
+
+        public TestGraph(GraphSource code) {
+            super(code, new ArrayList<>());
+        }
+
+        @Override
+        protected GraphPart checkPart(TranslateStack stack, BaseLocalData localData, GraphPart prev, GraphPart part, Set<GraphPart> allParts) {
+            if (skipped.contains(part)) {
+                return null;
+            }
+            if (prev != null && skippedAfter.get(prev) == part) {
+                return null;
+            }
+            if (replaced.containsKey(part)) {
+                return replaced.get(part);
+            }
+            return part;
+        }
+    }
+
+    private static List<GraphPart> createParts(int count) {
+        List<GraphPart> parts = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            parts.add(new GraphPart(i * PART_LENGTH, i * PART_LENGTH + PART_LENGTH - 1));
+        }
+        return parts;
+    }
+
+    private static void connect(GraphPart from, GraphPart to) {
+        from.nextParts.add(to);
+        to.refs.add(from);
+    }
+
+    private static void assertSameAsLeadsTo(Graph graph, GraphSource code, List<GraphPart> parts, List<Loop> loops, List<ThrowState> throwStates) throws InterruptedException {
+        GraphPartReachability reachability = new GraphPartReachability(null, graph, code, loops, throwStates);
+        for (GraphPart from : parts) {
+            for (GraphPart to : parts) {
+                boolean expected = from.leadsTo(null, graph, code, to, loops, throwStates, false);
+                assertEquals(reachability.leadsTo(from, to), expected, from + " -> " + to + ", loops: " + loops);
+            }
+        }
+    }
+
+    @Test
+    public void testLoopExit() throws InterruptedException {
+        // 0 -> 1 (loop head) -> 2 (body) -> 1, 1 -> 3 (exit) -> 4
+        List<GraphPart> parts = createParts(5);
+        connect(parts.get(0), parts.get(1));
+        connect(parts.get(1), parts.get(2));
+        connect(parts.get(2), parts.get(1));
+        connect(parts.get(1), parts.get(3));
+        connect(parts.get(3), parts.get(4));
+        TestSource code = new TestSource(5 * PART_LENGTH);
+        TestGraph graph = new TestGraph(code);
+
+        List<Loop> loops = new ArrayList<>();
+        Loop loop = new Loop(0, parts.get(1), parts.get(3));
+        loops.add(loop);
+        GraphPartReachability reachability = new GraphPartReachability(null, graph, code, loops, new ArrayList<>());
+        assertTrue(reachability.leadsTo(parts.get(2), parts.get(4)));
+        assertTrue(reachability.leadsTo(parts.get(2), parts.get(2)));
+        assertSameAsLeadsTo(graph, code, parts, loops, new ArrayList<>());
+
+        // the walk stops at the continue part of a loop in phase 1
+        loop.phase = 1;
+        reachability = new GraphPartReachability(null, graph, code, loops, new ArrayList<>());
+        assertFalse(reachability.leadsTo(parts.get(2), parts.get(4)));
+        assertTrue(reachability.leadsTo(parts.get(2), parts.get(1)));
+        assertSameAsLeadsTo(graph, code, parts, loops, new ArrayList<>());
+
+        loop.loopPreContinue = parts.get(2);
+        assertSameAsLeadsTo(graph, code, parts, loops, new ArrayList<>());
+    }
+
+    @Test
+    public void testNestedLoopsWithThrow() throws InterruptedException {
+        // 0 -> 1 -> 2 -> 3 -> 2, 3 -> 1, 1 -> 4 -> 5, 2 throws to 6 -> 5
+        List<GraphPart> parts = createParts(7);
+        connect(parts.get(0), parts.get(1));
+        connect(parts.get(1), parts.get(2));
+        connect(parts.get(2), parts.get(3));
+        connect(parts.get(3), parts.get(2));
+        connect(parts.get(3), parts.get(1));
+        connect(parts.get(1), parts.get(4));
+        connect(parts.get(4), parts.get(5));
+        connect(parts.get(6), parts.get(5));
+        TestSource code = new TestSource(7 * PART_LENGTH);
+        TestGraph graph = new TestGraph(code);
+
+        List<ThrowState> throwStates = new ArrayList<>();
+        ThrowState throwState = new ThrowState();
+        throwState.throwingParts.add(parts.get(2));
+        throwState.targetPart = parts.get(6);
+        throwStates.add(throwState);
+
+        List<Loop> loops = new ArrayList<>();
+        Loop outer = new Loop(0, parts.get(1), parts.get(4));
+        outer.phase = 1;
+        Loop inner = new Loop(1, parts.get(2), parts.get(1));
+        loops.add(outer);
+        loops.add(inner);
+        assertSameAsLeadsTo(graph, code, parts, loops, throwStates);
+        assertTrue(new GraphPartReachability(null, graph, code, loops, throwStates).leadsTo(parts.get(3), parts.get(5)));
+
+        inner.phase = 1;
+        assertSameAsLeadsTo(graph, code, parts, loops, throwStates);
+        assertFalse(new GraphPartReachability(null, graph, code, loops, throwStates).leadsTo(parts.get(3), parts.get(5)));
+
+        // a handled throw state is not followed
+        throwState.state = 1;
+        inner.phase = 0;
+        assertSameAsLeadsTo(graph, code, parts, loops, throwStates);
+        assertFalse(new GraphPartReachability(null, graph, code, loops, throwStates).leadsTo(parts.get(2), parts.get(6)));
+    }
+
+    @Test
+    public void testRandomGraphs() throws InterruptedException {
+        Random random = new Random(42);
+        for (int g = 0; g < 500; g++) {
+            int count = 2 + random.nextInt(14);
+            List<GraphPart> parts = createParts(count);
+            for (GraphPart part : parts) {
+                int nextCount = random.nextInt(4);
+                for (int i = 0; i < nextCount; i++) {
+                    connect(part, parts.get(random.nextInt(count)));
+                }
+            }
+
+            TestSource code = new TestSource(count * PART_LENGTH);
+            TestGraph graph = new TestGraph(code);
+            for (GraphPart part : parts) {
+                switch (random.nextInt(12)) {
+                    case 0:
+                        graph.skipped.add(part);
+                        break;
+                    case 1:
+                        graph.replaced.put(part, parts.get(random.nextInt(count)));
+                        break;
+                    case 2:
+                        graph.skippedAfter.put(part, parts.get(random.nextInt(count)));
+                        break;
+                    case 3:
+                        code.ignoredLoopsBranches.add(part.end);
+                        break;
+                }
+            }
+            // replacements must not form a cycle
+            for (GraphPart part : new ArrayList<>(graph.replaced.keySet())) {
+                if (graph.replaced.get(part).start <= part.start) {
+                    graph.replaced.remove(part);
+                }
+            }
+
+            List<Loop> loops = new ArrayList<>();
+            int loopCount = random.nextInt(3);
+            for (int i = 0; i < loopCount; i++) {
+                Loop loop = new Loop(i, parts.get(random.nextInt(count)), parts.get(random.nextInt(count)));
+                loop.phase = random.nextInt(3);
+                if (random.nextBoolean()) {
+                    loop.loopPreContinue = parts.get(random.nextInt(count));
+                }
+                loops.add(loop);
+            }
+
+            List<ThrowState> throwStates = new ArrayList<>();
+            int throwCount = random.nextInt(3);
+            for (int i = 0; i < throwCount; i++) {
+                ThrowState throwState = new ThrowState();
+                throwState.exceptionId = i;
+                throwState.state = random.nextInt(2);
+                throwState.targetPart = parts.get(random.nextInt(count));
+                for (GraphPart part : parts) {
+                    if (random.nextInt(3) == 0) {
+                        throwState.throwingParts.add(part);
+                    }
+                }
+                throwStates.add(throwState);
+            }
+
+            assertSameAsLeadsTo(graph, code, parts, loops, throwStates);
+        }
+    }
+}
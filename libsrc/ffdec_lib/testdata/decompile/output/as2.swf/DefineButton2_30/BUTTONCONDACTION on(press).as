@@ -0,0 +1,3 @@
+on(press){
+   trace("button pressed");
+}
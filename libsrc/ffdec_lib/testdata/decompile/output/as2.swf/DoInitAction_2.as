@@ -0,0 +1 @@
+trace("initclip 2");
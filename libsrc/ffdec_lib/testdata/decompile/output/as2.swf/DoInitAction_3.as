@@ -0,0 +1 @@
+trace("star init");
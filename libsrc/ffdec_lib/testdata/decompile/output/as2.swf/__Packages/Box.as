@@ -0,0 +1,16 @@
+class Box extends MovieClip
+{
+   function Box(passed_mc)
+   {
+      super();
+      this.box_mc = passed_mc;
+   }
+   function moveUp()
+   {
+      this.box_mc._y -= 1;
+   }
+   function moveDown()
+   {
+      this.box_mc._y += 20;
+   }
+}
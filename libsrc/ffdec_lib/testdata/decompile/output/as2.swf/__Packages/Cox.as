@@ -0,0 +1,15 @@
+class Cox extends Box
+{
+   function Cox(passed_mc)
+   {
+      super(passed_mc);
+   }
+   function testPublic()
+   {
+      trace("pub");
+   }
+   function testPrivate()
+   {
+      trace("priv");
+   }
+}
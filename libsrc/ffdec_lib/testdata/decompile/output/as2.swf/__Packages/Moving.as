@@ -0,0 +1,3 @@
+interface Moving extends Moving2
+{
+}
@@ -0,0 +1,8 @@
+class MyError extends Error
+{
+   var message = "My custom error occurred";
+   function MyError()
+   {
+      super();
+   }
+}
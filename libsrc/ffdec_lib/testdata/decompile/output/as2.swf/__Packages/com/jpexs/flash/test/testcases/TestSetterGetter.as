@@ -0,0 +1,38 @@
+class com.jpexs.flash.test.testcases.TestSetterGetter
+{
+   var _myvar = 1;
+   static var _mystvar = 2;
+   var _myvarsetonly = 3;
+   var _myvargetonly = 4;
+   function TestSetterGetter()
+   {
+   }
+   static function get mystvar()
+   {
+      return com.jpexs.flash.test.testcases.TestSetterGetter._mystvar;
+   }
+   static function set mystvar(val)
+   {
+      com.jpexs.flash.test.testcases.TestSetterGetter._mystvar = val;
+   }
+   function get myvar()
+   {
+      return this._myvar;
+   }
+   function set myvar(val)
+   {
+      this._myvar = val;
+   }
+   function get myvargetonly()
+   {
+      return this._myvargetonly;
+   }
+   function set myvarsetonly(val)
+   {
+      this._myvarsetonly = val;
+   }
+   function classic()
+   {
+      trace("okay");
+   }
+}
@@ -0,0 +1,17 @@
+class com.jpexs.flash.test.testcases.TestVarsMethods
+{
+   var instVar = 1;
+   static var statVar = 2;
+   function TestVarsMethods()
+   {
+      trace("constructor");
+   }
+   function instMethod()
+   {
+      trace("instance method");
+   }
+   static function statMethod()
+   {
+      trace("static method");
+   }
+}
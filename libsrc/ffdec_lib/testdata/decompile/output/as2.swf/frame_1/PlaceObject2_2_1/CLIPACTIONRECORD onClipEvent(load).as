@@ -0,0 +1,3 @@
+onClipEvent(load){
+   trace("load unload");
+}
@@ -0,0 +1,16 @@
+trace("forWithContinueTest");
+var i = 0;
+for(; i < 10; i++)
+{
+   trace("hello:" + i);
+   if(i == 5)
+   {
+      trace("i==5");
+      if(i == 7)
+      {
+         continue;
+      }
+      trace("hawk");
+   }
+   trace("end of the loop");
+}
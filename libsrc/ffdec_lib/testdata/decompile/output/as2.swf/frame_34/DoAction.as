@@ -0,0 +1,11 @@
+trace("multipleConditionsTest");
+var k = 5;
+if(k == 7 && k == 8)
+{
+   trace("first");
+}
+if(k == 9)
+{
+   trace("second");
+}
+trace("finish");
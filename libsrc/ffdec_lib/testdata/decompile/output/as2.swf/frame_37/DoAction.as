@@ -0,0 +1,13 @@
+trace("objectsTest");
+var flashBox = new Box(box1);
+_root.onEnterFrame = function()
+{
+   flashBox.moveUp();
+};
+var ship = new Ship(200);
+var enemy = new Enemy(56);
+ship.moveDown(0.5);
+ship.moveUp(0.2);
+enemy.moveRight(230);
+enemy.moveLeft(100);
+var c = new Cox(box1);
@@ -0,0 +1,12 @@
+function tst()
+{
+   return 1;
+}
+trace("incDecTest");
+var i = 5;
+var b = i++;
+var c = --i + 5;
+trace("a:" + a + " b:" + b + " c:" + c);
+var arr = [1,2,3];
+var d = arr[tst()]++;
+trace(d);
@@ -0,0 +1,12 @@
+function a()
+{
+   trace("hi");
+   var _loc1_ = 5;
+   if(_loc1_ == 7)
+   {
+      return undefined;
+   }
+   _loc1_ *= 9;
+   trace(_loc1_);
+}
+trace("function2Test");
@@ -0,0 +1,28 @@
+function testtry()
+{
+   var _loc1_ = 5;
+   try
+   {
+      if(_loc1_ == 3)
+      {
+         return undefined;
+      }
+      if(_loc1_ == 4)
+      {
+         throw new Error();
+      }
+      else
+      {
+         _loc1_ = 7;
+      }
+   }
+   catch(e)
+   {
+      trace("error");
+   }
+   finally
+   {
+      trace("finally");
+   }
+}
+trace("tryFunctionTest");
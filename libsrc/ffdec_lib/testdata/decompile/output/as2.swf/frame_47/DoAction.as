@@ -0,0 +1,4 @@
+trace("ternarTest");
+var a = 5;
+var b = a != 4 ? 3 : 2;
+trace(b);
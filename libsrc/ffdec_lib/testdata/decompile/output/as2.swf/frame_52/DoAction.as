@@ -0,0 +1,16 @@
+trace("commaOperatorTest");
+var a = 0;
+var b = 0;
+var c = 0;
+while(true)
+{
+   a++;
+   b += 2;
+   if(c >= 10)
+   {
+      break;
+   }
+   trace(c);
+   c++;
+}
+trace("konec");
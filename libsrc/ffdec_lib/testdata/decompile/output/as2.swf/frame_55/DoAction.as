@@ -0,0 +1,2 @@
+trace("pushTest");
+53;
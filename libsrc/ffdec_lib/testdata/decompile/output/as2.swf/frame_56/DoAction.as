@@ -0,0 +1,13 @@
+trace("commaOperator3Test");
+var k = 1;
+while(true)
+{
+   k++;
+   if(k >= 10)
+   {
+      break;
+   }
+   k *= 5;
+   trace(k);
+}
+trace("end");
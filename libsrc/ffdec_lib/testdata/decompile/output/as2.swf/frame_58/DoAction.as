@@ -0,0 +1,76 @@
+function tst(p1)
+{
+   trace("test");
+}
+trace("globalFunctionsTest");
+var k = Array(1,2,3);
+var a = 1;
+var b = Boolean(a);
+call(5);
+var c = "A";
+clearInterval(5);
+clearTimeout(4);
+var mc;
+duplicateMovieClip(mc,"copy",16389);
+a = escape("how");
+var f = a;
+fscommand("alert(\"hi\");");
+a = getProperty(mc, _alpha);
+a = getTimer();
+getURL("http://localhost/","wnd","POST");
+a = getVersion();
+gotoAndPlay(5);
+gotoAndStop(8);
+ifFrameLoaded(4)
+{
+   trace("loaded");
+}
+a = int(f);
+a = isFinite(f);
+a = isNaN(f);
+a = length(f);
+loadMovie("http://localhost/test.swf",a,"GET");
+loadMovieNum("http://localhost/test.swf",5,"GET");
+loadVariables("http://localhost/vars.txt",a,"GET");
+loadVariablesNum("http://localhost/vars.txt",4,"GET");
+a = mbchr(f);
+a = mblength(f);
+a = mbord(f);
+a = mbsubstring("aaaa",5,4);
+MMExecute("destroyPC");
+nextFrame();
+gotoAndStop(1);
+a = Number(f);
+a = Object(f);
+a = ord(f);
+a = parseFloat(f);
+a = parseInt(f,16);
+play();
+prevFrame();
+gotoAndStop(1);
+print(mc,"bframe");
+printAsBitmap(mc,"bframe");
+printAsBitmapNum(5,"bframe");
+printNum(4,"bframe");
+a = random(10);
+removeMovieClip(mc);
+setInterval(tst,5,f);
+setProperty(mc, _alpha, 25);
+setTimeout(ts,5,f);
+showRedrawRegions(false,0);
+startDrag(mc,1,5,5,6,6);
+stop();
+stopAllSounds();
+stopDrag();
+a = String(f);
+a = "aa";
+targetPath(f);
+tellTarget(mc)
+{
+   trace("told");
+}
+toggleHighQuality();
+a = unescape(f);
+unloadMovie(mc);
+unloadMovieNum(4);
+updateAfterEvent();
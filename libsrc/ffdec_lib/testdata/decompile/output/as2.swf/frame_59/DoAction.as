@@ -0,0 +1,5 @@
+trace("unaryOpTest");
+var a = 5;
+var c = ~a;
+var d = ~(a + c);
+var e = - c;
@@ -0,0 +1,14 @@
+trace("switchDefaultTest");
+var k = 5;
+switch(k)
+{
+   case 5:
+   default:
+      trace("default 5");
+   case 6:
+      trace("default 5,6");
+      break;
+   case 7:
+      trace("7");
+}
+trace("afterSwitch");
@@ -0,0 +1,17 @@
+function outfunc()
+{
+   var _loc2_ = function()
+   {
+      var a = 5;
+      var _loc3_ = 6;
+      var _loc2_ = function()
+      {
+         var _loc1_ = a + 2;
+         trace(_loc1_);
+         return _loc1_;
+      };
+      return _loc2_();
+   };
+   return _loc2_();
+}
+trace("functionVariablesTest");
@@ -0,0 +1,16 @@
+function outfunc()
+{
+   var _loc2_ = function(a, x)
+   {
+      var _loc3_ = a + 3 + x;
+      var _loc2_ = function()
+      {
+         var _loc1_ = a + 2;
+         trace(_loc1_);
+         return _loc1_;
+      };
+      return _loc2_();
+   };
+   return _loc2_(5,2);
+}
+trace("functionInnerParametersTest");
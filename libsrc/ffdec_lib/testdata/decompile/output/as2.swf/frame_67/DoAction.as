@@ -0,0 +1,842 @@
+function test1()
+{
+   var _loc1_ = random(100);
+   switch(_loc1_)
+   {
+      case 1:
+         trace("place1");
+      case 2:
+         trace("place2");
+   }
+   trace("place3");
+   trace("after switch");
+}
+function test2()
+{
+   var _loc1_ = random(100);
+   switch(_loc1_)
+   {
+      case 1:
+      case 2:
+      case 3:
+         trace("place3");
+   }
+   trace("after switch");
+}
+function test3()
+{
+   var _loc1_ = random(100);
+   switch(_loc1_)
+   {
+      case 1:
+         trace("place1");
+      case 2:
+         trace("place2");
+      case 3:
+         trace("place3");
+   }
+   trace("after switch");
+}
+function test4()
+{
+   var _loc1_ = random(100);
+   switch(_loc1_)
+   {
+      case 1:
+         trace("place1");
+         break;
+      case 2:
+         trace("place2");
+      default:
+         trace("place3");
+   }
+   trace("after switch");
+}
+function test5()
+{
+   var _loc1_ = random(100);
+   switch(_loc1_)
+   {
+      case 1:
+         trace("place1");
+         break;
+      case 2:
+         trace("place2");
+      case 3:
+         trace("place3");
+   }
+   trace("after switch");
+}
+function test6()
+{
+   var _loc1_ = random(100);
+   switch(_loc1_)
+   {
+      case 1:
+         trace("place1");
+         break;
+      case 2:
+   }
+   trace("place3");
+   trace("after switch");
+}
+function test7()
+{
+   var _loc1_ = random(100);
+   switch(_loc1_)
+   {
+      case 1:
+         trace("place1");
+      case 2:
+         trace("place2");
+         break;
+      default:
+         trace("place3");
+   }
+   trace("after switch");
+}
+function test8()
+{
+   var _loc1_ = random(100);
+   switch(_loc1_)
+   {
+      case 1:
+      case 2:
+         trace("place2");
+      case 3:
+         trace("place3");
+   }
+   trace("after switch");
+}
+function test9()
+{
+   var _loc1_ = random(100);
+   switch(_loc1_)
+   {
+      case 1:
+         trace("place1");
+      case 2:
+      case 3:
+         trace("place3");
+   }
+   trace("after switch");
+}
+function test10()
+{
+   var _loc1_ = random(100);
+   switch(_loc1_)
+   {
+      case 1:
+         trace("place1");
+         break;
+      case 2:
+         trace("place3");
+         break;
+      default:
+         trace("place2");
+   }
+   trace("after switch");
+}
+function test11()
+{
+   var _loc1_ = random(100);
+   switch(_loc1_)
+   {
+      case 1:
+         trace("place1");
+         break;
+      case 2:
+         trace("place2");
+         break;
+      case 3:
+         trace("place3");
+   }
+   trace("after switch");
+}
+function test12()
+{
+   var _loc1_ = random(100);
+   switch(_loc1_)
+   {
+      case 1:
+         trace("place1");
+         break;
+      case 2:
+      case 3:
+         trace("place3");
+   }
+   trace("after switch");
+}
+function test13()
+{
+   var _loc1_ = random(100);
+   switch(_loc1_)
+   {
+      case 1:
+      default:
+         trace("place2");
+         break;
+      case 2:
+         trace("place3");
+   }
+   trace("after switch");
+}
+function test14()
+{
+   var _loc1_ = random(100);
+   switch(_loc1_)
+   {
+      case 1:
+      case 2:
+         trace("place2");
+         break;
+      case 3:
+         trace("place3");
+   }
+   trace("after switch");
+}
+function test15()
+{
+   var _loc1_ = random(100);
+   switch(_loc1_)
+   {
+      case 1:
+         trace("place1");
+      case 2:
+         trace("place2");
+      case 3:
+         trace("place3");
+   }
+   trace("after switch");
+}
+function test16()
+{
+   var _loc1_ = random(100);
+   switch(_loc1_)
+   {
+      case 1:
+      case 2:
+      case 3:
+         trace("place3");
+   }
+   trace("after switch");
+}
+function test17()
+{
+   var _loc1_ = random(100);
+   switch(_loc1_)
+   {
+      case 1:
+         trace("place1");
+         break;
+      case 2:
+         trace("place2");
+   }
+   trace("after switch");
+}
+function test18()
+{
+   var _loc1_ = random(100);
+   switch(_loc1_)
+   {
+      case 1:
+         trace("place1");
+      case 2:
+         trace("place2");
+   }
+   trace("after switch");
+}
+function test19()
+{
+   var _loc1_ = random(100);
+   switch(_loc1_)
+   {
+      case 1:
+      case 2:
+         trace("place2");
+   }
+   trace("after switch");
+}
+function test20()
+{
+   var _loc1_ = random(100);
+   switch(_loc1_)
+   {
+      case 1:
+         trace("place1");
+         break;
+      case 2:
+         trace("place2");
+      case 3:
+         trace("place3");
+   }
+   trace("after switch");
+}
+function test21()
+{
+   var _loc1_ = random(100);
+   switch(_loc1_)
+   {
+      case 1:
+         trace("place1");
+      case 2:
+         trace("place2");
+         break;
+      case 3:
+         trace("place3");
+   }
+   trace("after switch");
+}
+function test22()
+{
+   var _loc1_ = random(100);
+   switch(_loc1_)
+   {
+      case 1:
+         trace("place1");
+      case 2:
+         trace("place2");
+         break;
+      case 3:
+         trace("place3");
+   }
+   trace("after switch");
+}
+function test23()
+{
+   var _loc1_ = random(100);
+   switch(_loc1_)
+   {
+      case 1:
+         trace("place1");
+         break;
+      case 2:
+         trace("place2");
+         break;
+      default:
+         trace("place3");
+   }
+   trace("after switch");
+}
+function test24()
+{
+   var _loc1_ = random(100);
+   switch(_loc1_)
+   {
+      case 1:
+      case 2:
+         trace("place2");
+   }
+   trace("place3");
+   trace("after switch");
+}
+function test25()
+{
+   var _loc1_ = random(100);
+   switch(_loc1_)
+   {
+      case 1:
+         trace("place1");
+      case 2:
+      case 3:
+         trace("place3");
+   }
+   trace("after switch");
+}
+function test26()
+{
+   var _loc1_ = random(100);
+   switch(_loc1_)
+   {
+      case 1:
+      case 2:
+         trace("place2");
+      case 3:
+         trace("place3");
+   }
+   trace("after switch");
+}
+function test27()
+{
+   var _loc1_ = random(100);
+   switch(_loc1_)
+   {
+      case 1:
+         trace("place1");
+         break;
+      case 2:
+         trace("place2");
+         break;
+      case 3:
+         trace("place3");
+   }
+   trace("after switch");
+}
+function test28()
+{
+   var _loc1_ = random(100);
+   switch(_loc1_)
+   {
+      case 1:
+         trace("place1");
+         break;
+      case 2:
+      default:
+         trace("place3");
+   }
+   trace("after switch");
+}
+function test29()
+{
+   var _loc1_ = random(100);
+   switch(_loc1_)
+   {
+      case 1:
+      case 2:
+         trace("place2");
+         break;
+      default:
+         trace("place3");
+   }
+   trace("after switch");
+}
+function test30()
+{
+   var _loc1_ = random(100);
+   switch(_loc1_)
+   {
+      case 1:
+         trace("place1");
+         break;
+      case 2:
+      case 3:
+         trace("place3");
+   }
+   trace("after switch");
+}
+function test31()
+{
+   var _loc1_ = random(100);
+   switch(_loc1_)
+   {
+      case 1:
+      case 2:
+         trace("place2");
+         break;
+      case 3:
+         trace("place3");
+   }
+   trace("after switch");
+}
+function test32()
+{
+   var _loc1_ = random(100);
+   switch(_loc1_)
+   {
+      case 1:
+      case 2:
+   }
+   trace("place3");
+   trace("after switch");
+}
+function test33()
+{
+   var _loc1_ = random(100);
+   switch(_loc1_)
+   {
+      default:
+         trace("place1");
+      case 1:
+         trace("place2");
+         break;
+      case 2:
+   }
+   trace("place3");
+   trace("after switch");
+}
+function test34()
+{
+   var _loc1_ = random(100);
+   switch(_loc1_)
+   {
+      case 1:
+         trace("place1");
+      case 2:
+         trace("place2");
+      case 3:
+         trace("place3");
+   }
+   trace("after switch");
+}
+function test35()
+{
+   var _loc1_ = random(100);
+   switch(_loc1_)
+   {
+      case 1:
+         trace("place2");
+      case 2:
+         trace("place3");
+         break;
+      default:
+         trace("place1");
+   }
+   trace("after switch");
+}
+function test36()
+{
+   var _loc1_ = random(100);
+   switch(_loc1_)
+   {
+      default:
+         trace("place1");
+      case 1:
+         trace("place2");
+         break;
+      case 2:
+         trace("place3");
+   }
+   trace("after switch");
+}
+function test37()
+{
+   var _loc1_ = random(100);
+   switch(_loc1_)
+   {
+      case 1:
+         trace("place1");
+         break;
+      case 2:
+         trace("place2");
+      case 3:
+         trace("place3");
+   }
+   trace("after switch");
+}
+function test38()
+{
+   var _loc1_ = random(100);
+   switch(_loc1_)
+   {
+      default:
+         trace("place1");
+         break;
+      case 1:
+      case 2:
+   }
+   trace("place3");
+   trace("after switch");
+}
+function test39()
+{
+   var _loc1_ = random(100);
+   switch(_loc1_)
+   {
+      case 1:
+         trace("place1");
+      case 2:
+         trace("place2");
+         break;
+      case 3:
+         trace("place3");
+   }
+   trace("after switch");
+}
+function test40()
+{
+   var _loc1_ = random(100);
+   switch(_loc1_)
+   {
+      case 1:
+         trace("place1");
+         break;
+      case 2:
+         trace("place2");
+         break;
+      case 3:
+         trace("place3");
+   }
+   trace("after switch");
+}
+function test41()
+{
+   var _loc1_ = random(100);
+   switch(_loc1_)
+   {
+      case 1:
+         trace("place1");
+      case 2:
+      case 3:
+         trace("place3");
+   }
+   trace("after switch");
+}
+function test42()
+{
+   var _loc1_ = random(100);
+   switch(_loc1_)
+   {
+      case 1:
+      case 2:
+         trace("place2");
+      case 3:
+         trace("place3");
+   }
+   trace("after switch");
+}
+function test43()
+{
+   var _loc1_ = random(100);
+   switch(_loc1_)
+   {
+      case 1:
+         trace("place1");
+         break;
+      case 2:
+      case 3:
+         trace("place3");
+   }
+   trace("after switch");
+}
+function test44()
+{
+   var _loc1_ = random(100);
+   switch(_loc1_)
+   {
+      case 1:
+      case 2:
+         trace("place2");
+         break;
+      case 3:
+         trace("place3");
+   }
+   trace("after switch");
+}
+function test45()
+{
+   var _loc1_ = random(100);
+   switch(_loc1_)
+   {
+      case 1:
+      case 2:
+      case 3:
+         trace("place3");
+   }
+   trace("after switch");
+}
+function test46()
+{
+   var _loc1_ = random(100);
+   switch(_loc1_)
+   {
+      case 1:
+         trace("place1");
+      default:
+         trace("place2");
+         break;
+      case 2:
+   }
+   trace("place3");
+   trace("after switch");
+}
+function test47()
+{
+   var _loc1_ = random(100);
+   switch(_loc1_)
+   {
+      case 1:
+         trace("place1");
+      case 2:
+         trace("place2");
+      case 3:
+         trace("place3");
+   }
+   trace("after switch");
+}
+function test48()
+{
+   var _loc1_ = random(100);
+   switch(_loc1_)
+   {
+      case 1:
+         trace("place1");
+         break;
+      default:
+         trace("place2");
+      case 2:
+         trace("place3");
+   }
+   trace("after switch");
+}
+function test49()
+{
+   var _loc1_ = random(100);
+   switch(_loc1_)
+   {
+      case 1:
+         trace("place1");
+      default:
+         trace("place2");
+         break;
+      case 2:
+         trace("place3");
+   }
+   trace("after switch");
+}
+function test50()
+{
+   var _loc1_ = random(100);
+   switch(_loc1_)
+   {
+      case 1:
+         trace("place1");
+         break;
+      case 2:
+         trace("place2");
+      case 3:
+         trace("place3");
+   }
+   trace("after switch");
+}
+function test51()
+{
+   var _loc1_ = random(100);
+   switch(_loc1_)
+   {
+      case 1:
+      default:
+         trace("place2");
+         break;
+      case 2:
+   }
+   trace("place3");
+   trace("after switch");
+}
+function test52()
+{
+   var _loc1_ = random(100);
+   switch(_loc1_)
+   {
+      case 1:
+         trace("place1");
+      case 2:
+         trace("place2");
+         break;
+      case 3:
+         trace("place3");
+   }
+   trace("after switch");
+}
+function test53()
+{
+   var _loc1_ = random(100);
+   switch(_loc1_)
+   {
+      case 1:
+         trace("place1");
+      case 2:
+      case 3:
+         trace("place3");
+   }
+   trace("after switch");
+}
+function test54()
+{
+   var _loc1_ = random(100);
+   switch(_loc1_)
+   {
+      case 1:
+      case 2:
+         trace("place3");
+         break;
+      default:
+         trace("place1");
+   }
+   trace("after switch");
+}
+function test55()
+{
+   var _loc1_ = random(100);
+   switch(_loc1_)
+   {
+      case 1:
+      case 2:
+         trace("place2");
+      case 3:
+         trace("place3");
+   }
+   trace("after switch");
+}
+function test56()
+{
+   var _loc1_ = random(100);
+   switch(_loc1_)
+   {
+      case 1:
+         trace("place2");
+         break;
+      case 2:
+         trace("place3");
+         break;
+      default:
+         trace("place1");
+   }
+   trace("after switch");
+}
+function test57()
+{
+   var _loc1_ = random(100);
+   switch(_loc1_)
+   {
+      case 1:
+         trace("place1");
+         break;
+      case 2:
+         trace("place2");
+         break;
+      case 3:
+         trace("place3");
+   }
+   trace("after switch");
+}
+function test58()
+{
+   var _loc1_ = random(100);
+   switch(_loc1_)
+   {
+      case 1:
+         trace("place1");
+         break;
+      case 2:
+      case 3:
+         trace("place3");
+   }
+   trace("after switch");
+}
+function test59()
+{
+   var _loc1_ = random(100);
+   switch(_loc1_)
+   {
+      case 1:
+      case 2:
+         trace("place2");
+         break;
+      case 3:
+         trace("place3");
+   }
+   trace("after switch");
+}
+function test60()
+{
+   var _loc1_ = random(100);
+   switch(_loc1_)
+   {
+      case 1:
+      case 2:
+      case 3:
+         trace("place3");
+   }
+   trace("after switch");
+}
+trace("switchVariantsTest");
@@ -0,0 +1,8 @@
+trace("forInBreakTest");
+var obj = {a:5,b:6,c:7};
+for(var k in obj)
+{
+   trace(k);
+   break;
+}
+trace("after");
@@ -0,0 +1,13 @@
+function f()
+{
+   var _loc4_ = 5;
+   var _loc3_ = {};
+   var _loc2_ = "bagr";
+   for(var _loc1_ in _locy_)
+   {
+      trace(_loc1_);
+   }
+   _loc3_.r1 = _loc2_ + 1 + ". " + (!_loc4_ ? (_loc3_.r2 = v1[_loc2_][0]) : "unk");
+}
+trace("chainedAfterForInTest");
+var v1 = {};
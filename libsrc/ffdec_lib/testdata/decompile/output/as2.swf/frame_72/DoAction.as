@@ -0,0 +1,20 @@
+function f()
+{
+   var _loc3_ = {};
+   var _loc2_ = {};
+   for(var _loc4_ in _loc3_)
+   {
+      var _loc1_ = _loc2_[_loc4_];
+      switch(_loc1_)
+      {
+         case "A":
+         case "B":
+         case "C":
+            trace("Ret 5");
+            return 5;
+      }
+   }
+   trace("Final");
+   return 10;
+}
+trace("forInSwitchTest");
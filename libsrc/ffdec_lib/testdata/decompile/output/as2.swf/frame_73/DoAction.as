@@ -0,0 +1,6 @@
+trace("deleteTest");
+var obj = {a:1,b:2};
+obj["salam likum"] = 58;
+delete obj.a;
+delete obj["salam likum"];
+delete "bagr aa";
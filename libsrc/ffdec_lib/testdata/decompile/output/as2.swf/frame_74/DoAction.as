@@ -0,0 +1,6 @@
+trace("setPropertyTest");
+setProperty("_root", _rotation, 45);
+_root._rotation = 60;
+trace(getProperty("_root", _rotation));
+set("_root._rotation",60);
+trace(undefined);
@@ -0,0 +1,124 @@
+trace("castOpTest");
+var a = 5;
+var b = null;
+b = flash.display.BitmapData(a);
+b = flash.external.ExternalInterface(a);
+b = flash.filters.BevelFilter(a);
+b = flash.filters.BitmapFilter(a);
+b = flash.filters.BlurFilter(a);
+b = flash.filters.ColorMatrixFilter(a);
+b = flash.filters.ConvolutionFilter(a);
+b = flash.filters.DisplacementMapFilter(a);
+b = flash.filters.DropShadowFilter(a);
+b = flash.filters.GlowFilter(a);
+b = flash.filters.GradientBevelFilter(a);
+b = flash.filters.GradientGlowFilter(a);
+b = flash.geom.ColorTransform(a);
+b = flash.geom.Matrix(a);
+b = flash.geom.Point(a);
+b = flash.geom.Rectangle(a);
+b = flash.geom.Transform(a);
+b = flash.net.FileReference(a);
+b = flash.net.FileReferenceList(a);
+b = flash.text.TextRenderer(a);
+b = Accordion(a);
+b = Alert(a);
+b = Array(a);
+b = BevelFilter(a);
+b = Binding(a);
+b = BitmapData(a);
+b = BitmapFilter(a);
+b = BlurFilter(a);
+b = Boolean(a);
+b = Button(a);
+b = Camera(a);
+b = Color(a);
+b = ColorMatrixFilter(a);
+b = ColorTransform(a);
+b = ComboBox(a);
+b = ComponentMixins(a);
+b = ContextMenu(a);
+b = ContextMenuItem(a);
+b = ConvolutionFilter(a);
+b = CustomActions(a);
+b = CheckBox(a);
+b = DataGrid(a);
+b = DataHolder(a);
+b = DataSet(a);
+b = DataType(a);
+b = Date(a);
+b = DateChooser(a);
+b = DateField(a);
+b = Delta(a);
+b = DeltaItem(a);
+b = DeltaPacket(a);
+b = DisplacementMapFilter(a);
+b = DropShadowFilter(a);
+b = EndPoint(a);
+b = Error(a);
+b = ExternalInterface(a);
+b = FileReference(a);
+b = FileReferenceList(a);
+b = FLVPlayback(a);
+b = Form(a);
+b = Function(a);
+b = GlowFilter(a);
+b = GradientBevelFilter(a);
+b = GradientGlowFilter(a);
+b = System.IME(a);
+b = Label(a);
+b = List(a);
+b = Loader(a);
+b = LoadVars(a);
+b = LocalConnection(a);
+b = Log(a);
+b = Matrix(a);
+b = MediaController(a);
+b = MediaDisplay(a);
+b = MediaPlayback(a);
+b = Menu(a);
+b = MenuBar(a);
+b = Microphone(a);
+b = MovieClip(a);
+b = MovieClipLoader(a);
+b = NetConnection(a);
+b = NetStream(a);
+b = Number(a);
+b = NumericStepper(a);
+b = Object(a);
+b = PendingCall(a);
+b = Point(a);
+b = PopUpManager(a);
+b = PrintJob(a);
+b = ProgressBar(a);
+b = RadioButton(a);
+b = RadioButtonGroup(a);
+b = RDBMSResolver(a);
+b = Rectangle(a);
+b = ScrollPane(a);
+b = System.security(a);
+b = SharedObject(a);
+b = Slide(a);
+b = SOAPCall(a);
+b = Sound(a);
+b = String(a);
+b = TextArea(a);
+b = TextField(a);
+b = TextFormat(a);
+b = TextInput(a);
+b = TextRenderer(a);
+b = TextSnapshot(a);
+b = Transform(a);
+b = Tree(a);
+b = TypedValue(a);
+b = UIScrollBar(a);
+b = Void(a);
+b = WebService(a);
+b = WebServiceConnector(a);
+b = Window(a);
+b = XML(a);
+b = XMLConnector(a);
+b = XMLNode(a);
+b = XMLSocket(a);
+b = XMLUI(a);
+b = XUpdateResolver(a);
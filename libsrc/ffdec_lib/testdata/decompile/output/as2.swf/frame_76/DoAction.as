@@ -0,0 +1,15 @@
+function f()
+{
+   trace(arguments[0]);
+   var _loc2_ = 0;
+   _loc2_ += 20;
+   var _loc3_ = _loc2_ += 20;
+}
+trace("compoundAssignmentsTest");
+var a = 0;
+a += 5;
+var x = a += 5;
+a.b.c += 10;
+x = a.b.c += 10;
+f(5);
+trace(a.b.c += 30);
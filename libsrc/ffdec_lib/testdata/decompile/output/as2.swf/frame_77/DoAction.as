@@ -0,0 +1,36 @@
+var as = 5;
+var abstract = 6;
+var Boolean = 7;
+var bytes = 8;
+var char = 9;
+var const = 10;
+var debugger = 11;
+var double = 12;
+var enum = 13;
+var export = 14;
+var final = 15;
+var float = 16;
+var goto = 17;
+var is = 18;
+var long = 19;
+var namespace = 20;
+var native = 21;
+var package = 22;
+var protected = 23;
+var short = 24;
+var synchronized = 25;
+var throws = 26;
+var transient = 27;
+var use = 28;
+var volatile = 29;
+var false = 43;
+var get = 48;
+var null = 62;
+var set = 69;
+var undefined = 76;
+var true = 81;
+var false = 82;
+var NaN = 83;
+var newline = 84;
+var Infinity = 85;
+var each = 86;
@@ -0,0 +1,45 @@
+trace("tellTargetTest");
+tellTarget(root.something)
+{
+   trace("A");
+   var event1 = function()
+   {
+      trace("B");
+      tellTarget(root.bagr)
+      {
+         trace("C");
+      }
+      trace("D");
+   };
+}
+trace("E");
+tellTarget(root.somethingA)
+{
+   trace("F");
+   tellTarget(root.somethingB)
+   {
+      trace("G");
+   }
+   trace("H");
+}
+trace("I");
+tellTarget(root.somethingC)
+{
+   trace("J");
+}
+trace("K");
+tellTarget(root.somethingD)
+{
+   trace("L");
+   tellTarget(root.somethingE)
+   {
+      trace("M");
+      tellTarget(root.somethingF)
+      {
+         trace("N");
+      }
+      trace("O");
+   }
+   trace("P");
+}
+trace("Q");
@@ -0,0 +1,23 @@
+function x1(c)
+{
+   var _loc2_ = 1;
+   var _loc1_ = 2;
+   return _loc2_ + _loc1_ * c;
+}
+function x2(c)
+{
+   var a0 = 1;
+   var a1 = 2;
+   var r = Math.floor(Math.random() * 2);
+   return eval("a" + r) + b * c;
+}
+function x3(c)
+{
+   var _loc2_ = 1;
+   var _loc3_ = 2;
+   var _loc1_ = Math.floor(Math.random() * 2);
+   set("a" + _loc1_,12);
+   return _loc2_ + b * c;
+}
+trace("registersVsDefineLocalTest");
+trace(x1(2) + x2(3) + x3(4));
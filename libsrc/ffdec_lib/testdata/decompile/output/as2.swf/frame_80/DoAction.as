@@ -0,0 +1,7 @@
+trace("deleteEvalTest");
+var k0 = 1;
+var k1 = 2;
+var r = Math.floor(Math.random() * 2);
+trace(eval("k" + r));
+delete ("k" + r);
+trace(eval("k" + r));
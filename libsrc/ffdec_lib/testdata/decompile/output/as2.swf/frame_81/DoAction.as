@@ -0,0 +1,7 @@
+function t(x)
+{
+   trace(x);
+}
+trace("globalFuncAsVarTest");
+var trace = 5;
+trace = t;
@@ -0,0 +1,19 @@
+trace("switchAndTest");
+var a = 5;
+var b = 3;
+switch(true)
+{
+   case a >= 0 && a <= 3:
+      trace("a 0-3");
+      break;
+   case a >= 4 && a <= 6:
+      trace("a 4-6");
+   case a >= 7 && a <= 10:
+      trace("a 7-10");
+      break;
+   case a >= 11 && a <= 20:
+      trace("a 11-20");
+      break;
+   case a != 0 ? b < 5 : b > 5:
+      trace("a 0, b xx");
+}
@@ -0,0 +1,16 @@
+trace("ifframeLoaded2Test");
+trace("A");
+ifFrameLoaded(9)
+{
+   var d = 5;
+   if(d == 4)
+   {
+      trace("B");
+   }
+   else
+   {
+      trace("C");
+   }
+   trace("D");
+}
+trace("E");
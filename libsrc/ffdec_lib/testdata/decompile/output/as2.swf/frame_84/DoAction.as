@@ -0,0 +1,12 @@
+trace("withTest");
+trace("before");
+with(_root.something)
+{
+   somesub = 5;
+   with(subvar)
+   {
+      somesub2 = 4;
+   }
+   trace("after1");
+}
+trace("after");
@@ -0,0 +1,3 @@
+trace("numbersCallTest");
+var a = (5).toString();
+var b = 5.2.toString();
@@ -0,0 +1,165 @@
+function loadWeapon(_id)
+{
+   gunReloaded();
+   var _loc1_ = 0;
+   while(_loc1_ < weaponDatabase.length)
+   {
+      var _loc2_ = weaponDatabase[_loc1_].itemName;
+      if(_loc2_ == _id)
+      {
+         trace("Weapon \'" + _loc2_ + "\' loaded");
+         playerWeapon = weaponDatabase[_loc1_];
+         return undefined;
+      }
+      _loc1_ = _loc1_ + 1;
+   }
+   trace("Weapon \'" + _id + "\' not found!");
+}
+function fireWeapon()
+{
+   if(playerWeapon.reloadComplete && mouseClicked)
+   {
+      createBullet();
+   }
+}
+function createBullet()
+{
+   var _loc3_ = 0;
+   while(_loc3_ < playerWeapon.bulletNumber)
+   {
+      var _loc2_ = _root.attachMovie("bullet","b" + _root.getNextHighestDepth(),_root.getNextHighestDepth());
+      _loc2_._x = player_mc._x + playerWeapon.barrelLength * Math.cos(player_mc._rotation * radians);
+      _loc2_._y = player_mc._y + playerWeapon.barrelLength * Math.sin(player_mc._rotation * radians);
+      var _loc5_ = random(playerWeapon.bulletOffset) - playerWeapon.bulletOffset / 2;
+      var _loc4_ = (player_mc._rotation + _loc5_) * radians;
+      _loc2_.xSpeed = Math.cos(_loc4_) * playerWeapon.bulletSpeed;
+      _loc2_.ySpeed = Math.sin(_loc4_) * playerWeapon.bulletSpeed;
+      _loc2_.lifeTimer = setInterval(destroyBullet,playerWeapon.bulletMaxAge,_loc2_);
+      bulletArray.push(_loc2_);
+      _loc3_ = _loc3_ + 1;
+   }
+   startReloading();
+}
+function startReloading()
+{
+   playerWeapon.reloadComplete = false;
+   playerWeapon.reloadTimer = setInterval(gunReloaded,playerWeapon.reloadSpeed);
+}
+function gunReloaded()
+{
+   clearInterval(playerWeapon.reloadTimer);
+   playerWeapon.reloadComplete = true;
+}
+function updateBullets()
+{
+   var _loc2_ = 0;
+   while(_loc2_ < bulletArray.length)
+   {
+      var _loc1_ = bulletArray[_loc2_];
+      _loc1_._x += _loc1_.xSpeed;
+      _loc1_._y += _loc1_.ySpeed;
+      checkEnemyHit(_loc1_);
+      _loc2_ = _loc2_ + 1;
+   }
+}
+function destroyBullet(_bullet)
+{
+   var _loc1_ = 0;
+   while(_loc1_ < bulletArray.length)
+   {
+      var _loc2_ = bulletArray[_loc1_];
+      if(_loc2_ == _bullet)
+      {
+         bulletArray.splice(_loc1_,1);
+         clearInterval(_loc2_.lifeTimer);
+         removeMovieClip(_loc2_);
+      }
+      _loc1_ = _loc1_ + 1;
+   }
+}
+function checkEnemyHit(_bullet)
+{
+   var _loc1_ = 0;
+   while(_loc1_ < enemyArray.length)
+   {
+      var _loc2_ = enemyArray[_loc1_];
+      if(_loc2_.hitTest(_bullet))
+      {
+         destroyEnemy(_loc2_);
+      }
+      _loc1_ = _loc1_ + 1;
+   }
+}
+function createEnemy()
+{
+   var _loc2_ = _root.attachMovie("enemy_mc","enemy" + _root.getNextHighestDepth(),_root.getNextHighestDepth());
+   _loc2_._x = random(Stage.width);
+   _loc2_._y = random(Stage.height);
+   enemyArray.push(_loc2_);
+   trace("Enemy created: " + _loc2_);
+}
+function destroyEnemy(_enemy)
+{
+   var _loc1_ = 0;
+   while(_loc1_ < enemyArray.length)
+   {
+      var _loc2_ = enemyArray[_loc1_];
+      if(_loc2_ == _enemy)
+      {
+         trace("Enemy removed: tempEnemy");
+         enemyArray.splice(_loc1_,1);
+         removeMovieClip(_loc2_);
+         createEnemy();
+      }
+      _loc1_ = _loc1_ + 1;
+   }
+}
+function rotatePlayer()
+{
+   player_mc._rotation = Math.atan2(_ymouse - player_mc._y,_xmouse - player_mc._x) * radians2;
+}
+var weaponDatabase = new Array();
+var tempWeapon = {itemName:"Pistol",bulletNumber:1,bulletOffset:5,bulletSpeed:5,bulletMaxAge:2000,barrelLength:15,reloadComplete:true,reloadSpeed:750,reloadTimer:0};
+weaponDatabase.push(tempWeapon);
+var tempWeapon = {itemName:"Shotgun",bulletNumber:5,bulletOffset:10,bulletSpeed:5,bulletMaxAge:2000,barrelLength:15,reloadComplete:true,reloadSpeed:1000,reloadTimer:0};
+weaponDatabase.push(tempWeapon);
+var tempWeapon = {itemName:"Machine Gun",bulletNumber:1,bulletOffset:5,bulletSpeed:5,bulletMaxAge:2000,barrelLength:15,reloadComplete:true,reloadSpeed:200,reloadTimer:0};
+weaponDatabase.push(tempWeapon);
+var bulletArray = new Array();
+var enemyArray = new Array();
+var playerWeapon = new Object();
+var mouseClicked = false;
+var radians = 0.017453292519943295;
+var radians2 = 57.29577951308232;
+loadWeapon("Machine Gun");
+createEnemy();
+createEnemy();
+createEnemy();
+mouseListener = new Object();
+mouseListener.onMouseDown = function()
+{
+   mouseClicked = true;
+};
+mouseListener.onMouseUp = function()
+{
+   mouseClicked = false;
+};
+Mouse.addListener(mouseListener);
+_root.onEnterFrame = function()
+{
+   fireWeapon();
+   rotatePlayer();
+   updateBullets();
+};
+b1_btn.onRelease = function()
+{
+   loadWeapon("Pistol");
+};
+b2_btn.onRelease = function()
+{
+   loadWeapon("Shotgun");
+};
+b3_btn.onRelease = function()
+{
+   loadWeapon("Machine Gun");
+};
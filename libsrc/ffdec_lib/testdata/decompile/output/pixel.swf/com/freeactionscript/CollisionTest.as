@@ -0,0 +1,80 @@
+package com.freeactionscript
+{
+   import flash.display.BitmapData;
+   import flash.display.DisplayObjectContainer;
+   import flash.geom.Matrix;
+   import flash.geom.Point;
+   import flash.geom.Rectangle;
+   
+   public class CollisionTest
+   {
+       
+      
+      private var _returnValue:Boolean;
+      
+      private var _onePoint:Point;
+      
+      private var _twoPoint:Point;
+      
+      private var _oneRectangle:Rectangle;
+      
+      private var _twoRectangle:Rectangle;
+      
+      private var _oneClipBmpData:BitmapData;
+      
+      private var _twoClipBmpData:BitmapData;
+      
+      private var _oneOffset:Matrix;
+      
+      private var _twoOffset:Matrix;
+      
+      public function CollisionTest()
+      {
+         super();
+      }
+      
+      public function simple(param1:DisplayObjectContainer, param2:DisplayObjectContainer) : Boolean
+      {
+         _returnValue = false;
+         _oneRectangle = param1.getBounds(param1);
+         _oneClipBmpData = new BitmapData(_oneRectangle.width,_oneRectangle.height,true,0);
+         _oneClipBmpData.draw(param1);
+         _twoRectangle = param2.getBounds(param2);
+         _twoClipBmpData = new BitmapData(_twoRectangle.width,_twoRectangle.height,true,0);
+         _twoClipBmpData.draw(param2);
+         _onePoint = new Point(param1.x,param1.y);
+         _twoPoint = new Point(param2.x,param2.y);
+         if(_oneClipBmpData.hitTest(_onePoint,255,_twoClipBmpData,_twoPoint,255))
+         {
+            _returnValue = true;
+         }
+         return _returnValue;
+      }
+      
+      public function complex(param1:DisplayObjectContainer, param2:DisplayObjectContainer) : Boolean
+      {
+         _returnValue = false;
+         _twoRectangle = param1.getBounds(param1);
+         _oneOffset = param1.transform.matrix;
+         _oneOffset.tx = param1.x - param2.x;
+         _oneOffset.ty = param1.y - param2.y;
+         _twoClipBmpData = new BitmapData(_twoRectangle.width,_twoRectangle.height,true,0);
+         _twoClipBmpData.draw(param1,_oneOffset);
+         _oneRectangle = param2.getBounds(param2);
+         _oneClipBmpData = new BitmapData(_oneRectangle.width,_oneRectangle.height,true,0);
+         _twoOffset = param2.transform.matrix;
+         _twoOffset.tx = param2.x - param2.x;
+         _twoOffset.ty = param2.y - param2.y;
+         _oneClipBmpData.draw(param2,_twoOffset);
+         _onePoint = new Point(_oneRectangle.x,_oneRectangle.y);
+         _twoPoint = new Point(_twoRectangle.x,_twoRectangle.y);
+         if(_oneClipBmpData.hitTest(_onePoint,255,_twoClipBmpData,_twoPoint,255))
+         {
+            _returnValue = true;
+         }
+         _twoClipBmpData.dispose();
+         _oneClipBmpData.dispose();
+         return _returnValue;
+      }
+   }
+}
@@ -0,0 +1,7 @@
+on(press){
+   trace("A");
+   set("../myTxt:text","hello");
+   setProperty("/myTxt", _X, getProperty("/myTxt", _X) + 100);
+   setProperty("../panel1/but", _X, getProperty("../panel1/but", _X) + 20);
+   trace("B");
+}
@@ -0,0 +1,22 @@
+package
+{
+   import com.freeactionscript.StarField;
+   import flash.display.MovieClip;
+   import flash.display.Sprite;
+   
+   public class Main extends Sprite
+   {
+       
+      
+      private var starField:StarField;
+      
+      public function Main()
+      {
+         super();
+         var _loc1_:MovieClip = new MovieClip();
+         addChild(_loc1_);
+         starField = new StarField();
+         starField.createField(_loc1_,10,10,530,380,150);
+      }
+   }
+}
@@ -0,0 +1,14 @@
+package
+{
+   import flash.display.MovieClip;
+   
+   public dynamic class StarSmall extends MovieClip
+   {
+       
+      
+      public function StarSmall()
+      {
+         super();
+      }
+   }
+}
@@ -0,0 +1,14 @@
+package
+{
+   import flash.display.MovieClip;
+   
+   public dynamic class Barrel2Skin extends MovieClip
+   {
+       
+      
+      public function Barrel2Skin()
+      {
+         super();
+      }
+   }
+}
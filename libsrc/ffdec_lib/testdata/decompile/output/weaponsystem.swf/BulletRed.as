@@ -0,0 +1,14 @@
+package
+{
+   import flash.display.MovieClip;
+   
+   public dynamic class BulletRed extends MovieClip
+   {
+       
+      
+      public function BulletRed()
+      {
+         super();
+      }
+   }
+}
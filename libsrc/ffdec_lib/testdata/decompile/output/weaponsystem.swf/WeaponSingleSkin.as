@@ -0,0 +1,14 @@
+package
+{
+   import flash.display.MovieClip;
+   
+   public dynamic class WeaponSingleSkin extends MovieClip
+   {
+       
+      
+      public function WeaponSingleSkin()
+      {
+         super();
+      }
+   }
+}
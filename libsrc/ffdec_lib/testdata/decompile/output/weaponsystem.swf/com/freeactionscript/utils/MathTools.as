@@ -0,0 +1,32 @@
+package com.freeactionscript.utils
+{
+   public class MathTools
+   {
+       
+      
+      public function MathTools()
+      {
+         super();
+      }
+      
+      public static function getDistance(param1:Number, param2:Number) : Number
+      {
+         return Math.sqrt(param1 * param1 + param2 * param2);
+      }
+      
+      public static function getRadians(param1:Number, param2:Number) : Number
+      {
+         var _loc3_:Number = Math.atan2(param2,param1);
+         if(param2 < 0)
+         {
+            _loc3_ += 6.283;
+         }
+         return _loc3_;
+      }
+      
+      public static function getDegrees(param1:Number) : Number
+      {
+         return param1 / 0.01745 | 0;
+      }
+   }
+}
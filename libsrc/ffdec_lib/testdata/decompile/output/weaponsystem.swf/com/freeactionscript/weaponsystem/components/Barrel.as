@@ -0,0 +1,124 @@
+package com.freeactionscript.weaponsystem.components
+{
+   import com.freeactionscript.utils.MathTools;
+   import flash.display.DisplayObjectContainer;
+   import flash.display.Sprite;
+   import flash.utils.Timer;
+   
+   public class Barrel extends Sprite
+   {
+       
+      
+      private var _parentWeapon:AbstractWeapon;
+      
+      private var _skin:DisplayObjectContainer;
+      
+      private var _relativeX:Number;
+      
+      private var _relativeY:Number;
+      
+      private var _length:Number;
+      
+      private var _reloadTimer:Timer;
+      
+      private var _barrelDistance:Number;
+      
+      private var _barrelRadians:Number;
+      
+      private var _weaponRadians:Number;
+      
+      private var _totalRadians:Number;
+      
+      private var _newX:Number;
+      
+      private var _newY:Number;
+      
+      public function Barrel(param1:AbstractWeapon, param2:DisplayObjectContainer, param3:Number, param4:Number, param5:Number)
+      {
+         super();
+         this.parentWeapon = param1;
+         this.skin = param2;
+         this.relativeX = param3;
+         this.relativeY = param4;
+         this.length = param5;
+         reloadTimer = new Timer(0);
+         addChild(param2);
+      }
+      
+      public function update() : void
+      {
+         _barrelDistance = MathTools.getDistance(this.relativeX,this.relativeY);
+         _barrelRadians = Math.atan2(this.relativeY,this.relativeX);
+         _weaponRadians = parentWeapon.rotation * 0.01745;
+         _totalRadians = _weaponRadians + _barrelRadians;
+         this.x = parentWeapon.x + _barrelDistance * Math.cos(_totalRadians);
+         this.y = parentWeapon.y + _barrelDistance * Math.sin(_totalRadians);
+         this.rotation = parentWeapon.rotation;
+      }
+      
+      public function destroy() : void
+      {
+         removeChild(skin);
+      }
+      
+      public function get relativeX() : Number
+      {
+         return _relativeX;
+      }
+      
+      public function set relativeX(param1:Number) : void
+      {
+         _relativeX = param1;
+      }
+      
+      public function get relativeY() : Number
+      {
+         return _relativeY;
+      }
+      
+      public function set relativeY(param1:Number) : void
+      {
+         _relativeY = param1;
+      }
+      
+      public function get length() : Number
+      {
+         return _length;
+      }
+      
+      public function set length(param1:Number) : void
+      {
+         _length = param1;
+      }
+      
+      public function get skin() : DisplayObjectContainer
+      {
+         return _skin;
+      }
+      
+      public function set skin(param1:DisplayObjectContainer) : void
+      {
+         _skin = param1;
+      }
+      
+      public function get reloadTimer() : Timer
+      {
+         return _reloadTimer;
+      }
+      
+      public function set reloadTimer(param1:Timer) : void
+      {
+         _reloadTimer = param1;
+      }
+      
+      public function get parentWeapon() : AbstractWeapon
+      {
+         return _parentWeapon;
+      }
+      
+      public function set parentWeapon(param1:AbstractWeapon) : void
+      {
+         _parentWeapon = param1;
+      }
+   }
+}
@@ -0,0 +1,295 @@
+package com.freeactionscript.weaponsystem.components
+{
+   import com.freeactionscript.utils.MathTools;
+   import flash.display.DisplayObjectContainer;
+   import flash.display.Sprite;
+   import flash.utils.Timer;
+   
+   public class Bullet extends Sprite
+   {
+       
+      
+      private var _bulletLifeTime:Number;
+      
+      private var _parentBarrel:Barrel;
+      
+      private var _maxDistance:Number;
+      
+      private var _skin:DisplayObjectContainer;
+      
+      private var _laserColor:int;
+      
+      private var _laserWidth:Number;
+      
+      private var _laserAlpha:Number;
+      
+      private var _expired:Boolean;
+      
+      private var _type:String;
+      
+      private var _startX:Number;
+      
+      private var _startY:Number;
+      
+      private var _endX:Number;
+      
+      private var _endY:Number;
+      
+      private var _bulletLifeTimer:Timer;
+      
+      private var _vx:Number;
+      
+      private var _vy:Number;
+      
+      private var _pcos:Number;
+      
+      private var _psin:Number;
+      
+      private var _currentDistance:int;
+      
+      public function Bullet(param1:DisplayObjectContainer)
+      {
+         super();
+         _skin = param1;
+         _expired = false;
+         _vx = 0;
+         _vy = 0;
+         addChild(param1);
+      }
+      
+      public function update() : void
+      {
+         if(!this.bulletLifeTimer.running)
+         {
+            this.expired = true;
+         }
+         if(MathTools.getDistance(this.startX - this.x,this.startY - this.y) > this.maxDistance)
+         {
+            this.expired = true;
+         }
+         if(type == WeaponTypes.PROJECTILE)
+         {
+            this.x += this.vx;
+            this.y += this.vy;
+         }
+         else if(type == WeaponTypes.LASER)
+         {
+            pcos = Math.cos(this.parentBarrel.rotation * 0.01745);
+            psin = Math.sin(this.parentBarrel.rotation * 0.01745);
+            this.startX = this.parentBarrel.x - this.parentBarrel.length * pcos;
+            this.startY = this.parentBarrel.y - this.parentBarrel.length * psin;
+            currentDistance = 0;
+            while(currentDistance < this.maxDistance)
+            {
+               this.endX = this.parentBarrel.x - _pcos * currentDistance;
+               this.endY = this.parentBarrel.y - _psin * currentDistance;
+               if(parentBarrel.parentWeapon.manager.checkCollisionPoint(this.endX,this.endY))
+               {
+                  break;
+               }
+               currentDistance += 2;
+            }
+            this.graphics.clear();
+            this.graphics.lineStyle(this.laserWidth,this.laserColor,this.laserAlpha);
+            this.graphics.moveTo(this.startX - this.x,this.startY - this.y);
+            this.graphics.lineTo(this.endX - this.x,this.endY - this.y);
+         }
+      }
+      
+      public function destroy() : void
+      {
+         _bulletLifeTimer = null;
+         removeChild(skin);
+      }
+      
+      public function get startX() : Number
+      {
+         return _startX;
+      }
+      
+      public function set startX(param1:Number) : void
+      {
+         _startX = param1;
+      }
+      
+      public function get startY() : Number
+      {
+         return _startY;
+      }
+      
+      public function set startY(param1:Number) : void
+      {
+         _startY = param1;
+      }
+      
+      public function get maxDistance() : Number
+      {
+         return _maxDistance;
+      }
+      
+      public function set maxDistance(param1:Number) : void
+      {
+         _maxDistance = param1;
+      }
+      
+      public function get vx() : Number
+      {
+         return _vx;
+      }
+      
+      public function set vx(param1:Number) : void
+      {
+         _vx = param1;
+      }
+      
+      public function get vy() : Number
+      {
+         return _vy;
+      }
+      
+      public function set vy(param1:Number) : void
+      {
+         _vy = param1;
+      }
+      
+      public function get skin() : DisplayObjectContainer
+      {
+         return _skin;
+      }
+      
+      public function set skin(param1:DisplayObjectContainer) : void
+      {
+         _skin = param1;
+      }
+      
+      public function get expired() : Boolean
+      {
+         return _expired;
+      }
+      
+      public function set expired(param1:Boolean) : void
+      {
+         _expired = param1;
+      }
+      
+      public function get endX() : Number
+      {
+         return _endX;
+      }
+      
+      public function set endX(param1:Number) : void
+      {
+         _endX = param1;
+      }
+      
+      public function get endY() : Number
+      {
+         return _endY;
+      }
+      
+      public function set endY(param1:Number) : void
+      {
+         _endY = param1;
+      }
+      
+      public function get parentBarrel() : Barrel
+      {
+         return _parentBarrel;
+      }
+      
+      public function set parentBarrel(param1:Barrel) : void
+      {
+         _parentBarrel = param1;
+      }
+      
+      public function get bulletLifeTime() : Number
+      {
+         return _bulletLifeTime;
+      }
+      
+      public function set bulletLifeTime(param1:Number) : void
+      {
+         _bulletLifeTime = param1;
+      }
+      
+      public function get bulletLifeTimer() : Timer
+      {
+         return _bulletLifeTimer;
+      }
+      
+      public function set bulletLifeTimer(param1:Timer) : void
+      {
+         _bulletLifeTimer = param1;
+      }
+      
+      public function get laserColor() : int
+      {
+         return _laserColor;
+      }
+      
+      public function set laserColor(param1:int) : void
+      {
+         _laserColor = param1;
+      }
+      
+      public function get laserWidth() : Number
+      {
+         return _laserWidth;
+      }
+      
+      public function set laserWidth(param1:Number) : void
+      {
+         _laserWidth = param1;
+      }
+      
+      public function get laserAlpha() : Number
+      {
+         return _laserAlpha;
+      }
+      
+      public function set laserAlpha(param1:Number) : void
+      {
+         _laserAlpha = param1;
+      }
+      
+      public function get pcos() : Number
+      {
+         return _pcos;
+      }
+      
+      public function set pcos(param1:Number) : void
+      {
+         _pcos = param1;
+      }
+      
+      public function get psin() : Number
+      {
+         return _psin;
+      }
+      
+      public function set psin(param1:Number) : void
+      {
+         _psin = param1;
+      }
+      
+      public function get currentDistance() : int
+      {
+         return _currentDistance;
+      }
+      
+      public function set currentDistance(param1:int) : void
+      {
+         _currentDistance = param1;
+      }
+      
+      public function get type() : String
+      {
+         return _type;
+      }
+      
+      public function set type(param1:String) : void
+      {
+         _type = param1;
+      }
+   }
+}
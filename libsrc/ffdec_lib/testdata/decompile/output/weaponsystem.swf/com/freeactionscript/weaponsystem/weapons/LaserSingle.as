@@ -0,0 +1,31 @@
+package com.freeactionscript.weaponsystem.weapons
+{
+   import com.freeactionscript.weaponsystem.WeaponManager;
+   import com.freeactionscript.weaponsystem.components.AbstractWeapon;
+   import com.freeactionscript.weaponsystem.components.WeaponTypes;
+   
+   public class LaserSingle extends AbstractWeapon
+   {
+       
+      
+      public function LaserSingle(param1:String, param2:WeaponManager, param3:Number, param4:Number, param5:Number)
+      {
+         super(param1,param2,param3,param4,param5);
+         skinGun = "WeaponDualSkin";
+         skinBarrel = "Barrel4Skin";
+         skinBullet = "";
+         addChild(super.attachSkin(skinGun));
+         super.createBarrel(this,super.attachSkin(skinBarrel),0,0,8);
+         type = WeaponTypes.LASER;
+         rotateSpeedMax = 10;
+         reloadTime = 2500;
+         bulletSpread = 5;
+         bulletLifeTime = 1000;
+         bulletSpeed = 10;
+         maxDistance = 250;
+         laserColor = 65280;
+         laserWidth = 3;
+         laserAlpha = 1;
+      }
+   }
+}
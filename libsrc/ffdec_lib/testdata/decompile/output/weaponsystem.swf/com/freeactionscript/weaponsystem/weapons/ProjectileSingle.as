@@ -0,0 +1,31 @@
+package com.freeactionscript.weaponsystem.weapons
+{
+   import com.freeactionscript.weaponsystem.WeaponManager;
+   import com.freeactionscript.weaponsystem.components.AbstractWeapon;
+   import com.freeactionscript.weaponsystem.components.WeaponTypes;
+   
+   public class ProjectileSingle extends AbstractWeapon
+   {
+       
+      
+      public function ProjectileSingle(param1:String, param2:WeaponManager, param3:Number, param4:Number, param5:Number)
+      {
+         super(param1,param2,param3,param4,param5);
+         skinGun = "WeaponSingleSkin";
+         skinBarrel = "Barrel1Skin";
+         skinBullet = "BulletRed";
+         addChild(super.attachSkin(skinGun));
+         super.createBarrel(this,super.attachSkin(skinBarrel),-10,0,5);
+         type = WeaponTypes.PROJECTILE;
+         rotateSpeedMax = 5;
+         reloadTime = 250;
+         bulletSpread = 5;
+         bulletLifeTime = 2000;
+         bulletSpeed = 6;
+         maxDistance = 200;
+         laserColor = 65280;
+         laserWidth = 2;
+         laserAlpha = 0.75;
+      }
+   }
+}